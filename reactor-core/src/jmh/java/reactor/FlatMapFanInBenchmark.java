@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+
+/**
+ * Merges {@code inners} long-lived sources, like one per connection, of which a single
+ * random one emits at a time to a downstream requesting one value at a time. Each
+ * request drains the merge, comparing a scan of all the inners with the ready set mode
+ * that only visits inners with pending values (see the
+ * {@code reactor.flatMap.readySetThreshold} system property).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlatMapFanInBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	int inners;
+
+	static final int SIGNALS = 1024;
+
+	DirectProcessor<Integer>[] sources;
+
+	int[] emitters;
+
+	OneByOneSubscriber subscriber;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		sources = new DirectProcessor[inners];
+		for (int i = 0; i < inners; i++) {
+			sources[i] = DirectProcessor.create();
+		}
+		SplittableRandom random = new SplittableRandom(42);
+		emitters = new int[SIGNALS];
+		for (int i = 0; i < SIGNALS; i++) {
+			emitters[i] = random.nextInt(inners);
+		}
+		subscriber = new OneByOneSubscriber();
+		Flux.merge(Flux.fromArray(sources), inners, 32)
+		    .subscribe(subscriber);
+	}
+
+	@TearDown
+	public void tearDown() {
+		subscriber.dispose();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Dreactor.flatMap.readySetThreshold=2147483647")
+	public long arrayScan() {
+		return emit();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Dreactor.flatMap.readySetThreshold=1")
+	public long readySet() {
+		return emit();
+	}
+
+	long emit() {
+		DirectProcessor<Integer>[] s = sources;
+		int[] e = emitters;
+		for (int i = 0; i < SIGNALS; i++) {
+			s[e[i]].onNext(i);
+		}
+		return subscriber.sum;
+	}
+
+	static final class OneByOneSubscriber extends BaseSubscriber<Integer> {
+
+		long sum;
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			request(1);
+		}
+
+		@Override
+		protected void hookOnNext(Integer value) {
+			sum += value;
+			request(1);
+		}
+	}
+}
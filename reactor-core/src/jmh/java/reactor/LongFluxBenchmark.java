@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.LongFlux;
+
+/**
+ * Compares a boxed numeric pipeline with the same pipeline on a {@link LongFlux}. Run
+ * with {@code -prof gc}: the {@code gc.alloc.rate.norm} of the {@link LongFlux}
+ * benchmarks doesn't grow with {@code size}, the per-element path being allocation
+ * free, while the boxed ones allocate a {@link Long} or more per element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class LongFluxBenchmark {
+
+	@Param({"1000", "1000000"})
+	int size;
+
+	@Benchmark
+	public Long boxedMapFilterSum() {
+		return Flux.range(0, size)
+		           .map(i -> i * 3L)
+		           .filter(v -> v % 2 == 0)
+		           .reduce(0L, Long::sum)
+		           .block();
+	}
+
+	@Benchmark
+	public Long primitiveMapFilterSum() {
+		return LongFlux.range(0, size)
+		               .map(v -> v * 3L)
+		               .filter(v -> v % 2 == 0)
+		               .sum()
+		               .block();
+	}
+
+	@Benchmark
+	public Long boxedScan() {
+		return Flux.range(0, size)
+		           .map(i -> (long) i)
+		           .scan(Long::max)
+		           .last()
+		           .block();
+	}
+
+	@Benchmark
+	public Long primitiveScan() {
+		return LongFlux.range(0, size)
+		               .scan(Math::max)
+		               .reduce((a, b) -> b)
+		               .block();
+	}
+}
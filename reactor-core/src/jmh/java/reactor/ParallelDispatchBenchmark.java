@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.ParallelDispatchStrategy;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Compares the {@link ParallelDispatchStrategy} of {@link Flux#parallel} when one value
+ * in every {@code skew} is much more expensive to process than the others.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelDispatchBenchmark {
+
+	@Param({"ROUND_ROBIN", "MOST_DEMAND"})
+	ParallelDispatchStrategy strategy;
+
+	@Param({"16", "128"})
+	int skew;
+
+	Scheduler scheduler;
+
+	@Setup
+	public void setup() {
+		scheduler = Schedulers.newParallel("benchmark", 4);
+	}
+
+	@TearDown
+	public void tearDown() {
+		scheduler.dispose();
+	}
+
+	@Benchmark
+	public Object skewedCost() {
+		return Flux.range(0, 10_000)
+		           .parallel(4, 32, strategy)
+		           .runOn(scheduler, 8)
+		           .doOnNext(v -> Blackhole.consumeCPU(v % skew == 0 ? 10_000 : 100))
+		           .sequential()
+		           .blockLast();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.TopicProcessor;
+import reactor.util.concurrent.WaitStrategy;
+
+/**
+ * Compares the {@link WaitStrategy#adaptive adaptive} wait strategy to
+ * {@link WaitStrategy#phasedOffLiteLock phasedOff} under bursty load: each invocation
+ * publishes a burst of values to a {@link TopicProcessor}, waits until the consumer has
+ * seen them all, then stays idle for {@code idleMicros}. The measured time includes
+ * the consumer wake-up latency after the idle period; run with {@code -prof stack} or
+ * an OS-level CPU profiler to compare the CPU burned while idle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WaitStrategyBenchmark {
+
+	@Param({"phasedOff", "adaptive"})
+	String strategy;
+
+	@Param({"16", "256"})
+	int burst;
+
+	@Param({"10", "1000"})
+	int idleMicros;
+
+	TopicProcessor<Long> processor;
+
+	final AtomicLong received = new AtomicLong();
+
+	long sent;
+
+	@Setup
+	public void setup() {
+		WaitStrategy waitStrategy = "adaptive".equals(strategy) ?
+				WaitStrategy.adaptive(100, TimeUnit.MICROSECONDS) :
+				WaitStrategy.phasedOffLiteLock(200, 100, TimeUnit.MICROSECONDS);
+		processor = TopicProcessor.<Long>builder().name("benchmark")
+		                                          .bufferSize(1024)
+		                                          .waitStrategy(waitStrategy)
+		                                          .build();
+		processor.subscribe(v -> received.lazySet(v));
+	}
+
+	@TearDown
+	public void tearDown() {
+		processor.forceShutdown();
+	}
+
+	@Benchmark
+	public long bursty() {
+		for (int i = 0; i < burst; i++) {
+			processor.onNext(++sent);
+		}
+		while (received.get() != sent) {
+			//spin until the consumer caught up
+		}
+		LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(idleMicros));
+		return sent;
+	}
+}
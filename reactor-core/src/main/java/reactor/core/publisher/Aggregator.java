@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * An incremental aggregation for {@link Flux#aggregateWindows(WindowSpec, Aggregator)}:
+ * values are folded into accumulators which can be combined and turned into results.
+ * <p>
+ * An accumulator obtained from {@link #initial()} is owned by a single part of a window,
+ * so {@link #accumulate(Object, Object)} may modify it in place. The accumulators of
+ * these parts are shared by the overlapping windows though: {@link #combine(Object,
+ * Object)} and {@link #finish(Object)} must not modify their arguments.
+ *
+ * @param <T> the type of the aggregated values
+ * @param <A> the accumulator type
+ * @param <R> the result type
+ */
+public interface Aggregator<T, A, R> {
+
+	/**
+	 * Create an {@link Aggregator} from functions.
+	 *
+	 * @param initial the supplier of empty accumulators
+	 * @param accumulator the function folding a value into an accumulator
+	 * @param combiner the function combining two accumulators into a new one
+	 * @param finisher the function turning an accumulator into a result
+	 * @param <T> the type of the aggregated values
+	 * @param <A> the accumulator type
+	 * @param <R> the result type
+	 *
+	 * @return a new {@link Aggregator}
+	 */
+	static <T, A, R> Aggregator<T, A, R> of(Supplier<A> initial,
+			BiFunction<A, ? super T, A> accumulator,
+			BinaryOperator<A> combiner,
+			Function<? super A, ? extends R> finisher) {
+		Objects.requireNonNull(initial, "initial");
+		Objects.requireNonNull(accumulator, "accumulator");
+		Objects.requireNonNull(combiner, "combiner");
+		Objects.requireNonNull(finisher, "finisher");
+		return new Aggregator<T, A, R>() {
+			@Override
+			public A initial() {
+				return initial.get();
+			}
+
+			@Override
+			public A accumulate(A a, T value) {
+				return accumulator.apply(a, value);
+			}
+
+			@Override
+			public A combine(A left, A right) {
+				return combiner.apply(left, right);
+			}
+
+			@Override
+			public R finish(A a) {
+				return finisher.apply(a);
+			}
+		};
+	}
+
+	/**
+	 * Create an {@link Aggregator} whose results are its accumulators.
+	 *
+	 * @param initial the supplier of empty accumulators
+	 * @param accumulator the function folding a value into an accumulator
+	 * @param combiner the function combining two accumulators into a new one
+	 * @param <T> the type of the aggregated values
+	 * @param <A> the accumulator and result type
+	 *
+	 * @return a new {@link Aggregator}
+	 */
+	static <T, A> Aggregator<T, A, A> of(Supplier<A> initial,
+			BiFunction<A, ? super T, A> accumulator,
+			BinaryOperator<A> combiner) {
+		return of(initial, accumulator, combiner, Function.identity());
+	}
+
+	/**
+	 * @param <T> the type of the counted values
+	 *
+	 * @return an {@link Aggregator} counting the values
+	 */
+	static <T> Aggregator<T, Long, Long> counting() {
+		return of(() -> 0L, (c, t) -> c + 1L, Long::sum);
+	}
+
+	/**
+	 * @param mapper the function extracting the value to sum from each value
+	 * @param <T> the type of the aggregated values
+	 *
+	 * @return an {@link Aggregator} summing the extracted values
+	 */
+	static <T> Aggregator<T, Long, Long> summingLong(ToLongFunction<? super T> mapper) {
+		Objects.requireNonNull(mapper, "mapper");
+		return of(() -> 0L, (s, t) -> s + mapper.applyAsLong(t), Long::sum);
+	}
+
+	/**
+	 * @param mapper the function extracting the value to average from each value
+	 * @param <T> the type of the aggregated values
+	 *
+	 * @return an {@link Aggregator} averaging the extracted values, NaN for an empty
+	 * window
+	 */
+	static <T> Aggregator<T, double[], Double> averagingDouble(ToDoubleFunction<? super T> mapper) {
+		Objects.requireNonNull(mapper, "mapper");
+		//{sum, count}
+		return of(() -> new double[2],
+				(a, t) -> {
+					a[0] += mapper.applyAsDouble(t);
+					a[1]++;
+					return a;
+				},
+				(l, r) -> new double[]{l[0] + r[0], l[1] + r[1]},
+				a -> a[0] / a[1]);
+	}
+
+	/**
+	 * @return a new empty accumulator
+	 */
+	A initial();
+
+	/**
+	 * Fold a value into an accumulator.
+	 *
+	 * @param accumulator the accumulator, which may be modified in place
+	 * @param value the value to fold
+	 *
+	 * @return the resulting accumulator
+	 */
+	A accumulate(A accumulator, T value);
+
+	/**
+	 * Combine two accumulators of consecutive parts of a window.
+	 *
+	 * @param left the accumulator of the older part, not to be modified
+	 * @param right the accumulator of the newer part, not to be modified
+	 *
+	 * @return the combined accumulator
+	 */
+	A combine(A left, A right);
+
+	/**
+	 * Turn an accumulator into the result of a window.
+	 *
+	 * @param accumulator the accumulator, not to be modified
+	 *
+	 * @return the result
+	 */
+	R finish(A accumulator);
+}
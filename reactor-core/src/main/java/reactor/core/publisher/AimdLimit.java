@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+/**
+ * An additive-increase/multiplicative-decrease concurrency limit driven by latency
+ * samples: the limit grows by one for each fast enough sample taken while the limit was
+ * at least half used, and shrinks by {@link #BACKOFF} for each sample slower than
+ * {@link #TOLERANCE} times the baseline latency plus {@link #SLACK_NANOS}, or that
+ * failed. The baseline is the smallest latency of the previous {@link #WINDOW} samples,
+ * so that it follows the backend when its no-load latency changes.
+ */
+final class AimdLimit {
+
+	static final double BACKOFF   = 0.9;
+	static final double TOLERANCE = 2.0;
+	static final int    WINDOW    = 1000;
+	/**
+	 * Absorbs the jitter of very fast tasks.
+	 */
+	static final long SLACK_NANOS = 100_000L;
+
+	final int min;
+	final int max;
+
+	double limit;
+
+	long baseline  = Long.MAX_VALUE;
+	long windowMin = Long.MAX_VALUE;
+	int  samples;
+
+	volatile int currentLimit;
+
+	AimdLimit(int min, int max) {
+		this.min = min;
+		this.max = max;
+		this.limit = min;
+		this.currentLimit = min;
+	}
+
+	/**
+	 * @return the current limit, between min and max
+	 */
+	int getLimit() {
+		return currentLimit;
+	}
+
+	/**
+	 * Update the limit with the latency of a terminated task.
+	 *
+	 * @param latencyNanos the time the task took
+	 * @param inFlight the number of in-flight tasks including this one when it terminated
+	 * @param failed true if the task failed
+	 *
+	 * @return the new limit
+	 */
+	synchronized int onSample(long latencyNanos, int inFlight, boolean failed) {
+		if (latencyNanos < windowMin) {
+			windowMin = latencyNanos;
+		}
+		if (latencyNanos < baseline) {
+			baseline = latencyNanos;
+		}
+		if (++samples == WINDOW) {
+			baseline = windowMin;
+			windowMin = Long.MAX_VALUE;
+			samples = 0;
+		}
+
+		double l = limit;
+		if (failed || latencyNanos > baseline * TOLERANCE + SLACK_NANOS) {
+			l = Math.max(min, l * BACKOFF);
+		}
+		else if (inFlight * 2 >= currentLimit) {
+			l = Math.min(max, l + 1d);
+		}
+		limit = l;
+		int current = (int) l;
+		currentLimit = current;
+		return current;
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Micro-batches independent keyed {@link Mono} calls ("data loader"): keys requested
+ * through {@link #load(Object)} by concurrent subscribers are collected until either a
+ * maximum number of keys is reached or a maximum delay elapses, then loaded with a
+ * single call to the batch function. Each value emitted by the batch call is routed
+ * back to the subscribers that requested its key, as computed by the key extractor.
+ * Keys for which the batch emitted no value complete empty.
+ * <p>
+ * Duplicate keys within a window are only passed once to the batch function.
+ * Subscribers that cancel before their window is dispatched don't contribute their
+ * key to the batch.
+ * <p>
+ * Create a loader through the {@link #create(Function, Function, int, Duration)} static
+ * methods:
+ * <p>
+ * {@code BatchLoader<Long, User> users = BatchLoader.create(repository::findAllById, User::getId, 100, Duration.ofMillis(1))}
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the loaded values
+ */
+public final class BatchLoader<K, V> implements Disposable {
+
+	/**
+	 * Create a new {@link BatchLoader} dispatching windows of at most {@code maxBatchSize}
+	 * keys or {@code maxDelay} on the {@link Schedulers#parallel()} timer.
+	 *
+	 * @param batchFunction the function loading a batch of keys
+	 * @param keyExtractor the function extracting the key a loaded value belongs to
+	 * @param maxBatchSize the maximum number of keys in a batch
+	 * @param maxDelay the maximum delay a key waits for its batch to be dispatched
+	 * @param <K> the type of the keys
+	 * @param <V> the type of the loaded values
+	 *
+	 * @return a fresh batch loader
+	 */
+	public static <K, V> BatchLoader<K, V> create(Function<? super List<K>, ? extends Publisher<? extends V>> batchFunction,
+			Function<? super V, ? extends K> keyExtractor,
+			int maxBatchSize,
+			Duration maxDelay) {
+		return create(batchFunction, keyExtractor, maxBatchSize, maxDelay, Schedulers.parallel());
+	}
+
+	/**
+	 * Create a new {@link BatchLoader} dispatching windows of at most {@code maxBatchSize}
+	 * keys or {@code maxDelay}, as measured on the given {@link Scheduler}.
+	 *
+	 * @param batchFunction the function loading a batch of keys
+	 * @param keyExtractor the function extracting the key a loaded value belongs to
+	 * @param maxBatchSize the maximum number of keys in a batch
+	 * @param maxDelay the maximum delay a key waits for its batch to be dispatched
+	 * @param timer the time-capable {@link Scheduler} to measure the delay on
+	 * @param <K> the type of the keys
+	 * @param <V> the type of the loaded values
+	 *
+	 * @return a fresh batch loader
+	 */
+	public static <K, V> BatchLoader<K, V> create(Function<? super List<K>, ? extends Publisher<? extends V>> batchFunction,
+			Function<? super V, ? extends K> keyExtractor,
+			int maxBatchSize,
+			Duration maxDelay,
+			Scheduler timer) {
+		return new BatchLoader<>(batchFunction, keyExtractor, maxBatchSize, maxDelay, timer);
+	}
+
+	final Function<? super List<K>, ? extends Publisher<? extends V>> batchFunction;
+	final Function<? super V, ? extends K>                            keyExtractor;
+
+	final FluxSink<Request<K, V>> requests;
+
+	volatile boolean disposed;
+
+	BatchLoader(Function<? super List<K>, ? extends Publisher<? extends V>> batchFunction,
+			Function<? super V, ? extends K> keyExtractor,
+			int maxBatchSize,
+			Duration maxDelay,
+			Scheduler timer) {
+		this.batchFunction = Objects.requireNonNull(batchFunction, "batchFunction");
+		this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor");
+
+		@SuppressWarnings("unchecked")
+		FluxSink<Request<K, V>>[] sink = new FluxSink[1];
+		Flux.<Request<K, V>>create(s -> sink[0] = s)
+		    .bufferTimeout(maxBatchSize, maxDelay, timer)
+		    .subscribe(this::dispatch);
+		this.requests = sink[0];
+	}
+
+	/**
+	 * Return a {@link Mono} that, once subscribed, enqueues the key in the current
+	 * window and emits the value loaded for it by the batch call, or completes empty
+	 * if the batch call emitted no value for that key.
+	 *
+	 * @param key the key to load
+	 *
+	 * @return a {@link Mono} of the value associated with the key
+	 */
+	public Mono<V> load(K key) {
+		Objects.requireNonNull(key, "key");
+		return Mono.create(sink -> {
+			Request<K, V> r = new Request<>(key, sink);
+			sink.onCancel(() -> r.cancelled = true);
+			if (disposed) {
+				sink.error(new IllegalStateException("BatchLoader has been disposed"));
+				return;
+			}
+			requests.next(r);
+			//a concurrent dispose may have completed the window before the request got in
+			if (disposed && r.claim()) {
+				sink.error(new IllegalStateException("BatchLoader has been disposed"));
+			}
+		});
+	}
+
+	/**
+	 * Dispatch the current window and stop accepting new keys.
+	 */
+	@Override
+	public void dispose() {
+		if (!disposed) {
+			disposed = true;
+			requests.complete();
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	void dispatch(List<Request<K, V>> window) {
+		Map<K, List<Request<K, V>>> byKey = new LinkedHashMap<>();
+		for (Request<K, V> r : window) {
+			if (!r.cancelled && r.claim()) {
+				byKey.computeIfAbsent(r.key, k -> new ArrayList<>(1))
+				     .add(r);
+			}
+		}
+		if (byKey.isEmpty()) {
+			return;
+		}
+
+		Publisher<? extends V> batch;
+		try {
+			batch = Objects.requireNonNull(batchFunction.apply(new ArrayList<>(byKey.keySet())),
+					"The batchFunction returned a null Publisher");
+		}
+		catch (Throwable e) {
+			Throwable t = Operators.onOperatorError(e);
+			for (List<Request<K, V>> rs : byKey.values()) {
+				for (Request<K, V> r : rs) {
+					r.sink.error(t);
+				}
+			}
+			return;
+		}
+		batch.subscribe(new BatchSubscriber<>(byKey, keyExtractor));
+	}
+
+	static final class Request<K, V> {
+
+		final K           key;
+		final MonoSink<V> sink;
+
+		volatile boolean cancelled;
+
+		volatile int claimed;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<Request> CLAIMED =
+				AtomicIntegerFieldUpdater.newUpdater(Request.class, "claimed");
+
+		Request(K key, MonoSink<V> sink) {
+			this.key = key;
+			this.sink = sink;
+		}
+
+		/**
+		 * @return true if the caller is the first to either dispatch or reject this request
+		 */
+		boolean claim() {
+			return CLAIMED.compareAndSet(this, 0, 1);
+		}
+	}
+
+	static final class BatchSubscriber<K, V> implements Subscriber<V> {
+
+		final Map<K, List<Request<K, V>>>      pending;
+		final Function<? super V, ? extends K> keyExtractor;
+
+		Subscription s;
+
+		boolean done;
+
+		BatchSubscriber(Map<K, List<Request<K, V>>> pending,
+				Function<? super V, ? extends K> keyExtractor) {
+			this.pending = pending;
+			this.keyExtractor = keyExtractor;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				s.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(V v) {
+			if (done) {
+				Operators.onNextDropped(v);
+				return;
+			}
+			K k;
+			try {
+				k = keyExtractor.apply(v);
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, v));
+				return;
+			}
+			List<Request<K, V>> rs = pending.remove(k);
+			if (rs != null) {
+				for (Request<K, V> r : rs) {
+					r.sink.success(v);
+				}
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			for (List<Request<K, V>> rs : pending.values()) {
+				for (Request<K, V> r : rs) {
+					r.sink.error(t);
+				}
+			}
+			pending.clear();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			for (List<Request<K, V>> rs : pending.values()) {
+				for (Request<K, V> r : rs) {
+					r.sink.success();
+				}
+			}
+			pending.clear();
+		}
+	}
+}
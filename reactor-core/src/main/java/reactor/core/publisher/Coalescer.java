@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import reactor.core.Scannable;
+import javax.annotation.Nullable;
+
+/**
+ * Coalesces concurrent keyed {@link Mono} calls ("single-flight"): while a call for a
+ * given key is in flight, further subscribers asking for the same key share its result
+ * instead of triggering a new call. The key is forgotten as soon as the call
+ * terminates, so that the next subscriber after termination triggers a fresh call.
+ * <p>
+ * Create a coalescer through the {@link #create(Function)} static method:
+ * <p>
+ * {@code Coalescer<String, User> users = Coalescer.create(id -> repository.findUser(id))}
+ * <p>
+ * The shared call isn't cancelled when its subscribers cancel, it runs to completion
+ * and its result is dropped if nobody is interested anymore.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class Coalescer<K, V> implements Scannable {
+
+	/**
+	 * Create a new {@link Coalescer} that uses the given function to derive the
+	 * {@link Mono} to call for a given key.
+	 *
+	 * @param loader the function deriving the {@link Mono} to call for a key
+	 * @param <K> the type of the keys
+	 * @param <V> the type of the values
+	 *
+	 * @return a fresh coalescer
+	 */
+	public static <K, V> Coalescer<K, V> create(Function<? super K, ? extends Mono<? extends V>> loader) {
+		return new Coalescer<>(loader);
+	}
+
+	final Function<? super K, ? extends Mono<? extends V>> loader;
+
+	final ConcurrentHashMap<K, MonoProcessor<V>> inFlight;
+
+	Coalescer(Function<? super K, ? extends Mono<? extends V>> loader) {
+		this.loader = Objects.requireNonNull(loader, "loader");
+		this.inFlight = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Return a {@link Mono} that, once subscribed, either joins the in-flight call for
+	 * the given key or starts a new one if there is none.
+	 *
+	 * @param key the key to load
+	 *
+	 * @return a {@link Mono} of the value associated with the key
+	 */
+	public Mono<V> get(K key) {
+		Objects.requireNonNull(key, "key");
+		return Mono.defer(() -> {
+			MonoProcessor<V> p = inFlight.get(key);
+			if (p != null) {
+				return p;
+			}
+			MonoProcessor<V> created = MonoProcessor.create();
+			p = inFlight.putIfAbsent(key, created);
+			if (p != null) {
+				return p;
+			}
+
+			Mono<? extends V> source;
+			try {
+				source = Objects.requireNonNull(loader.apply(key),
+						"The loader returned a null Mono");
+			}
+			catch (Throwable e) {
+				//fail the callers that joined in the meantime before forgetting the call
+				created.onError(Operators.onOperatorError(e));
+				inFlight.remove(key, created);
+				return created;
+			}
+
+			source.doOnTerminate((v, e) -> inFlight.remove(key, created))
+			      .subscribe(created);
+			return created;
+		});
+	}
+
+	/**
+	 * Return the number of keys with a call currently in flight.
+	 *
+	 * @return the number of keys with a call currently in flight
+	 */
+	public int inFlightSize() {
+		return inFlight.size();
+	}
+
+	@Override
+	@Nullable
+	public Object scanUnsafe(Attr key) {
+		if (key == IntAttr.BUFFERED) return inFlight.size();
+
+		return null;
+	}
+}
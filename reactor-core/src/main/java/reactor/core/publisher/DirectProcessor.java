@@ -17,13 +17,15 @@ package reactor.core.publisher;
 
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
-import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Stream;
 
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 import reactor.core.Exceptions;
 import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Scheduler.Worker;
 import javax.annotation.Nullable;
 
 /**
@@ -38,6 +40,10 @@ import javax.annotation.Nullable;
  * <p>
  * <p>
  * A terminated DirectProcessor will emit the terminal signal to late subscribers.
+ * <p>
+ * Subscribers are kept in a registry with amortized constant-time subscription and
+ * cancellation, so that large fan-outs with a high churn of subscribers stay cheap.
+ * Such fan-outs can also be {@link #create(Scheduler, int) delivered in parallel}.
  *
  * @param <T> the input and output value type
  */
@@ -54,23 +60,50 @@ public final class DirectProcessor<T>
 		return new DirectProcessor<>();
 	}
 
-	@SuppressWarnings("rawtypes")
-	private static final DirectInner[] EMPTY = new DirectInner[0];
+	/**
+	 * Create a new {@link DirectProcessor} that delivers signals to its subscribers in
+	 * parallel once it has at least {@code fanOutThreshold} of them. The subscribers are
+	 * then split in chunks of {@code fanOutThreshold}, each chunk being signalled by its
+	 * own {@link Worker} of the given {@link Scheduler}, so that each subscriber still
+	 * sees the signals in order. Once the threshold has been reached, the processor
+	 * keeps delivering asynchronously even if subscribers leave.
+	 *
+	 * @param fanOutScheduler the {@link Scheduler} to deliver signals on once the
+	 * threshold is reached
+	 * @param fanOutThreshold the number of subscribers from which to deliver in parallel,
+	 * and the number of subscribers handled by each worker
+	 * @param <E> Type of processed signals
+	 * @return a fresh processor
+	 */
+	public static <E> DirectProcessor<E> create(Scheduler fanOutScheduler, int fanOutThreshold) {
+		Objects.requireNonNull(fanOutScheduler, "fanOutScheduler");
+		if (fanOutThreshold <= 0) {
+			throw new IllegalArgumentException("fanOutThreshold must be strictly positive, was: " + fanOutThreshold);
+		}
+		return new DirectProcessor<>(fanOutScheduler, fanOutThreshold);
+	}
+
+	final FanOutRegistry<DirectInner<T>> subscribers = new FanOutRegistry<>();
 
-	@SuppressWarnings("rawtypes")
-	private static final DirectInner[] TERMINATED = new DirectInner[0];
+	@Nullable
+	final Scheduler fanOutScheduler;
 
-	@SuppressWarnings("unchecked")
-	private volatile	 DirectInner<T>[]                                           subscribers = EMPTY;
-	@SuppressWarnings("rawtypes")
-	private static final AtomicReferenceFieldUpdater<DirectProcessor, DirectInner[]>SUBSCRIBERS =
-	  AtomicReferenceFieldUpdater.newUpdater(DirectProcessor.class,
-		DirectInner[].class,
-		"subscribers");
+	final int fanOutThreshold;
+
+	/**
+	 * One worker per chunk of subscribers, only accessed by the emitting side.
+	 */
+	Worker[] workers;
 
 	Throwable error;
 
 	DirectProcessor() {
+		this(null, Integer.MAX_VALUE);
+	}
+
+	DirectProcessor(@Nullable Scheduler fanOutScheduler, int fanOutThreshold) {
+		this.fanOutScheduler = fanOutScheduler;
+		this.fanOutThreshold = fanOutThreshold;
 	}
 
 	@Override
@@ -81,7 +114,7 @@ public final class DirectProcessor<T>
 	@Override
 	public void onSubscribe(Subscription s) {
 		Objects.requireNonNull(s, "s");
-		if (subscribers != TERMINATED) {
+		if (!subscribers.isTerminated()) {
 			s.request(Long.MAX_VALUE);
 		} else {
 			s.cancel();
@@ -92,8 +125,20 @@ public final class DirectProcessor<T>
 	public void onNext(T t) {
 		Objects.requireNonNull(t, "t");
 
-		for (DirectInner<T> s : subscribers) {
-			s.onNext(t);
+		int n = subscribers.size();
+		AtomicReferenceArray<DirectInner<T>> a = subscribers.slots();
+		n = Math.min(n, a.length());
+
+		if (workers != null || (fanOutScheduler != null && n >= fanOutThreshold)) {
+			fanOut(a, n, t, false);
+			return;
+		}
+
+		for (int i = 0; i < n; i++) {
+			DirectInner<T> s = a.get(i);
+			if (s != null) {
+				s.onNext(t);
+			}
 		}
 	}
 
@@ -102,15 +147,88 @@ public final class DirectProcessor<T>
 		Objects.requireNonNull(t, "t");
 
 		error = t;
-		for (DirectInner<?> s : SUBSCRIBERS.getAndSet(this, TERMINATED)) {
-			s.onError(t);
+		AtomicReferenceArray<DirectInner<T>> a = subscribers.terminate();
+		if (workers != null) {
+			fanOut(a, a.length(), null, true);
+			return;
+		}
+		for (int i = 0; i < a.length(); i++) {
+			DirectInner<T> s = a.get(i);
+			if (s != null) {
+				s.onError(t);
+			}
 		}
 	}
 
 	@Override
 	public void onComplete() {
-		for (DirectInner<?> s : SUBSCRIBERS.getAndSet(this, TERMINATED)) {
-			s.onComplete();
+		AtomicReferenceArray<DirectInner<T>> a = subscribers.terminate();
+		if (workers != null) {
+			fanOut(a, a.length(), null, true);
+			return;
+		}
+		for (int i = 0; i < a.length(); i++) {
+			DirectInner<T> s = a.get(i);
+			if (s != null) {
+				s.onComplete();
+			}
+		}
+	}
+
+	/**
+	 * Deliver a value, or the terminal signal, to the first {@code n} slots, each chunk
+	 * of {@link #fanOutThreshold} slots on its own worker. Workers are disposed once they
+	 * have delivered the terminal signal.
+	 */
+	void fanOut(AtomicReferenceArray<DirectInner<T>> a, int n, @Nullable T value, boolean terminal) {
+		int chunk = fanOutThreshold;
+		int chunks = (int) ((n + (long) chunk - 1) / chunk);
+		Worker[] w = workers;
+		if (w == null || w.length < chunks) {
+			Worker[] b = new Worker[Math.max(chunks, 1)];
+			if (w != null) {
+				System.arraycopy(w, 0, b, 0, w.length);
+			}
+			workers = b;
+			w = b;
+		}
+		if (terminal) {
+			chunks = w.length;
+		}
+		Throwable e = error;
+		for (int k = 0; k < chunks; k++) {
+			Worker worker = w[k];
+			if (worker == null) {
+				worker = Objects.requireNonNull(fanOutScheduler).createWorker();
+				w[k] = worker;
+			}
+			int from = k * chunk;
+			int to = (int) Math.min(n, (long) from + chunk);
+			//the subscribers at the time of the signal, not of the delivery
+			@SuppressWarnings("unchecked")
+			DirectInner<T>[] inners = new DirectInner[Math.max(0, to - from)];
+			for (int i = from; i < to; i++) {
+				inners[i - from] = a.get(i);
+			}
+			Worker current = worker;
+			worker.schedule(() -> {
+				for (DirectInner<T> s : inners) {
+					if (s != null) {
+						if (!terminal) {
+							s.onNext(value);
+						}
+						else if (e != null) {
+							s.onError(e);
+						}
+						else {
+							s.onComplete();
+						}
+					}
+				}
+				if (terminal) {
+					current.dispose();
+				}
+			});
 		}
 	}
 
@@ -140,84 +258,30 @@ public final class DirectProcessor<T>
 
 	@Override
 	public Stream<? extends Scannable> inners() {
-		return Stream.of(subscribers);
+		return subscribers.stream();
 	}
 
 	@Override
 	public boolean isTerminated() {
-		return TERMINATED == subscribers;
+		return subscribers.isTerminated();
 	}
 
 	@Override
 	public long downstreamCount() {
-		return subscribers.length;
+		return subscribers.count();
 	}
 
 	boolean add(DirectInner<T> s) {
-		DirectInner<T>[] a = subscribers;
-		if (a == TERMINATED) {
-			return false;
-		}
-
-		synchronized (this) {
-			a = subscribers;
-			if (a == TERMINATED) {
-				return false;
-			}
-			int len = a.length;
-
-			@SuppressWarnings("unchecked") DirectInner<T>[] b = new DirectInner[len + 1];
-			System.arraycopy(a, 0, b, 0, len);
-			b[len] = s;
-
-			subscribers = b;
-
-			return true;
-		}
+		return subscribers.add(s);
 	}
 
-	@SuppressWarnings("unchecked")
 	void remove(DirectInner<T> s) {
-		DirectInner<T>[] a = subscribers;
-		if (a == TERMINATED || a == EMPTY) {
-			return;
-		}
-
-		synchronized (this) {
-			a = subscribers;
-			if (a == TERMINATED || a == EMPTY) {
-				return;
-			}
-			int len = a.length;
-
-			int j = -1;
-
-			for (int i = 0; i < len; i++) {
-				if (a[i] == s) {
-					j = i;
-					break;
-				}
-			}
-			if (j < 0) {
-				return;
-			}
-			if (len == 1) {
-				subscribers = EMPTY;
-				return;
-			}
-
-			DirectInner<T>[] b = new DirectInner[len - 1];
-			System.arraycopy(a, 0, b, 0, j);
-			System.arraycopy(a, j + 1, b, j, len - j - 1);
-
-			subscribers = b;
-		}
+		subscribers.remove(s);
 	}
 
 	@Override
 	public boolean hasDownstreams() {
-		DirectInner<T>[] s = subscribers;
-		return s != EMPTY && s != TERMINATED;
+		return subscribers.count() != 0 && !subscribers.isTerminated();
 	}
 
 	/**
@@ -226,7 +290,7 @@ public final class DirectProcessor<T>
 	 * @return true if terminated with onComplete
 	 */
 	public boolean hasCompleted() {
-		return subscribers == TERMINATED && error == null;
+		return subscribers.isTerminated() && error == null;
 	}
 
 	/**
@@ -235,19 +299,19 @@ public final class DirectProcessor<T>
 	 * @return true if terminated with onError
 	 */
 	public boolean hasError() {
-		return subscribers == TERMINATED && error != null;
+		return subscribers.isTerminated() && error != null;
 	}
 
 	@Override
 	@Nullable
 	public Throwable getError() {
-		if (subscribers == TERMINATED) {
+		if (subscribers.isTerminated()) {
 			return error;
 		}
 		return null;
 	}
 
-	static final class DirectInner<T> implements InnerProducer<T> {
+	static final class DirectInner<T> implements InnerProducer<T>, FanOutRegistry.Member {
 
 		final Subscriber<? super T> actual;
 
@@ -255,6 +319,8 @@ public final class DirectProcessor<T>
 
 		volatile boolean cancelled;
 
+		int registryIndex = -1;
+
 		volatile long requested;
 		@SuppressWarnings("rawtypes")
 		static final AtomicLongFieldUpdater<DirectInner> REQUESTED =
@@ -294,6 +360,16 @@ public final class DirectProcessor<T>
 			return actual;
 		}
 
+		@Override
+		public int registryIndex() {
+			return registryIndex;
+		}
+
+		@Override
+		public void registryIndex(int index) {
+			registryIndex = index;
+		}
+
 		void onNext(T value) {
 			if (requested != 0L) {
 				actual.onNext(value);
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * A reactive sequence of 0 to N primitive {@code double} values, to process numeric
+ * streams without boxing each value into a {@link Double}.
+ * <p>
+ * A {@link DoubleFlux} follows the Reactive Streams rules, including backpressure, but
+ * isn't a {@link Publisher} as its values are delivered to a {@link DoubleSubscriber}.
+ * It is bridged from a {@link Flux} with {@link Flux#mapToDouble} and back with
+ * {@link #boxed()} or {@link #mapToObj(DoubleFunction)}, the values only being boxed at
+ * these boundaries. Consecutive {@link #map(DoubleUnaryOperator)} and
+ * {@link #filter(DoublePredicate)} operators are fused into a single operator at assembly
+ * time.
+ *
+ * @see LongFlux
+ */
+public abstract class DoubleFlux {
+
+	/**
+	 * Create a {@link DoubleFlux} that emits the values contained in the provided array.
+	 *
+	 * @param array the array to read values from
+	 *
+	 * @return a new {@link DoubleFlux}
+	 */
+	public static DoubleFlux fromArray(double... array) {
+		return new DoubleFluxArray(array);
+	}
+
+	/**
+	 * Subscribe the given {@link DoubleSubscriber} to this {@link DoubleFlux}.
+	 *
+	 * @param s the {@link DoubleSubscriber} to receive the values
+	 */
+	public abstract void subscribe(DoubleSubscriber s);
+
+	/**
+	 * Box the values of this {@link DoubleFlux} back into a {@link Flux}.
+	 *
+	 * @return a {@link Flux} of {@link Double}
+	 */
+	public final Flux<Double> boxed() {
+		return mapToObj(Double::valueOf);
+	}
+
+	/**
+	 * Collect the values of this {@link DoubleFlux} into arrays of the given size, the
+	 * last one possibly being shorter. Each array is allocated once for {@code size}
+	 * values, making it the cheap way to hand batches of values to a {@link Flux}.
+	 *
+	 * @param size the size of the arrays
+	 *
+	 * @return a {@link Flux} of arrays of {@code double}
+	 */
+	public final Flux<double[]> buffer(int size) {
+		return Flux.onAssembly(new DoubleFluxBuffer(this, size));
+	}
+
+	/**
+	 * Evaluate each value against the given {@link DoublePredicate} and only emit the
+	 * values that match it.
+	 *
+	 * @param predicate the {@link DoublePredicate} to test the values against
+	 *
+	 * @return a new {@link DoubleFlux} containing only the matching values
+	 */
+	public final DoubleFlux filter(DoublePredicate predicate) {
+		if (this instanceof DoubleFluxFilter) {
+			DoubleFluxFilter f = (DoubleFluxFilter) this;
+			return new DoubleFluxFilter(f.source, f.predicate.and(predicate));
+		}
+		return new DoubleFluxFilter(this, predicate);
+	}
+
+	/**
+	 * Transform the values of this {@link DoubleFlux} by applying a function to each of
+	 * them.
+	 *
+	 * @param mapper the transforming {@link DoubleUnaryOperator}
+	 *
+	 * @return a transformed {@link DoubleFlux}
+	 */
+	public final DoubleFlux map(DoubleUnaryOperator mapper) {
+		if (this instanceof DoubleFluxMap) {
+			DoubleFluxMap m = (DoubleFluxMap) this;
+			return new DoubleFluxMap(m.source, m.mapper.andThen(mapper));
+		}
+		return new DoubleFluxMap(this, mapper);
+	}
+
+	/**
+	 * Transform the values of this {@link DoubleFlux} into objects, bridging it to a
+	 * {@link Flux}.
+	 *
+	 * @param mapper the transforming {@link DoubleFunction}
+	 * @param <R> the transformed type
+	 *
+	 * @return a transformed {@link Flux}
+	 */
+	public final <R> Flux<R> mapToObj(DoubleFunction<? extends R> mapper) {
+		return Flux.onAssembly(new DoubleFluxMapToObj<>(this, mapper));
+	}
+
+	/**
+	 * Reduce the values of this {@link DoubleFlux} into a single value by applying the
+	 * accumulator to the result so far and each value, the first value being the
+	 * initial result. The result is empty if this {@link DoubleFlux} is.
+	 *
+	 * @param accumulator the reducing {@link DoubleBinaryOperator}
+	 *
+	 * @return a reduced {@link Mono}
+	 */
+	public final Mono<Double> reduce(DoubleBinaryOperator accumulator) {
+		return Mono.onAssembly(new DoubleFluxReduce(this, false, 0d, accumulator));
+	}
+
+	/**
+	 * Reduce the values of this {@link DoubleFlux} into a single value by applying the
+	 * accumulator to the result so far and each value, starting from the given
+	 * initial value.
+	 *
+	 * @param initial the initial result
+	 * @param accumulator the reducing {@link DoubleBinaryOperator}
+	 *
+	 * @return a reduced {@link Mono}
+	 */
+	public final Mono<Double> reduce(double initial, DoubleBinaryOperator accumulator) {
+		return Mono.onAssembly(new DoubleFluxReduce(this, true, initial, accumulator));
+	}
+
+	/**
+	 * Emit the first value of this {@link DoubleFlux} as is, then the result of applying
+	 * the accumulator to the previous result and each following value.
+	 *
+	 * @param accumulator the accumulating {@link DoubleBinaryOperator}
+	 *
+	 * @return an accumulating {@link DoubleFlux}
+	 */
+	public final DoubleFlux scan(DoubleBinaryOperator accumulator) {
+		return new DoubleFluxScan(this, accumulator);
+	}
+
+	/**
+	 * Sum the values of this {@link DoubleFlux}, emitting 0 if it is empty.
+	 *
+	 * @return a {@link Mono} of the sum
+	 */
+	public final Mono<Double> sum() {
+		return reduce(0d, Double::sum);
+	}
+}
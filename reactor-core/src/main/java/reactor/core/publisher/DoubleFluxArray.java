@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.reactivestreams.Subscription;
+
+/**
+ * Emits the values of a primitive {@code double} array.
+ */
+final class DoubleFluxArray extends DoubleFlux {
+
+	final double[] array;
+
+	DoubleFluxArray(double[] array) {
+		this.array = Objects.requireNonNull(array, "array");
+	}
+
+	@Override
+	public void subscribe(DoubleSubscriber s) {
+		if (array.length == 0) {
+			s.onSubscribe(Operators.emptySubscription());
+			s.onComplete();
+			return;
+		}
+		s.onSubscribe(new ArraySubscription(s, array));
+	}
+
+	static final class ArraySubscription implements Subscription {
+
+		final DoubleSubscriber actual;
+
+		final double[] array;
+
+		int index;
+
+		volatile boolean cancelled;
+
+		volatile long requested;
+		static final AtomicLongFieldUpdater<ArraySubscription> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(ArraySubscription.class, "requested");
+
+		ArraySubscription(DoubleSubscriber actual, double[] array) {
+			this.actual = actual;
+			this.array = array;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				if (Operators.getAndAddCap(REQUESTED, this, n) == 0) {
+					if (n == Long.MAX_VALUE) {
+						fastPath();
+					}
+					else {
+						slowPath(n);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		void fastPath() {
+			final double[] a = array;
+			final int len = a.length;
+			final DoubleSubscriber s = actual;
+
+			for (int i = index; i != len; i++) {
+				if (cancelled) {
+					return;
+				}
+				s.onNext(a[i]);
+			}
+			if (cancelled) {
+				return;
+			}
+			s.onComplete();
+		}
+
+		void slowPath(long n) {
+			final double[] a = array;
+			final int len = a.length;
+			final DoubleSubscriber s = actual;
+
+			int i = index;
+			long e = 0L;
+
+			for (; ; ) {
+				if (cancelled) {
+					return;
+				}
+
+				while (i != len && e != n) {
+					s.onNext(a[i]);
+
+					if (cancelled) {
+						return;
+					}
+
+					i++;
+					e++;
+				}
+
+				if (i == len) {
+					s.onComplete();
+					return;
+				}
+
+				n = requested;
+				if (n == e) {
+					index = i;
+					n = REQUESTED.addAndGet(this, -e);
+					if (n == 0L) {
+						return;
+					}
+					e = 0L;
+				}
+			}
+		}
+	}
+}
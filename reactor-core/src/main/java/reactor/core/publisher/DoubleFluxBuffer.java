@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Collects the primitive {@code double} values of the source into arrays of a given size,
+ * the last one possibly being shorter.
+ */
+final class DoubleFluxBuffer extends Flux<double[]> {
+
+	final DoubleFlux source;
+
+	final int size;
+
+	DoubleFluxBuffer(DoubleFlux source, int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("size > 0 required but it was " + size);
+		}
+		this.source = Objects.requireNonNull(source, "source");
+		this.size = size;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super double[]> s) {
+		source.subscribe(new BufferSubscriber(s, size));
+	}
+
+	static final class BufferSubscriber implements DoubleSubscriber, Subscription {
+
+		final Subscriber<? super double[]> actual;
+
+		final int size;
+
+		Subscription s;
+
+		double[] buffer;
+
+		int index;
+
+		boolean done;
+
+		BufferSubscriber(Subscriber<? super double[]> actual, int size) {
+			this.actual = actual;
+			this.size = size;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(double t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			double[] b = buffer;
+			if (b == null) {
+				b = new double[size];
+				buffer = b;
+			}
+			b[index++] = t;
+			if (index == size) {
+				buffer = null;
+				index = 0;
+				actual.onNext(b);
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			buffer = null;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			double[] b = buffer;
+			if (b != null) {
+				buffer = null;
+				actual.onNext(Arrays.copyOf(b, index));
+			}
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				s.request(Operators.multiplyCap(n, size));
+			}
+		}
+
+		@Override
+		public void cancel() {
+			s.cancel();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.DoublePredicate;
+
+import org.reactivestreams.Subscription;
+
+/**
+ * Only lets the primitive {@code double} values of the source matching a predicate through.
+ */
+final class DoubleFluxFilter extends DoubleFlux {
+
+	final DoubleFlux source;
+
+	final DoublePredicate predicate;
+
+	DoubleFluxFilter(DoubleFlux source, DoublePredicate predicate) {
+		this.source = Objects.requireNonNull(source, "source");
+		this.predicate = Objects.requireNonNull(predicate, "predicate");
+	}
+
+	@Override
+	public void subscribe(DoubleSubscriber s) {
+		source.subscribe(new FilterSubscriber(s, predicate));
+	}
+
+	static final class FilterSubscriber implements DoubleSubscriber, Subscription {
+
+		final DoubleSubscriber actual;
+
+		final DoublePredicate predicate;
+
+		Subscription s;
+
+		boolean done;
+
+		FilterSubscriber(DoubleSubscriber actual, DoublePredicate predicate) {
+			this.actual = actual;
+			this.predicate = predicate;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(double t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			boolean b;
+			try {
+				b = predicate.test(t);
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+			if (b) {
+				actual.onNext(t);
+			}
+			else {
+				s.request(1);
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			s.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			s.cancel();
+		}
+	}
+}
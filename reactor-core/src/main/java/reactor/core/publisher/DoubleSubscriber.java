@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * The {@link Subscriber} of a {@link DoubleFlux}, receiving primitive {@code double}
+ * values. It follows the Reactive Streams rules of a {@link Subscriber}, including the
+ * backpressure negotiated through the {@link Subscription} it receives.
+ */
+public interface DoubleSubscriber {
+
+	/**
+	 * @param s the {@link Subscription} to request values with
+	 *
+	 * @see Subscriber#onSubscribe(Subscription)
+	 */
+	void onSubscribe(Subscription s);
+
+	/**
+	 * @param t the value
+	 *
+	 * @see Subscriber#onNext(Object)
+	 */
+	void onNext(double t);
+
+	/**
+	 * @param t the error
+	 *
+	 * @see Subscriber#onError(Throwable)
+	 */
+	void onError(Throwable t);
+
+	/**
+	 * @see Subscriber#onComplete()
+	 */
+	void onComplete();
+}
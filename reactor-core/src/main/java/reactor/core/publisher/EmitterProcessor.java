@@ -16,8 +16,10 @@
 
 package reactor.core.publisher;
 
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Stream;
@@ -30,8 +32,6 @@ import reactor.core.Scannable;
 import reactor.util.concurrent.QueueSupplier;
 import javax.annotation.Nullable;
 
-import static reactor.core.publisher.FluxPublish.PublishSubscriber.EMPTY;
-import static reactor.core.publisher.FluxPublish.PublishSubscriber.TERMINATED;
 
 /**
  * * An implementation of a RingBuffer backed message-passing Processor implementing
@@ -181,13 +181,13 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 					Subscription.class,
 					"s");
 
-	volatile FluxPublish.PubSubInner<T>[] subscribers;
+	final FanOutRegistry<EmitterInner<T>> subscribers = new FanOutRegistry<>();
 
-	@SuppressWarnings("rawtypes")
-	static final AtomicReferenceFieldUpdater<EmitterProcessor, FluxPublish.PubSubInner[]>
-			SUBSCRIBERS = AtomicReferenceFieldUpdater.newUpdater(EmitterProcessor.class,
-			FluxPublish.PubSubInner[].class,
-			"subscribers");
+	/**
+	 * The subscribers a drain pass emits to, reused across passes as the registry
+	 * slots are updated in place. Only accessed from the drain loop.
+	 */
+	EmitterInner<T>[] snapshot;
 
 	@SuppressWarnings("unused")
 	volatile int wip;
@@ -216,12 +216,11 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 		}
 		this.autoCancel = autoCancel;
 		this.prefetch = prefetch;
-		SUBSCRIBERS.lazySet(this, EMPTY);
 	}
 
 	@Override
 	public Stream<? extends Scannable> inners() {
-		return Stream.of(subscribers);
+		return subscribers.stream();
 	}
 
 	@Override
@@ -419,13 +418,29 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 			}
 
 			if (!empty) {
-				FluxPublish.PubSubInner<T>[] a = subscribers;
+				int n = subscribers.size();
+				AtomicReferenceArray<EmitterInner<T>> a = subscribers.slots();
+				n = Math.min(n, a.length());
 				long maxRequested = Long.MAX_VALUE;
 
-				int len = a.length;
+				//only emit to the subscribers whose demand is accounted for below, as
+				// others may take free slots while the values are emitted
+				EmitterInner<T>[] inners = snapshot;
+				if (inners == null || inners.length < n) {
+					@SuppressWarnings("unchecked")
+					EmitterInner<T>[] b = new EmitterInner[a.length()];
+					inners = b;
+					snapshot = b;
+				}
+				int len = 0;
 				int cancel = 0;
 
-				for (FluxPublish.PubSubInner<T> inner : a) {
+				for (int i = 0; i < n; i++) {
+					EmitterInner<T> inner = a.get(i);
+					if (inner == null) {
+						continue;
+					}
+					inners[len++] = inner;
 					long r = inner.requested;
 					if (r >= 0L) {
 						maxRequested = Math.min(maxRequested, r);
@@ -436,6 +451,7 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 				}
 
 				if (len == cancel) {
+					Arrays.fill(inners, 0, len, null);
 					T v;
 
 					try {
@@ -484,7 +500,8 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 						break;
 					}
 
-					for (FluxPublish.PubSubInner<T> inner : a) {
+					for (int i = 0; i < len; i++) {
+						EmitterInner<T> inner = inners[i];
 						inner.actual.onNext(v);
 						if (FluxPublish.PubSubInner.produced(inner,
 								1) == FluxPublish.PublishInner.CANCEL_REQUEST) {
@@ -494,6 +511,7 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 
 					e++;
 				}
+				Arrays.fill(inners, 0, len, null);
 
 				if (e != 0 && sourceMode != Fuseable.SYNC) {
 					s.request(e);
@@ -511,9 +529,8 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	FluxPublish.PubSubInner<T>[] terminate() {
-		return SUBSCRIBERS.getAndSet(this, TERMINATED);
+	AtomicReferenceArray<EmitterInner<T>> terminate() {
+		return subscribers.terminate();
 	}
 
 	boolean checkTerminated(boolean d, boolean empty) {
@@ -534,14 +551,22 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 				if (q != null) {
 					q.clear();
 				}
-				for (FluxPublish.PubSubInner<T> inner : terminate()) {
-					inner.actual.onError(e);
+				AtomicReferenceArray<EmitterInner<T>> a = terminate();
+				for (int i = 0; i < a.length(); i++) {
+					EmitterInner<T> inner = a.get(i);
+					if (inner != null) {
+						inner.actual.onError(e);
+					}
 				}
 				return true;
 			}
 			else if (empty) {
-				for (FluxPublish.PubSubInner<T> inner : terminate()) {
-					inner.actual.onComplete();
+				AtomicReferenceArray<EmitterInner<T>> a = terminate();
+				for (int i = 0; i < a.length(); i++) {
+					EmitterInner<T> inner = a.get(i);
+					if (inner != null) {
+						inner.actual.onComplete();
+					}
 				}
 				return true;
 			}
@@ -550,79 +575,49 @@ public final class EmitterProcessor<T> extends FluxProcessor<T, T> {
 	}
 
 	final boolean add(EmitterInner<T> inner) {
-		for (; ; ) {
-			FluxPublish.PubSubInner<T>[] a = subscribers;
-			if (a == TERMINATED) {
-				return false;
-			}
-			int n = a.length;
-			FluxPublish.PubSubInner<?>[] b = new FluxPublish.PubSubInner[n + 1];
-			System.arraycopy(a, 0, b, 0, n);
-			b[n] = inner;
-			if (SUBSCRIBERS.compareAndSet(this, a, b)) {
-				return true;
-			}
-		}
+		return subscribers.add(inner);
 	}
 
-	final void remove(FluxPublish.PubSubInner<T> inner) {
-		for (; ; ) {
-			FluxPublish.PubSubInner<T>[] a = subscribers;
-			if (a == TERMINATED || a == EMPTY) {
-				return;
-			}
-			int n = a.length;
-			int j = -1;
-			for (int i = 0; i < n; i++) {
-				if (a[i] == inner) {
-					j = i;
-					break;
-				}
-			}
-
-			if (j < 0) {
+	final void remove(EmitterInner<T> inner) {
+		if (subscribers.remove(inner) == 0 && autoCancel && Operators.terminate(S, this)) {
+			if (WIP.getAndIncrement(this) != 0) {
 				return;
 			}
-
-			FluxPublish.PubSubInner<?>[] b;
-			if (n == 1) {
-				b = EMPTY;
-			}
-			else {
-				b = new FluxPublish.PubSubInner<?>[n - 1];
-				System.arraycopy(a, 0, b, 0, j);
-				System.arraycopy(a, j + 1, b, j, n - j - 1);
-			}
-			if (SUBSCRIBERS.compareAndSet(this, a, b)) {
-				if (autoCancel && b == EMPTY && Operators.terminate(S, this)) {
-					if (WIP.getAndIncrement(this) != 0) {
-						return;
-					}
-					terminate();
-					Queue<T> q = queue;
-					if (q != null) {
-						q.clear();
-					}
-				}
+			terminate();
+			Queue<T> q = queue;
+			if (q != null) {
+				q.clear();
 			}
-			return;
 		}
 	}
 
 	@Override
 	public long downstreamCount() {
-		return subscribers.length;
+		return subscribers.count();
 	}
 
-	static final class EmitterInner<T> extends FluxPublish.PubSubInner<T> {
+	static final class EmitterInner<T> extends FluxPublish.PubSubInner<T>
+			implements FanOutRegistry.Member {
 
 		final EmitterProcessor<T> parent;
 
+		int registryIndex = -1;
+
 		EmitterInner(Subscriber<? super T> actual, EmitterProcessor<T> parent) {
 			super(actual);
 			this.parent = parent;
 		}
 
+		@Override
+		public int registryIndex() {
+			return registryIndex;
+		}
+
+		@Override
+		public void registryIndex(int index) {
+			registryIndex = index;
+		}
+
 		@Override
 		void drainParent() {
 			parent.drain();
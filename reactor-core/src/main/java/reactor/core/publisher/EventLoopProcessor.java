@@ -16,6 +16,9 @@
 package reactor.core.publisher;
 
 import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -74,6 +77,30 @@ abstract class EventLoopProcessor<IN> extends FluxProcessor<IN, IN>
 		return bufferIterable;
 	}
 
+	/**
+	 * Subscribe to a cold replay of the ring buffer, buffering it into lists if the
+	 * subscriber was registered through {@link #batches()}.
+	 *
+	 * @param source the cold replay
+	 * @param subscriber the target subscriber
+	 * @param batched true if the subscriber expects lists of values
+	 * @param batchSize the maximum size of the lists
+	 * @param <E> the value type
+	 */
+	@SuppressWarnings("unchecked")
+	static <E> void subscribeCold(Flux<E> source,
+			Subscriber<? super E> subscriber,
+			boolean batched,
+			int batchSize) {
+		if (batched) {
+			source.buffer(batchSize)
+			      .subscribe((Subscriber<? super List<E>>) (Subscriber) subscriber);
+		}
+		else {
+			source.subscribe(subscriber);
+		}
+	}
+
 	/**
 	 * Create a {@link Runnable} event loop that will keep monitoring a {@link
 	 * LongSupplier} and compare it to a {@link RingBuffer}
@@ -367,6 +394,40 @@ abstract class EventLoopProcessor<IN> extends FluxProcessor<IN, IN>
 		return Flux.empty();
 	}
 
+	/**
+	 * Return a {@link Flux} that subscribes to this processor in batch mode: instead of
+	 * one {@link Subscriber#onNext(Object)} per value, each wake-up of the subscriber
+	 * event-loop delivers the whole range of values available at once, as a read-only
+	 * {@link List} view over the ring buffer slots. This lets the subscriber do a single
+	 * bulk operation (batch insert, gathering write...) per batch.
+	 * <p>
+	 * Demand is expressed in batches, each batch holding at most
+	 * {@link #getBufferSize()} values. The list is not a copy: it is only valid during the
+	 * {@code onNext} call and must be copied if it has to be retained afterwards, as the
+	 * slots it reads from are recycled as soon as {@code onNext} returns.
+	 *
+	 * @return a {@link Flux} of batches of values
+	 */
+	public final Flux<List<IN>> batches() {
+		return new FluxBatches<>(this);
+	}
+
+	/**
+	 * Subscribe a new event-loop consumer.
+	 *
+	 * @param subscriber the target subscriber, expecting {@link List} batches of values
+	 * if batched
+	 * @param batched true if available values should be delivered in batches
+	 */
+	void subscribe(Subscriber<? super IN> subscriber, boolean batched) {
+		super.subscribe(subscriber);
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super IN> subscriber) {
+		subscribe(subscriber, false);
+	}
+
 	/**
 	 * Shutdown this {@code Processor}, forcibly halting any work currently executing and discarding any tasks that have
 	 * not yet been executed.
@@ -638,6 +699,59 @@ abstract class EventLoopProcessor<IN> extends FluxProcessor<IN, IN>
 	}
 
 
+	/**
+	 * A read-only {@link List} view over a contiguous range of ring buffer slots.
+	 *
+	 * @param <T> the value type
+	 */
+	static final class SlotList<T> extends AbstractList<T> implements RandomAccess {
+
+		final RingBuffer<Slot<T>> ringBuffer;
+		final long                start;
+		final int                 size;
+
+		SlotList(RingBuffer<Slot<T>> ringBuffer, long start, long end) {
+			this.ringBuffer = ringBuffer;
+			this.start = start;
+			this.size = (int) (end - start + 1L);
+		}
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return ringBuffer.get(start + index).value;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	static final class FluxBatches<IN> extends Flux<List<IN>> implements Scannable {
+
+		final EventLoopProcessor<IN> processor;
+
+		FluxBatches(EventLoopProcessor<IN> processor) {
+			this.processor = processor;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void subscribe(Subscriber<? super List<IN>> actual) {
+			processor.subscribe((Subscriber<? super IN>) (Subscriber) actual, true);
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return processor;
+			return null;
+		}
+	}
+
 	final static class EventLoopFactory
 			implements ThreadFactory, Supplier<String> {
 		/** */
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import reactor.core.Disposable;
+import reactor.util.concurrent.QueueSupplier;
+import reactor.util.concurrent.WaitStrategy;
+
+/**
+ * A ring of pre-allocated mutable events, exchanged between producers and consumers
+ * without allocating or copying: producers claim one or more slots, mutate the events
+ * in place and publish them, while each {@link EventRing.Consumer} reads the published
+ * events in place and releases them once done. A producer can't overtake the slowest
+ * consumer, so released slots are the only ones recycled.
+ * <p>
+ * A typical producer looks like:
+ * <pre>
+ * long hi = ring.next(batch);
+ * long lo = hi - batch + 1;
+ * try {
+ *     for (long seq = lo; seq &lt;= hi; seq++) {
+ *         ring.get(seq).value = ...;
+ *     }
+ * } finally {
+ *     ring.publish(lo, hi);
+ * }
+ * </pre>
+ * and a typical consumer:
+ * <pre>
+ * long next = consumer.sequence() + 1;
+ * long available = consumer.waitFor(next);
+ * for (long seq = next; seq &lt;= available; seq++) {
+ *     handle(consumer.get(seq));
+ * }
+ * consumer.release(available);
+ * </pre>
+ * Events are owned by the ring: they must not be retained after they have been
+ * published (producer side) or released (consumer side).
+ *
+ * @param <E> the type of the pre-allocated events
+ */
+public final class EventRing<E> {
+
+	/**
+	 * Create a new {@link EventRing} of {@code bufferSize} events pre-allocated by the
+	 * factory, claimed by a single producer thread at a time and waited on with a
+	 * {@link WaitStrategy#liteBlocking()} strategy.
+	 *
+	 * @param factory the event factory, called once per slot
+	 * @param bufferSize the number of slots, a power of 2
+	 * @param <E> the type of the pre-allocated events
+	 *
+	 * @return a fresh single-producer {@link EventRing}
+	 */
+	public static <E> EventRing<E> createSingleProducer(Supplier<E> factory, int bufferSize) {
+		return createSingleProducer(factory, bufferSize, WaitStrategy.liteBlocking());
+	}
+
+	/**
+	 * Create a new {@link EventRing} of {@code bufferSize} events pre-allocated by the
+	 * factory, claimed by a single producer thread at a time and waited on with the
+	 * given {@link WaitStrategy}.
+	 *
+	 * @param factory the event factory, called once per slot
+	 * @param bufferSize the number of slots, a power of 2
+	 * @param waitStrategy the strategy consumers use to wait for published events
+	 * @param <E> the type of the pre-allocated events
+	 *
+	 * @return a fresh single-producer {@link EventRing}
+	 */
+	public static <E> EventRing<E> createSingleProducer(Supplier<E> factory,
+			int bufferSize,
+			WaitStrategy waitStrategy) {
+		validate(factory, bufferSize, waitStrategy);
+		return new EventRing<>(RingBuffer.createSingleProducer(factory, bufferSize, waitStrategy));
+	}
+
+	/**
+	 * Create a new {@link EventRing} of {@code bufferSize} events pre-allocated by the
+	 * factory, that can be claimed concurrently by several producer threads and waited
+	 * on with a {@link WaitStrategy#liteBlocking()} strategy.
+	 *
+	 * @param factory the event factory, called once per slot
+	 * @param bufferSize the number of slots, a power of 2
+	 * @param <E> the type of the pre-allocated events
+	 *
+	 * @return a fresh multi-producer {@link EventRing}
+	 */
+	public static <E> EventRing<E> createMultiProducer(Supplier<E> factory, int bufferSize) {
+		return createMultiProducer(factory, bufferSize, WaitStrategy.liteBlocking());
+	}
+
+	/**
+	 * Create a new {@link EventRing} of {@code bufferSize} events pre-allocated by the
+	 * factory, that can be claimed concurrently by several producer threads and waited
+	 * on with the given {@link WaitStrategy}.
+	 *
+	 * @param factory the event factory, called once per slot
+	 * @param bufferSize the number of slots, a power of 2
+	 * @param waitStrategy the strategy consumers use to wait for published events
+	 * @param <E> the type of the pre-allocated events
+	 *
+	 * @return a fresh multi-producer {@link EventRing}
+	 */
+	public static <E> EventRing<E> createMultiProducer(Supplier<E> factory,
+			int bufferSize,
+			WaitStrategy waitStrategy) {
+		validate(factory, bufferSize, waitStrategy);
+		return new EventRing<>(RingBuffer.createMultiProducer(factory, bufferSize, waitStrategy, null));
+	}
+
+	static void validate(Supplier<?> factory, int bufferSize, WaitStrategy waitStrategy) {
+		Objects.requireNonNull(factory, "factory");
+		Objects.requireNonNull(waitStrategy, "waitStrategy");
+		if (!QueueSupplier.isPowerOfTwo(bufferSize)) {
+			throw new IllegalArgumentException("bufferSize must be a power of 2, was: " + bufferSize);
+		}
+	}
+
+	final RingBuffer<E> ringBuffer;
+
+	EventRing(RingBuffer<E> ringBuffer) {
+		this.ringBuffer = ringBuffer;
+	}
+
+	/**
+	 * Claim the next slot, waiting for the slowest consumer to release it if the ring
+	 * is full. The claimed slot must always be {@link #publish(long) published} afterward.
+	 *
+	 * @return the claimed sequence
+	 */
+	public long next() {
+		return ringBuffer.next();
+	}
+
+	/**
+	 * Claim the next {@code n} contiguous slots, waiting for the slowest consumer to
+	 * release them if needed. The claimed range {@code [hi - n + 1, hi]} must always
+	 * be {@link #publish(long, long) published} afterward.
+	 *
+	 * @param n the number of slots to claim, between 1 and {@link #bufferSize()}
+	 *
+	 * @return the highest claimed sequence
+	 */
+	public long next(int n) {
+		if (n < 1 || n > ringBuffer.bufferSize()) {
+			throw new IllegalArgumentException("n must be between 1 and " + ringBuffer.bufferSize() + ", was: " + n);
+		}
+		return ringBuffer.next(n);
+	}
+
+	/**
+	 * Return the pre-allocated event at the given sequence, to be mutated in place by
+	 * the producer that claimed it or read in place by a consumer it was published to.
+	 *
+	 * @param sequence the sequence of the event
+	 *
+	 * @return the event at that sequence
+	 */
+	public E get(long sequence) {
+		return ringBuffer.get(sequence);
+	}
+
+	/**
+	 * Make the event at the given claimed sequence visible to consumers.
+	 *
+	 * @param sequence the claimed sequence to publish
+	 */
+	public void publish(long sequence) {
+		ringBuffer.publish(sequence);
+	}
+
+	/**
+	 * Make the events in the given claimed range visible to consumers.
+	 *
+	 * @param lo the lowest claimed sequence to publish, inclusive
+	 * @param hi the highest claimed sequence to publish, inclusive
+	 */
+	public void publish(long lo, long hi) {
+		ringBuffer.publish(lo, hi);
+	}
+
+	/**
+	 * @return the number of slots in the ring
+	 */
+	public int bufferSize() {
+		return ringBuffer.bufferSize();
+	}
+
+	/**
+	 * @return the highest claimed sequence, published or not
+	 */
+	public long getCursor() {
+		return ringBuffer.getCursor();
+	}
+
+	/**
+	 * @return the number of claimed events the slowest consumer has not released yet
+	 */
+	public int getPending() {
+		return ringBuffer.getPending();
+	}
+
+	/**
+	 * Register a new {@link EventRing.Consumer} that receives every event published
+	 * after the current cursor. Producers will wait for it to release slots until it is
+	 * {@link Consumer#dispose() disposed}.
+	 *
+	 * @return a new {@link EventRing.Consumer}
+	 */
+	public Consumer<E> newConsumer() {
+		RingBuffer.Sequence sequence = RingBuffer.newSequence(ringBuffer.getCursor());
+		ringBuffer.addGatingSequence(sequence);
+		return new Consumer<>(ringBuffer, sequence);
+	}
+
+	/**
+	 * A reader of the events published to an {@link EventRing}, tracking the sequence
+	 * up to which it has released events back to producers.
+	 *
+	 * @param <E> the type of the pre-allocated events
+	 */
+	public static final class Consumer<E> implements Disposable {
+
+		final RingBuffer<E>       ringBuffer;
+		final RingBuffer.Sequence sequence;
+		final RingBuffer.Reader   reader;
+		final Runnable            spinObserver;
+
+		volatile boolean disposed;
+
+		Consumer(RingBuffer<E> ringBuffer, RingBuffer.Sequence sequence) {
+			this.ringBuffer = ringBuffer;
+			this.sequence = sequence;
+			this.reader = ringBuffer.newReader();
+			this.spinObserver = () -> {
+				if (reader.isAlerted()) {
+					WaitStrategy.alert();
+				}
+			};
+		}
+
+		/**
+		 * @return the highest sequence released by this consumer
+		 */
+		public long sequence() {
+			return sequence.getAsLong();
+		}
+
+		/**
+		 * Wait, using the ring {@link WaitStrategy}, until the given sequence is published
+		 * and return the highest contiguous published sequence, which can be used to read
+		 * a whole batch at once. If {@link #halt() halted} while waiting, an exception
+		 * matching {@link WaitStrategy#isAlert(Throwable)} is thrown.
+		 *
+		 * @param sequence the sequence to wait for
+		 *
+		 * @return the highest sequence available for reading
+		 *
+		 * @throws InterruptedException if the waiting thread has been interrupted
+		 */
+		public long waitFor(long sequence) throws InterruptedException {
+			return reader.waitFor(sequence, spinObserver);
+		}
+
+		/**
+		 * Return the highest contiguous published sequence without waiting, which is
+		 * {@link #sequence()} if no new event is available.
+		 *
+		 * @return the highest sequence available for reading
+		 */
+		public long available() {
+			long next = sequence.getAsLong() + 1;
+			long cursor = ringBuffer.getCursor();
+			if (cursor < next) {
+				return next - 1;
+			}
+			return ringBuffer.getSequencer()
+			                 .getHighestPublishedSequence(next, cursor);
+		}
+
+		/**
+		 * Return the event at the given published sequence, to be read in place.
+		 *
+		 * @param sequence the sequence of the event
+		 *
+		 * @return the event at that sequence
+		 */
+		public E get(long sequence) {
+			return ringBuffer.get(sequence);
+		}
+
+		/**
+		 * Release all events up to the given sequence back to producers. Released events
+		 * can be overwritten at any time and must not be read anymore.
+		 *
+		 * @param sequence the highest sequence done with, inclusive
+		 */
+		public void release(long sequence) {
+			this.sequence.set(sequence);
+		}
+
+		/**
+		 * Alert any thread blocked in {@link #waitFor(long)} and make further waits fail
+		 * until {@link #resume() resumed}.
+		 */
+		public void halt() {
+			reader.alert();
+		}
+
+		/**
+		 * Clear a previous {@link #halt()}.
+		 */
+		public void resume() {
+			reader.clearAlert();
+		}
+
+		/**
+		 * Stop gating producers on this consumer and halt it.
+		 */
+		@Override
+		public void dispose() {
+			if (!disposed) {
+				disposed = true;
+				ringBuffer.removeGatingSequence(sequence);
+				reader.alert();
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return disposed;
+		}
+	}
+}
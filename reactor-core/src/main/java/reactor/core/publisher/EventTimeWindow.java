@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+
+/**
+ * The result of an event-time window emitted by
+ * {@link Flux#aggregateEventTimeWindows(WindowSpec, java.util.function.ToLongFunction,
+ * java.time.Duration, Aggregator)}, along with the bounds of the window in the unit of
+ * the timestamps.
+ *
+ * @param <R> the result type
+ */
+public final class EventTimeWindow<R> {
+
+	final long    start;
+	final long    end;
+	final R       result;
+	final boolean update;
+
+	EventTimeWindow(long start, long end, R result, boolean update) {
+		this.start = start;
+		this.end = end;
+		this.result = result;
+		this.update = update;
+	}
+
+	/**
+	 * @return the start of the window, inclusive
+	 */
+	public long start() {
+		return start;
+	}
+
+	/**
+	 * @return the end of the window, exclusive
+	 */
+	public long end() {
+		return end;
+	}
+
+	/**
+	 * @return the aggregated result of the values of the window
+	 */
+	public R result() {
+		return result;
+	}
+
+	/**
+	 * @return true if this result replaces a previous result of the same window, as
+	 * late values arrived within the allowed lateness
+	 */
+	public boolean isUpdate() {
+		return update;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof EventTimeWindow)) {
+			return false;
+		}
+		EventTimeWindow<?> that = (EventTimeWindow<?>) o;
+		return start == that.start && end == that.end && update == that.update &&
+				result.equals(that.result);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(start, end, result, update);
+	}
+
+	@Override
+	public String toString() {
+		return "EventTimeWindow{[" + start + ", " + end + ")=" + result +
+				(update ? ", update" : "") + "}";
+	}
+}
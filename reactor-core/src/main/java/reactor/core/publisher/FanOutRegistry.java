@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A registry of the subscribers of a multicasting processor, designed for a large
+ * number of subscribers that come and go.
+ * <p>
+ * Members are stored in slots of an array that only grows by doubling, and each member
+ * remembers its slot: adding reuses a free slot or appends, removing clears the slot and
+ * recycles it, both in amortized O(1) instead of the O(n) copy-on-write of a plain
+ * array. Members never move to another slot while registered.
+ * <p>
+ * Adding and removing are serialized, while the emitting side iterates over the slots
+ * without locking: it reads {@link #size()} then {@link #slots()}, and skips the
+ * empty slots. A member added or removed during such an iteration may or may not be
+ * visited, like with a copy-on-write snapshot.
+ *
+ * @param <S> the member type
+ */
+final class FanOutRegistry<S extends FanOutRegistry.Member> {
+
+	/**
+	 * A member of a {@link FanOutRegistry}, which keeps track of its slot.
+	 */
+	interface Member {
+
+		/**
+		 * @return the slot of this member in its registry, or -1 if not registered
+		 */
+		int registryIndex();
+
+		/**
+		 * @param index the slot of this member in its registry, or -1 once removed
+		 */
+		void registryIndex(int index);
+	}
+
+	static final int INITIAL_CAPACITY = 4;
+
+	volatile AtomicReferenceArray<S> slots;
+
+	/**
+	 * One past the highest occupied slot.
+	 */
+	volatile int size;
+
+	volatile int count;
+
+	volatile boolean terminated;
+
+	int[] free;
+
+	int freeCount;
+
+	FanOutRegistry() {
+		this.slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+		this.free = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Add a member to a free slot.
+	 *
+	 * @param s the member to add
+	 *
+	 * @return false if the registry has been terminated
+	 */
+	synchronized boolean add(S s) {
+		if (terminated) {
+			return false;
+		}
+		AtomicReferenceArray<S> a = slots;
+		int index = freeCount != 0 ? free[--freeCount] : size;
+		if (index == a.length()) {
+			AtomicReferenceArray<S> b = new AtomicReferenceArray<>(index << 1);
+			for (int i = 0; i < index; i++) {
+				b.lazySet(i, a.get(i));
+			}
+			a = b;
+			slots = b;
+		}
+		s.registryIndex(index);
+		a.set(index, s);
+		if (index >= size) {
+			size = index + 1;
+		}
+		count++;
+		return true;
+	}
+
+	/**
+	 * Remove a member and recycle its slot.
+	 *
+	 * @param s the member to remove
+	 *
+	 * @return the number of remaining members, or -1 if the member wasn't registered
+	 */
+	synchronized int remove(S s) {
+		int index = s.registryIndex();
+		AtomicReferenceArray<S> a = slots;
+		if (terminated || index < 0 || a.get(index) != s) {
+			return -1;
+		}
+		a.set(index, null);
+		s.registryIndex(-1);
+
+		int n = size;
+		if (index == n - 1) {
+			do {
+				n--;
+			}
+			while (n != 0 && a.get(n - 1) == null);
+			size = n;
+		}
+
+		int[] f = free;
+		if (freeCount == f.length) {
+			int[] g = new int[freeCount << 1];
+			System.arraycopy(f, 0, g, 0, freeCount);
+			free = g;
+			f = g;
+		}
+		f[freeCount++] = index;
+
+		int c = count - 1;
+		count = c;
+		return c;
+	}
+
+	/**
+	 * Prevent any further addition and return the slots holding the members at that
+	 * point, which are then removed.
+	 *
+	 * @return the slots of the members before termination, possibly empty
+	 */
+	synchronized AtomicReferenceArray<S> terminate() {
+		AtomicReferenceArray<S> a = slots;
+		if (terminated) {
+			return new AtomicReferenceArray<>(0);
+		}
+		terminated = true;
+		slots = new AtomicReferenceArray<>(0);
+		size = 0;
+		count = 0;
+		return a;
+	}
+
+	boolean isTerminated() {
+		return terminated;
+	}
+
+	/**
+	 * @return the number of registered members
+	 */
+	int count() {
+		return count;
+	}
+
+	/**
+	 * @return one past the highest occupied slot, to be read before {@link #slots()}
+	 */
+	int size() {
+		return size;
+	}
+
+	AtomicReferenceArray<S> slots() {
+		return slots;
+	}
+
+	Stream<S> stream() {
+		int n = size;
+		AtomicReferenceArray<S> a = slots;
+		return IntStream.range(0, Math.min(n, a.length()))
+		                .mapToObj(a::get)
+		                .filter(s -> s != null);
+	}
+}
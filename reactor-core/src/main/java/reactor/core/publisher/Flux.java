@@ -42,6 +42,8 @@ import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 import java.util.logging.Level;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
@@ -1814,6 +1816,134 @@ public abstract class Flux<T> implements Publisher<T> {
 		                    }));
 	}
 
+	/**
+	 * Aggregate the values of tumbling or sliding windows of event time with the given
+	 * {@link Aggregator}, the event time of each value being read in milliseconds by
+	 * the given extractor instead of being the time the value is received at.
+	 * <p>
+	 * The values may arrive out of order by up to {@code maxOutOfOrderness}: a window
+	 * is fired once the watermark, the highest timestamp seen minus
+	 * {@code maxOutOfOrderness}, passes its end, or once this {@link Flux} completes.
+	 * Only the windows containing values are fired. Values arriving later than that
+	 * are dropped. The accumulators are kept per window pane and folded incrementally,
+	 * without buffering nor sorting the values.
+	 *
+	 * @param spec the {@link WindowSpec#tumbling(Duration) tumbling} or
+	 * {@link WindowSpec#sliding(Duration, Duration) sliding} time windows, in whole
+	 * milliseconds
+	 * @param timestampExtractor the function reading the event time of each value, in
+	 * milliseconds
+	 * @param maxOutOfOrderness how late a value can arrive compared to the highest
+	 * timestamp seen before it
+	 * @param aggregator the {@link Aggregator} of the values of each window
+	 * @param <A> the accumulator type
+	 * @param <R> the result type
+	 *
+	 * @return a {@link Flux} of the {@link EventTimeWindow} results in event time order
+	 */
+	public final <A, R> Flux<EventTimeWindow<R>> aggregateEventTimeWindows(WindowSpec spec,
+			ToLongFunction<? super T> timestampExtractor,
+			Duration maxOutOfOrderness,
+			Aggregator<? super T, A, ? extends R> aggregator) {
+		return aggregateEventTimeWindows(spec, timestampExtractor, maxOutOfOrderness,
+				Duration.ZERO, aggregator, t -> {
+				});
+	}
+
+	/**
+	 * Aggregate the values of tumbling or sliding windows of event time with the given
+	 * {@link Aggregator}, the event time of each value being read in milliseconds by
+	 * the given extractor, and handle the late values according to the given policy:
+	 * <ul>
+	 *     <li>values arriving after their window fired but within
+	 *     {@code allowedLateness} of its end fire it again with an
+	 *     {@link EventTimeWindow#isUpdate() updated} result, or for the first time if
+	 *     it was empty when the watermark passed it,</li>
+	 *     <li>values arriving later than that are handed to the
+	 *     {@code lateValueHandler}, e.g. to be published on a side output.</li>
+	 * </ul>
+	 * The pane accumulators are kept until the watermark passes the end of their
+	 * windows by the allowed lateness.
+	 *
+	 * @param spec the {@link WindowSpec#tumbling(Duration) tumbling} or
+	 * {@link WindowSpec#sliding(Duration, Duration) sliding} time windows, in whole
+	 * milliseconds
+	 * @param timestampExtractor the function reading the event time of each value, in
+	 * milliseconds
+	 * @param maxOutOfOrderness how late a value can arrive compared to the highest
+	 * timestamp seen before it
+	 * @param allowedLateness how long after the watermark passed their end the windows
+	 * can still be updated
+	 * @param aggregator the {@link Aggregator} of the values of each window
+	 * @param lateValueHandler the handler of the values arriving after the allowed
+	 * lateness
+	 * @param <A> the accumulator type
+	 * @param <R> the result type
+	 *
+	 * @return a {@link Flux} of the {@link EventTimeWindow} results
+	 *
+	 * @see #aggregateEventTimeWindows(WindowSpec, ToLongFunction, Duration, Aggregator)
+	 */
+	public final <A, R> Flux<EventTimeWindow<R>> aggregateEventTimeWindows(WindowSpec spec,
+			ToLongFunction<? super T> timestampExtractor,
+			Duration maxOutOfOrderness,
+			Duration allowedLateness,
+			Aggregator<? super T, A, ? extends R> aggregator,
+			Consumer<? super T> lateValueHandler) {
+		return onAssembly(new FluxEventTimeWindows<>(this, spec, timestampExtractor,
+				maxOutOfOrderness.toMillis(), allowedLateness.toMillis(), aggregator,
+				lateValueHandler, QueueSupplier.SMALL_BUFFER_SIZE));
+	}
+
+	/**
+	 * Aggregate the values of each window described by the given {@link WindowSpec}
+	 * incrementally with the given {@link Aggregator}, emitting one result per window.
+	 * Unlike {@link #window(int, int)} followed by {@link #reduce(BiFunction)}, no
+	 * {@link Flux} is opened per window and each value is folded once, even when the
+	 * windows overlap: the windows are made of panes whose accumulators are combined
+	 * when a window closes. Time-based windows are timed on the
+	 * {@link Schedulers#parallel() parallel} {@link Scheduler}.
+	 * <p>
+	 * Count-based windows honor backpressure by requesting just enough values from
+	 * the source. Time-based and session windows request the source unbounded and
+	 * emit every window, empty or not for time-based ones, failing with an
+	 * {@link IllegalStateException} if a result is not requested by the time its
+	 * window closes. On completion, the windows still open are emitted if they
+	 * contain values.
+	 *
+	 * @param spec the {@link WindowSpec} describing the windows
+	 * @param aggregator the {@link Aggregator} of the values of each window
+	 * @param <A> the accumulator type
+	 * @param <R> the result type
+	 *
+	 * @return a {@link Flux} of the result of each window
+	 */
+	public final <A, R> Flux<R> aggregateWindows(WindowSpec spec,
+			Aggregator<? super T, A, ? extends R> aggregator) {
+		return aggregateWindows(spec, aggregator, Schedulers.parallel());
+	}
+
+	/**
+	 * Aggregate the values of each window described by the given {@link WindowSpec}
+	 * incrementally with the given {@link Aggregator}, emitting one result per window,
+	 * time-based windows being timed on the given {@link Scheduler}.
+	 *
+	 * @param spec the {@link WindowSpec} describing the windows
+	 * @param aggregator the {@link Aggregator} of the values of each window
+	 * @param timer a time-capable {@link Scheduler} to time the windows on
+	 * @param <A> the accumulator type
+	 * @param <R> the result type
+	 *
+	 * @return a {@link Flux} of the result of each window
+	 *
+	 * @see #aggregateWindows(WindowSpec, Aggregator)
+	 */
+	public final <A, R> Flux<R> aggregateWindows(WindowSpec spec,
+			Aggregator<? super T, A, ? extends R> aggregator,
+			Scheduler timer) {
+		return onAssembly(new FluxAggregateWindows<>(this, spec, aggregator, timer));
+	}
+
 	/**
 	 *
 	 * Emit a single boolean true if all values of this sequence match
@@ -2278,7 +2408,7 @@ public abstract class Flux<T> implements Publisher<T> {
 	 */
 	public final  <C extends Collection<? super T>> Flux<C> bufferTimeout(int maxSize, Duration timespan,
 			Scheduler timer, Supplier<C> bufferSupplier) {
-		return onAssembly(new FluxBufferTimeOrSize<>(this, maxSize, timespan.toMillis(), timer, bufferSupplier));
+		return onAssembly(new FluxBufferTimeOrSize<>(this, maxSize, timespan.toNanos(), timer, bufferSupplier));
 	}
 
 	/**
@@ -2615,6 +2745,28 @@ public abstract class Flux<T> implements Publisher<T> {
 		return Mono.onAssembly(new MonoStreamCollector<>(this, collector));
 	}
 
+	/**
+	 * Add the keys extracted from the values of this {@link Flux} to a
+	 * {@link HyperLogLog} sketch emitted when this sequence completes. Sketches of the
+	 * same precision can be {@link HyperLogLog#merge(HyperLogLog) merged}, e.g. to
+	 * combine the sketches of several windows.
+	 *
+	 * @param keySelector the function extracting the key to count from each value
+	 * @param precision the precision of the sketch, between
+	 * {@link HyperLogLog#MIN_PRECISION} and {@link HyperLogLog#MAX_PRECISION}
+	 *
+	 * @return a new {@link Mono} of the sketch
+	 *
+	 * @see #countDistinctApprox(Function, int)
+	 */
+	public final Mono<HyperLogLog> collectHyperLogLog(Function<? super T, ?> keySelector, int precision) {
+		HyperLogLog.checkPrecision(precision);
+		Objects.requireNonNull(keySelector, "keySelector");
+		return collect(() -> new HyperLogLog(precision),
+				(h, t) -> h.add(Objects.requireNonNull(keySelector.apply(t),
+						"The keySelector returned a null value")));
+	}
+
 	/**
 	 * Collect all elements emitted by this {@link Flux} into a {@link List} that is
 	 * emitted by the resulting {@link Mono} when this sequence completes.
@@ -2808,6 +2960,28 @@ public abstract class Flux<T> implements Publisher<T> {
 		});
 	}
 
+	/**
+	 * Record the values extracted from the values of this {@link Flux} into a
+	 * {@link QuantileSketch} emitted when this sequence completes. Sketches of the same
+	 * relative accuracy can be {@link QuantileSketch#merge(QuantileSketch) merged}, e.g.
+	 * to combine the sketches of several windows.
+	 *
+	 * @param valueExtractor the function extracting the value to record from each value
+	 * @param relativeAccuracy the maximum relative error of the estimated quantiles,
+	 * strictly between 0 and 1
+	 *
+	 * @return a new {@link Mono} of the sketch
+	 *
+	 * @see #quantiles(ToDoubleFunction, double...)
+	 */
+	public final Mono<QuantileSketch> collectQuantileSketch(ToDoubleFunction<? super T> valueExtractor,
+			double relativeAccuracy) {
+		QuantileSketch.checkRelativeAccuracy(relativeAccuracy);
+		Objects.requireNonNull(valueExtractor, "valueExtractor");
+		return collect(() -> new QuantileSketch(relativeAccuracy),
+				(q, t) -> q.add(valueExtractor.applyAsDouble(t)));
+	}
+
 	/**
 	 * Collect all elements emitted by this {@link Flux} until this sequence completes,
 	 * and then sort them in natural order into a {@link List} that is emitted by the
@@ -3129,6 +3303,26 @@ public abstract class Flux<T> implements Publisher<T> {
 		return Mono.onAssembly(new MonoCount<>(this));
 	}
 
+	/**
+	 * Estimate the number of distinct keys extracted from the values of this
+	 * {@link Flux} with a {@link HyperLogLog} sketch, in a constant memory of
+	 * {@code 2^precision} bytes instead of keeping all the keys like
+	 * {@link #distinct(Function)} does. The estimate has a relative standard error of
+	 * {@code 1.04 / sqrt(2^precision)}, e.g. 1.6% for a precision of 12.
+	 * <p>
+	 * Use it on each {@link #window(Duration) window} to count the distinct values per
+	 * period.
+	 *
+	 * @param keySelector the function extracting the key to count from each value
+	 * @param precision the precision of the sketch, between
+	 * {@link HyperLogLog#MIN_PRECISION} and {@link HyperLogLog#MAX_PRECISION}
+	 *
+	 * @return a new {@link Mono} of the estimated distinct count
+	 */
+	public final Mono<Long> countDistinctApprox(Function<? super T, ?> keySelector, int precision) {
+		return collectHyperLogLog(keySelector, precision).map(HyperLogLog::estimate);
+	}
+
 	/**
 	 * Provide a default unique value if this sequence is completed without any data
 	 * <p>
@@ -3853,6 +4047,93 @@ public abstract class Flux<T> implements Publisher<T> {
 		return flatMap(mapper, true, concurrency, prefetch);
 	}
 
+	/**
+	 * Transform the elements emitted by this {@link Flux} asynchronously into Publishers,
+	 * then flatten these inner publishers into a single {@link Flux} through merging,
+	 * which allow them to interleave, adapting the number of in-flight inner sequences
+	 * to their latency.
+	 * <p>
+	 * Like {@link #flatMap(Function, int)}, but instead of a fixed concurrency, the limit
+	 * of in-flight inner sequences starts at {@code minConcurrency} and is adjusted with
+	 * an additive-increase/multiplicative-decrease algorithm: it grows by one for each
+	 * inner that completes in less than twice the observed no-load latency while the
+	 * limit is at least half used, and shrinks by 10% for each inner that is slower. An
+	 * inner error terminates the sequence, use
+	 * {@link #flatMapAdaptiveDelayError(Function, int, int, int)} to back off on errors
+	 * instead. The limit is enforced by requesting fewer elements from this {@link Flux},
+	 * and the current value can be inspected with {@link reactor.core.Scannable.IntAttr#CAPACITY}.
+	 * <p>
+	 * This suits inners calling a remote service, for which there is no good fixed
+	 * concurrency: too low wastes idle capacity, too high overloads the service when
+	 * it slows down.
+	 *
+	 * @param mapper the {@link Function} to transform input sequence into N sequences {@link Publisher}
+	 * @param minConcurrency the minimum, and initial, number of in-flight inner sequences
+	 * @param maxConcurrency the maximum number of in-flight inner sequences
+	 * @param <V> the merged output sequence type
+	 *
+	 * @return a merged {@link Flux}
+	 */
+	public final <V> Flux<V> flatMapAdaptive(Function<? super T, ? extends Publisher<? extends V>> mapper,
+			int minConcurrency, int maxConcurrency) {
+		return flatMapAdaptive(mapper, minConcurrency, maxConcurrency, QueueSupplier.XS_BUFFER_SIZE);
+	}
+
+	/**
+	 * Transform the elements emitted by this {@link Flux} asynchronously into Publishers,
+	 * then flatten these inner publishers into a single {@link Flux} through merging,
+	 * which allow them to interleave, adapting the number of in-flight inner sequences
+	 * to their latency.
+	 * <p>
+	 * Like {@link #flatMap(Function, int, int)}, but instead of a fixed concurrency, the
+	 * limit of in-flight inner sequences starts at {@code minConcurrency} and is adjusted
+	 * with an additive-increase/multiplicative-decrease algorithm: it grows by one for
+	 * each inner that completes in less than twice the observed no-load latency while the
+	 * limit is at least half used, and shrinks by 10% for each inner that is slower. An
+	 * inner error terminates the sequence, use
+	 * {@link #flatMapAdaptiveDelayError(Function, int, int, int)} to back off on errors
+	 * instead. The limit is enforced by requesting fewer elements from this {@link Flux},
+	 * and the current value can be inspected with {@link reactor.core.Scannable.IntAttr#CAPACITY}.
+	 *
+	 * @param mapper the {@link Function} to transform input sequence into N sequences {@link Publisher}
+	 * @param minConcurrency the minimum, and initial, number of in-flight inner sequences
+	 * @param maxConcurrency the maximum number of in-flight inner sequences
+	 * @param prefetch the maximum in-flight elements from each inner {@link Publisher} sequence
+	 * @param <V> the merged output sequence type
+	 *
+	 * @return a merged {@link Flux}
+	 */
+	public final <V> Flux<V> flatMapAdaptive(Function<? super T, ? extends Publisher<? extends V>> mapper,
+			int minConcurrency, int maxConcurrency, int prefetch) {
+		return onAssembly(new FluxFlatMapAdaptive<>(this, mapper, false, minConcurrency,
+				maxConcurrency, prefetch, System::nanoTime));
+	}
+
+	/**
+	 * Transform the elements emitted by this {@link Flux} asynchronously into Publishers,
+	 * then flatten these inner publishers into a single {@link Flux} through merging,
+	 * which allow them to interleave, adapting the number of in-flight inner sequences
+	 * to their latency.
+	 * <p>
+	 * Like {@link #flatMapAdaptive(Function, int, int, int)}, but any error is delayed
+	 * until after the rest of the flatMap backlog has been processed. This is the only
+	 * variant where failing inners shrink the limit of in-flight inner sequences by 10%,
+	 * like slow ones, instead of terminating the whole sequence.
+	 *
+	 * @param mapper the {@link Function} to transform input sequence into N sequences {@link Publisher}
+	 * @param minConcurrency the minimum, and initial, number of in-flight inner sequences
+	 * @param maxConcurrency the maximum number of in-flight inner sequences
+	 * @param prefetch the maximum in-flight elements from each inner {@link Publisher} sequence
+	 * @param <V> the merged output sequence type
+	 *
+	 * @return a merged {@link Flux}
+	 */
+	public final <V> Flux<V> flatMapAdaptiveDelayError(Function<? super T, ? extends Publisher<? extends V>> mapper,
+			int minConcurrency, int maxConcurrency, int prefetch) {
+		return onAssembly(new FluxFlatMapAdaptive<>(this, mapper, true, minConcurrency,
+				maxConcurrency, prefetch, System::nanoTime));
+	}
+
 	/**
 	 * Transform the signals emitted by this {@link Flux} asynchronously into Publishers,
 	 * then flatten these inner publishers into a single {@link Flux} through merging,
@@ -4263,6 +4544,53 @@ public abstract class Flux<T> implements Publisher<T> {
 				QueueSupplier.unbounded(QueueSupplier.XS_BUFFER_SIZE)));
 	}
 
+	/**
+	 * Map values from two Publishers into time windows and emit combination of values
+	 * sharing the same key in case their windows overlap. The emitted elements are
+	 * obtained by passing the value from this {@link Flux} and a {@link Flux} emitting
+	 * the matching values from the other {@link Publisher} to a {@link BiFunction}.
+	 * <p>
+	 * This is an equi-join variant of {@link #groupJoin(Publisher, Function, Function, BiFunction)}:
+	 * open values are indexed by key so that each new value is only correlated with the
+	 * open values of the other side having an {@link Object#equals(Object) equal} key,
+	 * rather than with all of them.
+	 *
+	 * @param other the other {@link Publisher} to correlate items with
+	 * @param leftKey a function that returns the non null key of a source value
+	 * @param rightKey a function that returns the non null key of a {@code right} value
+	 * @param leftEnd a function that returns a Publisher whose emissions indicate the
+	 * time window for the source value to be considered
+	 * @param rightEnd a function that returns a Publisher whose emissions indicate the
+	 * time window for the {@code right} Publisher value to be considered
+	 * @param resultSelector a function that takes an item emitted by this {@link Flux} and
+	 * a {@link Flux} representation of the overlapping items with the same key from the
+	 * other {@link Publisher} and returns the value to be emitted by the resulting {@link Flux}
+	 * @param <TRight> the type of the elements from the right {@link Publisher}
+	 * @param <K> the type of the join key
+	 * @param <TLeftEnd> the type for this {@link Flux} window signals
+	 * @param <TRightEnd> the type for the right {@link Publisher} window signals
+	 * @param <R> the combined result type
+	 *
+	 * @return a joining {@link Flux}
+	 * @see #join(Publisher, Function, Function, Function, Function, BiFunction)
+	 */
+	public final <TRight, K, TLeftEnd, TRightEnd, R> Flux<R> groupJoin(
+			Publisher<? extends TRight> other,
+			Function<? super T, ? extends K> leftKey,
+			Function<? super TRight, ? extends K> rightKey,
+			Function<? super T, ? extends Publisher<TLeftEnd>> leftEnd,
+			Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
+			BiFunction<? super T, ? super Flux<TRight>, ? extends R> resultSelector
+	) {
+		return onAssembly(new FluxGroupJoin<T, TRight, TLeftEnd, TRightEnd, R>(
+				this, other,
+				Objects.requireNonNull(leftKey, "leftKey"),
+				Objects.requireNonNull(rightKey, "rightKey"),
+				leftEnd, rightEnd, resultSelector,
+				QueueSupplier.unbounded(QueueSupplier.XS_BUFFER_SIZE),
+				QueueSupplier.unbounded(QueueSupplier.XS_BUFFER_SIZE)));
+	}
+
 	/**
 	 * Handle the items emitted by this {@link Flux} by calling a biconsumer with the
 	 * output sink for each onNext. At most one {@link SynchronousSink#next(Object)}
@@ -4379,6 +4707,51 @@ public abstract class Flux<T> implements Publisher<T> {
 				.unbounded(QueueSupplier.XS_BUFFER_SIZE)));
 	}
 
+	/**
+	 * Map values from two Publishers into time windows and emit combination of values
+	 * sharing the same key in case their windows overlap. The emitted elements are
+	 * obtained by passing the values from this {@link Flux} and the other
+	 * {@link Publisher} to a {@link BiFunction}.
+	 * <p>
+	 * This is an equi-join variant of {@link #join(Publisher, Function, Function, BiFunction)}:
+	 * open values are indexed by key so that each new value is only combined with the
+	 * open values of the other side having an {@link Object#equals(Object) equal} key,
+	 * rather than with all of them.
+	 *
+	 * @param other the other {@link Publisher} to correlate items with
+	 * @param leftKey a function that returns the non null key of a source value
+	 * @param rightKey a function that returns the non null key of a {@code right} value
+	 * @param leftEnd a function that returns a Publisher whose emissions indicate the
+	 * time window for the source value to be considered
+	 * @param rightEnd a function that returns a Publisher whose emissions indicate the
+	 * time window for the {@code right} Publisher value to be considered
+	 * @param resultSelector a function that takes an item emitted by each Publisher with
+	 * the same key and returns the value to be emitted by the resulting {@link Flux}
+	 * @param <TRight> the type of the elements from the right {@link Publisher}
+	 * @param <K> the type of the join key
+	 * @param <TLeftEnd> the type for this {@link Flux} window signals
+	 * @param <TRightEnd> the type for the right {@link Publisher} window signals
+	 * @param <R> the combined result type
+	 *
+	 * @return a joining {@link Flux}
+	 * @see #groupJoin(Publisher, Function, Function, Function, Function, BiFunction)
+	 */
+	public final <TRight, K, TLeftEnd, TRightEnd, R> Flux<R> join(
+			Publisher<? extends TRight> other,
+			Function<? super T, ? extends K> leftKey,
+			Function<? super TRight, ? extends K> rightKey,
+			Function<? super T, ? extends Publisher<TLeftEnd>> leftEnd,
+			Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
+			BiFunction<? super T, ? super TRight, ? extends R> resultSelector
+	) {
+		return onAssembly(new FluxJoin<T, TRight, TLeftEnd, TRightEnd, R>(
+				this, other,
+				Objects.requireNonNull(leftKey, "leftKey"),
+				Objects.requireNonNull(rightKey, "rightKey"),
+				leftEnd, rightEnd, resultSelector,
+				QueueSupplier.unbounded(QueueSupplier.XS_BUFFER_SIZE)));
+	}
+
 	/**
 	 * Emit the last element observed before complete signal as a {@link Mono}, or emit
 	 * {@link NoSuchElementException} error if the source was empty.
@@ -4558,6 +4931,32 @@ public abstract class Flux<T> implements Publisher<T> {
 		return onAssembly(new FluxMap<>(this, mapper));
 	}
 
+	/**
+	 * Transform the items emitted by this {@link Flux} into primitive {@code double}
+	 * values, bridging it to a {@link DoubleFlux} on which the following operators
+	 * don't box each value.
+	 *
+	 * @param mapper the transforming {@link ToDoubleFunction}
+	 *
+	 * @return a {@link DoubleFlux} of the transformed values
+	 */
+	public final DoubleFlux mapToDouble(ToDoubleFunction<? super T> mapper) {
+		return new FluxMapToDouble<>(this, mapper);
+	}
+
+	/**
+	 * Transform the items emitted by this {@link Flux} into primitive {@code long}
+	 * values, bridging it to a {@link LongFlux} on which the following operators
+	 * don't box each value.
+	 *
+	 * @param mapper the transforming {@link ToLongFunction}
+	 *
+	 * @return a {@link LongFlux} of the transformed values
+	 */
+	public final LongFlux mapToLong(ToLongFunction<? super T> mapper) {
+		return new FluxMapToLong<>(this, mapper);
+	}
+
 	/**
 	 * Transform incoming onNext, onError and onComplete signals into {@link Signal} instances,
 	 * materializing these signals.
@@ -4843,6 +5242,27 @@ public abstract class Flux<T> implements Publisher<T> {
 		return onAssembly(new FluxOnBackpressureLatest<>(this));
 	}
 
+	/**
+	 * Request an unbounded demand and push to the returned {@link Flux}, or only keep
+	 * the most recent observed item for each key if not enough demand is requested
+	 * downstream. Pending items are emitted in the order their key was first observed,
+	 * a more recent item for a pending key replacing the older one without changing
+	 * its position.
+	 * <p>
+	 * This is useful to conflate streams of updates (eg. per-symbol quotes) when the
+	 * consumer is slower than the producer, at a cost of at most one retained item per
+	 * distinct pending key.
+	 *
+	 * @param keySelector function to compute the conflation key of each item
+	 * @param <K> the type of the key
+	 *
+	 * @return a backpressured {@link Flux} that will only keep a reference to the last
+	 * observed item of each key
+	 */
+	public final <K> Flux<T> onBackpressureLatest(Function<? super T, ? extends K> keySelector) {
+		return onAssembly(new FluxOnBackpressureLatestByKey<>(this, keySelector));
+	}
+
 	/**
 	 * Transform any error emitted by this {@link Flux} by synchronously applying a function to it.
 
@@ -5059,6 +5479,37 @@ public abstract class Flux<T> implements Publisher<T> {
 				QueueSupplier.get(prefetch));
 	}
 
+	/**
+	 * Prepare this {@link Flux} by dividing data on a number of 'rails' matching the
+	 * provided {@code parallelism} parameter, picking the rail each value goes to
+	 * according to the given {@link ParallelDispatchStrategy} and using a custom
+	 * prefetch amount and queue for dealing with the source {@link Flux}'s values.
+	 * Note that to actually perform the work in parallel, you should call
+	 * {@link ParallelFlux#runOn(Scheduler)} afterward.
+	 * <p>
+	 * {@link ParallelDispatchStrategy#MOST_DEMAND} sends each value to the rail with the
+	 * most outstanding demand, which balances the load better than the default
+	 * round-robin when the per-value processing cost is skewed.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/reactor-core/v3.1.0.M2/src/docs/marble/parallel.png" alt="">
+	 *
+	 * @param parallelism the number of parallel rails
+	 * @param prefetch the number of values to prefetch from the source
+	 * @param dispatchStrategy the {@link ParallelDispatchStrategy} picking the rail each
+	 * value is sent to
+	 *
+	 * @return a new {@link ParallelFlux} instance
+	 */
+	public final ParallelFlux<T> parallel(int parallelism, int prefetch,
+			ParallelDispatchStrategy dispatchStrategy) {
+		return ParallelFlux.from(this,
+				parallelism,
+				prefetch,
+				QueueSupplier.get(prefetch),
+				dispatchStrategy);
+	}
+
 	/**
 	 * Prepare a {@link ConnectableFlux} which shares this {@link Flux} sequence and
 	 * dispatches values to subscribers in a backpressure-aware manner. Prefetch will
@@ -5097,6 +5548,28 @@ public abstract class Flux<T> implements Publisher<T> {
 				.get(prefetch)));
 	}
 
+	/**
+	 * Prepare a {@link ConnectableFlux} which shares this {@link Flux} sequence and
+	 * lets each subscriber consume it at its own pace, within a lag window of
+	 * {@code lagWindow} elements. This will effectively turn any type of sequence into a
+	 * hot sequence.
+	 * <p>
+	 * Unlike {@link #publish(int)}, a slow {@link Subscriber} doesn't slow the others
+	 * down: the source is requested as fast as the fastest subscriber consumes, and a
+	 * subscriber that falls more than {@code lagWindow} elements behind the source is
+	 * dealt with according to the given {@link LagOverflowStrategy} (skipping the oldest
+	 * elements, skipping all but the latest element, or erroring).
+	 *
+	 * @param lagWindow the maximum number of elements a subscriber can lag behind
+	 * @param strategy the {@link LagOverflowStrategy} applied to subscribers lagging
+	 * further behind
+	 *
+	 * @return a new {@link ConnectableFlux}
+	 */
+	public final ConnectableFlux<T> publish(int lagWindow, LagOverflowStrategy strategy) {
+		return onAssembly(new FluxPublishLagging<>(this, lagWindow, strategy));
+	}
+
 	/**
 	 * Shares a sequence for the duration of a function that may transform it and
 	 * consume it as many times as necessary without causing multiple subscriptions
@@ -5223,6 +5696,104 @@ public abstract class Flux<T> implements Publisher<T> {
 		return onAssembly(new FluxPublishOn<>(this, scheduler, delayError, prefetch, QueueSupplier.get(prefetch)));
 	}
 
+	/**
+	 * Estimate the given quantiles of the values extracted from the values of this
+	 * {@link Flux}, e.g. {@code quantiles(r -> r.latency, 0.5, 0.99)} for the median and
+	 * the 99th percentile. The values are recorded into a {@link QuantileSketch} of
+	 * {@link QuantileSketch#DEFAULT_RELATIVE_ACCURACY 1%} relative accuracy, whose
+	 * memory depends on the range of the values rather than on their number.
+	 * Completes empty if this {@link Flux} is empty.
+	 *
+	 * @param valueExtractor the function extracting the value to record from each value
+	 * @param quantiles the quantiles to estimate, between 0 and 1
+	 *
+	 * @return a new {@link Mono} of the estimated values, in the order of the quantiles
+	 *
+	 * @see #collectQuantileSketch(ToDoubleFunction, double)
+	 */
+	public final Mono<double[]> quantiles(ToDoubleFunction<? super T> valueExtractor,
+			double... quantiles) {
+		double[] q = QuantileSketch.checkQuantiles(quantiles);
+		return collectQuantileSketch(valueExtractor, QuantileSketch.DEFAULT_RELATIVE_ACCURACY)
+				.filter(s -> s.count() != 0L)
+				.map(s -> s.quantiles(q));
+	}
+
+	/**
+	 * Estimate the given quantiles of the values extracted from the values of this
+	 * {@link Flux} over consecutive windows of the given duration, emitting the
+	 * estimated values at the end of each non-empty window.
+	 *
+	 * @param window the duration of each window
+	 * @param valueExtractor the function extracting the value to record from each value
+	 * @param quantiles the quantiles to estimate, between 0 and 1
+	 *
+	 * @return a {@link Flux} of the estimated values per window, in the order of the
+	 * quantiles
+	 *
+	 * @see #quantiles(ToDoubleFunction, double...)
+	 */
+	public final Flux<double[]> quantiles(Duration window,
+			ToDoubleFunction<? super T> valueExtractor,
+			double... quantiles) {
+		double[] q = QuantileSketch.checkQuantiles(quantiles);
+		Objects.requireNonNull(valueExtractor, "valueExtractor");
+		return window(window).concatMap(w -> w.quantiles(valueExtractor, q));
+	}
+
+	/**
+	 * Pace this {@link Flux} to at most {@code permits} values per {@code period}, with
+	 * bursts of up to {@code permits} values. The downstream requests are only
+	 * forwarded upstream as tokens become available in a token bucket, so the source is
+	 * not asked for more values than allowed by the rate.
+	 * <p>
+	 * Each {@link Subscriber} gets its own bucket. Use {@link #rateLimit(RateLimiter)}
+	 * to share one between several sequences.
+	 *
+	 * @param permits the number of values allowed per period
+	 * @param period the refill period of the bucket
+	 *
+	 * @return a rate limited {@link Flux}
+	 */
+	public final Flux<T> rateLimit(long permits, Duration period) {
+		return rateLimit(permits, period, permits);
+	}
+
+	/**
+	 * Pace this {@link Flux} to at most {@code permits} values per {@code period}, with
+	 * bursts of up to {@code burst} values. The downstream requests are only forwarded
+	 * upstream as tokens become available in a token bucket, so the source is not asked
+	 * for more values than allowed by the rate.
+	 * <p>
+	 * Each {@link Subscriber} gets its own bucket. Use {@link #rateLimit(RateLimiter)}
+	 * to share one between several sequences.
+	 *
+	 * @param permits the number of values allowed per period
+	 * @param period the refill period of the bucket
+	 * @param burst the maximum number of values allowed at once
+	 *
+	 * @return a rate limited {@link Flux}
+	 */
+	public final Flux<T> rateLimit(long permits, Duration period, long burst) {
+		RateLimiter.interval(permits, period, burst);
+		return onAssembly(new FluxRateLimit<>(this,
+				() -> RateLimiter.create(permits, period, burst)));
+	}
+
+	/**
+	 * Pace this {@link Flux} with the given {@link RateLimiter}, which can be shared
+	 * with other sequences so that they are paced together. The downstream requests are
+	 * only forwarded upstream as tokens are taken from the limiter.
+	 *
+	 * @param limiter the {@link RateLimiter} to take tokens from
+	 *
+	 * @return a rate limited {@link Flux}
+	 */
+	public final Flux<T> rateLimit(RateLimiter limiter) {
+		Objects.requireNonNull(limiter, "limiter");
+		return onAssembly(new FluxRateLimit<>(this, () -> limiter));
+	}
+
 	/**
 	 * Reduce the values from this {@link Flux} sequence into an single object of the same
 	 * type than the emitted items. Reduction is performed using a {@link BiFunction} that
@@ -5763,6 +6334,26 @@ public abstract class Flux<T> implements Publisher<T> {
 		return publish().refCount();
 	}
 
+	/**
+	 * Returns a new {@link Flux} that multicasts (shares) the original {@link Flux},
+	 * letting each subscriber consume at its own pace within a lag window of
+	 * {@code lagWindow} elements. As long as there is at least one {@link Subscriber}
+	 * this {@link Flux} will be subscribed and emitting data. When all subscribers have
+	 * cancelled it will cancel the source {@link Flux}.
+	 * <p>
+	 * This is an alias for {@link #publish(int, LagOverflowStrategy)}.{@link ConnectableFlux#refCount()}.
+	 *
+	 * @param lagWindow the maximum number of elements a subscriber can lag behind
+	 * @param strategy the {@link LagOverflowStrategy} applied to subscribers lagging
+	 * further behind
+	 *
+	 * @return a {@link Flux} that upon first subscribe causes the source {@link Flux}
+	 * to subscribe once, late subscribers might therefore miss items.
+	 */
+	public final Flux<T> share(int lagWindow, LagOverflowStrategy strategy) {
+		return publish(lagWindow, strategy).refCount();
+	}
+
 	/**
 	 * Expect and emit a single item from this {@link Flux} source or signal
 	 * {@link java.util.NoSuchElementException} for an empty source, or
@@ -0,0 +1,727 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BooleanSupplier;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.scheduler.Scheduler;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregates the values of each window described by a {@link WindowSpec} incrementally,
+ * without opening a {@link Flux} per window.
+ * <p>
+ * Tumbling and sliding windows are made of panes whose length is the greatest common
+ * divisor of the window size and slide. Each value is folded once, into the accumulator
+ * of its pane, and the closed panes are kept in a two-stack queue which combines them
+ * into the aggregate of the last window in amortized constant time per pane.
+ *
+ * @param <T> the source value type
+ * @param <A> the accumulator type
+ * @param <R> the result type
+ */
+final class FluxAggregateWindows<T, A, R> extends FluxSource<T, R> {
+
+	final WindowSpec spec;
+
+	final Aggregator<? super T, A, ? extends R> aggregator;
+
+	final Scheduler timer;
+
+	FluxAggregateWindows(Flux<? extends T> source,
+			WindowSpec spec,
+			Aggregator<? super T, A, ? extends R> aggregator,
+			Scheduler timer) {
+		super(source);
+		this.spec = Objects.requireNonNull(spec, "spec");
+		this.aggregator = Objects.requireNonNull(aggregator, "aggregator");
+		this.timer = Objects.requireNonNull(timer, "timer");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super R> s) {
+		switch (spec.kind) {
+			case COUNT:
+				source.subscribe(new CountWindowSubscriber<>(s, spec, aggregator));
+				break;
+			case TIME:
+				source.subscribe(new TimeWindowSubscriber<>(s, spec, aggregator, timer));
+				break;
+			default:
+				source.subscribe(new SessionWindowSubscriber<>(s, spec, aggregator, timer));
+				break;
+		}
+	}
+
+	/**
+	 * A FIFO queue of pane accumulators that can combine all of them in amortized
+	 * constant time: the newest panes are pushed on a back stack along with their
+	 * running aggregate, and flipped on a front stack of suffix aggregates when the
+	 * oldest panes are evicted.
+	 */
+	static final class Panes<A> {
+
+		final Aggregator<?, A, ?> aggregator;
+
+		final ArrayDeque<A> back = new ArrayDeque<>();
+
+		/**
+		 * The aggregates of the front panes from each one to the newest, the oldest
+		 * pane at the head.
+		 */
+		final ArrayDeque<A> front = new ArrayDeque<>();
+
+		@Nullable
+		A backAggregate;
+
+		Panes(Aggregator<?, A, ?> aggregator) {
+			this.aggregator = aggregator;
+		}
+
+		int size() {
+			return back.size() + front.size();
+		}
+
+		void push(A pane) {
+			back.addLast(pane);
+			A b = backAggregate;
+			backAggregate = b == null ? pane : aggregator.combine(b, pane);
+		}
+
+		void evict(int n) {
+			for (int i = 0; i < n; i++) {
+				if (front.isEmpty()) {
+					A suffix = null;
+					for (A pane; (pane = back.pollLast()) != null; ) {
+						suffix = suffix == null ? pane : aggregator.combine(pane, suffix);
+						front.addFirst(suffix);
+					}
+					backAggregate = null;
+				}
+				if (front.pollFirst() == null) {
+					return;
+				}
+			}
+		}
+
+		A aggregate() {
+			A f = front.peekFirst();
+			A b = backAggregate;
+			if (f == null) {
+				return b == null ? aggregator.initial() : b;
+			}
+			return b == null ? f : aggregator.combine(f, b);
+		}
+
+		void clear() {
+			front.clear();
+			back.clear();
+			backAggregate = null;
+		}
+	}
+
+	/**
+	 * The panes of tumbling and sliding windows, windows starting every
+	 * {@code slidePanes} panes.
+	 */
+	static final class PaneWindows<T, A, R> {
+
+		final Aggregator<? super T, A, ? extends R> aggregator;
+
+		final int windowPanes;
+
+		final int slidePanes;
+
+		final Panes<A> panes;
+
+		/**
+		 * The accumulator of the current pane, null if the pane isn't part of any
+		 * window.
+		 */
+		@Nullable
+		A current;
+
+		long paneIndex;
+
+		/**
+		 * The first pane of the oldest window not emitted yet.
+		 */
+		long nextStart;
+
+		long lastValuePane = -1L;
+
+		PaneWindows(Aggregator<? super T, A, ? extends R> aggregator, WindowSpec spec) {
+			this.aggregator = aggregator;
+			long pane = spec.pane();
+			this.windowPanes = (int) Math.min(Integer.MAX_VALUE, spec.size / pane);
+			this.slidePanes = (int) Math.min(Integer.MAX_VALUE, spec.slide / pane);
+			this.panes = new Panes<>(aggregator);
+			this.current = aggregator.initial();
+		}
+
+		void add(T t) {
+			A c = current;
+			if (c != null) {
+				current = Objects.requireNonNull(aggregator.accumulate(c, t),
+						"The aggregator returned a null accumulator");
+				lastValuePane = paneIndex;
+			}
+		}
+
+		/**
+		 * Close the current pane.
+		 *
+		 * @return the result of the window ending with this pane, null if none does
+		 */
+		@Nullable
+		R closePane() {
+			A c = current;
+			if (c != null) {
+				panes.push(c);
+			}
+			long p = paneIndex++;
+			R result = null;
+			if (p == nextStart + windowPanes - 1) {
+				result = finish();
+				panes.evict(Math.min(slidePanes, windowPanes));
+				nextStart += slidePanes;
+			}
+			//panes in the gaps between windows are not accumulated
+			current = paneIndex % slidePanes < windowPanes ? aggregator.initial() : null;
+			return result;
+		}
+
+		/**
+		 * Add the results of the windows still open and containing values.
+		 */
+		void flush(ArrayDeque<R> results) {
+			A c = current;
+			current = null;
+			if (c != null && lastValuePane == paneIndex) {
+				panes.push(c);
+			}
+			while (nextStart <= lastValuePane) {
+				results.offer(finish());
+				panes.evict(Math.min(slidePanes, panes.size()));
+				nextStart += slidePanes;
+			}
+			panes.clear();
+		}
+
+		R finish() {
+			return Objects.requireNonNull(aggregator.finish(panes.aggregate()),
+					"The aggregator returned a null result");
+		}
+	}
+
+	abstract static class AggregateWindowsSubscriber<T, A, R>
+			implements InnerOperator<T, R>, BooleanSupplier {
+
+		final Subscriber<? super R> actual;
+
+		final Aggregator<? super T, A, ? extends R> aggregator;
+
+		/**
+		 * The results of the windows still open on completion.
+		 */
+		final ArrayDeque<R> tail = new ArrayDeque<>();
+
+		Subscription s;
+
+		boolean done;
+
+		volatile boolean cancelled;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<AggregateWindowsSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(AggregateWindowsSubscriber.class,
+						"requested");
+
+		AggregateWindowsSubscriber(Subscriber<? super R> actual,
+				Aggregator<? super T, A, ? extends R> aggregator) {
+			this.actual = actual;
+			this.aggregator = aggregator;
+		}
+
+		@Override
+		public Subscriber<? super R> actual() {
+			return actual;
+		}
+
+		@Override
+		public boolean getAsBoolean() {
+			return cancelled;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+				onStart();
+			}
+		}
+
+		void onStart() {
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				if (!DrainUtils.postCompleteRequest(n, actual, tail, REQUESTED, this, this)) {
+					requestUpstream(n);
+				}
+			}
+		}
+
+		abstract void requestUpstream(long n);
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				s.cancel();
+				onTerminate();
+			}
+		}
+
+		/**
+		 * Release the resources of this subscriber, called once it is terminated or
+		 * cancelled.
+		 */
+		void onTerminate() {
+		}
+
+		/**
+		 * Emit the result of a window.
+		 *
+		 * @return false if there was no demand for it
+		 */
+		boolean emit(R result) {
+			if (requested == 0L) {
+				return false;
+			}
+			actual.onNext(result);
+			if (requested != Long.MAX_VALUE) {
+				REQUESTED.decrementAndGet(this);
+			}
+			return true;
+		}
+
+		void overflow() {
+			done = true;
+			cancelled = true;
+			s.cancel();
+			onTerminate();
+			actual.onError(Exceptions.failWithOverflow(
+					"Could not emit the result of a window due to lack of requests"));
+		}
+
+		void fail(Throwable e) {
+			done = true;
+			onTerminate();
+			actual.onError(e);
+		}
+
+		void complete() {
+			done = true;
+			onTerminate();
+			DrainUtils.postComplete(actual, tail, REQUESTED, this, this);
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+			if (key == LongAttr.REQUESTED_FROM_DOWNSTREAM) return requested;
+
+			return InnerOperator.super.scanUnsafe(key);
+		}
+	}
+
+	static final class CountWindowSubscriber<T, A, R>
+			extends AggregateWindowsSubscriber<T, A, R> {
+
+		final long size;
+
+		final long skip;
+
+		final long paneSize;
+
+		final PaneWindows<T, A, R> windows;
+
+		long inPane;
+
+		volatile boolean requestedOnce;
+
+		CountWindowSubscriber(Subscriber<? super R> actual,
+				WindowSpec spec,
+				Aggregator<? super T, A, ? extends R> aggregator) {
+			super(actual, aggregator);
+			this.size = spec.size;
+			this.skip = spec.slide;
+			this.paneSize = spec.pane();
+			this.windows = new PaneWindows<>(aggregator, spec);
+		}
+
+		@Override
+		void requestUpstream(long n) {
+			if (!requestedOnce) {
+				requestedOnce = true;
+				//1 full window + (n - 1) skips
+				s.request(Operators.addCap(size, Operators.multiplyCap(skip, n - 1)));
+			}
+			else {
+				s.request(Operators.multiplyCap(skip, n));
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			R result;
+			try {
+				windows.add(t);
+				if (++inPane != paneSize) {
+					return;
+				}
+				inPane = 0L;
+				result = windows.closePane();
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+			//the upstream is requested exactly enough values for the requested windows
+			if (result != null && !emit(result)) {
+				overflow();
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			fail(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			try {
+				windows.flush(tail);
+			}
+			catch (Throwable e) {
+				fail(Operators.onOperatorError(e));
+				return;
+			}
+			complete();
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == IntAttr.CAPACITY) return (int) Math.min(Integer.MAX_VALUE, size);
+
+			return super.scanUnsafe(key);
+		}
+	}
+
+	/**
+	 * Requests the source unbounded and closes panes from a periodic timer task,
+	 * serialized with the source signals by synchronizing on this.
+	 */
+	static final class TimeWindowSubscriber<T, A, R>
+			extends AggregateWindowsSubscriber<T, A, R> implements Runnable {
+
+		final long paneNanos;
+
+		final Scheduler.Worker worker;
+
+		final PaneWindows<T, A, R> windows;
+
+		TimeWindowSubscriber(Subscriber<? super R> actual,
+				WindowSpec spec,
+				Aggregator<? super T, A, ? extends R> aggregator,
+				Scheduler timer) {
+			super(actual, aggregator);
+			this.paneNanos = spec.pane();
+			this.worker = timer.createWorker();
+			this.windows = new PaneWindows<>(aggregator, spec);
+		}
+
+		@Override
+		void onStart() {
+			if (worker.schedulePeriodically(this, paneNanos, paneNanos, TimeUnit.NANOSECONDS)
+					== Scheduler.REJECTED) {
+				synchronized (this) {
+					if (!done) {
+						cancelled = true;
+						s.cancel();
+						fail(Operators.onRejectedExecution());
+					}
+				}
+				return;
+			}
+			s.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		void requestUpstream(long n) {
+			//the source is requested unbounded
+		}
+
+		@Override
+		void onTerminate() {
+			worker.dispose();
+		}
+
+		/**
+		 * Close the current pane.
+		 */
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (done || cancelled) {
+					return;
+				}
+				R result;
+				try {
+					result = windows.closePane();
+				}
+				catch (Throwable e) {
+					cancelled = true;
+					s.cancel();
+					fail(Operators.onOperatorError(e));
+					return;
+				}
+				if (result != null && !emit(result)) {
+					overflow();
+				}
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			synchronized (this) {
+				if (done) {
+					Operators.onNextDropped(t);
+					return;
+				}
+				try {
+					windows.add(t);
+				}
+				catch (Throwable e) {
+					fail(Operators.onOperatorError(s, e, t));
+				}
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			synchronized (this) {
+				if (done) {
+					Operators.onErrorDropped(t);
+					return;
+				}
+				fail(t);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				try {
+					windows.flush(tail);
+				}
+				catch (Throwable e) {
+					fail(Operators.onOperatorError(e));
+					return;
+				}
+				complete();
+			}
+		}
+	}
+
+	/**
+	 * Aggregates consecutive values into a single accumulator, a timer task closing it
+	 * once no value arrived for the gap.
+	 */
+	static final class SessionWindowSubscriber<T, A, R>
+			extends AggregateWindowsSubscriber<T, A, R> implements Runnable {
+
+		final long gap;
+
+		final Scheduler timer;
+
+		final Scheduler.Worker worker;
+
+		@Nullable
+		A session;
+
+		long lastValueAt;
+
+		SessionWindowSubscriber(Subscriber<? super R> actual,
+				WindowSpec spec,
+				Aggregator<? super T, A, ? extends R> aggregator,
+				Scheduler timer) {
+			super(actual, aggregator);
+			this.gap = spec.size;
+			this.timer = timer;
+			this.worker = timer.createWorker();
+		}
+
+		@Override
+		void onStart() {
+			s.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		void requestUpstream(long n) {
+			//the source is requested unbounded
+		}
+
+		@Override
+		void onTerminate() {
+			worker.dispose();
+		}
+
+		/**
+		 * Close the session if the gap has elapsed since its last value, or check again
+		 * once it would have.
+		 */
+		@Override
+		public void run() {
+			synchronized (this) {
+				A a = session;
+				if (done || cancelled || a == null) {
+					return;
+				}
+				long idle = timer.now(TimeUnit.NANOSECONDS) - lastValueAt;
+				if (idle < gap) {
+					schedule(gap - idle);
+					return;
+				}
+				session = null;
+				R result;
+				try {
+					result = Objects.requireNonNull(aggregator.finish(a),
+							"The aggregator returned a null result");
+				}
+				catch (Throwable e) {
+					cancelled = true;
+					s.cancel();
+					fail(Operators.onOperatorError(e));
+					return;
+				}
+				if (!emit(result)) {
+					overflow();
+				}
+			}
+		}
+
+		boolean schedule(long delay) {
+			if (worker.schedule(this, delay, TimeUnit.NANOSECONDS) == Scheduler.REJECTED) {
+				cancelled = true;
+				s.cancel();
+				fail(Operators.onRejectedExecution());
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public void onNext(T t) {
+			synchronized (this) {
+				if (done) {
+					Operators.onNextDropped(t);
+					return;
+				}
+				lastValueAt = timer.now(TimeUnit.NANOSECONDS);
+				A a = session;
+				try {
+					if (a == null) {
+						if (!schedule(gap)) {
+							return;
+						}
+						a = aggregator.initial();
+					}
+					session = Objects.requireNonNull(aggregator.accumulate(a, t),
+							"The aggregator returned a null accumulator");
+				}
+				catch (Throwable e) {
+					fail(Operators.onOperatorError(s, e, t));
+				}
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			synchronized (this) {
+				if (done) {
+					Operators.onErrorDropped(t);
+					return;
+				}
+				session = null;
+				fail(t);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				A a = session;
+				session = null;
+				if (a != null) {
+					try {
+						tail.offer(Objects.requireNonNull(aggregator.finish(a),
+								"The aggregator returned a null result"));
+					}
+					catch (Throwable e) {
+						fail(Operators.onOperatorError(e));
+						return;
+					}
+				}
+				complete();
+			}
+		}
+	}
+}
@@ -37,7 +37,7 @@ final class FluxBufferTimeOrSize<T, C extends Collection<? super T>> extends Flu
 	final int            batchSize;
 	final Supplier<C>    bufferSupplier;
 	final Scheduler      timer;
-	final long           timespan;
+	final long           timespan; //in nanoseconds
 
 	FluxBufferTimeOrSize(Flux<T> source,
 			int maxSize,
@@ -83,7 +83,7 @@ final class FluxBufferTimeOrSize<T, C extends Collection<? super T>> extends Flu
 		final static int TERMINATED_WITH_CANCEL  = 3;
 
 		final int                        batchSize;
-		final long                       timespan;
+		final long                       timespan; //in nanoseconds
 		final Scheduler.Worker           timer;
 		final Runnable                   flushTask;
 
@@ -208,7 +208,7 @@ final class FluxBufferTimeOrSize<T, C extends Collection<? super T>> extends Flu
 
 			if (index == 1) {
 				timespanRegistration =
-						timer.schedule(flushTask, timespan, TimeUnit.MILLISECONDS);
+						timer.schedule(flushTask, timespan, TimeUnit.NANOSECONDS);
 				if (timespanRegistration == Scheduler.REJECTED) {
 					throw Operators.onRejectedExecution(this, null, value);
 				}
@@ -316,7 +316,7 @@ final class FluxBufferTimeOrSize<T, C extends Collection<? super T>> extends Flu
 		@Override
 		public String toString() {
 			return super.toString() + "{" + (timer != null ?
-					"timed - " + timespan + " ms" : "") + " batchSize=" +
+					"timed - " + timespan + " ns" : "") + " batchSize=" +
 					index + "/" +
 					batchSize + " [" + (int) ((((float) index) / ((float) batchSize)) * 100) + "%]";
 		}
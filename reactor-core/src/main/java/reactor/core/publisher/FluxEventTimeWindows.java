@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.util.concurrent.QueueSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregates the values of tumbling or sliding windows of event time, read from the
+ * values in milliseconds, firing each window once a watermark trailing the highest
+ * timestamp seen by the maximum out-of-orderness passes its end.
+ * <p>
+ * The accumulators are kept per pane, whose length is the greatest common divisor of
+ * the window size and slide, in a map sorted by pane start: each value is folded once
+ * regardless of its lateness and of the number of windows containing it. Panes are
+ * dropped once all their windows are past the watermark by more than the allowed
+ * lateness. Values arriving within the allowed lateness of their fired windows update
+ * them, the others are handed to a late value handler.
+ *
+ * @param <T> the source value type
+ * @param <A> the accumulator type
+ * @param <R> the result type
+ */
+final class FluxEventTimeWindows<T, A, R> extends FluxSource<T, EventTimeWindow<R>> {
+
+	final ToLongFunction<? super T> timestampExtractor;
+
+	final long size;
+
+	final long slide;
+
+	final long pane;
+
+	final long maxOutOfOrderness;
+
+	final long allowedLateness;
+
+	final Aggregator<? super T, A, ? extends R> aggregator;
+
+	final Consumer<? super T> lateValueHandler;
+
+	final int prefetch;
+
+	FluxEventTimeWindows(Flux<? extends T> source,
+			WindowSpec spec,
+			ToLongFunction<? super T> timestampExtractor,
+			long maxOutOfOrderness,
+			long allowedLateness,
+			Aggregator<? super T, A, ? extends R> aggregator,
+			Consumer<? super T> lateValueHandler,
+			int prefetch) {
+		super(source);
+		if (spec.kind != WindowSpec.Kind.TIME) {
+			throw new IllegalArgumentException("Event-time windows must be tumbling or " +
+					"sliding time windows but they were " + spec);
+		}
+		this.size = TimeUnit.NANOSECONDS.toMillis(spec.size);
+		this.slide = TimeUnit.NANOSECONDS.toMillis(spec.slide);
+		if (size * 1_000_000L != spec.size || slide * 1_000_000L != spec.slide) {
+			throw new IllegalArgumentException("Event-time windows must be in whole " +
+					"milliseconds but they were " + spec);
+		}
+		if (maxOutOfOrderness < 0L) {
+			throw new IllegalArgumentException("maxOutOfOrderness >= 0 required but it was " +
+					maxOutOfOrderness);
+		}
+		if (allowedLateness < 0L) {
+			throw new IllegalArgumentException("allowedLateness >= 0 required but it was " +
+					allowedLateness);
+		}
+		if (prefetch <= 0) {
+			throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+		}
+		this.pane = spec.pane() / 1_000_000L;
+		this.timestampExtractor = Objects.requireNonNull(timestampExtractor, "timestampExtractor");
+		this.maxOutOfOrderness = maxOutOfOrderness;
+		this.allowedLateness = allowedLateness;
+		this.aggregator = Objects.requireNonNull(aggregator, "aggregator");
+		this.lateValueHandler = Objects.requireNonNull(lateValueHandler, "lateValueHandler");
+		this.prefetch = prefetch;
+	}
+
+	@Override
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super EventTimeWindow<R>> s) {
+		source.subscribe(new EventTimeWindowsSubscriber<>(s, this));
+	}
+
+	static final class EventTimeWindowsSubscriber<T, A, R>
+			implements InnerOperator<T, EventTimeWindow<R>> {
+
+		final Subscriber<? super EventTimeWindow<R>> actual;
+
+		final FluxEventTimeWindows<T, A, R> parent;
+
+		final Queue<EventTimeWindow<R>> results;
+
+		/**
+		 * The pane accumulators by pane start, only accessed from the source signals.
+		 */
+		final TreeMap<Long, A> panes = new TreeMap<>();
+
+		long watermark = Long.MIN_VALUE;
+
+		/**
+		 * The start of the first window not fired yet.
+		 */
+		long nextFire = Long.MIN_VALUE;
+
+		Subscription s;
+
+		volatile boolean done;
+
+		Throwable error;
+
+		volatile boolean cancelled;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<EventTimeWindowsSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(EventTimeWindowsSubscriber.class,
+						"requested");
+
+		/**
+		 * The number of values requested from the source and not received yet.
+		 */
+		volatile long upstreamRequested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<EventTimeWindowsSubscriber> UPSTREAM_REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(EventTimeWindowsSubscriber.class,
+						"upstreamRequested");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<EventTimeWindowsSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(EventTimeWindowsSubscriber.class, "wip");
+
+		EventTimeWindowsSubscriber(Subscriber<? super EventTimeWindow<R>> actual,
+				FluxEventTimeWindows<T, A, R> parent) {
+			this.actual = actual;
+			this.parent = parent;
+			this.results = QueueSupplier.<EventTimeWindow<R>>unbounded().get();
+		}
+
+		@Override
+		public Subscriber<? super EventTimeWindow<R>> actual() {
+			return actual;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			if (upstreamRequested != Long.MAX_VALUE) {
+				UPSTREAM_REQUESTED.decrementAndGet(this);
+			}
+			try {
+				add(t);
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+			drain();
+		}
+
+		void add(T t) {
+			FluxEventTimeWindows<T, A, R> p = parent;
+			long ts = p.timestampExtractor.applyAsLong(t);
+			//the latest window containing the value
+			long lastStart = ts - Math.floorMod(ts, p.slide);
+			if (ts - lastStart >= p.size) {
+				//between two windows
+				return;
+			}
+			if (lastStart + p.size + p.allowedLateness <= watermark) {
+				p.lateValueHandler.accept(t);
+				return;
+			}
+
+			long paneStart = ts - Math.floorMod(ts, p.pane);
+			A a = panes.get(paneStart);
+			boolean paneExisted = a != null;
+			if (a == null) {
+				a = p.aggregator.initial();
+			}
+			panes.put(paneStart, Objects.requireNonNull(p.aggregator.accumulate(a, t),
+					"The aggregator returned a null accumulator"));
+
+			if (nextFire != Long.MIN_VALUE) {
+				//late but allowed: fire the passed windows containing the value again,
+				// as an update if they held values already, since empty windows are
+				// skipped when the watermark passes them
+				for (long start = Math.min(nextFire - p.slide, lastStart);
+				     start > ts - p.size; start -= p.slide) {
+					if (start + p.size + p.allowedLateness <= watermark) {
+						break;
+					}
+					boolean fired = paneExisted || hasOtherPane(paneStart, start);
+					results.offer(window(start, fired));
+				}
+			}
+
+			long w = ts - p.maxOutOfOrderness;
+			if (w > watermark) {
+				watermark = w;
+				fire();
+				evict();
+			}
+		}
+
+		/**
+		 * Fire the windows not fired yet, ending before the watermark and containing
+		 * values.
+		 */
+		void fire() {
+			FluxEventTimeWindows<T, A, R> p = parent;
+			for (; ; ) {
+				Long first = panes.ceilingKey(nextFire);
+				if (first == null) {
+					return;
+				}
+				//the first window containing this pane, skipping empty windows
+				long start = first - p.size + 1;
+				start = start - Math.floorMod(start, p.slide);
+				if (start <= first - p.size) {
+					start += p.slide;
+				}
+				start = Math.max(nextFire, start);
+				if (start + p.size > watermark) {
+					return;
+				}
+				results.offer(window(start, false));
+				nextFire = start + p.slide;
+			}
+		}
+
+		/**
+		 * @return true if the window starting at {@code start} holds another pane than
+		 * the one starting at {@code paneStart}
+		 */
+		boolean hasOtherPane(long paneStart, long start) {
+			Long lower = panes.lowerKey(paneStart);
+			if (lower != null && lower >= start) {
+				return true;
+			}
+			Long higher = panes.higherKey(paneStart);
+			return higher != null && higher < start + parent.size;
+		}
+
+		/**
+		 * Drop the panes whose windows are all later than the allowed lateness.
+		 */
+		void evict() {
+			FluxEventTimeWindows<T, A, R> p = parent;
+			for (; ; ) {
+				Map.Entry<Long, A> e = panes.firstEntry();
+				if (e == null) {
+					return;
+				}
+				long paneStart = e.getKey();
+				long lastStart = paneStart - Math.floorMod(paneStart, p.slide);
+				if (lastStart + p.size + p.allowedLateness > watermark) {
+					return;
+				}
+				panes.pollFirstEntry();
+			}
+		}
+
+		EventTimeWindow<R> window(long start, boolean update) {
+			Aggregator<? super T, A, ? extends R> aggregator = parent.aggregator;
+			A acc = null;
+			for (A a : panes.subMap(start, start + parent.size).values()) {
+				acc = acc == null ? a : aggregator.combine(acc, a);
+			}
+			if (acc == null) {
+				acc = aggregator.initial();
+			}
+			R r = Objects.requireNonNull(aggregator.finish(acc),
+					"The aggregator returned a null result");
+			return new EventTimeWindow<>(start, start + parent.size, r, update);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			error = t;
+			done = true;
+			panes.clear();
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			//the end of the stream is the final watermark
+			watermark = Long.MAX_VALUE;
+			try {
+				fire();
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(e));
+				return;
+			}
+			panes.clear();
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				s.cancel();
+				if (WIP.getAndIncrement(this) == 0) {
+					results.clear();
+				}
+			}
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+			int missed = 1;
+			Subscriber<? super EventTimeWindow<R>> a = actual;
+			Queue<EventTimeWindow<R>> q = results;
+
+			for (; ; ) {
+				long r = requested;
+				long e = 0L;
+
+				while (e != r) {
+					boolean d = done;
+					EventTimeWindow<R> w = q.poll();
+					boolean empty = w == null;
+
+					if (checkTerminated(d, empty, a, q)) {
+						return;
+					}
+					if (empty) {
+						break;
+					}
+					a.onNext(w);
+					e++;
+				}
+
+				if (e == r && checkTerminated(done, q.isEmpty(), a, q)) {
+					return;
+				}
+
+				if (e != 0L && r != Long.MAX_VALUE) {
+					r = REQUESTED.addAndGet(this, -e);
+				}
+
+				//only request more values once the results are consumed, as values can
+				// fire any number of windows
+				if (r != 0L && !done && q.isEmpty()) {
+					if (r == Long.MAX_VALUE) {
+						if (upstreamRequested != Long.MAX_VALUE) {
+							upstreamRequested = Long.MAX_VALUE;
+							s.request(Long.MAX_VALUE);
+						}
+					}
+					else if (UPSTREAM_REQUESTED.compareAndSet(this, 0L, parent.prefetch)) {
+						s.request(parent.prefetch);
+					}
+				}
+
+				missed = WIP.addAndGet(this, -missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		boolean checkTerminated(boolean d, boolean empty,
+				Subscriber<? super EventTimeWindow<R>> a,
+				Queue<EventTimeWindow<R>> q) {
+			if (cancelled) {
+				q.clear();
+				return true;
+			}
+			//the windows fired before an error are still emitted
+			if (d && empty) {
+				Throwable e = error;
+				if (e != null) {
+					a.onError(e);
+				}
+				else {
+					a.onComplete();
+				}
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+			if (key == ThrowableAttr.ERROR) return error;
+			if (key == LongAttr.REQUESTED_FROM_DOWNSTREAM) return requested;
+			if (key == IntAttr.BUFFERED) return results.size();
+			if (key == IntAttr.PREFETCH) return parent.prefetch;
+
+			return InnerOperator.super.scanUnsafe(key);
+		}
+	}
+}
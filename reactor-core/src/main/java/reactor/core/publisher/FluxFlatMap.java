@@ -19,6 +19,7 @@ package reactor.core.publisher;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -44,6 +45,13 @@ import javax.annotation.Nullable;
  */
 final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
+	/**
+	 * The maximum concurrency from which inners with pending signals are tracked in a
+	 * ready queue, so that draining only visits those instead of scanning all the inners.
+	 */
+	static final int READY_SET_THRESHOLD = Math.max(1,
+			Integer.parseInt(System.getProperty("reactor.flatMap.readySetThreshold", "1024")));
+
 	final Function<? super T, ? extends Publisher<? extends R>> mapper;
 
 	final boolean delayError;
@@ -232,6 +240,30 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 		int produced;
 
+		/**
+		 * If true, inners are drained from {@link #readyQueue} and removed from
+		 * {@link #doneQueue} rather than by scanning the whole inner array.
+		 */
+		final boolean readySet;
+
+		/**
+		 * Inners that may have values to drain, each at most once at a time.
+		 */
+		@Nullable
+		final Queue<FlatMapInner<R>> readyQueue;
+
+		/**
+		 * Inners that have terminated and may need removal.
+		 */
+		@Nullable
+		final Queue<FlatMapInner<R>> doneQueue;
+
+		/**
+		 * The ready inner that ran out of downstream demand, to resume draining first.
+		 */
+		@Nullable
+		FlatMapInner<R> resume;
+
 		FlatMapMain(Subscriber<? super R> actual,
 				Function<? super T, ? extends Publisher<? extends R>> mapper,
 				boolean delayError,
@@ -239,7 +271,22 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 				Supplier<? extends Queue<R>> mainQueueSupplier,
 				int prefetch,
 				Supplier<? extends Queue<R>> innerQueueSupplier) {
+			this(actual, mapper, delayError, maxConcurrency, mainQueueSupplier, prefetch,
+					innerQueueSupplier, maxConcurrency >= READY_SET_THRESHOLD);
+		}
+
+		FlatMapMain(Subscriber<? super R> actual,
+				Function<? super T, ? extends Publisher<? extends R>> mapper,
+				boolean delayError,
+				int maxConcurrency,
+				Supplier<? extends Queue<R>> mainQueueSupplier,
+				int prefetch,
+				Supplier<? extends Queue<R>> innerQueueSupplier,
+				boolean readySet) {
 			this.actual = actual;
+			this.readySet = readySet;
+			this.readyQueue = readySet ? new ConcurrentLinkedQueue<>() : null;
+			this.doneQueue = readySet ? new ConcurrentLinkedQueue<>() : null;
 			this.mapper = mapper;
 			this.delayError = delayError;
 			this.maxConcurrency = maxConcurrency;
@@ -546,15 +593,20 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 						again = true;
 					}
 				}
-				if (r != 0L && !noSources) {
+				if (readySet) {
+					FlatMapInner<R> inner;
 
-					int j = lastIndex;
-					//Do not need to wrap j since lastIndex is always 0..<n
-//					if (j >= n) {
-//						j = 0;
-//					}
+					while ((inner = doneQueue.poll()) != null) {
+						Queue<R> q = inner.queue;
+						if ((q == null || q.isEmpty()) && removeInner(inner)) {
+							again = true;
+							replenishMain++;
+						}
+					}
+
+					while (r != 0L && ((inner = resume) != null || (inner = readyQueue.poll()) != null)) {
+						resume = null;
 
-					for (int i = 0; i < n; i++) {
 						if (cancelled) {
 							scalarQueue = null;
 							s.cancel();
@@ -562,122 +614,211 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 							return;
 						}
 
-						FlatMapInner<R> inner = as[j];
-						if (inner != null) {
+						FlatMapInner.READY.set(inner, 0);
+						Queue<R> q = inner.queue;
+						if (inner.removed || q == null) {
+							continue;
+						}
+
+						while (e != r) {
 							d = inner.done;
-							Queue<R> q = inner.queue;
-							if (d && q == null) {
-								remove(inner.index);
-								again = true;
-								replenishMain++;
+
+							R v;
+
+							try {
+								v = q.poll();
+							}
+							catch (Throwable ex) {
+								ex = Operators.onOperatorError(inner, ex);
+								if (!Exceptions.addThrowable(ERROR, this, ex)) {
+									Operators.onErrorDropped(ex);
+								}
+								v = null;
+								d = true;
 							}
-							else if (q != null) {
-								while (e != r) {
-									d = inner.done;
 
-									R v;
+							boolean empty = v == null;
 
-									try {
-										v = q.poll();
-									}
-									catch (Throwable ex) {
-										ex = Operators.onOperatorError(inner, ex);
-										if (!Exceptions.addThrowable(ERROR, this, ex)) {
-											Operators.onErrorDropped(ex);
-										}
-										v = null;
-										d = true;
-									}
+							if (checkTerminated(d, false, a)) {
+								return;
+							}
 
-									boolean empty = v == null;
+							if (d && empty) {
+								if (removeInner(inner)) {
+									again = true;
+									replenishMain++;
+								}
+								break;
+							}
 
-									if (checkTerminated(d, false, a)) {
-										return;
-									}
+							if (empty) {
+								break;
+							}
 
-									if (d && empty) {
-										remove(inner.index);
-										again = true;
-										replenishMain++;
-										break;
-									}
+							a.onNext(v);
 
-									if (empty) {
-										break;
-									}
+							e++;
+						}
 
-									a.onNext(v);
+						if (e == r) {
+							d = inner.done;
+							boolean empty = q.isEmpty();
+							if (d && empty) {
+								if (removeInner(inner)) {
+									again = true;
+									replenishMain++;
+								}
+							}
+							else if (!empty && FlatMapInner.READY.compareAndSet(inner, 0, 1)) {
+								resume = inner;
+							}
+						}
 
-									e++;
+						if (e != 0L) {
+							if (!inner.done) {
+								inner.request(e);
+							}
+							if (r != Long.MAX_VALUE) {
+								r = Operators.addAndGet(REQUESTED, this, -e);
+							}
+							e = 0L;
+						}
+					}
+				}
+				else {
+					if (r != 0L && !noSources) {
+
+						int j = lastIndex;
+						//Do not need to wrap j since lastIndex is always 0..<n
+	//					if (j >= n) {
+	//						j = 0;
+	//					}
+
+						for (int i = 0; i < n; i++) {
+							if (cancelled) {
+								scalarQueue = null;
+								s.cancel();
+								unsubscribe();
+								return;
+							}
+
+							FlatMapInner<R> inner = as[j];
+							if (inner != null) {
+								d = inner.done;
+								Queue<R> q = inner.queue;
+								if (d && q == null) {
+									remove(inner.index);
+									again = true;
+									replenishMain++;
 								}
+								else if (q != null) {
+									while (e != r) {
+										d = inner.done;
+
+										R v;
+
+										try {
+											v = q.poll();
+										}
+										catch (Throwable ex) {
+											ex = Operators.onOperatorError(inner, ex);
+											if (!Exceptions.addThrowable(ERROR, this, ex)) {
+												Operators.onErrorDropped(ex);
+											}
+											v = null;
+											d = true;
+										}
 
-								if (e == r) {
-									d = inner.done;
-									boolean empty = q.isEmpty();
-									if (d && empty) {
-										remove(inner.index);
-										again = true;
-										replenishMain++;
+										boolean empty = v == null;
+
+										if (checkTerminated(d, false, a)) {
+											return;
+										}
+
+										if (d && empty) {
+											remove(inner.index);
+											again = true;
+											replenishMain++;
+											break;
+										}
+
+										if (empty) {
+											break;
+										}
+
+										a.onNext(v);
+
+										e++;
 									}
-								}
 
-								if (e != 0L) {
-									if (!inner.done) {
-										inner.request(e);
+									if (e == r) {
+										d = inner.done;
+										boolean empty = q.isEmpty();
+										if (d && empty) {
+											remove(inner.index);
+											again = true;
+											replenishMain++;
+										}
 									}
-									if (r != Long.MAX_VALUE) {
-										r = Operators.addAndGet(REQUESTED, this, -e);
-										if (r == 0L) {
-											break; // 0 .. n - 1
+
+									if (e != 0L) {
+										if (!inner.done) {
+											inner.request(e);
+										}
+										if (r != Long.MAX_VALUE) {
+											r = Operators.addAndGet(REQUESTED, this, -e);
+											if (r == 0L) {
+												break; // 0 .. n - 1
+											}
 										}
+										e = 0L;
 									}
-									e = 0L;
 								}
 							}
-						}
 
-						if (r == 0L) {
-							break;
-						}
+							if (r == 0L) {
+								break;
+							}
 
-						if (++j == n) {
-							j = 0;
+							if (++j == n) {
+								j = 0;
+							}
 						}
-					}
 
-					lastIndex = j;
-				}
+						lastIndex = j;
+					}
 
-				if (r == 0L && !noSources) {
-					as = get();
-					n = as.length;
+					if (r == 0L && !noSources) {
+						as = get();
+						n = as.length;
 
-					for (int i = 0; i < n; i++) {
-						if (cancelled) {
-							scalarQueue = null;
-							s.cancel();
-							unsubscribe();
-							return;
-						}
+						for (int i = 0; i < n; i++) {
+							if (cancelled) {
+								scalarQueue = null;
+								s.cancel();
+								unsubscribe();
+								return;
+							}
 
-						FlatMapInner<R> inner = as[i];
-						if (inner == null) {
-							continue;
-						}
+							FlatMapInner<R> inner = as[i];
+							if (inner == null) {
+								continue;
+							}
 
-						d = inner.done;
-						Queue<R> q = inner.queue;
-						boolean empty = (q == null || q.isEmpty());
+							d = inner.done;
+							Queue<R> q = inner.queue;
+							boolean empty = (q == null || q.isEmpty());
 
-						// if we have a non-empty source then quit the cleanup
-						if (!empty) {
-							break;
-						}
+							// if we have a non-empty source then quit the cleanup
+							if (!empty) {
+								break;
+							}
 
-						if (d && empty) {
-							remove(inner.index);
-							again = true;
-							replenishMain++;
+							if (d && empty) {
+								remove(inner.index);
+								again = true;
+								replenishMain++;
+							}
 						}
 					}
 				}
@@ -745,6 +886,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 		void innerError(FlatMapInner<R> inner, Throwable e) {
 			if (Exceptions.addThrowable(ERROR, this, e)) {
 				inner.done = true;
+				markDone(inner);
 				if (!delayError) {
 					done = true;
 				}
@@ -785,9 +927,11 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 					if (!q.offer(v) && failOverflow(v, inner)){
 						inner.done = true;
+						markDone(inner);
 						drainLoop();
 						return;
 					}
+					markReady(inner);
 				}
 				if (WIP.decrementAndGet(this) == 0) {
 					return;
@@ -800,12 +944,15 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 				if (!q.offer(v) && failOverflow(v, inner)) {
 					inner.done = true;
+					markDone(inner);
 				}
+				markReady(inner);
 				drain();
 			}
 		}
 
 		void innerComplete(FlatMapInner<R> inner) {
+			markDone(inner);
 			//FIXME temp. reduce the case to empty regular inners
 //			if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
 //				Queue<R> queue = inner.queue;
@@ -837,6 +984,37 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 			drainLoop();
 		}
 
+		/**
+		 * Make sure the given inner is drained next time, if in ready set mode.
+		 *
+		 * @param inner the inner that has queued values
+		 */
+		void markReady(FlatMapInner<R> inner) {
+			if (readySet && FlatMapInner.READY.compareAndSet(inner, 0, 1)) {
+				readyQueue.offer(inner);
+			}
+		}
+
+		/**
+		 * Make sure the given inner is removed once drained, if in ready set mode.
+		 *
+		 * @param inner the terminated inner
+		 */
+		void markDone(FlatMapInner<R> inner) {
+			if (readySet) {
+				doneQueue.offer(inner);
+			}
+		}
+
+		boolean removeInner(FlatMapInner<R> inner) {
+			if (inner.removed) {
+				return false;
+			}
+			inner.removed = true;
+			remove(inner.index);
+			return true;
+		}
+
 		Queue<R> getOrCreateInnerQueue(FlatMapInner<R> inner) {
 			Queue<R> q = inner.queue;
 			if (q == null) {
@@ -877,6 +1055,16 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 		int index;
 
+		/**
+		 * Only accessed from the parent drain loop, in ready set mode.
+		 */
+		boolean removed;
+
+		volatile int ready;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<FlatMapInner> READY =
+				AtomicIntegerFieldUpdater.newUpdater(FlatMapInner.class, "ready");
+
 		FlatMapInner(FlatMapMain<?, R> parent, int prefetch) {
 			this.parent = parent;
 			this.prefetch = prefetch;
@@ -894,6 +1082,8 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 						sourceMode = Fuseable.SYNC;
 						queue = f;
 						done = true;
+						parent.markReady(this);
+						parent.markDone(this);
 						parent.drain();
 						return;
 					}
@@ -910,6 +1100,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 		@Override
 		public void onNext(R t) {
 			if (sourceMode == Fuseable.ASYNC) {
+				parent.markReady(this);
 				parent.drain();
 			}
 			else {
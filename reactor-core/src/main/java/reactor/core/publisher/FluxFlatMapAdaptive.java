@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.util.concurrent.QueueSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Maps a sequence of values each into a Publisher and flattens them back into a single
+ * sequence like {@link FluxFlatMap}, but with a number of in-flight inners adapted
+ * between a minimum and a maximum by an {@link AimdLimit}, based on the latency of the
+ * inners. The limit is enforced by requesting fewer values from upstream.
+ *
+ * @param <T> the source value type
+ * @param <R> the result value type
+ */
+final class FluxFlatMapAdaptive<T, R> extends FluxSource<T, R> {
+
+	final Function<? super T, ? extends Publisher<? extends R>> mapper;
+
+	final boolean delayError;
+
+	final int minConcurrency;
+
+	final int maxConcurrency;
+
+	final int prefetch;
+
+	final LongSupplier nanoClock;
+
+	FluxFlatMapAdaptive(Flux<? extends T> source,
+			Function<? super T, ? extends Publisher<? extends R>> mapper,
+			boolean delayError,
+			int minConcurrency,
+			int maxConcurrency,
+			int prefetch,
+			LongSupplier nanoClock) {
+		super(source);
+		if (minConcurrency <= 0) {
+			throw new IllegalArgumentException("minConcurrency > 0 required but it was " + minConcurrency);
+		}
+		if (maxConcurrency < minConcurrency) {
+			throw new IllegalArgumentException("maxConcurrency >= minConcurrency required but it was " + maxConcurrency);
+		}
+		if (prefetch <= 0) {
+			throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+		}
+		this.mapper = Objects.requireNonNull(mapper, "mapper");
+		this.delayError = delayError;
+		this.minConcurrency = minConcurrency;
+		this.maxConcurrency = maxConcurrency;
+		this.prefetch = prefetch;
+		this.nanoClock = Objects.requireNonNull(nanoClock, "nanoClock");
+	}
+
+	@Override
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super R> s) {
+		LimitSubscriber<T> limiter = new LimitSubscriber<>(
+				new AimdLimit(minConcurrency, maxConcurrency), nanoClock);
+
+		FluxFlatMap.FlatMapMain<T, R> main = new FluxFlatMap.FlatMapMain<>(s,
+				t -> limiter.track(mapper.apply(t)),
+				delayError,
+				maxConcurrency,
+				QueueSupplier.get(maxConcurrency),
+				prefetch,
+				QueueSupplier.get(prefetch));
+
+		limiter.actual = main;
+		source.subscribe(limiter);
+	}
+
+	/**
+	 * Sits between the source and the flatMap, only requesting from the source as long as
+	 * the number of in-flight inners is below the current limit.
+	 *
+	 * @param <T> the source value type
+	 */
+	static final class LimitSubscriber<T> implements InnerOperator<T, T> {
+
+		final AimdLimit    limit;
+		final LongSupplier nanoClock;
+
+		Subscriber<? super T> actual;
+
+		Subscription s;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<LimitSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(LimitSubscriber.class, "requested");
+
+		/**
+		 * Values requested from the source and not received yet.
+		 */
+		volatile int outstanding;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<LimitSubscriber> OUTSTANDING =
+				AtomicIntegerFieldUpdater.newUpdater(LimitSubscriber.class, "outstanding");
+
+		/**
+		 * Values received from the source whose inner hasn't terminated yet.
+		 */
+		volatile int inFlight;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<LimitSubscriber> IN_FLIGHT =
+				AtomicIntegerFieldUpdater.newUpdater(LimitSubscriber.class, "inFlight");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<LimitSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(LimitSubscriber.class, "wip");
+
+		volatile boolean cancelled;
+
+		boolean done;
+
+		/**
+		 * Set by {@link #track(Publisher)} while the flatMap maps the current value.
+		 */
+		boolean tracked;
+
+		LimitSubscriber(AimdLimit limit, LongSupplier nanoClock) {
+			this.limit = limit;
+			this.nanoClock = nanoClock;
+		}
+
+		@Override
+		public Subscriber<? super T> actual() {
+			return actual;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			OUTSTANDING.decrementAndGet(this);
+			IN_FLIGHT.incrementAndGet(this);
+			tracked = false;
+			actual.onNext(t);
+			if (!tracked) {
+				//scalar or failed mapping, nothing to wait for
+				IN_FLIGHT.decrementAndGet(this);
+				drain();
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				s.cancel();
+			}
+		}
+
+		/**
+		 * Wrap an inner to sample its latency once it terminates, unless it is a scalar
+		 * the flatMap won't subscribe to.
+		 *
+		 * @param p the inner {@link Publisher}
+		 * @param <R> the inner value type
+		 *
+		 * @return the {@link Publisher} to merge
+		 */
+		<R> Publisher<? extends R> track(Publisher<? extends R> p) {
+			if (p instanceof Callable) {
+				return p;
+			}
+			tracked = true;
+			long start = nanoClock.getAsLong();
+			return Flux.from(p)
+			           .doFinally(signal -> innerTerminated(start, signal));
+		}
+
+		void innerTerminated(long start, SignalType signal) {
+			int inFlight = IN_FLIGHT.getAndDecrement(this);
+			if (signal == SignalType.ON_COMPLETE) {
+				limit.onSample(nanoClock.getAsLong() - start, inFlight, false);
+			}
+			else if (signal == SignalType.ON_ERROR) {
+				limit.onSample(nanoClock.getAsLong() - start, inFlight, true);
+			}
+			drain();
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+			int missed = 1;
+			for (; ; ) {
+				if (cancelled) {
+					return;
+				}
+				long r = requested;
+				int available = limit.getLimit() - inFlight - outstanding;
+				if (r != 0L && available > 0) {
+					int n = (int) Math.min(r, available);
+					if (r != Long.MAX_VALUE) {
+						REQUESTED.addAndGet(this, -n);
+					}
+					OUTSTANDING.addAndGet(this, n);
+					s.request(n);
+				}
+
+				missed = WIP.addAndGet(this, -missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+			if (key == LongAttr.REQUESTED_FROM_DOWNSTREAM) return requested;
+			if (key == IntAttr.CAPACITY) return limit.getLimit();
+			if (key == IntAttr.BUFFERED) return inFlight;
+
+			return InnerOperator.super.scanUnsafe(key);
+		}
+	}
+}
@@ -16,8 +16,6 @@
 
 package reactor.core.publisher;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -70,14 +68,38 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 	final Supplier<? extends Queue<Object>> queueSupplier;
 	final Supplier<? extends Queue<TRight>> processorQueueSupplier;
 
+	@Nullable
+	final Function<? super TLeft, ?> leftKey;
+
+	@Nullable
+	final Function<? super TRight, ?> rightKey;
+
+	FluxGroupJoin(Flux<TLeft> source,
+			Publisher<? extends TRight> other,
+			Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
+			Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
+			BiFunction<? super TLeft, ? super Flux<TRight>, ? extends R> resultSelector,
+			Supplier<? extends Queue<Object>> queueSupplier,
+			Supplier<? extends Queue<TRight>> processorQueueSupplier) {
+		this(source, other, null, null, leftEnd, rightEnd, resultSelector, queueSupplier,
+				processorQueueSupplier);
+	}
+
 	FluxGroupJoin(Flux<TLeft> source,
 			Publisher<? extends TRight> other,
+			@Nullable Function<? super TLeft, ?> leftKey,
+			@Nullable Function<? super TRight, ?> rightKey,
 			Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
 			Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
 			BiFunction<? super TLeft, ? super Flux<TRight>, ? extends R> resultSelector,
 			Supplier<? extends Queue<Object>> queueSupplier,
 			Supplier<? extends Queue<TRight>> processorQueueSupplier) {
 		super(source);
+		if ((leftKey == null) != (rightKey == null)) {
+			throw new IllegalArgumentException("leftKey and rightKey must be both set or both null");
+		}
+		this.leftKey = leftKey;
+		this.rightKey = rightKey;
 		this.other = Objects.requireNonNull(other, "other");
 		this.leftEnd = Objects.requireNonNull(leftEnd, "leftEnd");
 		this.rightEnd = Objects.requireNonNull(rightEnd, "rightEnd");
@@ -92,6 +114,8 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 
 		GroupJoinSubscription<TLeft, TRight, TLeftEnd, TRightEnd, R> parent =
 				new GroupJoinSubscription<>(s,
+						leftKey,
+						rightKey,
 						leftEnd,
 						rightEnd,
 						resultSelector,
@@ -130,9 +154,9 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 
 		final OpenHashSet<Disposable> cancellations;
 
-		final Map<Integer, UnicastProcessor<TRight>> lefts;
+		final JoinWindow<UnicastProcessor<TRight>> lefts;
 
-		final Map<Integer, TRight> rights;
+		final JoinWindow<TRight> rights;
 
 		final Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd;
 
@@ -143,9 +167,11 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 		final Supplier<? extends Queue<TRight>> processorQueueSupplier;
 		final Subscriber<? super R>             actual;
 
-		int leftIndex;
+		@Nullable
+		final Function<? super TLeft, ?> leftKey;
 
-		int rightIndex;
+		@Nullable
+		final Function<? super TRight, ?> rightKey;
 
 		volatile int wip;
 
@@ -186,8 +212,21 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 
 		static final Integer RIGHT_CLOSE = 4;
 
+		GroupJoinSubscription(Subscriber<? super R> actual,
+				Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
+				Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
+				BiFunction<? super TLeft, ? super Flux<TRight>, ? extends R> resultSelector,
+				Queue<Object> queue,
+				Supplier<? extends
+						Queue<TRight>> processorQueueSupplier) {
+			this(actual, null, null, leftEnd, rightEnd, resultSelector, queue,
+					processorQueueSupplier);
+		}
+
 		@SuppressWarnings("unchecked")
 		GroupJoinSubscription(Subscriber<? super R> actual,
+				@Nullable Function<? super TLeft, ?> leftKey,
+				@Nullable Function<? super TRight, ?> rightKey,
 				Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
 				Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
 				BiFunction<? super TLeft, ? super Flux<TRight>, ? extends R> resultSelector,
@@ -195,6 +234,7 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 				Supplier<? extends
 						Queue<TRight>> processorQueueSupplier) {
 			this.actual = actual;
+			this.leftKey = leftKey;
 			this.cancellations = new OpenHashSet<>();
 			this.queue = queue;
 			this.processorQueueSupplier = processorQueueSupplier;
@@ -202,8 +242,9 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 				throw new IllegalArgumentException("The provided queue must implement " + "BiPredicate to expose atomic dual insert");
 			}
 			this.queueBiOffer = (BiPredicate) queue;
-			this.lefts = new LinkedHashMap<>();
-			this.rights = new LinkedHashMap<>();
+			this.rightKey = rightKey;
+			this.lefts = new JoinWindow<>(leftKey != null);
+			this.rights = new JoinWindow<>(rightKey != null);
 			this.leftEnd = leftEnd;
 			this.rightEnd = rightEnd;
 			this.resultSelector = resultSelector;
@@ -325,12 +366,12 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 
 						UnicastProcessor<TRight> up =
 								new UnicastProcessor<>(processorQueueSupplier.get());
-						int idx = leftIndex++;
-						lefts.put(idx, up);
 
+						Object key;
 						Publisher<TLeftEnd> p;
 
 						try {
+							key = JoinWindow.key(leftKey, left);
 							p = Objects.requireNonNull(leftEnd.apply(left),
 									"The leftEnd returned a null Publisher");
 						}
@@ -343,7 +384,7 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 						}
 
 						LeftRightEndSubscriber end =
-								new LeftRightEndSubscriber(this, true, idx);
+								new LeftRightEndSubscriber(this, true, lefts.add(key, up));
 						cancellations.add(end);
 
 						p.subscribe(end);
@@ -401,20 +442,18 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 							return;
 						}
 
-						for (TRight right : rights.values()) {
-							up.onNext(right);
+						for (JoinWindow.Node<TRight> n = rights.first(key); n != null; n = n.next) {
+							up.onNext(n.value);
 						}
 					}
 					else if (mode == RIGHT_VALUE) {
 						@SuppressWarnings("unchecked") TRight right = (TRight) val;
 
-						int idx = rightIndex++;
-
-						rights.put(idx, right);
-
+						Object key;
 						Publisher<TRightEnd> p;
 
 						try {
+							key = JoinWindow.key(rightKey, right);
 							p = Objects.requireNonNull(rightEnd.apply(right),
 									"The rightEnd returned a null Publisher");
 						}
@@ -427,7 +466,7 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 						}
 
 						LeftRightEndSubscriber end =
-								new LeftRightEndSubscriber(this, false, idx);
+								new LeftRightEndSubscriber(this, false, rights.add(key, right));
 						cancellations.add(end);
 
 						p.subscribe(end);
@@ -440,14 +479,15 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 							return;
 						}
 
-						for (UnicastProcessor<TRight> up : lefts.values()) {
-							up.onNext(right);
+						for (JoinWindow.Node<UnicastProcessor<TRight>> n = lefts.first(key);
+						     n != null; n = n.next) {
+							n.value.onNext(right);
 						}
 					}
 					else if (mode == LEFT_CLOSE) {
 						LeftRightEndSubscriber end = (LeftRightEndSubscriber) val;
 
-						UnicastProcessor<TRight> up = lefts.remove(end.index);
+						UnicastProcessor<TRight> up = lefts.remove(end.node());
 						cancellations.remove(end);
 						if (up != null) {
 							up.onComplete();
@@ -456,7 +496,7 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 					else if (mode == RIGHT_CLOSE) {
 						LeftRightEndSubscriber end = (LeftRightEndSubscriber) val;
 
-						rights.remove(end.index);
+						rights.remove(end.node());
 						cancellations.remove(end);
 					}
 				}
@@ -592,7 +632,10 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 
 		final boolean isLeft;
 
-		final int index;
+		/**
+		 * The {@link JoinWindow.Node} of the value whose window this subscriber closes.
+		 */
+		final Object node;
 
 		volatile Subscription subscription;
 
@@ -602,10 +645,15 @@ final class FluxGroupJoin<TLeft, TRight, TLeftEnd, TRightEnd, R>
 				Subscription.class,
 				"subscription");
 
-		LeftRightEndSubscriber(JoinSupport parent, boolean isLeft, int index) {
+		LeftRightEndSubscriber(JoinSupport parent, boolean isLeft, Object node) {
 			this.parent = parent;
 			this.isLeft = isLeft;
-			this.index = index;
+			this.node = node;
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> JoinWindow.Node<T> node() {
+			return (JoinWindow.Node<T>) node;
 		}
 
 		@Override
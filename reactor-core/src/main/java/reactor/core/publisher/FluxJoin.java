@@ -16,8 +16,6 @@
 
 package reactor.core.publisher;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -57,13 +55,35 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 
 	final Supplier<? extends Queue<Object>> queueSupplier;
 
+	@Nullable
+	final Function<? super TLeft, ?> leftKey;
+
+	@Nullable
+	final Function<? super TRight, ?> rightKey;
+
+	FluxJoin(Flux<TLeft> source,
+			Publisher<? extends TRight> other,
+			Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
+			Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
+			BiFunction<? super TLeft, ? super TRight, ? extends R> resultSelector,
+			Supplier<? extends Queue<Object>> queueSupplier) {
+		this(source, other, null, null, leftEnd, rightEnd, resultSelector, queueSupplier);
+	}
+
 	FluxJoin(Flux<TLeft> source,
 			Publisher<? extends TRight> other,
+			@Nullable Function<? super TLeft, ?> leftKey,
+			@Nullable Function<? super TRight, ?> rightKey,
 			Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
 			Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
 			BiFunction<? super TLeft, ? super TRight, ? extends R> resultSelector,
 			Supplier<? extends Queue<Object>> queueSupplier) {
 		super(source);
+		if ((leftKey == null) != (rightKey == null)) {
+			throw new IllegalArgumentException("leftKey and rightKey must be both set or both null");
+		}
+		this.leftKey = leftKey;
+		this.rightKey = rightKey;
 		this.other = Objects.requireNonNull(other, "other");
 		this.leftEnd = Objects.requireNonNull(leftEnd, "leftEnd");
 		this.rightEnd = Objects.requireNonNull(rightEnd, "rightEnd");
@@ -76,6 +96,8 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 
 		JoinSubscription<TLeft, TRight, TLeftEnd, TRightEnd, R> parent =
 				new JoinSubscription<>(s,
+						leftKey,
+						rightKey,
 						leftEnd,
 						rightEnd,
 						resultSelector,
@@ -101,9 +123,15 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 
 		final OpenHashSet<Disposable> cancellations;
 
-		final Map<Integer, TLeft> lefts;
+		final JoinWindow<TLeft> lefts;
 
-		final Map<Integer, TRight> rights;
+		final JoinWindow<TRight> rights;
+
+		@Nullable
+		final Function<? super TLeft, ?> leftKey;
+
+		@Nullable
+		final Function<? super TRight, ?> rightKey;
 
 		final Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd;
 
@@ -138,10 +166,6 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 
 		volatile boolean cancelled;
 
-		int leftIndex;
-
-		int rightIndex;
-
 		static final Integer LEFT_VALUE = 1;
 
 		static final Integer RIGHT_VALUE = 2;
@@ -150,8 +174,18 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 
 		static final Integer RIGHT_CLOSE = 4;
 
+		JoinSubscription(Subscriber<? super R> actual,
+				Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
+				Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
+				BiFunction<? super TLeft, ? super TRight, ? extends R> resultSelector,
+				Queue<Object> queue) {
+			this(actual, null, null, leftEnd, rightEnd, resultSelector, queue);
+		}
+
 		@SuppressWarnings("unchecked")
 		JoinSubscription(Subscriber<? super R> actual,
+				@Nullable Function<? super TLeft, ?> leftKey,
+				@Nullable Function<? super TRight, ?> rightKey,
 				Function<? super TLeft, ? extends Publisher<TLeftEnd>> leftEnd,
 				Function<? super TRight, ? extends Publisher<TRightEnd>> rightEnd,
 				BiFunction<? super TLeft, ? super TRight, ? extends R> resultSelector,
@@ -163,8 +197,10 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 				throw new IllegalArgumentException("The provided queue must implement " + "BiPredicate to expose atomic dual insert");
 			}
 			this.queueBiOffer = (BiPredicate) queue;
-			this.lefts = new LinkedHashMap<>();
-			this.rights = new LinkedHashMap<>();
+			this.leftKey = leftKey;
+			this.rightKey = rightKey;
+			this.lefts = new JoinWindow<>(leftKey != null);
+			this.rights = new JoinWindow<>(rightKey != null);
 			this.leftEnd = leftEnd;
 			this.rightEnd = rightEnd;
 			this.resultSelector = resultSelector;
@@ -284,12 +320,11 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 					if (mode == LEFT_VALUE) {
 						@SuppressWarnings("unchecked") TLeft left = (TLeft) val;
 
-						int idx = leftIndex++;
-						lefts.put(idx, left);
-
+						Object key;
 						Publisher<TLeftEnd> p;
 
 						try {
+							key = JoinWindow.key(leftKey, left);
 							p = Objects.requireNonNull(leftEnd.apply(left),
 									"The leftEnd returned a null Publisher");
 						}
@@ -302,7 +337,7 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 						}
 
 						LeftRightEndSubscriber end =
-								new LeftRightEndSubscriber(this, true, idx);
+								new LeftRightEndSubscriber(this, true, lefts.add(key, left));
 						cancellations.add(end);
 
 						p.subscribe(end);
@@ -318,7 +353,8 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 						long r = requested;
 						long e = 0L;
 
-						for (TRight right : rights.values()) {
+						for (JoinWindow.Node<TRight> n = rights.first(key); n != null; n = n.next) {
+							TRight right = n.value;
 
 							R w;
 
@@ -377,13 +413,11 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 					else if (mode == RIGHT_VALUE) {
 						@SuppressWarnings("unchecked") TRight right = (TRight) val;
 
-						int idx = rightIndex++;
-
-						rights.put(idx, right);
-
+						Object key;
 						Publisher<TRightEnd> p;
 
 						try {
+							key = JoinWindow.key(rightKey, right);
 							p = Objects.requireNonNull(rightEnd.apply(right),
 									"The rightEnd returned a null Publisher");
 						}
@@ -396,7 +430,7 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 						}
 
 						LeftRightEndSubscriber end =
-								new LeftRightEndSubscriber(this, false, idx);
+								new LeftRightEndSubscriber(this, false, rights.add(key, right));
 						cancellations.add(end);
 
 						p.subscribe(end);
@@ -412,7 +446,8 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 						long r = requested;
 						long e = 0L;
 
-						for (TLeft left : lefts.values()) {
+						for (JoinWindow.Node<TLeft> n = lefts.first(key); n != null; n = n.next) {
+							TLeft left = n.value;
 
 							R w;
 
@@ -470,13 +505,13 @@ final class FluxJoin<TLeft, TRight, TLeftEnd, TRightEnd, R> extends
 					else if (mode == LEFT_CLOSE) {
 						LeftRightEndSubscriber end = (LeftRightEndSubscriber) val;
 
-						lefts.remove(end.index);
+						lefts.remove(end.node());
 						cancellations.remove(end);
 					}
 					else if (mode == RIGHT_CLOSE) {
 						LeftRightEndSubscriber end = (LeftRightEndSubscriber) val;
 
-						rights.remove(end.index);
+						rights.remove(end.node());
 						cancellations.remove(end);
 					}
 				}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Maps the values of a {@link Publisher} into primitive {@code double} values, bridging a
+ * {@link Flux} to a {@link DoubleFlux}.
+ *
+ * @param <T> the source value type
+ */
+final class FluxMapToDouble<T> extends DoubleFlux {
+
+	final Publisher<? extends T> source;
+
+	final ToDoubleFunction<? super T> mapper;
+
+	FluxMapToDouble(Publisher<? extends T> source, ToDoubleFunction<? super T> mapper) {
+		this.source = Objects.requireNonNull(source, "source");
+		this.mapper = Objects.requireNonNull(mapper, "mapper");
+	}
+
+	@Override
+	public void subscribe(DoubleSubscriber s) {
+		source.subscribe(new MapToDoubleSubscriber<>(s, mapper));
+	}
+
+	static final class MapToDoubleSubscriber<T> implements Subscriber<T>, Subscription {
+
+		final DoubleSubscriber actual;
+
+		final ToDoubleFunction<? super T> mapper;
+
+		Subscription s;
+
+		boolean done;
+
+		MapToDoubleSubscriber(DoubleSubscriber actual, ToDoubleFunction<? super T> mapper) {
+			this.actual = actual;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			double v;
+			try {
+				v = mapper.applyAsDouble(t);
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+			actual.onNext(v);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			s.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			s.cancel();
+		}
+	}
+}
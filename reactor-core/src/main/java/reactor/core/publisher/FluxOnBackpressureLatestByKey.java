@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import javax.annotation.Nullable;
+
+/**
+ * Runs the source in unbounded mode and, if the subscriber can't keep up properly,
+ * only keeps the latest value for each key. Pending keys are emitted in the order
+ * they were first seen, a newer value for a pending key replacing the older one in
+ * place.
+ *
+ * @param <T> the value type
+ * @param <K> the key type
+ */
+final class FluxOnBackpressureLatestByKey<T, K> extends FluxSource<T, T> {
+
+	final Function<? super T, ? extends K> keySelector;
+
+	FluxOnBackpressureLatestByKey(Flux<? extends T> source,
+			Function<? super T, ? extends K> keySelector) {
+		super(source);
+		this.keySelector = Objects.requireNonNull(keySelector, "keySelector");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		source.subscribe(new LatestByKeySubscriber<>(s, keySelector));
+	}
+
+	@Override
+	public int getPrefetch() {
+		return Integer.MAX_VALUE;
+	}
+
+	static final class LatestByKeySubscriber<T, K>
+			implements InnerOperator<T, T> {
+
+		final Subscriber<? super T> actual;
+
+		final Function<? super T, ? extends K> keySelector;
+
+		/**
+		 * Pending values, guarded by itself. Re-putting an existing key doesn't change
+		 * its position, which gives the "overwrite in place" behavior for free.
+		 */
+		final LinkedHashMap<K, T> pending;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<LatestByKeySubscriber> REQUESTED =
+		  AtomicLongFieldUpdater.newUpdater(LatestByKeySubscriber.class, "requested");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<LatestByKeySubscriber> WIP =
+		  AtomicIntegerFieldUpdater.newUpdater(LatestByKeySubscriber.class, "wip");
+
+		Subscription s;
+
+		Throwable error;
+		volatile boolean done;
+
+		volatile boolean cancelled;
+
+		LatestByKeySubscriber(Subscriber<? super T> actual,
+				Function<? super T, ? extends K> keySelector) {
+			this.actual = actual;
+			this.keySelector = keySelector;
+			this.pending = new LinkedHashMap<>();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+
+				cancelled = true;
+
+				s.cancel();
+
+				if (WIP.getAndIncrement(this) == 0) {
+					clear();
+				}
+			}
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+
+				actual.onSubscribe(this);
+
+				s.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+
+			K k;
+			try {
+				k = Objects.requireNonNull(keySelector.apply(t),
+						"The keySelector returned a null value");
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+
+			synchronized (pending) {
+				pending.put(k, t);
+			}
+			drain();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			error = t;
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			drain();
+		}
+
+		@Nullable
+		T poll() {
+			synchronized (pending) {
+				Iterator<T> it = pending.values().iterator();
+				if (it.hasNext()) {
+					T v = it.next();
+					it.remove();
+					return v;
+				}
+				return null;
+			}
+		}
+
+		boolean isEmpty() {
+			synchronized (pending) {
+				return pending.isEmpty();
+			}
+		}
+
+		int size() {
+			synchronized (pending) {
+				return pending.size();
+			}
+		}
+
+		void clear() {
+			synchronized (pending) {
+				pending.clear();
+			}
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+			final Subscriber<? super T> a = actual;
+
+			int missed = 1;
+
+			for (; ; ) {
+
+				if (checkTerminated(done, isEmpty(), a)) {
+					return;
+				}
+
+				long r = requested;
+				long e = 0L;
+
+				while (r != e) {
+					boolean d = done;
+
+					T v = poll();
+
+					boolean empty = v == null;
+
+					if (checkTerminated(d, empty, a)) {
+						return;
+					}
+
+					if (empty) {
+						break;
+					}
+
+					a.onNext(v);
+
+					e++;
+				}
+
+				if (r == e && checkTerminated(done, isEmpty(), a)) {
+					return;
+				}
+
+				if (e != 0L && r != Long.MAX_VALUE) {
+					REQUESTED.addAndGet(this, -e);
+				}
+
+				missed = WIP.addAndGet(this, -missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		boolean checkTerminated(boolean d, boolean empty, Subscriber<? super T> a) {
+			if (cancelled) {
+				clear();
+				return true;
+			}
+
+			if (d) {
+				Throwable e = error;
+				if (e != null) {
+					clear();
+
+					a.onError(e);
+					return true;
+				} else if (empty) {
+					a.onComplete();
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public Subscriber<? super T> actual() {
+			return actual;
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == LongAttr.REQUESTED_FROM_DOWNSTREAM) return requested;
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+			if (key == IntAttr.BUFFERED) return size();
+			if (key == ThrowableAttr.ERROR) return error;
+			if (key == IntAttr.PREFETCH) return Integer.MAX_VALUE;
+
+			return InnerOperator.super.scanUnsafe(key);
+		}
+
+	}
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.Scannable;
+import javax.annotation.Nullable;
+
+/**
+ * A connectable publisher which shares an underlying source and lets each subscriber
+ * consume at its own pace within a bounded lag window.
+ * <p>
+ * Values from the source are written to a shared ring buffer, and each subscriber reads
+ * them through its own cursor. The source is requested as fast as the fastest
+ * subscriber consumes, so that it is never more than {@code lagWindow} elements ahead.
+ * A subscriber that falls more than {@code lagWindow} elements behind the source is
+ * dealt with according to the {@link LagOverflowStrategy}, without slowing the others
+ * down.
+ *
+ * @param <T> the value type
+ */
+final class FluxPublishLagging<T> extends ConnectableFlux<T> implements Scannable {
+
+	final Flux<? extends T> source;
+
+	final int lagWindow;
+
+	final LagOverflowStrategy strategy;
+
+	volatile LaggingMain<T> connection;
+	@SuppressWarnings("rawtypes")
+	static final AtomicReferenceFieldUpdater<FluxPublishLagging, LaggingMain> CONNECTION =
+			AtomicReferenceFieldUpdater.newUpdater(FluxPublishLagging.class,
+					LaggingMain.class,
+					"connection");
+
+	FluxPublishLagging(Flux<? extends T> source, int lagWindow, LagOverflowStrategy strategy) {
+		if (lagWindow <= 0) {
+			throw new IllegalArgumentException("lagWindow > 0 required but it was " + lagWindow);
+		}
+		this.source = Objects.requireNonNull(source, "source");
+		this.lagWindow = lagWindow;
+		this.strategy = Objects.requireNonNull(strategy, "strategy");
+	}
+
+	@Override
+	public void connect(Consumer<? super Disposable> cancelSupport) {
+		boolean doConnect;
+		LaggingMain<T> s;
+		for (; ; ) {
+			s = connection;
+			if (s == null || s.isTerminated()) {
+				LaggingMain<T> u = new LaggingMain<>(this);
+
+				if (!CONNECTION.compareAndSet(this, s, u)) {
+					continue;
+				}
+
+				s = u;
+			}
+
+			doConnect = s.tryConnect();
+			break;
+		}
+
+		cancelSupport.accept(s);
+		if (doConnect) {
+			source.subscribe(s);
+		}
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		LaggingInner<T> inner = new LaggingInner<>(s, strategy);
+		s.onSubscribe(inner);
+		for (; ; ) {
+			if (inner.cancelled) {
+				break;
+			}
+
+			LaggingMain<T> c = connection;
+			if (c == null || c.isTerminated()) {
+				LaggingMain<T> u = new LaggingMain<>(this);
+				if (!CONNECTION.compareAndSet(this, c, u)) {
+					continue;
+				}
+
+				c = u;
+			}
+
+			inner.cursor = c.producerIndex;
+			inner.parent = c;
+			if (c.subscribers.add(inner)) {
+				if (inner.cancelled) {
+					c.subscribers.remove(inner);
+				}
+				inner.drain();
+				break;
+			}
+		}
+	}
+
+	@Override
+	public int getPrefetch() {
+		return lagWindow;
+	}
+
+	@Override
+	@Nullable
+	public Object scanUnsafe(Attr key) {
+		if (key == IntAttr.PREFETCH) return getPrefetch();
+		if (key == ScannableAttr.PARENT) return source;
+
+		return null;
+	}
+
+	static final class LaggingMain<T> implements InnerConsumer<T>, Disposable {
+
+		final FluxPublishLagging<T> parent;
+
+		final int window;
+
+		final AtomicReferenceArray<T> ring;
+
+		final int mask;
+
+		final FanOutRegistry<LaggingInner<T>> subscribers = new FanOutRegistry<>();
+
+		volatile Subscription s;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<LaggingMain, Subscription> S =
+				AtomicReferenceFieldUpdater.newUpdater(LaggingMain.class,
+						Subscription.class,
+						"s");
+
+		/**
+		 * The index of the next value to be written to the ring, only written by onNext.
+		 */
+		volatile long producerIndex;
+
+		/**
+		 * The cursor of the fastest subscriber.
+		 */
+		volatile long maxConsumed;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<LaggingMain> MAX_CONSUMED =
+				AtomicLongFieldUpdater.newUpdater(LaggingMain.class, "maxConsumed");
+
+		volatile long upstreamRequested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<LaggingMain> UPSTREAM_REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(LaggingMain.class, "upstreamRequested");
+
+		volatile int connected;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<LaggingMain> CONNECTED =
+				AtomicIntegerFieldUpdater.newUpdater(LaggingMain.class, "connected");
+
+		volatile boolean done;
+
+		Throwable error;
+
+		LaggingMain(FluxPublishLagging<T> parent) {
+			this.parent = parent;
+			this.window = parent.lagWindow;
+			//strictly larger than the window, so that a value within the window is never overwritten
+			int capacity = Integer.highestOneBit(window) << 1;
+			this.ring = new AtomicReferenceArray<>(capacity);
+			this.mask = capacity - 1;
+		}
+
+		boolean isTerminated() {
+			return subscribers.isTerminated();
+		}
+
+		boolean tryConnect() {
+			return connected == 0 && CONNECTED.compareAndSet(this, 0, 1);
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.setOnce(S, this, s)) {
+				upstreamRequested = window;
+				s.request(window);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			long p = producerIndex;
+			ring.lazySet((int) p & mask, t);
+			producerIndex = p + 1;
+
+			int n = subscribers.size();
+			AtomicReferenceArray<LaggingInner<T>> a = subscribers.slots();
+			n = Math.min(n, a.length());
+			for (int i = 0; i < n; i++) {
+				LaggingInner<T> inner = a.get(i);
+				if (inner != null) {
+					inner.drain();
+				}
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			error = t;
+			done = true;
+			terminate();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			terminate();
+		}
+
+		@Override
+		public void dispose() {
+			if (Operators.terminate(S, this) && !done) {
+				error = new CancellationException("Disconnected");
+				done = true;
+				terminate();
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return s == Operators.cancelledSubscription() || done;
+		}
+
+		void terminate() {
+			AtomicReferenceArray<LaggingInner<T>> a = subscribers.terminate();
+			for (int i = 0; i < a.length(); i++) {
+				LaggingInner<T> inner = a.get(i);
+				if (inner != null) {
+					inner.drain();
+				}
+			}
+		}
+
+		/**
+		 * Record the progress of a subscriber and request more from the source if it is
+		 * the fastest one.
+		 */
+		void consumed(long cursor) {
+			for (;;) {
+				long m = maxConsumed;
+				if (cursor <= m) {
+					return;
+				}
+				if (MAX_CONSUMED.compareAndSet(this, m, cursor)) {
+					break;
+				}
+			}
+			for (;;) {
+				long target = maxConsumed + window;
+				long r = upstreamRequested;
+				if (target <= r) {
+					return;
+				}
+				if (UPSTREAM_REQUESTED.compareAndSet(this, r, target)) {
+					s.request(target - r);
+					return;
+				}
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == IntAttr.PREFETCH) return window;
+			if (key == IntAttr.CAPACITY) return ring.length();
+			if (key == ThrowableAttr.ERROR) return error;
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == BooleanAttr.CANCELLED) return s == Operators.cancelledSubscription();
+
+			return null;
+		}
+
+		@Override
+		public Stream<? extends Scannable> inners() {
+			return subscribers.stream();
+		}
+	}
+
+	static final class LaggingInner<T> implements InnerProducer<T>, FanOutRegistry.Member {
+
+		final Subscriber<? super T> actual;
+
+		final LagOverflowStrategy strategy;
+
+		volatile LaggingMain<T> parent;
+
+		/**
+		 * The index of the next value to read from the ring, only accessed while draining
+		 * or before being added to the parent.
+		 */
+		long cursor;
+
+		int registryIndex = -1;
+
+		volatile boolean cancelled;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<LaggingInner> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(LaggingInner.class, "requested");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<LaggingInner> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(LaggingInner.class, "wip");
+
+		LaggingInner(Subscriber<? super T> actual, LagOverflowStrategy strategy) {
+			this.actual = actual;
+			this.strategy = strategy;
+		}
+
+		@Override
+		public Subscriber<? super T> actual() {
+			return actual;
+		}
+
+		@Override
+		public int registryIndex() {
+			return registryIndex;
+		}
+
+		@Override
+		public void registryIndex(int index) {
+			registryIndex = index;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				LaggingMain<T> p = parent;
+				if (p != null) {
+					p.subscribers.remove(this);
+				}
+			}
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+
+			int missed = 1;
+
+			for (;;) {
+				LaggingMain<T> m = parent;
+				if (m != null) {
+					AtomicReferenceArray<T> ring = m.ring;
+					int capacity = ring.length();
+					long c = cursor;
+					long r = requested;
+					long e = 0L;
+
+					for (;;) {
+						if (cancelled) {
+							return;
+						}
+
+						boolean d = m.done;
+						long p = m.producerIndex;
+
+						if (p - c > m.window) {
+							if (strategy == LagOverflowStrategy.ERROR) {
+								cancel();
+								actual.onError(Exceptions.failWithOverflow(
+										"The subscriber lagged more than " + m.window + " elements behind"));
+								return;
+							}
+							c = strategy == LagOverflowStrategy.CONFLATE ? p - 1 : p - m.window;
+						}
+
+						if (c == p) {
+							if (d) {
+								cancelled = true;
+								Throwable ex = m.error;
+								if (ex != null) {
+									actual.onError(ex);
+								}
+								else {
+									actual.onComplete();
+								}
+								return;
+							}
+							break;
+						}
+
+						if (e == r) {
+							break;
+						}
+
+						T v = ring.get((int) c & m.mask);
+
+						//the slot may have been overwritten while being read
+						if (m.producerIndex - c >= capacity) {
+							continue;
+						}
+
+						c++;
+						e++;
+						actual.onNext(v);
+					}
+
+					cursor = c;
+					if (e != 0L) {
+						if (r != Long.MAX_VALUE) {
+							REQUESTED.addAndGet(this, -e);
+						}
+						m.consumed(c);
+					}
+				}
+
+				missed = WIP.addAndGet(this, -missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			LaggingMain<T> p = parent;
+			if (key == ScannableAttr.PARENT) return p;
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+			if (key == LongAttr.REQUESTED_FROM_DOWNSTREAM) return requested;
+			if (key == IntAttr.BUFFERED) return p != null ? (int) Math.min(p.window, p.producerIndex - cursor) : 0;
+
+			return InnerProducer.super.scanUnsafe(key);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import javax.annotation.Nullable;
+
+/**
+ * Only forwards the downstream requests to the source as tokens are taken from a
+ * {@link RateLimiter}, so that the source emits at most at the rate of the limiter.
+ *
+ * @param <T> the value type
+ */
+final class FluxRateLimit<T> extends FluxSource<T, T> {
+
+	final Supplier<? extends RateLimiter> limiterSupplier;
+
+	FluxRateLimit(Flux<? extends T> source, Supplier<? extends RateLimiter> limiterSupplier) {
+		super(source);
+		this.limiterSupplier = Objects.requireNonNull(limiterSupplier, "limiterSupplier");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		RateLimiter limiter;
+		try {
+			limiter = Objects.requireNonNull(limiterSupplier.get(),
+					"The limiterSupplier returned a null RateLimiter");
+		}
+		catch (Throwable e) {
+			Operators.error(s, Operators.onOperatorError(e));
+			return;
+		}
+		source.subscribe(new RateLimitSubscriber<>(s, limiter));
+	}
+
+	static final class RateLimitSubscriber<T> implements InnerOperator<T, T>, Runnable {
+
+		final Subscriber<? super T> actual;
+
+		final RateLimiter limiter;
+
+		Subscription s;
+
+		boolean done;
+
+		volatile boolean cancelled;
+
+		/**
+		 * Downstream demand not forwarded to the source yet.
+		 */
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<RateLimitSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(RateLimitSubscriber.class, "requested");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<RateLimitSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(RateLimitSubscriber.class, "wip");
+
+		volatile int waiting;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<RateLimitSubscriber> WAITING =
+				AtomicIntegerFieldUpdater.newUpdater(RateLimitSubscriber.class, "waiting");
+
+		RateLimitSubscriber(Subscriber<? super T> actual, RateLimiter limiter) {
+			this.actual = actual;
+			this.limiter = limiter;
+		}
+
+		@Override
+		public Subscriber<? super T> actual() {
+			return actual;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			actual.onNext(t);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				s.cancel();
+			}
+		}
+
+		/**
+		 * Called back by the {@link RateLimiter} once tokens are available again.
+		 */
+		@Override
+		public void run() {
+			waiting = 0;
+			drain();
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+			int missed = 1;
+			for (; ; ) {
+				if (cancelled || done) {
+					return;
+				}
+				long r = requested;
+				if (r != 0L) {
+					long n = limiter.tryAcquire(r);
+					if (n != 0L) {
+						if (r != Long.MAX_VALUE) {
+							REQUESTED.addAndGet(this, -n);
+						}
+						s.request(n);
+					}
+					if (n != r && WAITING.compareAndSet(this, 0, 1)
+							&& !limiter.await(this)) {
+						cancelled = true;
+						s.cancel();
+						actual.onError(Operators.onRejectedExecution());
+						return;
+					}
+				}
+
+				missed = WIP.addAndGet(this, -missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+			if (key == LongAttr.REQUESTED_FROM_DOWNSTREAM) return requested;
+
+			return InnerOperator.super.scanUnsafe(key);
+		}
+	}
+
+	/**
+	 * Completes once a token has been taken from a {@link RateLimiter}, to delay the
+	 * subscription to a {@link Mono} with.
+	 */
+	static final class Permit extends Mono<Void> {
+
+		final RateLimiter limiter;
+
+		Permit(RateLimiter limiter) {
+			this.limiter = Objects.requireNonNull(limiter, "limiter");
+		}
+
+		@Override
+		public void subscribe(Subscriber<? super Void> s) {
+			PermitSubscription p = new PermitSubscription(s, limiter);
+			s.onSubscribe(p);
+			p.run();
+		}
+	}
+
+	static final class PermitSubscription implements InnerProducer<Void>, Runnable {
+
+		final Subscriber<? super Void> actual;
+
+		final RateLimiter limiter;
+
+		volatile boolean cancelled;
+
+		boolean done;
+
+		PermitSubscription(Subscriber<? super Void> actual, RateLimiter limiter) {
+			this.actual = actual;
+			this.limiter = limiter;
+		}
+
+		@Override
+		public Subscriber<? super Void> actual() {
+			return actual;
+		}
+
+		@Override
+		public void request(long n) {
+			//the permit completes empty, regardless of the demand
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			if (limiter.tryAcquire(1L) == 1L) {
+				done = true;
+				actual.onComplete();
+			}
+			else if (!limiter.await(this)) {
+				done = true;
+				actual.onError(Operators.onRejectedExecution());
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+
+			return InnerProducer.super.scanUnsafe(key);
+		}
+	}
+}
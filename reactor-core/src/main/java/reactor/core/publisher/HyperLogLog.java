@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct values added to it, in a
+ * constant memory of {@code 2^precision} bytes and with a relative standard error of
+ * {@code 1.04 / sqrt(2^precision)}, e.g. 4KB and 1.6% for a precision of 12.
+ * <p>
+ * Sketches of the same precision can be {@link #merge(HyperLogLog) merged}, the result
+ * estimating the number of distinct values added to either of them. This makes it
+ * possible to sketch {@link ParallelFlux} rails or windows separately and to combine
+ * them afterwards.
+ * <p>
+ * Values are hashed from their {@link Object#hashCode()}, so values with colliding
+ * hash codes are counted once, except {@link Long} and {@link Integer} values which
+ * are hashed like the primitive values given to {@link #add(long)}. Not thread-safe.
+ *
+ * @see Flux#countDistinctApprox(java.util.function.Function, int)
+ */
+public final class HyperLogLog {
+
+	/**
+	 * The smallest supported precision.
+	 */
+	public static final int MIN_PRECISION = 4;
+
+	/**
+	 * The largest supported precision.
+	 */
+	public static final int MAX_PRECISION = 18;
+
+	final int    precision;
+	final byte[] registers;
+
+	/**
+	 * Create an empty sketch.
+	 *
+	 * @param precision the number of bits indexing the registers, between
+	 * {@link #MIN_PRECISION} and {@link #MAX_PRECISION}
+	 */
+	public HyperLogLog(int precision) {
+		this.precision = checkPrecision(precision);
+		this.registers = new byte[1 << precision];
+	}
+
+	/**
+	 * Add a value to the sketch.
+	 *
+	 * @param value the value
+	 *
+	 * @return this sketch
+	 */
+	public HyperLogLog add(Object value) {
+		Objects.requireNonNull(value, "value");
+		//Long.hashCode() folds the value to 32 bits, use all of them like add(long)
+		if (value instanceof Long || value instanceof Integer) {
+			return add(((Number) value).longValue());
+		}
+		return addHash(mix(value.hashCode()));
+	}
+
+	/**
+	 * Add a primitive value to the sketch.
+	 *
+	 * @param value the value
+	 *
+	 * @return this sketch
+	 */
+	public HyperLogLog add(long value) {
+		return addHash(mix(value));
+	}
+
+	HyperLogLog addHash(long hash) {
+		int p = precision;
+		int index = (int) (hash >>> (64 - p));
+		//the bit set below the precision bits bounds the rank
+		long w = (hash << p) | (1L << (p - 1));
+		byte rank = (byte) (Long.numberOfLeadingZeros(w) + 1);
+		if (registers[index] < rank) {
+			registers[index] = rank;
+		}
+		return this;
+	}
+
+	/**
+	 * Add the values of another sketch to this one.
+	 *
+	 * @param other a sketch of the same precision
+	 *
+	 * @return this sketch
+	 */
+	public HyperLogLog merge(HyperLogLog other) {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("Cannot merge a sketch of precision " +
+					other.precision + " into one of precision " + precision);
+		}
+		byte[] a = registers;
+		byte[] b = other.registers;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] < b[i]) {
+				a[i] = b[i];
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @return the estimated number of distinct values added to this sketch
+	 */
+	public long estimate() {
+		byte[] r = registers;
+		int m = r.length;
+		double sum = 0d;
+		int zeros = 0;
+		for (byte b : r) {
+			sum += Double.longBitsToDouble((1023L - b) << 52);
+			if (b == 0) {
+				zeros++;
+			}
+		}
+		double estimate = alpha(m) * m * m / sum;
+		if (estimate <= 2.5d * m && zeros != 0) {
+			//linear counting is more accurate for small cardinalities
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	/**
+	 * @return the precision of this sketch
+	 */
+	public int precision() {
+		return precision;
+	}
+
+	/**
+	 * @return the relative standard error of the estimates of this sketch
+	 */
+	public double relativeError() {
+		return 1.04d / Math.sqrt(registers.length);
+	}
+
+	@Override
+	public String toString() {
+		return "HyperLogLog{precision=" + precision + ", estimate=" + estimate() + "}";
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof HyperLogLog)) {
+			return false;
+		}
+		return Arrays.equals(registers, ((HyperLogLog) o).registers);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(registers);
+	}
+
+	static int checkPrecision(int precision) {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("precision between " + MIN_PRECISION +
+					" and " + MAX_PRECISION + " required but it was " + precision);
+		}
+		return precision;
+	}
+
+	static double alpha(int m) {
+		switch (m) {
+			case 16:
+				return 0.673d;
+			case 32:
+				return 0.697d;
+			case 64:
+				return 0.709d;
+			default:
+				return 0.7213d / (1d + 1.079d / m);
+		}
+	}
+
+	/**
+	 * The SplitMix64 step, spreading the bits of the value over the whole hash.
+	 */
+	static long mix(long z) {
+		z += 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * The open values of one side of a join, in arrival order. When keyed, the values are
+ * indexed in a hash multimap so that a value from the other side only probes the bucket
+ * of its own key, otherwise all values share a single bucket.
+ * Each bucket is a doubly-linked list and a value is closed through the {@link Node}
+ * returned when it was added, so expiring a window doesn't search for it.
+ * <p>
+ * Not thread-safe, only accessed from within a join drain loop.
+ *
+ * @param <T> the type of the values
+ */
+final class JoinWindow<T> {
+
+	/**
+	 * Compute the key a value is joined on.
+	 *
+	 * @param keySelector the key selector of the value side, null if the join isn't keyed
+	 * @param value the value
+	 * @param <V> the type of the value
+	 *
+	 * @return the non null key if keyed, null otherwise
+	 */
+	@Nullable
+	static <V> Object key(@Nullable Function<? super V, ?> keySelector, V value) {
+		if (keySelector == null) {
+			return null;
+		}
+		return Objects.requireNonNull(keySelector.apply(value),
+				"The key selector returned a null value");
+	}
+
+	@Nullable
+	final Map<Object, Node<T>> buckets;
+
+	@Nullable
+	Node<T> all;
+
+	int size;
+
+	JoinWindow(boolean keyed) {
+		this.buckets = keyed ? new HashMap<>() : null;
+	}
+
+	/**
+	 * Open a value under the given key.
+	 *
+	 * @param key the key computed with {@link #key(Function, Object)}
+	 * @param value the value
+	 *
+	 * @return the node to {@link #remove(Node)} the value with
+	 */
+	Node<T> add(@Nullable Object key, T value) {
+		Node<T> node = new Node<>(key, value);
+		Node<T> head = key != null ? buckets.get(key) : all;
+		if (head == null) {
+			node.last = node;
+			if (key != null) {
+				buckets.put(key, node);
+			}
+			else {
+				all = node;
+			}
+		}
+		else {
+			Node<T> last = head.last;
+			last.next = node;
+			node.prev = last;
+			head.last = node;
+		}
+		size++;
+		return node;
+	}
+
+	/**
+	 * Close a value, no-op if it already has been.
+	 *
+	 * @param node the node returned by {@link #add(Object, Object)}
+	 *
+	 * @return the removed value or null if already removed
+	 */
+	@Nullable
+	T remove(Node<T> node) {
+		if (node.removed) {
+			return null;
+		}
+		node.removed = true;
+		Node<T> prev = node.prev;
+		Node<T> next = node.next;
+		if (prev == null) {
+			Object key = node.key;
+			if (next == null) {
+				if (key != null) {
+					buckets.remove(key);
+				}
+				else {
+					all = null;
+				}
+			}
+			else {
+				next.prev = null;
+				next.last = node.last;
+				if (key != null) {
+					buckets.put(key, next);
+				}
+				else {
+					all = next;
+				}
+			}
+		}
+		else {
+			prev.next = next;
+			if (next != null) {
+				next.prev = prev;
+			}
+			else {
+				first(node.key).last = prev;
+			}
+		}
+		size--;
+		return node.value;
+	}
+
+	/**
+	 * Return the oldest open value matching the given key, the others being reachable
+	 * through {@link Node#next}.
+	 *
+	 * @param key the key computed with {@link #key(Function, Object)}
+	 *
+	 * @return the first node of the bucket or null if empty
+	 */
+	@Nullable
+	Node<T> first(@Nullable Object key) {
+		return key != null ? buckets.get(key) : all;
+	}
+
+	/**
+	 * @return a snapshot of all the open values
+	 */
+	List<T> values() {
+		List<T> list = new ArrayList<>(size);
+		if (buckets != null) {
+			for (Node<T> head : buckets.values()) {
+				for (Node<T> n = head; n != null; n = n.next) {
+					list.add(n.value);
+				}
+			}
+		}
+		else {
+			for (Node<T> n = all; n != null; n = n.next) {
+				list.add(n.value);
+			}
+		}
+		return list;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		if (buckets != null) {
+			buckets.clear();
+		}
+		all = null;
+		size = 0;
+	}
+
+	static final class Node<T> {
+
+		@Nullable
+		final Object key;
+		final T      value;
+
+		@Nullable
+		Node<T> prev;
+		@Nullable
+		Node<T> next;
+		/**
+		 * The tail of the bucket, only maintained on its head.
+		 */
+		Node<T> last;
+
+		boolean removed;
+
+		Node(@Nullable Object key, T value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+/**
+ * Strategies applied to a subscriber of a
+ * {@link Flux#publish(int, LagOverflowStrategy) lag-tolerant multicast} that falls
+ * further behind the fastest subscribers than its lag window allows.
+ */
+public enum LagOverflowStrategy {
+
+	/**
+	 * Skip the oldest elements so that the subscriber resumes at the start of its lag
+	 * window. Do not propagate an error.
+	 */
+	DROP_OLDEST,
+	/**
+	 * Disconnect the subscriber by propagating an {@link IllegalStateException} to it.
+	 */
+	ERROR,
+	/**
+	 * Skip all the elements but the most recent one, so that the subscriber only sees
+	 * the latest element once it requests more. Do not propagate an error.
+	 */
+	CONFLATE
+
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import javax.annotation.Nullable;
+
+/**
+ * A reactive loading cache of per-key {@link Mono} results. A missing key is loaded
+ * once through the loader function, concurrent subscribers for that key sharing the
+ * same load. Errors and empty results are not cached.
+ * <p>
+ * Entries can expire a given duration after they have been written and/or last
+ * accessed, and the cache can be bounded in size, in which case an approximate
+ * least-recently-accessed entry is evicted on overflow (the least recently accessed
+ * out of a small sample of entries). Entries can also be refreshed ahead of expiry: a
+ * hit on an entry older than the refresh duration serves the current value and
+ * triggers an asynchronous reload on the configured {@link Scheduler}.
+ * <p>
+ * Create a cache through the {@link #builder(Function)} static method:
+ * <p>
+ * {@code LoadingCache<String, User> users = LoadingCache.builder(repository::findUser).maximumSize(10_000).build()}
+ * <p>
+ * Hit, miss and eviction counts are exposed through {@link #scan(Attr)} with the
+ * {@link StatAttr} keys.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public final class LoadingCache<K, V> implements Scannable {
+
+	/**
+	 * {@link Scannable} attributes exposing the statistics of a {@link LoadingCache}.
+	 */
+	public enum StatAttr implements Attr<Long> {
+
+		/**
+		 * The number of {@link LoadingCache#get(Object)} subscriptions served by an
+		 * existing entry, including those joining an in-flight load.
+		 */
+		HITS,
+
+		/**
+		 * The number of {@link LoadingCache#get(Object)} subscriptions that triggered
+		 * a load.
+		 */
+		MISSES,
+
+		/**
+		 * The number of entries removed because they expired or because the cache
+		 * overflowed its maximum size.
+		 */
+		EVICTIONS;
+
+		@Override
+		public Long defaultValue() {
+			return 0L;
+		}
+	}
+
+	/**
+	 * {@link LoadingCache} builder that can be used to create new caches. Instantiate
+	 * it through the {@link LoadingCache#builder(Function)} static method.
+	 *
+	 * @param <K> the type of the keys
+	 * @param <V> the type of the cached values
+	 */
+	public final static class Builder<K, V> {
+
+		final Function<? super K, ? extends Mono<? extends V>> loader;
+
+		long      expireAfterWrite;
+		long      expireAfterAccess;
+		long      refreshAfterWrite;
+		int       maximumSize;
+		Scheduler scheduler;
+
+		Builder(Function<? super K, ? extends Mono<? extends V>> loader) {
+			this.loader = Objects.requireNonNull(loader, "loader");
+			this.expireAfterWrite = -1L;
+			this.expireAfterAccess = -1L;
+			this.refreshAfterWrite = -1L;
+			this.maximumSize = Integer.MAX_VALUE;
+			this.scheduler = Schedulers.parallel();
+		}
+
+		/**
+		 * Configures entries to expire once the given duration has elapsed since they
+		 * were loaded or last refreshed. Disabled by default.
+		 *
+		 * @param ttl the duration after which a written entry expires
+		 * @return builder with provided expire-after-write
+		 */
+		public Builder<K, V> expireAfterWrite(Duration ttl) {
+			this.expireAfterWrite = validate(ttl, "expireAfterWrite");
+			return this;
+		}
+
+		/**
+		 * Configures entries to expire once the given duration has elapsed since they
+		 * were last accessed. Disabled by default.
+		 *
+		 * @param ttl the duration after which an unused entry expires
+		 * @return builder with provided expire-after-access
+		 */
+		public Builder<K, V> expireAfterAccess(Duration ttl) {
+			this.expireAfterAccess = validate(ttl, "expireAfterAccess");
+			return this;
+		}
+
+		/**
+		 * Configures entries to be reloaded asynchronously when accessed once the
+		 * given duration has elapsed since they were written. The current value keeps
+		 * being served until the reload succeeds. Disabled by default.
+		 *
+		 * @param refresh the duration after which an accessed entry is reloaded
+		 * @return builder with provided refresh-after-write
+		 */
+		public Builder<K, V> refreshAfterWrite(Duration refresh) {
+			this.refreshAfterWrite = validate(refresh, "refreshAfterWrite");
+			return this;
+		}
+
+		/**
+		 * Configures the maximum number of entries of the cache. Default value is
+		 * unbounded.
+		 *
+		 * @param maximumSize the maximum number of entries
+		 * @return builder with provided maximum size
+		 */
+		public Builder<K, V> maximumSize(int maximumSize) {
+			if (maximumSize < 1) {
+				throw new IllegalArgumentException("maximumSize must be strictly positive, was: " + maximumSize);
+			}
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Configures the {@link Scheduler} used as the time source of the cache and to
+		 * run refreshes on. Default value is {@link Schedulers#parallel()}.
+		 *
+		 * @param scheduler the {@link Scheduler} to use
+		 * @return builder with provided scheduler
+		 */
+		public Builder<K, V> scheduler(Scheduler scheduler) {
+			this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+			return this;
+		}
+
+		/**
+		 * Creates a new {@link LoadingCache} using the properties of this builder.
+		 *
+		 * @return a fresh cache
+		 */
+		public LoadingCache<K, V> build() {
+			return new LoadingCache<>(this);
+		}
+
+		static long validate(Duration duration, String name) {
+			if (duration.isNegative() || duration.isZero()) {
+				throw new IllegalArgumentException(name + " must be strictly positive, was: " + duration);
+			}
+			return duration.toMillis();
+		}
+	}
+
+	/**
+	 * Create a new {@link LoadingCache} {@link Builder} with default properties, using
+	 * the given function to load the value of a missing key.
+	 *
+	 * @param loader the function deriving the {@link Mono} to load a key with
+	 * @param <K> the type of the keys
+	 * @param <V> the type of the cached values
+	 *
+	 * @return new LoadingCache builder
+	 */
+	public static <K, V> Builder<K, V> builder(Function<? super K, ? extends Mono<? extends V>> loader) {
+		return new Builder<>(loader);
+	}
+
+	static final Logger log = Loggers.getLogger(LoadingCache.class);
+
+	/**
+	 * The number of entries considered when looking for an entry to evict.
+	 */
+	static final int EVICTION_SAMPLE_SIZE = 8;
+
+	final Function<? super K, ? extends Mono<? extends V>> loader;
+	final long      expireAfterWrite;
+	final long      expireAfterAccess;
+	final long      refreshAfterWrite;
+	final int       maximumSize;
+	final Scheduler scheduler;
+
+	final ConcurrentHashMap<K, Entry<V>> entries;
+
+	final LongAdder hits;
+	final LongAdder misses;
+	final LongAdder evictions;
+
+	LoadingCache(Builder<K, V> builder) {
+		this.loader = builder.loader;
+		this.expireAfterWrite = builder.expireAfterWrite;
+		this.expireAfterAccess = builder.expireAfterAccess;
+		this.refreshAfterWrite = builder.refreshAfterWrite;
+		this.maximumSize = builder.maximumSize;
+		this.scheduler = builder.scheduler;
+		this.entries = new ConcurrentHashMap<>();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+	}
+
+	/**
+	 * Return a {@link Mono} that, once subscribed, emits the cached value for the
+	 * given key, loading it first if it is missing or expired.
+	 *
+	 * @param key the key to get the value of
+	 *
+	 * @return a {@link Mono} of the value associated with the key
+	 */
+	public Mono<V> get(K key) {
+		Objects.requireNonNull(key, "key");
+		return Mono.defer(() -> {
+			long now = scheduler.now(TimeUnit.MILLISECONDS);
+
+			Entry<V> e = entries.get(key);
+			if (e != null && isExpired(e, now)) {
+				if (entries.remove(key, e)) {
+					evictions.increment();
+				}
+				e = null;
+			}
+
+			if (e == null) {
+				Entry<V> created = new Entry<>(MonoProcessor.create(), now);
+				e = entries.putIfAbsent(key, created);
+				if (e == null) {
+					misses.increment();
+					load(key, created);
+					evictIfNeeded(key);
+					return created.value;
+				}
+			}
+
+			hits.increment();
+			e.accessTime = now;
+			if (refreshAfterWrite >= 0L
+					&& e.loaded
+					&& now - e.writeTime >= refreshAfterWrite
+					&& Entry.REFRESHING.compareAndSet(e, 0, 1)) {
+				refresh(key, e);
+			}
+			return e.value;
+		});
+	}
+
+	/**
+	 * Discard the entry associated with the given key, if any.
+	 *
+	 * @param key the key to discard
+	 */
+	public void invalidate(K key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Discard all entries.
+	 */
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	/**
+	 * Return the number of entries, including expired entries that haven't been
+	 * cleaned up yet and entries being loaded.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	@Nullable
+	public Object scanUnsafe(Attr key) {
+		if (key == StatAttr.HITS) return hits.sum();
+		if (key == StatAttr.MISSES) return misses.sum();
+		if (key == StatAttr.EVICTIONS) return evictions.sum();
+		if (key == IntAttr.BUFFERED) return entries.size();
+		if (key == IntAttr.CAPACITY) return maximumSize;
+
+		return null;
+	}
+
+	boolean isExpired(Entry<V> e, long now) {
+		if (!e.loaded) {
+			return false;
+		}
+		return (expireAfterWrite >= 0L && now - e.writeTime >= expireAfterWrite)
+				|| (expireAfterAccess >= 0L && now - e.accessTime >= expireAfterAccess);
+	}
+
+	void load(K key, Entry<V> entry) {
+		MonoProcessor<V> p = (MonoProcessor<V>) entry.value;
+		Mono<? extends V> source;
+		try {
+			source = Objects.requireNonNull(loader.apply(key),
+					"The loader returned a null Mono");
+		}
+		catch (Throwable ex) {
+			entries.remove(key, entry);
+			p.onError(Operators.onOperatorError(ex));
+			return;
+		}
+
+		source.doOnTerminate((v, ex) -> {
+			if (v == null) {
+				//errors and empty results are not cached
+				entries.remove(key, entry);
+			}
+			else {
+				long now = scheduler.now(TimeUnit.MILLISECONDS);
+				entry.writeTime = now;
+				entry.accessTime = now;
+				entry.loaded = true;
+			}
+		})
+		      .subscribe(p);
+	}
+
+	void refresh(K key, Entry<V> entry) {
+		scheduler.schedule(() -> {
+			Mono<? extends V> source;
+			try {
+				source = Objects.requireNonNull(loader.apply(key),
+						"The loader returned a null Mono");
+			}
+			catch (Throwable ex) {
+				refreshFailed(key, entry, ex);
+				return;
+			}
+			source.subscribe(v -> {
+				entry.value = Mono.<V>just(v);
+				entry.writeTime = scheduler.now(TimeUnit.MILLISECONDS);
+				entry.refreshing = 0;
+			}, ex -> refreshFailed(key, entry, ex), () -> entry.refreshing = 0);
+		});
+	}
+
+	void refreshFailed(K key, Entry<V> entry, Throwable ex) {
+		if (log.isDebugEnabled()) {
+			log.debug("Refresh of key " + key + " failed, serving the previous value", ex);
+		}
+		entry.refreshing = 0;
+	}
+
+	void evictIfNeeded(K loadingKey) {
+		while (entries.size() > maximumSize) {
+			Map.Entry<K, Entry<V>> candidate = null;
+			//start the sample at a random position, otherwise the entries iterated
+			//last would never be considered for eviction
+			Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+			int skip = ThreadLocalRandom.current().nextInt(entries.size() + 1);
+			for (int i = 0; i < skip && it.hasNext(); i++) {
+				it.next();
+			}
+			boolean wrapped = false;
+			for (int i = 0; i < EVICTION_SAMPLE_SIZE; i++) {
+				if (!it.hasNext()) {
+					if (wrapped) {
+						break;
+					}
+					wrapped = true;
+					it = entries.entrySet().iterator();
+					if (!it.hasNext()) {
+						break;
+					}
+				}
+				Map.Entry<K, Entry<V>> next = it.next();
+				if (next.getKey().equals(loadingKey)) {
+					continue;
+				}
+				if (candidate == null || next.getValue().accessTime < candidate.getValue().accessTime) {
+					candidate = next;
+				}
+			}
+			if (candidate == null) {
+				return;
+			}
+			if (entries.remove(candidate.getKey(), candidate.getValue())) {
+				evictions.increment();
+			}
+		}
+	}
+
+	static final class Entry<V> {
+
+		volatile Mono<V> value;
+		volatile long    writeTime;
+		volatile long    accessTime;
+		volatile boolean loaded;
+
+		volatile int refreshing;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<Entry> REFRESHING =
+				AtomicIntegerFieldUpdater.newUpdater(Entry.class, "refreshing");
+
+		Entry(Mono<V> value, long now) {
+			this.value = value;
+			this.writeTime = now;
+			this.accessTime = now;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * A reactive sequence of 0 to N primitive {@code long} values, to process numeric
+ * streams without boxing each value into a {@link Long}.
+ * <p>
+ * A {@link LongFlux} follows the Reactive Streams rules, including backpressure, but
+ * isn't a {@link Publisher} as its values are delivered to a {@link LongSubscriber}.
+ * It is bridged from a {@link Flux} with {@link Flux#mapToLong} and back with
+ * {@link #boxed()} or {@link #mapToObj(LongFunction)}, the values only being boxed at
+ * these boundaries. Consecutive {@link #map(LongUnaryOperator)} and
+ * {@link #filter(LongPredicate)} operators are fused into a single operator at assembly
+ * time.
+ *
+ * @see DoubleFlux
+ */
+public abstract class LongFlux {
+
+	/**
+	 * Build a {@link LongFlux} that will only emit a sequence of {@code count}
+	 * incrementing values, starting from {@code start}.
+	 *
+	 * @param start the first value of the range
+	 * @param count the number of values to emit
+	 *
+	 * @return a ranged {@link LongFlux}
+	 */
+	public static LongFlux range(long start, long count) {
+		return new LongFluxRange(start, count);
+	}
+
+	/**
+	 * Create a {@link LongFlux} that emits the values contained in the provided array.
+	 *
+	 * @param array the array to read values from
+	 *
+	 * @return a new {@link LongFlux}
+	 */
+	public static LongFlux fromArray(long... array) {
+		return new LongFluxArray(array);
+	}
+
+	/**
+	 * Subscribe the given {@link LongSubscriber} to this {@link LongFlux}.
+	 *
+	 * @param s the {@link LongSubscriber} to receive the values
+	 */
+	public abstract void subscribe(LongSubscriber s);
+
+	/**
+	 * Box the values of this {@link LongFlux} back into a {@link Flux}.
+	 *
+	 * @return a {@link Flux} of {@link Long}
+	 */
+	public final Flux<Long> boxed() {
+		return mapToObj(Long::valueOf);
+	}
+
+	/**
+	 * Collect the values of this {@link LongFlux} into arrays of the given size, the
+	 * last one possibly being shorter. Each array is allocated once for {@code size}
+	 * values, making it the cheap way to hand batches of values to a {@link Flux}.
+	 *
+	 * @param size the size of the arrays
+	 *
+	 * @return a {@link Flux} of arrays of {@code long}
+	 */
+	public final Flux<long[]> buffer(int size) {
+		return Flux.onAssembly(new LongFluxBuffer(this, size));
+	}
+
+	/**
+	 * Evaluate each value against the given {@link LongPredicate} and only emit the
+	 * values that match it.
+	 *
+	 * @param predicate the {@link LongPredicate} to test the values against
+	 *
+	 * @return a new {@link LongFlux} containing only the matching values
+	 */
+	public final LongFlux filter(LongPredicate predicate) {
+		if (this instanceof LongFluxFilter) {
+			LongFluxFilter f = (LongFluxFilter) this;
+			return new LongFluxFilter(f.source, f.predicate.and(predicate));
+		}
+		return new LongFluxFilter(this, predicate);
+	}
+
+	/**
+	 * Transform the values of this {@link LongFlux} by applying a function to each of
+	 * them.
+	 *
+	 * @param mapper the transforming {@link LongUnaryOperator}
+	 *
+	 * @return a transformed {@link LongFlux}
+	 */
+	public final LongFlux map(LongUnaryOperator mapper) {
+		if (this instanceof LongFluxMap) {
+			LongFluxMap m = (LongFluxMap) this;
+			return new LongFluxMap(m.source, m.mapper.andThen(mapper));
+		}
+		return new LongFluxMap(this, mapper);
+	}
+
+	/**
+	 * Transform the values of this {@link LongFlux} into objects, bridging it to a
+	 * {@link Flux}.
+	 *
+	 * @param mapper the transforming {@link LongFunction}
+	 * @param <R> the transformed type
+	 *
+	 * @return a transformed {@link Flux}
+	 */
+	public final <R> Flux<R> mapToObj(LongFunction<? extends R> mapper) {
+		return Flux.onAssembly(new LongFluxMapToObj<>(this, mapper));
+	}
+
+	/**
+	 * Reduce the values of this {@link LongFlux} into a single value by applying the
+	 * accumulator to the result so far and each value, the first value being the
+	 * initial result. The result is empty if this {@link LongFlux} is.
+	 *
+	 * @param accumulator the reducing {@link LongBinaryOperator}
+	 *
+	 * @return a reduced {@link Mono}
+	 */
+	public final Mono<Long> reduce(LongBinaryOperator accumulator) {
+		return Mono.onAssembly(new LongFluxReduce(this, false, 0L, accumulator));
+	}
+
+	/**
+	 * Reduce the values of this {@link LongFlux} into a single value by applying the
+	 * accumulator to the result so far and each value, starting from the given
+	 * initial value.
+	 *
+	 * @param initial the initial result
+	 * @param accumulator the reducing {@link LongBinaryOperator}
+	 *
+	 * @return a reduced {@link Mono}
+	 */
+	public final Mono<Long> reduce(long initial, LongBinaryOperator accumulator) {
+		return Mono.onAssembly(new LongFluxReduce(this, true, initial, accumulator));
+	}
+
+	/**
+	 * Emit the first value of this {@link LongFlux} as is, then the result of applying
+	 * the accumulator to the previous result and each following value.
+	 *
+	 * @param accumulator the accumulating {@link LongBinaryOperator}
+	 *
+	 * @return an accumulating {@link LongFlux}
+	 */
+	public final LongFlux scan(LongBinaryOperator accumulator) {
+		return new LongFluxScan(this, accumulator);
+	}
+
+	/**
+	 * Sum the values of this {@link LongFlux}, emitting 0 if it is empty.
+	 *
+	 * @return a {@link Mono} of the sum
+	 */
+	public final Mono<Long> sum() {
+		return reduce(0L, Long::sum);
+	}
+}
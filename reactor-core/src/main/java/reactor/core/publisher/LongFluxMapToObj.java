@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Maps the primitive {@code long} values of the source into objects, bridging a
+ * {@link LongFlux} back to a {@link Flux}.
+ *
+ * @param <R> the result value type
+ */
+final class LongFluxMapToObj<R> extends Flux<R> {
+
+	final LongFlux source;
+
+	final LongFunction<? extends R> mapper;
+
+	LongFluxMapToObj(LongFlux source, LongFunction<? extends R> mapper) {
+		this.source = Objects.requireNonNull(source, "source");
+		this.mapper = Objects.requireNonNull(mapper, "mapper");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super R> s) {
+		source.subscribe(new MapToObjSubscriber<>(s, mapper));
+	}
+
+	static final class MapToObjSubscriber<R> implements LongSubscriber, Subscription {
+
+		final Subscriber<? super R> actual;
+
+		final LongFunction<? extends R> mapper;
+
+		Subscription s;
+
+		boolean done;
+
+		MapToObjSubscriber(Subscriber<? super R> actual, LongFunction<? extends R> mapper) {
+			this.actual = actual;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(long t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			R v;
+			try {
+				v = Objects.requireNonNull(mapper.apply(t),
+						"The mapper returned a null value.");
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+			actual.onNext(v);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			s.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			s.cancel();
+		}
+	}
+}
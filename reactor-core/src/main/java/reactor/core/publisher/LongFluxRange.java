@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.reactivestreams.Subscription;
+
+/**
+ * Emits a range of primitive {@code long} values.
+ */
+final class LongFluxRange extends LongFlux {
+
+	final long start;
+
+	final long end;
+
+	LongFluxRange(long start, long count) {
+		if (count < 0L) {
+			throw new IllegalArgumentException("count >= 0 required but it was " + count);
+		}
+		if (start + count < start) {
+			throw new IllegalArgumentException("start + count must be less than Long.MAX_VALUE + 1");
+		}
+		this.start = start;
+		this.end = start + count;
+	}
+
+	@Override
+	public void subscribe(LongSubscriber s) {
+		if (start == end) {
+			s.onSubscribe(Operators.emptySubscription());
+			s.onComplete();
+			return;
+		}
+		s.onSubscribe(new RangeSubscription(s, start, end));
+	}
+
+	static final class RangeSubscription implements Subscription {
+
+		final LongSubscriber actual;
+
+		final long end;
+
+		long index;
+
+		volatile boolean cancelled;
+
+		volatile long requested;
+		static final AtomicLongFieldUpdater<RangeSubscription> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(RangeSubscription.class, "requested");
+
+		RangeSubscription(LongSubscriber actual, long start, long end) {
+			this.actual = actual;
+			this.index = start;
+			this.end = end;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				if (Operators.getAndAddCap(REQUESTED, this, n) == 0) {
+					if (n == Long.MAX_VALUE) {
+						fastPath();
+					}
+					else {
+						slowPath(n);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		void fastPath() {
+			final long f = end;
+			final LongSubscriber s = actual;
+
+			for (long i = index; i != f; i++) {
+				if (cancelled) {
+					return;
+				}
+				s.onNext(i);
+			}
+			if (cancelled) {
+				return;
+			}
+			s.onComplete();
+		}
+
+		void slowPath(long n) {
+			final long f = end;
+			final LongSubscriber s = actual;
+
+			long i = index;
+			long e = 0L;
+
+			for (; ; ) {
+				if (cancelled) {
+					return;
+				}
+
+				while (i != f && e != n) {
+					s.onNext(i);
+
+					if (cancelled) {
+						return;
+					}
+
+					i++;
+					e++;
+				}
+
+				if (i == f) {
+					s.onComplete();
+					return;
+				}
+
+				n = requested;
+				if (n == e) {
+					index = i;
+					n = REQUESTED.addAndGet(this, -e);
+					if (n == 0L) {
+						return;
+					}
+					e = 0L;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.LongBinaryOperator;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregates the primitive {@code long} values of the source with an accumulator
+ * function, only boxing the final result.
+ */
+final class LongFluxReduce extends Mono<Long> {
+
+	final LongFlux source;
+
+	final boolean seeded;
+
+	final long initial;
+
+	final LongBinaryOperator accumulator;
+
+	LongFluxReduce(LongFlux source, boolean seeded, long initial, LongBinaryOperator accumulator) {
+		this.source = Objects.requireNonNull(source, "source");
+		this.seeded = seeded;
+		this.initial = initial;
+		this.accumulator = Objects.requireNonNull(accumulator, "accumulator");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super Long> s) {
+		source.subscribe(new ReduceSubscriber(s, seeded, initial, accumulator));
+	}
+
+	static final class ReduceSubscriber extends Operators.MonoSubscriber<Long, Long>
+			implements LongSubscriber {
+
+		final LongBinaryOperator accumulator;
+
+		Subscription s;
+
+		boolean hasResult;
+
+		long result;
+
+		boolean done;
+
+		ReduceSubscriber(Subscriber<? super Long> actual,
+				boolean seeded,
+				long initial,
+				LongBinaryOperator accumulator) {
+			super(actual);
+			this.hasResult = seeded;
+			this.result = initial;
+			this.accumulator = accumulator;
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == ScannableAttr.PARENT) return s;
+
+			return super.scanUnsafe(key);
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+				s.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(long t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			if (hasResult) {
+				try {
+					result = accumulator.applyAsLong(result, t);
+				}
+				catch (Throwable ex) {
+					done = true;
+					actual.onError(Operators.onOperatorError(s, ex, t));
+				}
+			}
+			else {
+				hasResult = true;
+				result = t;
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			if (hasResult) {
+				complete(result);
+			}
+			else {
+				actual.onComplete();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			super.cancel();
+			s.cancel();
+		}
+	}
+}
@@ -2137,6 +2137,47 @@ public abstract class Mono<T> implements Publisher<T> {
 		return onAssembly(new MonoHandle<>(this, handler));
 	}
 
+	/**
+	 * Hedge this {@link Mono} against slow replicas: if it hasn't produced within the
+	 * given delay, subscribe to it again, up to {@code maxAttempts} concurrent
+	 * subscriptions. The first subscription to emit a value or to complete empty wins
+	 * and the others are cancelled. A failed subscription is immediately replaced by
+	 * the next attempt, and the error is only propagated once all the attempts have
+	 * failed.
+	 * <p>
+	 * This is meant for idempotent sources that are cheap to duplicate, like a read from
+	 * replicated backends, as a way to cut the tail latency.
+	 *
+	 * @param delay the {@link Duration} after which an attempt that hasn't produced is
+	 * hedged with a new one
+	 * @param maxAttempts the maximum number of subscriptions to this {@link Mono}
+	 *
+	 * @return a hedged {@link Mono}
+	 */
+	public final Mono<T> hedge(Duration delay, int maxAttempts) {
+		return hedge(delay, maxAttempts, Schedulers.parallel());
+	}
+
+	/**
+	 * Hedge this {@link Mono} against slow replicas: if it hasn't produced within the
+	 * given delay, as measured on the provided {@link Scheduler}, subscribe to it again,
+	 * up to {@code maxAttempts} concurrent subscriptions. The first subscription to emit
+	 * a value or to complete empty wins and the others are cancelled. A failed
+	 * subscription is immediately replaced by the next attempt, and the error is only
+	 * propagated once all the attempts have failed.
+	 *
+	 * @param delay the {@link Duration} after which an attempt that hasn't produced is
+	 * hedged with a new one
+	 * @param maxAttempts the maximum number of subscriptions to this {@link Mono}
+	 * @param timer a time-capable {@link Scheduler} instance to run the delays on
+	 *
+	 * @return a hedged {@link Mono}
+	 */
+	public final Mono<T> hedge(Duration delay, int maxAttempts, Scheduler timer) {
+		return onAssembly(new MonoHedge<>(this, delay.toMillis(), TimeUnit.MILLISECONDS,
+				maxAttempts, timer));
+	}
+
 	/**
 	 * Hides the identity of this {@link Mono} instance.
 	 * 
@@ -2461,6 +2502,19 @@ public abstract class Mono<T> implements Publisher<T> {
 		return onAssembly(new MonoPublishOn<>(this, scheduler));
 	}
 
+	/**
+	 * Delay the subscription to this {@link Mono} until a token can be taken from the
+	 * given {@link RateLimiter}, which can be shared with other sequences so that they
+	 * are paced together. This is typically used to pace calls to a rate-limited API.
+	 *
+	 * @param limiter the {@link RateLimiter} to take a token from
+	 *
+	 * @return a rate limited {@link Mono}
+	 */
+	public final Mono<T> rateLimited(RateLimiter limiter) {
+		return onAssembly(new MonoDelaySubscription<>(this, new FluxRateLimit.Permit(limiter)));
+	}
+
 	/**
 	 * Repeatedly and indefinitely subscribe to the source upon completion of the
 	 * previous subscription.
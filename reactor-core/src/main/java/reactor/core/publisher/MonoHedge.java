@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.stream.Stream;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import javax.annotation.Nullable;
+
+/**
+ * Subscribes to the source again each time it hasn't signalled within a given delay,
+ * up to a maximum number of concurrent attempts. The first attempt to produce a value
+ * or to complete empty wins and the others are cancelled. A failed attempt immediately
+ * gives way to the next one, and the error is only propagated once all the attempts
+ * have failed.
+ *
+ * @param <T> the value type
+ */
+final class MonoHedge<T> extends MonoSource<T, T> {
+
+	final long delay;
+
+	final TimeUnit unit;
+
+	final int maxAttempts;
+
+	final Scheduler timer;
+
+	MonoHedge(Mono<? extends T> source,
+			long delay,
+			TimeUnit unit,
+			int maxAttempts,
+			Scheduler timer) {
+		super(source);
+		if (delay < 0L) {
+			throw new IllegalArgumentException("delay >= 0 required but it was " + delay);
+		}
+		if (maxAttempts <= 0) {
+			throw new IllegalArgumentException("maxAttempts > 0 required but it was " + maxAttempts);
+		}
+		this.delay = delay;
+		this.unit = Objects.requireNonNull(unit, "unit");
+		this.maxAttempts = maxAttempts;
+		this.timer = Objects.requireNonNull(timer, "timer");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		HedgeMain<T> main = new HedgeMain<>(s, this);
+		s.onSubscribe(main);
+		main.launchNext();
+	}
+
+	static final class HedgeMain<T> extends Operators.MonoSubscriber<T, T> {
+
+		final MonoHedge<T> parent;
+
+		/**
+		 * The launched attempts, guarded by this.
+		 */
+		final HedgeInner<T>[] attempts;
+
+		int launched;
+
+		int active;
+
+		volatile Disposable task;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<HedgeMain, Disposable> TASK =
+				AtomicReferenceFieldUpdater.newUpdater(HedgeMain.class, Disposable.class, "task");
+
+		volatile int won;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<HedgeMain> WON =
+				AtomicIntegerFieldUpdater.newUpdater(HedgeMain.class, "won");
+
+		@SuppressWarnings("unchecked")
+		HedgeMain(Subscriber<? super T> actual, MonoHedge<T> parent) {
+			super(actual);
+			this.parent = parent;
+			this.attempts = new HedgeInner[parent.maxAttempts];
+		}
+
+		@Override
+		public Stream<? extends Scannable> inners() {
+			synchronized (this) {
+				return Stream.of(attempts).limit(launched);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == BooleanAttr.TERMINATED) return won == 1;
+
+			return super.scanUnsafe(key);
+		}
+
+		@Override
+		public void cancel() {
+			super.cancel();
+			Disposables.dispose(TASK, this);
+			cancelAttempts(null);
+		}
+
+		void onDelay() {
+			//forget the running task so that winning from this thread doesn't
+			// interrupt it
+			if (Disposables.replace(TASK, this, null)) {
+				launchNext();
+			}
+		}
+
+		/**
+		 * Start a new attempt if the race isn't over and the maximum hasn't been reached.
+		 */
+		void launchNext() {
+			HedgeInner<T> attempt;
+			synchronized (this) {
+				attempt = nextAttempt();
+			}
+			if (attempt != null) {
+				start(attempt);
+			}
+		}
+
+		/**
+		 * Must be called while holding this.
+		 *
+		 * @return the next attempt to start, or null if none should be
+		 */
+		@Nullable
+		HedgeInner<T> nextAttempt() {
+			if (won != 0 || isCancelled() || launched == attempts.length) {
+				return null;
+			}
+			HedgeInner<T> attempt = new HedgeInner<>(this);
+			attempts[launched++] = attempt;
+			active++;
+			return attempt;
+		}
+
+		void start(HedgeInner<T> attempt) {
+			if (attempt != attempts[attempts.length - 1]) {
+				MonoHedge<T> p = parent;
+				Disposable d = p.timer.schedule(this::onDelay, p.delay, p.unit);
+				//a rejected timer only prevents further hedging, the attempts in
+				// flight can still succeed. If the timer already fired, the next
+				// attempt may have registered its own which must not be replaced
+				if (d != Scheduler.REJECTED) {
+					Disposables.trySet(TASK, this, d);
+				}
+			}
+			parent.source.subscribe(attempt);
+		}
+
+		boolean tryWin(HedgeInner<T> winner) {
+			if (WON.compareAndSet(this, 0, 1)) {
+				Disposables.dispose(TASK, this);
+				cancelAttempts(winner);
+				return true;
+			}
+			return false;
+		}
+
+		void cancelAttempts(@Nullable HedgeInner<T> winner) {
+			synchronized (this) {
+				for (int i = 0; i < launched; i++) {
+					HedgeInner<T> a = attempts[i];
+					if (a != winner) {
+						a.cancel();
+					}
+				}
+			}
+		}
+
+		void attemptValue(HedgeInner<T> attempt, T value) {
+			if (tryWin(attempt)) {
+				complete(value);
+			}
+		}
+
+		void attemptEmpty(HedgeInner<T> attempt) {
+			if (tryWin(attempt)) {
+				actual.onComplete();
+			}
+		}
+
+		void attemptError(HedgeInner<T> attempt, Throwable e) {
+			HedgeInner<T> next;
+			boolean last;
+			synchronized (this) {
+				active--;
+				next = nextAttempt();
+				last = next == null && active == 0;
+			}
+			if (next != null) {
+				start(next);
+			}
+			else if (last && tryWin(attempt)) {
+				actual.onError(e);
+			}
+		}
+	}
+
+	static final class HedgeInner<T> implements InnerConsumer<T> {
+
+		final HedgeMain<T> parent;
+
+		volatile Subscription s;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<HedgeInner, Subscription> S =
+				AtomicReferenceFieldUpdater.newUpdater(HedgeInner.class, Subscription.class, "s");
+
+		boolean done;
+
+		HedgeInner(HedgeMain<T> parent) {
+			this.parent = parent;
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == BooleanAttr.CANCELLED) return s == Operators.cancelledSubscription();
+			if (key == BooleanAttr.TERMINATED) return done;
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == ScannableAttr.ACTUAL) return parent;
+
+			return null;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.setOnce(S, this, s)) {
+				s.request(Long.MAX_VALUE);
+			}
+			else {
+				s.cancel();
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				return;
+			}
+			done = true;
+			parent.attemptValue(this, t);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				return;
+			}
+			done = true;
+			parent.attemptError(this, t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			parent.attemptEmpty(this);
+		}
+
+		void cancel() {
+			Operators.terminate(S, this);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+/**
+ * Strategies to pick the 'rail' that receives each value from the source when
+ * {@link Flux#parallel(int, int, ParallelDispatchStrategy) dividing a Flux} into a
+ * {@link ParallelFlux}.
+ */
+public enum ParallelDispatchStrategy {
+
+	/**
+	 * Send each value to the next rail that is ready to receive it, in a round-robin
+	 * fashion. This is the default.
+	 */
+	ROUND_ROBIN,
+	/**
+	 * Send each value to the rail with the most outstanding demand, which is usually the
+	 * least loaded one once the rails are run on a {@link reactor.core.scheduler.Scheduler}
+	 * (join-shortest-queue). Prefer this strategy when the cost of processing varies
+	 * a lot from one value to another, so that a slow value doesn't hold back the
+	 * values queued up behind it on the same rail.
+	 */
+	MOST_DEMAND
+
+}
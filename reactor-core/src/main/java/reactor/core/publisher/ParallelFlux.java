@@ -29,6 +29,7 @@ import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.logging.Level;
 
 import org.reactivestreams.Publisher;
@@ -119,6 +120,37 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 				prefetch, queueSupplier));
 	}
 
+	/**
+	 * Take a Publisher and prepare to consume it on {@code parallelism} number of 'rails',
+	 * dispatching values to the rails according to the given {@link ParallelDispatchStrategy}
+	 * and using a custom prefetch amount and queue for dealing with the source
+	 * Publisher's values.
+	 *
+	 * @param <T> the value type
+	 * @param source the source Publisher
+	 * @param parallelism the number of parallel rails
+	 * @param prefetch the number of values to prefetch from the source
+	 * @param queueSupplier the queue structure supplier to hold the prefetched values
+	 * from the source until there is a rail ready to process it.
+	 * @param dispatchStrategy the {@link ParallelDispatchStrategy} picking the rail each
+	 * value is sent to
+	 *
+	 * @return the new {@link ParallelFlux} instance
+	 */
+	public static <T> ParallelFlux<T> from(Publisher<? extends T> source,
+			int parallelism,
+			int prefetch,
+			Supplier<Queue<T>> queueSupplier,
+			ParallelDispatchStrategy dispatchStrategy) {
+		Objects.requireNonNull(queueSupplier, "queueSupplier");
+		Objects.requireNonNull(source, "source");
+		Objects.requireNonNull(dispatchStrategy, "dispatchStrategy");
+
+		return onAssembly(new ParallelSource<>(source,
+				parallelism,
+				prefetch, queueSupplier, dispatchStrategy));
+	}
+
 	/**
 	 * Wraps multiple Publishers into a {@link ParallelFlux} which runs them in parallel and
 	 * unordered.
@@ -227,6 +259,51 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 		return onAssembly(new ParallelCollect<>(this, collectionSupplier, collector));
 	}
 
+	/**
+	 * Add the keys extracted from the values of each rail to a per-rail
+	 * {@link HyperLogLog} sketch, the sketches being merged into one once all the rails
+	 * complete.
+	 *
+	 * @param keySelector the function extracting the key to count from each value
+	 * @param precision the precision of the sketches, between
+	 * {@link HyperLogLog#MIN_PRECISION} and {@link HyperLogLog#MAX_PRECISION}
+	 *
+	 * @return the new {@link Mono} of the merged sketch
+	 */
+	public final Mono<HyperLogLog> collectHyperLogLog(Function<? super T, ?> keySelector,
+			int precision) {
+		HyperLogLog.checkPrecision(precision);
+		Objects.requireNonNull(keySelector, "keySelector");
+		ParallelFlux<HyperLogLog> railSketches =
+				collect(() -> new HyperLogLog(precision),
+						(h, t) -> h.add(Objects.requireNonNull(keySelector.apply(t),
+								"The keySelector returned a null value")));
+
+		return railSketches.reduce(HyperLogLog::merge);
+	}
+
+	/**
+	 * Record the values extracted from the values of each rail into a per-rail
+	 * {@link QuantileSketch}, the sketches being merged into one once all the rails
+	 * complete.
+	 *
+	 * @param valueExtractor the function extracting the value to record from each value
+	 * @param relativeAccuracy the maximum relative error of the estimated quantiles,
+	 * strictly between 0 and 1
+	 *
+	 * @return the new {@link Mono} of the merged sketch
+	 */
+	public final Mono<QuantileSketch> collectQuantileSketch(ToDoubleFunction<? super T> valueExtractor,
+			double relativeAccuracy) {
+		QuantileSketch.checkRelativeAccuracy(relativeAccuracy);
+		Objects.requireNonNull(valueExtractor, "valueExtractor");
+		ParallelFlux<QuantileSketch> railSketches =
+				collect(() -> new QuantileSketch(relativeAccuracy),
+						(q, t) -> q.add(valueExtractor.applyAsDouble(t)));
+
+		return railSketches.reduce(QuantileSketch::merge);
+	}
+
 	/**
 	 * Sorts the 'rails' according to the comparator and returns a full sorted list as a
 	 * Publisher.
@@ -356,6 +433,23 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 		return concatMap(mapper, 2, ErrorMode.END);
 	}
 
+	/**
+	 * Estimate the number of distinct keys extracted from the values of all the rails
+	 * with {@link HyperLogLog} sketches, one per rail, merged once all the rails
+	 * complete. The memory used is constant, {@code 2^precision} bytes per rail, and
+	 * the estimate has a relative standard error of {@code 1.04 / sqrt(2^precision)}.
+	 *
+	 * @param keySelector the function extracting the key to count from each value
+	 * @param precision the precision of the sketches, between
+	 * {@link HyperLogLog#MIN_PRECISION} and {@link HyperLogLog#MAX_PRECISION}
+	 *
+	 * @return the new {@link Mono} of the estimated distinct count
+	 */
+	public final Mono<Long> countDistinctApprox(Function<? super T, ?> keySelector,
+			int precision) {
+		return collectHyperLogLog(keySelector, precision).map(HyperLogLog::estimate);
+	}
+
 	/**
 	 * Run the specified runnable when a 'rail' completes or signals an error.
 	 *
@@ -733,6 +827,33 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 		return onAssembly(new ParallelMap<>(this, mapper));
 	}
 
+	/**
+	 * Maps the source values on each 'rail' to another value, keeping track of the
+	 * position of each value in the sequence that was divided into rails. Merging the
+	 * resulting rails with {@link #sequential()} then emits the mapped values in that
+	 * original order, instead of the order in which the rails produce them.
+	 * <p>
+	 * Values processed ahead of their turn are held in a reorder buffer that is bounded
+	 * by the {@link #sequential(int) prefetch} of each rail: a rail that runs too far
+	 * ahead is backpressured until the values before it have been emitted.
+	 * <p>
+	 * The sequence index is assigned when the values are dispatched to the rails, so this
+	 * operator must directly follow {@link Flux#parallel()} or {@link #runOn(Scheduler)}.
+	 * Note that the same mapper function may be called from multiple threads
+	 * concurrently.
+	 *
+	 * @param <U> the output value type
+	 * @param mapper the mapper function turning Ts into Us.
+	 *
+	 * @return the new {@link ParallelFlux} instance
+	 * @throws IllegalStateException if this {@link ParallelFlux} wasn't created by
+	 * {@link Flux#parallel()}, optionally followed by {@link #runOn(Scheduler)}
+	 */
+	public final <U> ParallelFlux<U> ordered(Function<? super T, ? extends U> mapper) {
+		Objects.requireNonNull(mapper, "mapper");
+		return onAssembly(new ParallelOrdered<>(this, mapper));
+	}
+
 	/**
 	 * Returns the number of expected parallel Subscribers.
 	 *
@@ -740,6 +861,65 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 	 */
 	public abstract int parallelism();
 
+	/**
+	 * Dispatch the values to the 'rails' according to the hash of the key extracted from
+	 * each value instead of in a round-robin fashion, so that all the values with the
+	 * same key end up on the same rail, in their original order. This lets each rail
+	 * keep plain per-key state (for instance in {@link #reduce(Supplier, BiFunction)}
+	 * or {@link #collect(Supplier, BiConsumer)}) without any synchronization, while the
+	 * keys are still spread over all the rails.
+	 * <p>
+	 * A value whose rail isn't ready to receive it holds back the values behind it, so
+	 * one slow rail can slow down the other ones.
+	 * <p>
+	 * The rail is picked when the values are dispatched, so this operator must directly
+	 * follow {@link Flux#parallel()}. Use {@link #runOn(Scheduler)} afterward to actually
+	 * perform the work in parallel.
+	 *
+	 * @param keySelector the function extracting the key of each value, which must not
+	 * return null
+	 *
+	 * @return the new {@link ParallelFlux} instance
+	 * @throws IllegalStateException if this {@link ParallelFlux} wasn't created by
+	 * {@link Flux#parallel()}
+	 */
+	public final ParallelFlux<T> partitionBy(Function<? super T, ?> keySelector) {
+		Objects.requireNonNull(keySelector, "keySelector");
+		ParallelFlux<T> p = this instanceof ParallelFluxOnAssembly ?
+				((ParallelFluxOnAssembly<T>) this).source : this;
+		if (!(p instanceof ParallelSource)) {
+			throw new IllegalStateException("partitionBy can only be applied to a " +
+					"ParallelFlux created by Flux.parallel()");
+		}
+		ParallelSource<T> source = (ParallelSource<T>) p;
+		return onAssembly(new ParallelSource<>(source.source,
+				source.parallelism,
+				source.prefetch,
+				source.queueSupplier,
+				source.dispatchStrategy,
+				keySelector));
+	}
+
+	/**
+	 * Estimate the given quantiles of the values extracted from the values of all the
+	 * rails with {@link QuantileSketch sketches} of
+	 * {@link QuantileSketch#DEFAULT_RELATIVE_ACCURACY 1%} relative accuracy, one per
+	 * rail, merged once all the rails complete. Completes empty if all the rails are
+	 * empty.
+	 *
+	 * @param valueExtractor the function extracting the value to record from each value
+	 * @param quantiles the quantiles to estimate, between 0 and 1
+	 *
+	 * @return the new {@link Mono} of the estimated values, in the order of the quantiles
+	 */
+	public final Mono<double[]> quantiles(ToDoubleFunction<? super T> valueExtractor,
+			double... quantiles) {
+		double[] q = QuantileSketch.checkQuantiles(quantiles);
+		return collectQuantileSketch(valueExtractor, QuantileSketch.DEFAULT_RELATIVE_ACCURACY)
+				.filter(s -> s.count() != 0L)
+				.map(s -> s.quantiles(q));
+	}
+
 	/**
 	 * Reduces all values within a 'rail' and across 'rails' with a reducer function into
 	 * a single sequential value.
@@ -854,12 +1034,20 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 	 * Merges the values from each 'rail' in a round-robin or same-order fashion and
 	 * exposes it as a regular Publisher sequence, running with a give prefetch value for
 	 * the rails.
+	 * <p>
+	 * If this {@link ParallelFlux} was produced by {@link #ordered(Function)}, the values
+	 * are emitted in the order of the sequence that was divided into rails.
 	 *
 	 * @param prefetch the prefetch amount to use for each rail
 	 *
 	 * @return the new Flux instance
 	 */
 	public final Flux<T> sequential(int prefetch) {
+		ParallelFlux<T> p = this instanceof ParallelFluxOnAssembly ?
+				((ParallelFluxOnAssembly<T>) this).source : this;
+		if (p instanceof ParallelOrdered) {
+			return Flux.onAssembly(((ParallelOrdered<?, T>) p).sequentialOrdered(prefetch));
+		}
 		return Flux.onAssembly(new ParallelMergeSequential<>(this,
 				prefetch,
 				QueueSupplier.get(prefetch)));
@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.Scannable;
+import javax.annotation.Nullable;
+
+/**
+ * Merges the individual 'rails' of a source ParallelFlux of {@link Indexed} values back
+ * into a single regular Publisher sequence (exposed as reactor.core.publisher.Flux),
+ * emitting the values in the order of their index.
+ * <p>
+ * Each rail is expected to carry increasing indexes. Values that arrive ahead of their
+ * turn are held in a per-rail buffer of {@code prefetch} elements, which is only
+ * replenished once the values it holds have been emitted, so that the reorder buffer
+ * stays bounded.
+ *
+ * @param <T> the value type
+ */
+final class ParallelMergeOrdered<T> extends Flux<T> implements Scannable {
+
+	final ParallelFlux<Indexed<T>>      source;
+	final int                           prefetch;
+	final Supplier<Queue<Indexed<T>>>   queueSupplier;
+
+	ParallelMergeOrdered(ParallelFlux<Indexed<T>> source, int prefetch,
+			Supplier<Queue<Indexed<T>>> queueSupplier) {
+		if (prefetch <= 0) {
+			throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+		}
+		this.source = source;
+		this.prefetch = prefetch;
+		this.queueSupplier = queueSupplier;
+	}
+
+	@Override
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	@Override
+	@Nullable
+	public Object scanUnsafe(Attr key) {
+		if (key == ScannableAttr.PARENT) return source;
+		if (key == IntAttr.PREFETCH) return getPrefetch();
+
+		return null;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		MergeOrderedMain<T> parent = new MergeOrderedMain<>(s, source.parallelism(),
+				prefetch, queueSupplier);
+		s.onSubscribe(parent);
+		source.subscribe(parent.subscribers);
+	}
+
+	/**
+	 * A value tagged with its position in the source sequence.
+	 *
+	 * @param <T> the value type
+	 */
+	static final class Indexed<T> {
+
+		final long index;
+		final T    value;
+
+		Indexed(long index, T value) {
+			this.index = index;
+			this.value = value;
+		}
+	}
+
+	static final class MergeOrderedMain<T> implements InnerProducer<T> {
+
+		final MergeOrderedInner<T>[] subscribers;
+		final Subscriber<? super T>  actual;
+
+		long expected;
+
+		int lastRail;
+
+		volatile Throwable error;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<MergeOrderedMain, Throwable> ERROR =
+				AtomicReferenceFieldUpdater.newUpdater(MergeOrderedMain.class, Throwable.class, "error");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<MergeOrderedMain> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(MergeOrderedMain.class, "wip");
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<MergeOrderedMain> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(MergeOrderedMain.class, "requested");
+
+		volatile boolean cancelled;
+
+		volatile int done;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<MergeOrderedMain> DONE =
+				AtomicIntegerFieldUpdater.newUpdater(MergeOrderedMain.class, "done");
+
+		MergeOrderedMain(Subscriber<? super T> actual, int n, int prefetch,
+				Supplier<Queue<Indexed<T>>> queueSupplier) {
+			this.actual = actual;
+			@SuppressWarnings("unchecked")
+			MergeOrderedInner<T>[] a = new MergeOrderedInner[n];
+
+			for (int i = 0; i < n; i++) {
+				a[i] = new MergeOrderedInner<>(this, prefetch, queueSupplier.get());
+			}
+
+			this.subscribers = a;
+			this.lastRail = n - 1;
+			DONE.lazySet(this, n);
+		}
+
+		@Override
+		public final Subscriber<? super T> actual() {
+			return actual;
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == BooleanAttr.CANCELLED) return cancelled;
+			if (key == LongAttr.REQUESTED_FROM_DOWNSTREAM) return requested;
+			if (key == BooleanAttr.TERMINATED) return done == 0;
+			if (key == ThrowableAttr.ERROR) return error;
+			if (key == IntAttr.BUFFERED) {
+				int size = 0;
+				for (MergeOrderedInner<T> inner : subscribers) {
+					size += inner.queue.size();
+				}
+				return size;
+			}
+
+			return InnerProducer.super.scanUnsafe(key);
+		}
+
+		@Override
+		public Stream<? extends Scannable> inners() {
+			return Stream.of(subscribers);
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+
+				cancelAll();
+
+				if (WIP.getAndIncrement(this) == 0) {
+					cleanup();
+				}
+			}
+		}
+
+		void cancelAll() {
+			for (MergeOrderedInner<T> s : subscribers) {
+				s.cancel();
+			}
+		}
+
+		void cleanup() {
+			for (MergeOrderedInner<T> s : subscribers) {
+				s.queue.clear();
+			}
+		}
+
+		void onError(Throwable ex) {
+			if (ERROR.compareAndSet(this, null, ex)) {
+				cancelAll();
+				drain();
+			}
+			else if (error != ex) {
+				Operators.onErrorDropped(ex);
+			}
+		}
+
+		void onComplete() {
+			if (DONE.decrementAndGet(this) < 0) {
+				return;
+			}
+			drain();
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+
+			drainLoop();
+		}
+
+		/**
+		 * Find the rail whose next value is the expected one, starting after the rail
+		 * that produced the previous value as the source usually dispatches to the
+		 * rails in turn. Once all rails are done, fall back to the smallest pending
+		 * index so that a gap in the indexes doesn't stall the sequence.
+		 *
+		 * @return the index of the rail, or -1 if the expected value hasn't arrived yet
+		 */
+		int nextRail(boolean allDone) {
+			MergeOrderedInner<T>[] s = subscribers;
+			int n = s.length;
+			int i = lastRail;
+			int min = -1;
+			long minIndex = Long.MAX_VALUE;
+			for (int k = 0; k < n; k++) {
+				if (++i == n) {
+					i = 0;
+				}
+				Indexed<T> head = s[i].queue.peek();
+				if (head != null) {
+					if (head.index == expected) {
+						return i;
+					}
+					if (head.index < minIndex) {
+						minIndex = head.index;
+						min = i;
+					}
+				}
+			}
+			return allDone ? min : -1;
+		}
+
+		boolean isEmpty() {
+			for (MergeOrderedInner<T> inner : subscribers) {
+				if (!inner.queue.isEmpty()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		void drainLoop() {
+			int missed = 1;
+
+			MergeOrderedInner<T>[] s = this.subscribers;
+			Subscriber<? super T> a = this.actual;
+
+			for (;;) {
+
+				long r = requested;
+				long e = 0;
+
+				while (e != r) {
+					if (cancelled) {
+						cleanup();
+						return;
+					}
+
+					Throwable ex = error;
+					if (ex != null) {
+						cleanup();
+						a.onError(ex);
+						return;
+					}
+
+					boolean d = done == 0;
+
+					int idx = nextRail(d);
+
+					if (idx < 0) {
+						if (d) {
+							a.onComplete();
+							return;
+						}
+						break;
+					}
+
+					MergeOrderedInner<T> inner = s[idx];
+					Indexed<T> v = inner.queue.poll();
+
+					expected = v.index + 1;
+					lastRail = idx;
+
+					a.onNext(v.value);
+					inner.requestOne();
+
+					e++;
+				}
+
+				if (e == r) {
+					if (cancelled) {
+						cleanup();
+						return;
+					}
+
+					Throwable ex = error;
+					if (ex != null) {
+						cleanup();
+						a.onError(ex);
+						return;
+					}
+
+					if (done == 0 && isEmpty()) {
+						a.onComplete();
+						return;
+					}
+				}
+
+				if (e != 0 && r != Long.MAX_VALUE) {
+					REQUESTED.addAndGet(this, -e);
+				}
+
+				int w = wip;
+				if (w == missed) {
+					missed = WIP.addAndGet(this, -missed);
+					if (missed == 0) {
+						break;
+					}
+				}
+				else {
+					missed = w;
+				}
+			}
+		}
+	}
+
+	static final class MergeOrderedInner<T> implements InnerConsumer<Indexed<T>> {
+
+		final MergeOrderedMain<T> parent;
+
+		final int prefetch;
+
+		final int limit;
+
+		final Queue<Indexed<T>> queue;
+
+		long produced;
+
+		volatile Subscription s;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<MergeOrderedInner, Subscription> S =
+				AtomicReferenceFieldUpdater.newUpdater(MergeOrderedInner.class, Subscription.class, "s");
+
+		volatile boolean done;
+
+		MergeOrderedInner(MergeOrderedMain<T> parent, int prefetch, Queue<Indexed<T>> queue) {
+			this.parent = parent;
+			this.prefetch = prefetch;
+			this.limit = prefetch - (prefetch >> 2);
+			this.queue = queue;
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == BooleanAttr.CANCELLED) return s == Operators.cancelledSubscription();
+			if (key == ScannableAttr.PARENT) return s;
+			if (key == ScannableAttr.ACTUAL) return parent;
+			if (key == IntAttr.PREFETCH) return prefetch;
+			if (key == IntAttr.BUFFERED) return queue.size();
+			if (key == BooleanAttr.TERMINATED) return done;
+
+			return null;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.setOnce(S, this, s)) {
+				s.request(prefetch);
+			}
+		}
+
+		@Override
+		public void onNext(Indexed<T> t) {
+			if (!queue.offer(t)) {
+				parent.onError(Operators.onOperatorError(s,
+						Exceptions.failWithOverflow(Exceptions.BACKPRESSURE_ERROR_QUEUE_FULL),
+						t.value));
+				return;
+			}
+			parent.drain();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			parent.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			done = true;
+			parent.onComplete();
+		}
+
+		void requestOne() {
+			long p = produced + 1;
+			if (p == limit) {
+				produced = 0;
+				s.request(p);
+			}
+			else {
+				produced = p;
+			}
+		}
+
+		void cancel() {
+			Operators.terminate(S, this);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import reactor.core.Scannable;
+import reactor.core.publisher.ParallelMergeOrdered.Indexed;
+import reactor.util.concurrent.QueueSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Maps each 'rail' of the source ParallelFlux with a mapper function while keeping track
+ * of the position of each value in the sequence that was divided into rails, so that
+ * {@link ParallelFlux#sequential()} can restore that order.
+ * <p>
+ * The values are tagged with a sequence index before they enter the
+ * {@link ParallelSource}, which requires the source ParallelFlux to be made of a
+ * {@link ParallelSource} optionally followed by a {@link ParallelRunOn}.
+ *
+ * @param <T> the input value type
+ * @param <R> the output value type
+ */
+final class ParallelOrdered<T, R> extends ParallelFlux<R> implements Scannable {
+
+	final ParallelFlux<T> source;
+
+	final ParallelFlux<Indexed<R>> indexed;
+
+	ParallelOrdered(ParallelFlux<T> source, Function<? super T, ? extends R> mapper) {
+		this.source = source;
+		this.indexed = new ParallelMap<>(tag(source),
+				v -> new Indexed<>(v.index, Objects.requireNonNull(mapper.apply(v.value),
+						"The mapper returned a null value")));
+	}
+
+	@Override
+	@Nullable
+	public Object scanUnsafe(Attr key) {
+		if (key == ScannableAttr.PARENT) return source;
+		if (key == IntAttr.PREFETCH) return getPrefetch();
+
+		return null;
+	}
+
+	@Override
+	public int getPrefetch() {
+		return source.getPrefetch();
+	}
+
+	@Override
+	public int parallelism() {
+		return source.parallelism();
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super R>[] subscribers) {
+		if (!validate(subscribers)) {
+			return;
+		}
+
+		int n = subscribers.length;
+		@SuppressWarnings("unchecked")
+		Subscriber<? super Indexed<R>>[] parents = new Subscriber[n];
+
+		for (int i = 0; i < n; i++) {
+			parents[i] = new FluxMap.MapSubscriber<>(subscribers[i], v -> v.value);
+		}
+
+		indexed.subscribe(parents);
+	}
+
+	/**
+	 * Merge the rails back into a {@link Flux} that emits the values in the order of
+	 * the sequence that was divided into rails.
+	 *
+	 * @param prefetch the prefetch amount to use for each rail
+	 *
+	 * @return the ordered {@link Flux}
+	 */
+	Flux<R> sequentialOrdered(int prefetch) {
+		return new ParallelMergeOrdered<>(indexed, prefetch, QueueSupplier.get(prefetch));
+	}
+
+	/**
+	 * Rebuild the {@link ParallelSource} (and the {@link ParallelRunOn}) at the root of
+	 * the given ParallelFlux so that the values it dispatches are tagged with their index.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static <T> ParallelFlux<Indexed<T>> tag(ParallelFlux<? extends T> parent) {
+		if (parent instanceof ParallelFluxOnAssembly) {
+			return tag(((ParallelFluxOnAssembly<? extends T>) parent).source);
+		}
+		if (parent instanceof ParallelRunOn) {
+			ParallelRunOn<? extends T> p = (ParallelRunOn<? extends T>) parent;
+			return new ParallelRunOn<>(tag(p.source),
+					p.scheduler,
+					p.prefetch,
+					(Supplier) p.queueSupplier);
+		}
+		if (parent instanceof ParallelSource) {
+			ParallelSource<? extends T> p = (ParallelSource<? extends T>) parent;
+			Function partitioner = p.partitioner;
+			return new ParallelSource<>(index(p.source),
+					p.parallelism,
+					p.prefetch,
+					(Supplier) p.queueSupplier,
+					p.dispatchStrategy,
+					partitioner == null ? null : v -> partitioner.apply(((Indexed) v).value));
+		}
+		throw new IllegalStateException("ordered can only be applied to a ParallelFlux " +
+				"created by Flux.parallel(), optionally followed by runOn()");
+	}
+
+	static <T> Flux<Indexed<T>> index(Publisher<? extends T> source) {
+		return Flux.defer(() -> {
+			long[] counter = new long[1];
+			return Flux.<T>from(source).map(v -> new Indexed<>(counter[0]++, v));
+		});
+	}
+}
@@ -15,9 +15,11 @@
  */
 package reactor.core.publisher;
 
+import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -31,7 +33,13 @@ import javax.annotation.Nullable;
 
 /**
  * Dispatches the values from upstream in a round robin fashion to subscribers which are
- * ready to consume elements. A value from upstream is sent to only one of the subscribers.
+ * ready to consume elements, or to the subscriber with the most outstanding demand
+ * depending on the {@link ParallelDispatchStrategy}. A value from upstream is sent to
+ * only one of the subscribers.
+ * <p>
+ * When a partitioner is set, each value is instead sent to the subscriber selected by
+ * the hash of the key it extracts, so that all the values with the same key go to the
+ * same subscriber, in order.
  *
  * @param <T> the value type
  */
@@ -44,7 +52,29 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 	
 	final Supplier<Queue<T>> queueSupplier;
 
+	final ParallelDispatchStrategy dispatchStrategy;
+
+	@Nullable
+	final Function<? super T, ?> partitioner;
+
 	ParallelSource(Publisher<? extends T> source, int parallelism, int prefetch, Supplier<Queue<T>> queueSupplier) {
+		this(source, parallelism, prefetch, queueSupplier, ParallelDispatchStrategy.ROUND_ROBIN);
+	}
+
+	ParallelSource(Publisher<? extends T> source,
+			int parallelism,
+			int prefetch,
+			Supplier<Queue<T>> queueSupplier,
+			ParallelDispatchStrategy dispatchStrategy) {
+		this(source, parallelism, prefetch, queueSupplier, dispatchStrategy, null);
+	}
+
+	ParallelSource(Publisher<? extends T> source,
+			int parallelism,
+			int prefetch,
+			Supplier<Queue<T>> queueSupplier,
+			ParallelDispatchStrategy dispatchStrategy,
+			@Nullable Function<? super T, ?> partitioner) {
 		if (parallelism <= 0) {
 			throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
 		}
@@ -55,6 +85,8 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 		this.parallelism = parallelism;
 		this.prefetch = prefetch;
 		this.queueSupplier = queueSupplier;
+		this.dispatchStrategy = dispatchStrategy;
+		this.partitioner = partitioner;
 	}
 
 	@Override
@@ -82,7 +114,8 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 			return;
 		}
 		
-		source.subscribe(new ParallelSourceMain<>(subscribers, prefetch, queueSupplier));
+		source.subscribe(new ParallelSourceMain<>(subscribers, prefetch, queueSupplier,
+				dispatchStrategy == ParallelDispatchStrategy.MOST_DEMAND, partitioner));
 	}
 	
 	static final class ParallelSourceMain<T> implements InnerConsumer<T> {
@@ -99,6 +132,11 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 
 		final Supplier<Queue<T>> queueSupplier;
 
+		final boolean mostDemand;
+
+		@Nullable
+		final Function<? super T, ?> partitioner;
+
 		Subscription s;
 		
 		Queue<T> queue;
@@ -129,10 +167,22 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 		
 		int sourceMode;
 
+		/**
+		 * A value taken from the queue that can't be emitted until its partition's
+		 * subscriber requests more.
+		 */
+		T pending;
+
+		int pendingIndex;
+
 		ParallelSourceMain(Subscriber<? super T>[] subscribers, int
 				prefetch,
-				Supplier<Queue<T>> queueSupplier) {
+				Supplier<Queue<T>> queueSupplier,
+				boolean mostDemand,
+				@Nullable Function<? super T, ?> partitioner) {
 			this.subscribers = subscribers;
+			this.mostDemand = mostDemand;
+			this.partitioner = partitioner;
 			this.prefetch = prefetch;
 			this.queueSupplier = queueSupplier;
 			this.limit = prefetch - (prefetch >> 2);
@@ -304,6 +354,14 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 						break;
 					}
 					
+					if (mostDemand) {
+						int best = mostDemandRail(r, e, idx);
+						if (best < 0) {
+							break;
+						}
+						idx = best;
+					}
+
 					long ridx = r.get(idx);
 					long eidx = e[idx];
 					if (ridx != eidx) {
@@ -401,6 +459,14 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 						return;
 					}
 
+					if (mostDemand) {
+						int best = mostDemandRail(r, e, idx);
+						if (best < 0) {
+							break;
+						}
+						idx = best;
+					}
+
 					long ridx = r.get(idx);
 					long eidx = e[idx];
 					if (ridx != eidx) {
@@ -456,11 +522,143 @@ final class ParallelSource<T> extends ParallelFlux<T> implements Scannable {
 			}
 		}
 		
+		/**
+		 * Find the rail with the largest outstanding demand, scanning from {@code start}
+		 * so that ties are spread in a round-robin fashion.
+		 *
+		 * @return the index of the rail, or -1 if no rail can receive a value
+		 */
+		static int mostDemandRail(AtomicLongArray r, long[] e, int start) {
+			int n = e.length;
+			int best = -1;
+			long bestDemand = 0L;
+			int i = start;
+			for (int k = 0; k < n; k++) {
+				long demand = r.get(i) - e[i];
+				if (demand > bestDemand) {
+					bestDemand = demand;
+					best = i;
+				}
+				if (++i == n) {
+					i = 0;
+				}
+			}
+			return best;
+		}
+
+		void drainPartitioned() {
+			int missed = 1;
+
+			Queue<T> q = queue;
+			Subscriber<? super T>[] a = this.subscribers;
+			AtomicLongArray r = this.requests;
+			long[] e = this.emissions;
+			int n = e.length;
+			int consumed = produced;
+			boolean sync = sourceMode == Fuseable.SYNC;
+
+			for (;;) {
+
+				for (;;) {
+					if (cancelled) {
+						pending = null;
+						q.clear();
+						return;
+					}
+
+					boolean d = done;
+					if (d) {
+						Throwable ex = error;
+						if (ex != null) {
+							pending = null;
+							q.clear();
+							for (Subscriber<? super T> s : a) {
+								s.onError(ex);
+							}
+							return;
+						}
+					}
+
+					T v = pending;
+					int idx;
+
+					if (v == null) {
+						try {
+							v = q.poll();
+							if (v != null) {
+								Object key = Objects.requireNonNull(partitioner.apply(v),
+										"The partitioner returned a null key");
+								int h = key.hashCode();
+								idx = Math.floorMod(h ^ (h >>> 16), n);
+							}
+							else {
+								idx = -1;
+							}
+						} catch (Throwable ex) {
+							ex = Operators.onOperatorError(s, ex, v);
+							for (Subscriber<? super T> s : a) {
+								s.onError(ex);
+							}
+							return;
+						}
+
+						if (v == null) {
+							if (d) {
+								for (Subscriber<? super T> s : a) {
+									s.onComplete();
+								}
+								return;
+							}
+							break;
+						}
+
+						if (!sync) {
+							int c = ++consumed;
+							if (c == limit) {
+								consumed = 0;
+								s.request(c);
+							}
+						}
+					}
+					else {
+						idx = pendingIndex;
+					}
+
+					long eidx = e[idx];
+					if (r.get(idx) == eidx) {
+						pending = v;
+						pendingIndex = idx;
+						break;
+					}
+
+					pending = null;
+
+					a[idx].onNext(v);
+
+					e[idx] = eidx + 1;
+				}
+
+				int w = wip;
+				if (w == missed) {
+					produced = consumed;
+					missed = WIP.addAndGet(this, -missed);
+					if (missed == 0) {
+						break;
+					}
+				} else {
+					missed = w;
+				}
+			}
+		}
+
 		void drain() {
 			if (WIP.getAndIncrement(this) != 0) {
 				return;
 			}
 			
+			if (partitioner != null) {
+				drainPartitioned();
+			} else
 			if (sourceMode == Fuseable.SYNC) {
 				drainSync();
 			} else {
@@ -0,0 +1,797 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import javax.annotation.Nullable;
+
+/**
+ * A reactive, non-blocking pool of reusable resources. Resources are lazily created
+ * by an allocator {@link Mono} when an acquisition can't be served by an idle resource
+ * and the pool hasn't reached its maximum size yet. Otherwise the acquisition is parked
+ * in a pending queue (optionally bounded) until a resource is released.
+ * <p>
+ * Pending acquisitions are served in {@literal FIFO} order by default, or
+ * {@literal LIFO} if configured so. Idle resources are reused most-recently-released
+ * first, which lets the resources that stay unused the longest be evicted once they
+ * have been idle for longer than the configured eviction duration.
+ * <p>
+ * Create a pool through the {@link #builder(Mono)} static method:
+ * <p>
+ * {@code Pool<Connection> pool = Pool.builder(connect()).sizeMax(10).build()}
+ * <p>
+ * Resources can be manually acquired and released through {@link #acquire()} and
+ * {@link PooledRef#release()}, or scoped to a {@link Publisher} via
+ * {@link #withPoolable(Function)} which releases them back to the pool instead of
+ * destroying them, like {@link Flux#using(java.util.concurrent.Callable, Function, java.util.function.Consumer) using}
+ * would.
+ *
+ * @param <T> the type of the pooled resources
+ */
+public final class Pool<T> implements Disposable, Scannable {
+
+	/**
+	 * {@link Pool} builder that can be used to create new pools. Instantiate it through
+	 * the {@link Pool#builder(Mono)} static method:
+	 * <p>
+	 * {@code Pool<Connection> pool = Pool.builder(connect()).sizeMax(10).build()}
+	 *
+	 * @param <T> Type of pooled resources
+	 */
+	public final static class Builder<T> {
+
+		final Mono<T> allocator;
+
+		int       sizeMin;
+		int       sizeMax;
+		int       maxPendingAcquire;
+		boolean   lifo;
+		@Nullable
+		Duration  evictionIdle;
+		Scheduler evictionScheduler;
+		@Nullable
+		Function<? super T, ? extends Publisher<Void>> releaseHandler;
+		@Nullable
+		Function<? super T, ? extends Publisher<Void>> destroyHandler;
+
+		Builder(Mono<T> allocator) {
+			this.allocator = Objects.requireNonNull(allocator, "allocator");
+			this.sizeMin = 0;
+			this.sizeMax = Integer.MAX_VALUE;
+			this.maxPendingAcquire = Integer.MAX_VALUE;
+			this.evictionScheduler = Schedulers.parallel();
+		}
+
+		/**
+		 * Configures the minimum number of live resources. The pool doesn't allocate
+		 * them eagerly (see {@link Pool#warmup()}) but idle eviction never shrinks the
+		 * pool below that size. Default value is 0.
+		 *
+		 * @param sizeMin the minimum number of live resources
+		 * @return builder with provided minimum size
+		 */
+		public Builder<T> sizeMin(int sizeMin) {
+			if (sizeMin < 0) {
+				throw new IllegalArgumentException("sizeMin must be positive, was: " + sizeMin);
+			}
+			this.sizeMin = sizeMin;
+			return this;
+		}
+
+		/**
+		 * Configures the maximum number of live resources, either idle or acquired.
+		 * Default value is unbounded.
+		 *
+		 * @param sizeMax the maximum number of live resources
+		 * @return builder with provided maximum size
+		 */
+		public Builder<T> sizeMax(int sizeMax) {
+			if (sizeMax < 1) {
+				throw new IllegalArgumentException("sizeMax must be strictly positive, was: " + sizeMax);
+			}
+			this.sizeMax = sizeMax;
+			return this;
+		}
+
+		/**
+		 * Configures the maximum number of acquisitions that can wait for a resource.
+		 * Further acquisitions fail fast with an overflow
+		 * {@link IllegalStateException}. Default value is unbounded.
+		 *
+		 * @param maxPendingAcquire the maximum number of pending acquisitions
+		 * @return builder with provided pending acquisition bound
+		 */
+		public Builder<T> maxPendingAcquire(int maxPendingAcquire) {
+			if (maxPendingAcquire < 0) {
+				throw new IllegalArgumentException("maxPendingAcquire must be positive, was: " + maxPendingAcquire);
+			}
+			this.maxPendingAcquire = maxPendingAcquire;
+			return this;
+		}
+
+		/**
+		 * Configures pending acquisitions to be served in {@literal LIFO} order
+		 * (last pending acquisition is served first) instead of the default
+		 * {@literal FIFO} order.
+		 *
+		 * @param lifo true to serve pending acquisitions in LIFO order
+		 * @return builder with provided fairness
+		 */
+		public Builder<T> lifo(boolean lifo) {
+			this.lifo = lifo;
+			return this;
+		}
+
+		/**
+		 * Configures idle resources to be destroyed once they have been idle for
+		 * longer than the given duration, checking periodically on the given
+		 * {@link Scheduler}. Eviction is disabled by default.
+		 *
+		 * @param evictionIdle the maximum idle duration of a resource
+		 * @param evictionScheduler the {@link Scheduler} to run the periodic eviction on
+		 * @return builder with provided eviction
+		 */
+		public Builder<T> evictionIdle(Duration evictionIdle, Scheduler evictionScheduler) {
+			if (evictionIdle.isNegative() || evictionIdle.isZero()) {
+				throw new IllegalArgumentException("evictionIdle must be strictly positive, was: " + evictionIdle);
+			}
+			this.evictionIdle = evictionIdle;
+			this.evictionScheduler = Objects.requireNonNull(evictionScheduler, "evictionScheduler");
+			return this;
+		}
+
+		/**
+		 * Configures an asynchronous handler applied to a resource each time it is
+		 * released, before it becomes available again (eg. to reset its state). An
+		 * error from the handler invalidates the resource.
+		 *
+		 * @param releaseHandler the handler applied to released resources
+		 * @return builder with provided release handler
+		 */
+		public Builder<T> releaseHandler(Function<? super T, ? extends Publisher<Void>> releaseHandler) {
+			this.releaseHandler = Objects.requireNonNull(releaseHandler, "releaseHandler");
+			return this;
+		}
+
+		/**
+		 * Configures an asynchronous handler applied to a resource when it is
+		 * destroyed, either through invalidation, idle eviction or disposal of the
+		 * pool (eg. to close it).
+		 *
+		 * @param destroyHandler the handler applied to destroyed resources
+		 * @return builder with provided destroy handler
+		 */
+		public Builder<T> destroyHandler(Function<? super T, ? extends Publisher<Void>> destroyHandler) {
+			this.destroyHandler = Objects.requireNonNull(destroyHandler, "destroyHandler");
+			return this;
+		}
+
+		/**
+		 * Creates a new {@link Pool} using the properties of this builder.
+		 *
+		 * @return a fresh pool
+		 */
+		public Pool<T> build() {
+			if (sizeMin > sizeMax) {
+				throw new IllegalArgumentException("sizeMin must be lower than or equal to sizeMax, was: " + sizeMin + " > " + sizeMax);
+			}
+			return new Pool<>(this);
+		}
+	}
+
+	/**
+	 * Create a new {@link Pool} {@link Builder} with default properties, using the
+	 * given {@link Mono} to allocate new resources.
+	 *
+	 * @param allocator the {@link Mono} to subscribe to each time a new resource is needed
+	 * @param <T> the type of the pooled resources
+	 *
+	 * @return new Pool builder
+	 */
+	public static <T> Builder<T> builder(Mono<T> allocator) {
+		return new Builder<>(allocator);
+	}
+
+	final Mono<T>   allocator;
+	final int       sizeMin;
+	final int       sizeMax;
+	final int       maxPendingAcquire;
+	final boolean   lifo;
+	final long      evictionIdleMillis;
+	final Scheduler clock;
+	@Nullable
+	final Function<? super T, ? extends Publisher<Void>> releaseHandler;
+	@Nullable
+	final Function<? super T, ? extends Publisher<Void>> destroyHandler;
+	@Nullable
+	final Disposable evictionTask;
+
+	/**
+	 * Idle resources, most recently released first.
+	 */
+	final Deque<Slot<T>> idle;
+
+	final Deque<Borrower<T>> pending;
+
+	volatile int size;
+	@SuppressWarnings("rawtypes")
+	static final AtomicIntegerFieldUpdater<Pool> SIZE =
+			AtomicIntegerFieldUpdater.newUpdater(Pool.class, "size");
+
+	volatile int acquired;
+	@SuppressWarnings("rawtypes")
+	static final AtomicIntegerFieldUpdater<Pool> ACQUIRED =
+			AtomicIntegerFieldUpdater.newUpdater(Pool.class, "acquired");
+
+	volatile int pendingCount;
+	@SuppressWarnings("rawtypes")
+	static final AtomicIntegerFieldUpdater<Pool> PENDING_COUNT =
+			AtomicIntegerFieldUpdater.newUpdater(Pool.class, "pendingCount");
+
+	volatile int wip;
+	@SuppressWarnings("rawtypes")
+	static final AtomicIntegerFieldUpdater<Pool> WIP =
+			AtomicIntegerFieldUpdater.newUpdater(Pool.class, "wip");
+
+	volatile boolean disposed;
+
+	Pool(Builder<T> builder) {
+		this.allocator = builder.allocator;
+		this.sizeMin = builder.sizeMin;
+		this.sizeMax = builder.sizeMax;
+		this.maxPendingAcquire = builder.maxPendingAcquire;
+		this.lifo = builder.lifo;
+		this.clock = builder.evictionScheduler;
+		this.releaseHandler = builder.releaseHandler;
+		this.destroyHandler = builder.destroyHandler;
+		this.idle = new ConcurrentLinkedDeque<>();
+		this.pending = new ConcurrentLinkedDeque<>();
+
+		Duration evictionIdle = builder.evictionIdle;
+		if (evictionIdle != null) {
+			this.evictionIdleMillis = evictionIdle.toMillis();
+			this.evictionTask = clock.schedulePeriodically(this::evict,
+					evictionIdleMillis,
+					evictionIdleMillis,
+					TimeUnit.MILLISECONDS);
+		}
+		else {
+			this.evictionIdleMillis = -1L;
+			this.evictionTask = null;
+		}
+	}
+
+	/**
+	 * Return a {@link Mono} that, once subscribed and requested, acquires a resource
+	 * from the pool. An idle resource is reused if available, otherwise a new one is
+	 * allocated if the pool isn't full, otherwise the acquisition waits for a resource
+	 * to be released. Cancelling a pending acquisition removes it from the pending
+	 * queue.
+	 * <p>
+	 * The acquired resource must eventually be given back to the pool via
+	 * {@link PooledRef#release()} or {@link PooledRef#invalidate()}.
+	 *
+	 * @return a {@link Mono} of a {@link PooledRef} to an acquired resource
+	 */
+	public Mono<PooledRef<T>> acquire() {
+		return Mono.onAssembly(new MonoAcquire<>(this));
+	}
+
+	/**
+	 * Acquire a resource, derive a {@link Publisher} from it using the given function
+	 * and release the resource back to the pool once that {@link Publisher} terminates
+	 * or is cancelled.
+	 *
+	 * @param scopeFunction the function deriving a {@link Publisher} from the resource
+	 * @param <V> the type of the resulting values
+	 *
+	 * @return a {@link Flux} of the values emitted by the scoped {@link Publisher}
+	 */
+	public <V> Flux<V> withPoolable(Function<? super T, ? extends Publisher<? extends V>> scopeFunction) {
+		Objects.requireNonNull(scopeFunction, "scopeFunction");
+		return acquire().flatMapMany(ref -> Flux.using(() -> ref,
+				r -> scopeFunction.apply(r.poolable()),
+				r -> r.release()
+				      .subscribe(null, Operators::onErrorDropped)));
+	}
+
+	/**
+	 * Allocate resources until the pool holds at least its configured minimum size.
+	 * The new resources become idle and immediately available for acquisition.
+	 *
+	 * @return a {@link Mono} of the number of resources that were allocated
+	 */
+	public Mono<Integer> warmup() {
+		return Mono.defer(() -> {
+			int toAllocate = 0;
+			for (; ; ) {
+				int s = size;
+				if (s >= sizeMin) {
+					break;
+				}
+				if (SIZE.compareAndSet(this, s, s + 1)) {
+					toAllocate++;
+				}
+			}
+			if (toAllocate == 0) {
+				return Mono.just(0);
+			}
+			@SuppressWarnings("unchecked")
+			Mono<T>[] allocations = new Mono[toAllocate];
+			for (int i = 0; i < toAllocate; i++) {
+				allocations[i] = allocator.doOnSuccess(v -> {
+					if (v == null) {
+						SIZE.decrementAndGet(this);
+						drain();
+					}
+					else {
+						recycle(new Slot<>(v));
+					}
+				})
+				                          .doOnError(e -> {
+					                          SIZE.decrementAndGet(this);
+					                          drain();
+				                          });
+			}
+			return Flux.mergeDelayError(toAllocate, allocations)
+			           .count()
+			           .map(Long::intValue);
+		});
+	}
+
+	/**
+	 * Return the number of live resources, either idle, acquired or being allocated.
+	 *
+	 * @return the number of live resources
+	 */
+	public int allocatedSize() {
+		return size;
+	}
+
+	/**
+	 * Return the number of currently acquired resources.
+	 *
+	 * @return the number of currently acquired resources
+	 */
+	public int acquiredSize() {
+		return acquired;
+	}
+
+	/**
+	 * Return the number of idle resources.
+	 *
+	 * @return the number of idle resources
+	 */
+	public int idleSize() {
+		return idle.size();
+	}
+
+	/**
+	 * Return the number of acquisitions waiting for a resource.
+	 *
+	 * @return the number of pending acquisitions
+	 */
+	public int pendingAcquireSize() {
+		return pendingCount;
+	}
+
+	/**
+	 * Shut the pool down: pending acquisitions fail with an
+	 * {@link IllegalStateException}, idle resources are destroyed as are acquired
+	 * resources once released, and further acquisitions fail.
+	 */
+	@Override
+	public void dispose() {
+		if (!disposed) {
+			disposed = true;
+			if (evictionTask != null) {
+				evictionTask.dispose();
+			}
+			drain();
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	@Override
+	@Nullable
+	public Object scanUnsafe(Attr key) {
+		if (key == IntAttr.CAPACITY) return sizeMax;
+		if (key == IntAttr.BUFFERED) return idleSize();
+		if (key == BooleanAttr.TERMINATED) return disposed;
+		if (key == BooleanAttr.CANCELLED) return disposed;
+
+		return null;
+	}
+
+	void offer(Borrower<T> borrower) {
+		if (disposed) {
+			borrower.fail(new IllegalStateException("Pool has been disposed"));
+			return;
+		}
+		for (; ; ) {
+			int p = pendingCount;
+			if (p >= maxPendingAcquire) {
+				borrower.fail(Exceptions.failWithOverflow(
+						"Too many pending acquisitions, maximum is " + maxPendingAcquire));
+				return;
+			}
+			if (PENDING_COUNT.compareAndSet(this, p, p + 1)) {
+				break;
+			}
+		}
+		pending.offerLast(borrower);
+		drain();
+	}
+
+	void cancel(Borrower<T> borrower) {
+		if (pending.removeFirstOccurrence(borrower)) {
+			PENDING_COUNT.decrementAndGet(this);
+		}
+	}
+
+	void drain() {
+		if (WIP.getAndIncrement(this) != 0) {
+			return;
+		}
+		int missed = 1;
+
+		for (; ; ) {
+			if (disposed) {
+				Borrower<T> b;
+				while ((b = pending.pollFirst()) != null) {
+					PENDING_COUNT.decrementAndGet(this);
+					b.fail(new IllegalStateException("Pool has been disposed"));
+				}
+				Slot<T> s;
+				while ((s = idle.pollFirst()) != null) {
+					destroy(s);
+				}
+			}
+			else {
+				for (; ; ) {
+					Borrower<T> b = lifo ? pending.pollLast() : pending.pollFirst();
+					if (b == null) {
+						break;
+					}
+					PENDING_COUNT.decrementAndGet(this);
+					if (b.isCancelled()) {
+						continue;
+					}
+
+					Slot<T> s = idle.pollFirst();
+					if (s != null) {
+						ACQUIRED.incrementAndGet(this);
+						b.deliver(new Ref<>(this, s));
+						continue;
+					}
+
+					int sz = size;
+					if (sz < sizeMax && SIZE.compareAndSet(this, sz, sz + 1)) {
+						ACQUIRED.incrementAndGet(this);
+						allocator.subscribe(new Allocation<>(this, b));
+						continue;
+					}
+
+					//no resource available, park the borrower back where it was
+					PENDING_COUNT.incrementAndGet(this);
+					if (lifo) {
+						pending.offerLast(b);
+					}
+					else {
+						pending.offerFirst(b);
+					}
+					break;
+				}
+			}
+
+			missed = WIP.addAndGet(this, -missed);
+			if (missed == 0) {
+				break;
+			}
+		}
+	}
+
+	void recycle(Slot<T> slot) {
+		if (disposed) {
+			destroy(slot);
+			return;
+		}
+		slot.idleSince = clock.now(TimeUnit.MILLISECONDS);
+		idle.offerFirst(slot);
+		drain();
+	}
+
+	void destroy(Slot<T> slot) {
+		SIZE.decrementAndGet(this);
+		if (destroyHandler != null) {
+			try {
+				Publisher<Void> p = Objects.requireNonNull(destroyHandler.apply(slot.poolable),
+						"The destroyHandler returned a null Publisher");
+				Mono.from(p)
+				    .subscribe(null, Operators::onErrorDropped);
+			}
+			catch (Throwable e) {
+				Operators.onErrorDropped(Operators.onOperatorError(e));
+			}
+		}
+		drain();
+	}
+
+	void evict() {
+		long now = clock.now(TimeUnit.MILLISECONDS);
+		for (Slot<T> s : idle) {
+			if (size <= sizeMin) {
+				return;
+			}
+			if (now - s.idleSince >= evictionIdleMillis && idle.removeFirstOccurrence(s)) {
+				destroy(s);
+			}
+		}
+	}
+
+	static final class Slot<T> {
+
+		final T poolable;
+
+		int  acquireCount;
+		long idleSince;
+
+		Slot(T poolable) {
+			this.poolable = poolable;
+		}
+	}
+
+	static final class Ref<T> implements PooledRef<T> {
+
+		final Pool<T> pool;
+		final Slot<T> slot;
+		final int     acquireCount;
+
+		volatile int once;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<Ref> ONCE =
+				AtomicIntegerFieldUpdater.newUpdater(Ref.class, "once");
+
+		Ref(Pool<T> pool, Slot<T> slot) {
+			this.pool = pool;
+			this.slot = slot;
+			this.acquireCount = ++slot.acquireCount;
+		}
+
+		@Override
+		public T poolable() {
+			return slot.poolable;
+		}
+
+		@Override
+		public int acquireCount() {
+			return acquireCount;
+		}
+
+		@Override
+		public Mono<Void> release() {
+			return Mono.defer(() -> {
+				if (!ONCE.compareAndSet(this, 0, 1)) {
+					return Mono.empty();
+				}
+				ACQUIRED.decrementAndGet(pool);
+
+				Function<? super T, ? extends Publisher<Void>> handler = pool.releaseHandler;
+				if (handler == null) {
+					pool.recycle(slot);
+					return Mono.empty();
+				}
+				return Mono.<Void>from(handler.apply(slot.poolable))
+				           .doOnError(e -> pool.destroy(slot))
+				           .doOnSuccess(v -> pool.recycle(slot));
+			});
+		}
+
+		@Override
+		public Mono<Void> invalidate() {
+			return Mono.fromRunnable(() -> {
+				if (ONCE.compareAndSet(this, 0, 1)) {
+					ACQUIRED.decrementAndGet(pool);
+					pool.destroy(slot);
+				}
+			});
+		}
+
+		/**
+		 * Release a reference whose acquisition was cancelled before delivery, skipping
+		 * the release handler.
+		 */
+		void recycle() {
+			if (ONCE.compareAndSet(this, 0, 1)) {
+				ACQUIRED.decrementAndGet(pool);
+				pool.recycle(slot);
+			}
+		}
+	}
+
+	static final class MonoAcquire<T> extends Mono<PooledRef<T>> implements Scannable {
+
+		final Pool<T> pool;
+
+		MonoAcquire(Pool<T> pool) {
+			this.pool = pool;
+		}
+
+		@Override
+		public void subscribe(Subscriber<? super PooledRef<T>> s) {
+			s.onSubscribe(new Borrower<>(s, pool));
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return pool;
+
+			return null;
+		}
+	}
+
+	static final class Borrower<T> implements InnerProducer<PooledRef<T>> {
+
+		final Subscriber<? super PooledRef<T>> actual;
+
+		final Pool<T> pool;
+
+		volatile int requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<Borrower> REQUESTED =
+				AtomicIntegerFieldUpdater.newUpdater(Borrower.class, "requested");
+
+		volatile int state;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<Borrower> STATE =
+				AtomicIntegerFieldUpdater.newUpdater(Borrower.class, "state");
+
+		static final int WAITING   = 0;
+		static final int DONE      = 1;
+		static final int CANCELLED = 2;
+
+		Borrower(Subscriber<? super PooledRef<T>> actual, Pool<T> pool) {
+			this.actual = actual;
+			this.pool = pool;
+		}
+
+		@Override
+		public Subscriber<? super PooledRef<T>> actual() {
+			return actual;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n) && REQUESTED.compareAndSet(this, 0, 1)) {
+				pool.offer(this);
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (STATE.compareAndSet(this, WAITING, CANCELLED)) {
+				pool.cancel(this);
+			}
+		}
+
+		boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		void deliver(Ref<T> ref) {
+			if (STATE.compareAndSet(this, WAITING, DONE)) {
+				actual.onNext(ref);
+				actual.onComplete();
+			}
+			else {
+				ref.recycle();
+			}
+		}
+
+		void fail(Throwable e) {
+			if (STATE.compareAndSet(this, WAITING, DONE)) {
+				actual.onError(e);
+			}
+			else {
+				Operators.onErrorDropped(e);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object scanUnsafe(Attr key) {
+			if (key == ScannableAttr.PARENT) return pool;
+			if (key == BooleanAttr.CANCELLED) return state == CANCELLED;
+			if (key == BooleanAttr.TERMINATED) return state == DONE;
+
+			return InnerProducer.super.scanUnsafe(key);
+		}
+	}
+
+	static final class Allocation<T> implements Subscriber<T> {
+
+		final Pool<T>     pool;
+		final Borrower<T> borrower;
+
+		boolean done;
+
+		Allocation(Pool<T> pool, Borrower<T> borrower) {
+			this.pool = pool;
+			this.borrower = borrower;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			s.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			done = true;
+			borrower.deliver(new Ref<>(pool, new Slot<>(t)));
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			failAllocation(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			failAllocation(new IllegalStateException("The allocator completed without a resource"));
+		}
+
+		void failAllocation(Throwable t) {
+			ACQUIRED.decrementAndGet(pool);
+			SIZE.decrementAndGet(pool);
+			borrower.fail(t);
+			pool.drain();
+		}
+	}
+}
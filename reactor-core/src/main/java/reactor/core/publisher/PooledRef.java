@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+/**
+ * A reference to a resource acquired from a {@link Pool}. The resource should be given
+ * back to the pool once done with it, either via {@link #release()} if it can be
+ * reused or {@link #invalidate()} if it should be destroyed.
+ * <p>
+ * Each reference is only good for a single acquisition: releasing or invalidating it
+ * more than once is a no-op.
+ *
+ * @param <T> the type of the pooled resource
+ *
+ * @see Pool#acquire()
+ */
+public interface PooledRef<T> {
+
+	/**
+	 * Return the pooled resource.
+	 *
+	 * @return the pooled resource
+	 */
+	T poolable();
+
+	/**
+	 * Return a {@link Mono} that, once subscribed, gives the resource back to the
+	 * {@link Pool} so that it can be acquired again. The pool's release handler, if
+	 * any, is applied before the resource becomes available.
+	 *
+	 * @return a {@link Mono} completing once the resource has been released
+	 */
+	Mono<Void> release();
+
+	/**
+	 * Return a {@link Mono} that, once subscribed, removes the resource from the
+	 * {@link Pool} and destroys it. This frees a slot for a new allocation.
+	 *
+	 * @return a {@link Mono} completing once the resource has been invalidated
+	 */
+	Mono<Void> invalidate();
+
+	/**
+	 * Return the number of times the underlying resource has been acquired, including
+	 * the current acquisition.
+	 *
+	 * @return the acquisition count of the resource
+	 */
+	int acquireCount();
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A streaming quantile sketch backed by a logarithmically bucketed histogram: a value
+ * {@code v} is counted in the bucket {@code ceil(log(|v|) / log(gamma))} where
+ * {@code gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy)}, so that any
+ * quantile is estimated within the given relative accuracy of an actual value of the
+ * stream. The counts are kept in primitive arrays spanning the range of the recorded
+ * values, e.g. about 2K buckets to cover the values from 1ns to 1s at 1% accuracy,
+ * whatever the number of values.
+ * <p>
+ * Sketches of the same accuracy can be {@link #merge(QuantileSketch) merged} without
+ * losing accuracy, which makes it possible to sketch {@link ParallelFlux} rails or
+ * windows separately and to combine them afterwards. Not thread-safe.
+ *
+ * @see Flux#quantiles(ToDoubleFunction, double...)
+ */
+public final class QuantileSketch {
+
+	/**
+	 * The relative accuracy used by the operators that don't take one.
+	 */
+	public static final double DEFAULT_RELATIVE_ACCURACY = 0.01d;
+
+	final double relativeAccuracy;
+	final double gamma;
+	final double logGamma;
+
+	final Buckets positives = new Buckets();
+	final Buckets negatives = new Buckets();
+
+	long   zeros;
+	/**
+	 * The infinite values, which have no bucket.
+	 */
+	long   negativeInfinities;
+	long   positiveInfinities;
+	long   count;
+	double min = Double.POSITIVE_INFINITY;
+	double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Create a sketch with the {@link #DEFAULT_RELATIVE_ACCURACY}.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_RELATIVE_ACCURACY);
+	}
+
+	/**
+	 * Create an empty sketch.
+	 *
+	 * @param relativeAccuracy the maximum relative error of the estimated quantiles,
+	 * strictly between 0 and 1
+	 */
+	public QuantileSketch(double relativeAccuracy) {
+		this.relativeAccuracy = checkRelativeAccuracy(relativeAccuracy);
+		this.gamma = (1d + relativeAccuracy) / (1d - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+	}
+
+	/**
+	 * Record a value. Infinite values are counted apart from the buckets, at the
+	 * extremes of the quantiles.
+	 *
+	 * @param value the value, not NaN
+	 *
+	 * @return this sketch
+	 */
+	public QuantileSketch add(double value) {
+		if (Double.isNaN(value)) {
+			throw new IllegalArgumentException("Cannot add NaN to a QuantileSketch");
+		}
+		if (value == Double.POSITIVE_INFINITY) {
+			positiveInfinities++;
+		}
+		else if (value == Double.NEGATIVE_INFINITY) {
+			negativeInfinities++;
+		}
+		else if (value >= Double.MIN_NORMAL) {
+			positives.add(index(value), 1L);
+		}
+		else if (value <= -Double.MIN_NORMAL) {
+			negatives.add(index(-value), 1L);
+		}
+		else {
+			zeros++;
+		}
+		count++;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+		return this;
+	}
+
+	/**
+	 * Add the values recorded by another sketch to this one.
+	 *
+	 * @param other a sketch of the same relative accuracy
+	 *
+	 * @return this sketch
+	 */
+	public QuantileSketch merge(QuantileSketch other) {
+		if (other.relativeAccuracy != relativeAccuracy) {
+			throw new IllegalArgumentException("Cannot merge a sketch of relative accuracy " +
+					other.relativeAccuracy + " into one of " + relativeAccuracy);
+		}
+		positives.merge(other.positives);
+		negatives.merge(other.negatives);
+		zeros += other.zeros;
+		negativeInfinities += other.negativeInfinities;
+		positiveInfinities += other.positiveInfinities;
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	/**
+	 * Estimate the value at the given quantile, e.g. 0.99 for the 99th percentile.
+	 *
+	 * @param q the quantile, between 0 and 1
+	 *
+	 * @return the estimated value, or NaN if the sketch is empty
+	 */
+	public double quantile(double q) {
+		checkQuantile(q);
+		if (count == 0L) {
+			return Double.NaN;
+		}
+		long rank = (long) (q * (count - 1));
+		//the exact extremes are known
+		if (rank == 0L) {
+			return min;
+		}
+		if (rank == count - 1) {
+			return max;
+		}
+		if (rank < negativeInfinities) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		rank -= negativeInfinities;
+		double v;
+		if (rank < negatives.total) {
+			v = -value(negatives.indexAtRankFromTop(rank));
+		}
+		else if (rank < negatives.total + zeros) {
+			v = 0d;
+		}
+		else if (rank < negatives.total + zeros + positives.total) {
+			v = value(positives.indexAtRank(rank - negatives.total - zeros));
+		}
+		else {
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.max(min, Math.min(max, v));
+	}
+
+	/**
+	 * Estimate the values at the given quantiles.
+	 *
+	 * @param quantiles the quantiles, between 0 and 1
+	 *
+	 * @return the estimated values in the order of the quantiles
+	 */
+	public double[] quantiles(double... quantiles) {
+		double[] values = new double[quantiles.length];
+		for (int i = 0; i < quantiles.length; i++) {
+			values[i] = quantile(quantiles[i]);
+		}
+		return values;
+	}
+
+	/**
+	 * @return the number of values recorded
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * @return the smallest value recorded, or NaN if the sketch is empty
+	 */
+	public double min() {
+		return count == 0L ? Double.NaN : min;
+	}
+
+	/**
+	 * @return the largest value recorded, or NaN if the sketch is empty
+	 */
+	public double max() {
+		return count == 0L ? Double.NaN : max;
+	}
+
+	/**
+	 * @return the maximum relative error of the estimated quantiles
+	 */
+	public double relativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	@Override
+	public String toString() {
+		return "QuantileSketch{count=" + count + ", min=" + min() + ", median=" +
+				quantile(0.5d) + ", max=" + max() + "}";
+	}
+
+	int index(double value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	/**
+	 * @return the value of a bucket, within the relative accuracy of all its values
+	 */
+	double value(int index) {
+		return 2d * Math.pow(gamma, index) / (gamma + 1d);
+	}
+
+	static double checkRelativeAccuracy(double relativeAccuracy) {
+		if (!(relativeAccuracy > 0d && relativeAccuracy < 1d)) {
+			throw new IllegalArgumentException("relativeAccuracy between 0 and 1 " +
+					"excluded required but it was " + relativeAccuracy);
+		}
+		return relativeAccuracy;
+	}
+
+	static double[] checkQuantiles(double... quantiles) {
+		if (quantiles.length == 0) {
+			throw new IllegalArgumentException("at least one quantile required");
+		}
+		for (double q : quantiles) {
+			checkQuantile(q);
+		}
+		return quantiles.clone();
+	}
+
+	static void checkQuantile(double q) {
+		if (!(q >= 0d && q <= 1d)) {
+			throw new IllegalArgumentException("quantile between 0 and 1 required but it was " + q);
+		}
+	}
+
+	/**
+	 * The counts of contiguous buckets, growing to span the indexes recorded.
+	 */
+	static final class Buckets {
+
+		static final int INITIAL_CAPACITY = 64;
+
+		long[] counts;
+		/**
+		 * The bucket index of {@code counts[0]}.
+		 */
+		int    offset;
+		long   total;
+
+		void add(int index, long n) {
+			long[] c = counts;
+			if (c == null) {
+				c = new long[INITIAL_CAPACITY];
+				counts = c;
+				offset = index - INITIAL_CAPACITY / 2;
+			}
+			else if (index < offset || index >= offset + c.length) {
+				c = grow(index);
+			}
+			c[index - offset] += n;
+			total += n;
+		}
+
+		long[] grow(int index) {
+			long[] c = counts;
+			int lo = Math.min(offset, index);
+			int hi = Math.max(offset + c.length - 1, index);
+			int span = hi - lo + 1;
+			//leave room to grow further on both sides
+			int headroom = span / 2;
+			long[] n = new long[span + headroom];
+			int newOffset = lo - (index < offset ? headroom : 0);
+			System.arraycopy(c, 0, n, offset - newOffset, c.length);
+			counts = n;
+			offset = newOffset;
+			return n;
+		}
+
+		void merge(Buckets other) {
+			long[] c = other.counts;
+			if (c == null) {
+				return;
+			}
+			for (int i = 0; i < c.length; i++) {
+				if (c[i] != 0L) {
+					add(other.offset + i, c[i]);
+				}
+			}
+		}
+
+		int indexAtRank(long rank) {
+			long[] c = counts;
+			long seen = 0L;
+			for (int i = 0; i < c.length; i++) {
+				seen += c[i];
+				if (seen > rank) {
+					return offset + i;
+				}
+			}
+			throw new IllegalStateException("rank " + rank + " out of " + total);
+		}
+
+		int indexAtRankFromTop(long rank) {
+			long[] c = counts;
+			long seen = 0L;
+			for (int i = c.length - 1; i >= 0; i--) {
+				seen += c[i];
+				if (seen > rank) {
+					return offset + i;
+				}
+			}
+			throw new IllegalStateException("rank " + rank + " out of " + total);
+		}
+
+		@Override
+		public String toString() {
+			return "Buckets{offset=" + offset + ", counts=" + Arrays.toString(counts) + "}";
+		}
+	}
+}
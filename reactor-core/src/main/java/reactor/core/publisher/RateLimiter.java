@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A token bucket that can be shared by any number of {@link Flux#rateLimit(RateLimiter)}
+ * and {@link Mono#rateLimited(RateLimiter)} sequences to pace them together.
+ * <p>
+ * The bucket holds up to {@code burst} tokens and is refilled with {@code permits}
+ * tokens per {@code period}, starting full. Tokens are accounted without locking:
+ * the state is the time at which the bucket was last empty, so that the refill is
+ * computed from the clock of the {@link Scheduler} instead of being applied by a
+ * periodic task. Sequences running out of tokens wait in a queue that a single timer
+ * per limiter wakes up when the next token becomes available.
+ */
+public final class RateLimiter {
+
+	/**
+	 * Create a {@link RateLimiter} that allows {@code permits} values per
+	 * {@code period}, with bursts of up to {@code permits} values, timed on the
+	 * {@link Schedulers#parallel() parallel} {@link Scheduler}.
+	 *
+	 * @param permits the number of values allowed per period
+	 * @param period the refill period
+	 *
+	 * @return a new {@link RateLimiter}
+	 */
+	public static RateLimiter create(long permits, Duration period) {
+		return create(permits, period, permits);
+	}
+
+	/**
+	 * Create a {@link RateLimiter} that allows {@code permits} values per
+	 * {@code period}, with bursts of up to {@code burst} values, timed on the
+	 * {@link Schedulers#parallel() parallel} {@link Scheduler}.
+	 *
+	 * @param permits the number of values allowed per period
+	 * @param period the refill period
+	 * @param burst the maximum number of values allowed at once
+	 *
+	 * @return a new {@link RateLimiter}
+	 */
+	public static RateLimiter create(long permits, Duration period, long burst) {
+		return create(permits, period, burst, Schedulers.parallel());
+	}
+
+	/**
+	 * Create a {@link RateLimiter} that allows {@code permits} values per
+	 * {@code period}, with bursts of up to {@code burst} values, timed on the given
+	 * {@link Scheduler}.
+	 *
+	 * @param permits the number of values allowed per period
+	 * @param period the refill period
+	 * @param burst the maximum number of values allowed at once
+	 * @param timer a time-capable {@link Scheduler} to read the time from and to
+	 * schedule the refills on
+	 *
+	 * @return a new {@link RateLimiter}
+	 */
+	public static RateLimiter create(long permits, Duration period, long burst, Scheduler timer) {
+		return new RateLimiter(interval(permits, period, burst), burst,
+				Objects.requireNonNull(timer, "timer"));
+	}
+
+	/**
+	 * Validate the rate parameters.
+	 *
+	 * @return the number of nanoseconds it takes for one token to be refilled
+	 */
+	static long interval(long permits, Duration period, long burst) {
+		if (permits <= 0L) {
+			throw new IllegalArgumentException("permits > 0 required but it was " + permits);
+		}
+		if (burst <= 0L) {
+			throw new IllegalArgumentException("burst > 0 required but it was " + burst);
+		}
+		long periodNanos = period.toNanos();
+		if (periodNanos <= 0L) {
+			throw new IllegalArgumentException("period > 0 required but it was " + period);
+		}
+		long interval = Math.max(1L, periodNanos / permits);
+		//the refill time of a full bucket must fit in a long
+		if (burst > Long.MAX_VALUE / interval) {
+			throw new IllegalArgumentException("burst * period / permits must be lower than " +
+					Long.MAX_VALUE + "ns but it was " + burst + " * " + interval + "ns");
+		}
+		return interval;
+	}
+
+	final long      interval;
+	final long      burst;
+	final Scheduler timer;
+
+	final Queue<Runnable> waiters;
+
+	/**
+	 * The time at which the bucket was last empty, the number of tokens available being
+	 * the time elapsed since then divided by the interval, capped by the burst.
+	 */
+	volatile long emptyAt;
+	static final AtomicLongFieldUpdater<RateLimiter> EMPTY_AT =
+			AtomicLongFieldUpdater.newUpdater(RateLimiter.class, "emptyAt");
+
+	volatile int wakeUpPending;
+	static final AtomicIntegerFieldUpdater<RateLimiter> WAKE_UP_PENDING =
+			AtomicIntegerFieldUpdater.newUpdater(RateLimiter.class, "wakeUpPending");
+
+	RateLimiter(long interval, long burst, Scheduler timer) {
+		this.interval = interval;
+		this.burst = burst;
+		this.timer = timer;
+		this.waiters = new ConcurrentLinkedQueue<>();
+		this.emptyAt = timer.now(TimeUnit.NANOSECONDS) - burst * interval;
+	}
+
+	/**
+	 * @return the number of tokens currently available
+	 */
+	public long available() {
+		long now = timer.now(TimeUnit.NANOSECONDS);
+		return Math.min(burst, (now - emptyAt) / interval);
+	}
+
+	/**
+	 * Take up to {@code n} tokens.
+	 *
+	 * @param n the number of tokens wanted
+	 *
+	 * @return the number of tokens taken, possibly 0
+	 */
+	long tryAcquire(long n) {
+		long interval = this.interval;
+		for (; ; ) {
+			long now = timer.now(TimeUnit.NANOSECONDS);
+			long e = emptyAt;
+			long base = Math.max(e, now - burst * interval);
+			long taken = Math.min(n, (now - base) / interval);
+			if (taken <= 0L) {
+				return 0L;
+			}
+			if (EMPTY_AT.compareAndSet(this, e, base + taken * interval)) {
+				return taken;
+			}
+		}
+	}
+
+	/**
+	 * Run the given callback once the next token is available, in FIFO order with the
+	 * other waiting sequences. The callback is expected to {@link #tryAcquire(long)}
+	 * and to wait again if it lost the race for the token.
+	 *
+	 * @param waiter the callback to run
+	 *
+	 * @return false if the timer {@link Scheduler} rejected the wake up
+	 */
+	boolean await(Runnable waiter) {
+		waiters.offer(waiter);
+		return scheduleWakeUp();
+	}
+
+	boolean scheduleWakeUp() {
+		if (WAKE_UP_PENDING.compareAndSet(this, 0, 1)) {
+			long now = timer.now(TimeUnit.NANOSECONDS);
+			long delay = Math.max(0L, emptyAt + interval - now);
+			Disposable d = timer.schedule(this::wakeUp, delay, TimeUnit.NANOSECONDS);
+			if (d == Scheduler.REJECTED) {
+				wakeUpPending = 0;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	void wakeUp() {
+		wakeUpPending = 0;
+		//only the waiters known at this point and while there are tokens left, as
+		// they wait again at the tail of the queue if not fully served
+		for (int n = waiters.size(); n > 0 && available() > 0L; n--) {
+			Runnable r = waiters.poll();
+			if (r == null) {
+				break;
+			}
+			r.run();
+		}
+		if (!waiters.isEmpty()) {
+			scheduleWakeUp();
+		}
+	}
+}
@@ -912,21 +912,21 @@ public final class TopicProcessor<E> extends EventLoopProcessor<E>  {
 	}
 
 	@Override
-	public void subscribe(final Subscriber<? super E> subscriber) {
+	void subscribe(final Subscriber<? super E> subscriber, boolean batched) {
 		//noinspection ConstantConditions
 		if (subscriber == null) {
 			throw Exceptions.argumentIsNullException();
 		}
 
 		if (!alive()) {
-			coldSource(ringBuffer, null, error, minimum).subscribe(subscriber);
+			subscribeCold(coldSource(ringBuffer, null, error, minimum), subscriber, batched, getBufferSize());
 			return;
 		}
 
 		//create a unique eventProcessor for this subscriber
 		final RingBuffer.Sequence pendingRequest = RingBuffer.newSequence(0);
 		final TopicInner<E> signalProcessor =
-				new TopicInner<>(this, pendingRequest, subscriber);
+				new TopicInner<>(this, pendingRequest, subscriber, batched);
 
 		//bind eventProcessor sequence to observe the ringBuffer
 
@@ -955,7 +955,7 @@ public final class TopicProcessor<E> extends EventLoopProcessor<E>  {
 			ringBuffer.removeGatingSequence(signalProcessor.sequence);
 			decrementSubscribers();
 			if (!alive() && RejectedExecutionException.class.isAssignableFrom(t.getClass())){
-				coldSource(ringBuffer, t, error, minimum).subscribe(subscriber);
+				subscribeCold(coldSource(ringBuffer, t, error, minimum), subscriber, batched, getBufferSize());
 			}
 			else{
 				Operators.error(subscriber, t);
@@ -1035,6 +1035,8 @@ public final class TopicProcessor<E> extends EventLoopProcessor<E>  {
 
 		final Subscriber<? super T> subscriber;
 
+		final boolean batched;
+
 		final Runnable waiter = new Runnable() {
 			@Override
 			public void run() {
@@ -1051,13 +1053,16 @@ public final class TopicProcessor<E> extends EventLoopProcessor<E>  {
 		 * @param processor the target processor
 		 * @param pendingRequest holder for the number of pending requests
 		 * @param subscriber the output Subscriber instance
+		 * @param batched true if the subscriber expects {@link java.util.List} batches
 		 */
 		TopicInner(TopicProcessor<T> processor,
 		                            RingBuffer.Sequence pendingRequest,
-		                            Subscriber<? super T> subscriber) {
+		                            Subscriber<? super T> subscriber,
+		                            boolean batched) {
 			this.processor = processor;
 			this.pendingRequest = pendingRequest;
 			this.subscriber = subscriber;
+			this.batched = batched;
 		}
 
 		void halt() {
@@ -1103,18 +1108,20 @@ public final class TopicProcessor<E> extends EventLoopProcessor<E>  {
 					try {
 
 						final long availableSequence = processor.barrier.waitFor(nextSequence, waiter);
+						if (batched) {
+							if (nextSequence <= availableSequence) {
+								readNextEvent(unbounded);
+
+								//hand over the whole available range at once
+								onNextBatch(nextSequence, availableSequence);
+								nextSequence = availableSequence + 1L;
+							}
+						}
 						while (nextSequence <= availableSequence) {
 							event = processor.ringBuffer.get(nextSequence);
 
 								//if bounded and out of capacity
-								while (!unbounded && getAndSub(pendingRequest, 1L) ==
-												0) {
-									//Todo Use WaitStrategy?
-									if(!running.get() || processor.isTerminated()){
-										WaitStrategy.alert();
-									}
-									LockSupport.parkNanos(1L);
-								}
+								readNextEvent(unbounded);
 
 								//It's an unbounded subscriber or there is enough capacity to process the signal
 								subscriber.onNext(event.value);
@@ -1167,6 +1174,21 @@ public final class TopicProcessor<E> extends EventLoopProcessor<E>  {
 			}
 		}
 
+		void readNextEvent(final boolean unbounded) {
+			while (!unbounded && getAndSub(pendingRequest, 1L) == 0) {
+				//Todo Use WaitStrategy?
+				if(!running.get() || processor.isTerminated()){
+					WaitStrategy.alert();
+				}
+				LockSupport.parkNanos(1L);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		void onNextBatch(long start, long end) {
+			((Subscriber<Object>) subscriber).onNext(new SlotList<>(processor.ringBuffer, start, end));
+		}
+
 		@Override
 		@Nullable
 		public Object scanUnsafe(Attr key) {
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+
+/**
+ * Describes the windows of {@link Flux#aggregateWindows(WindowSpec, Aggregator)}:
+ * tumbling or sliding windows counted in values or in time, or session windows closed
+ * after a period of inactivity.
+ */
+public final class WindowSpec {
+
+	enum Kind {
+		COUNT, TIME, SESSION
+	}
+
+	/**
+	 * Consecutive windows of {@code size} values.
+	 *
+	 * @param size the number of values per window
+	 *
+	 * @return a new {@link WindowSpec}
+	 */
+	public static WindowSpec tumbling(int size) {
+		return sliding(size, size);
+	}
+
+	/**
+	 * Windows of {@code size} values, a new one starting every {@code skip} values.
+	 * They overlap if {@code skip < size} and leave values out if {@code skip > size}.
+	 *
+	 * @param size the number of values per window
+	 * @param skip the number of values between the starts of two windows
+	 *
+	 * @return a new {@link WindowSpec}
+	 */
+	public static WindowSpec sliding(int size, int skip) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("size > 0 required but it was " + size);
+		}
+		if (skip <= 0) {
+			throw new IllegalArgumentException("skip > 0 required but it was " + skip);
+		}
+		return new WindowSpec(Kind.COUNT, size, skip);
+	}
+
+	/**
+	 * Consecutive windows of the given duration.
+	 *
+	 * @param size the duration of each window
+	 *
+	 * @return a new {@link WindowSpec}
+	 */
+	public static WindowSpec tumbling(Duration size) {
+		return sliding(size, size);
+	}
+
+	/**
+	 * Windows of the given duration, a new one starting every {@code slide}.
+	 * <p>
+	 * Windows are made of panes as long as the greatest common divisor of the size and
+	 * the slide. That pane must be at least 1 millisecond long, and a window can't be
+	 * made of more than {@code 2^20} panes.
+	 *
+	 * @param size the duration of each window
+	 * @param slide the duration between the starts of two windows
+	 *
+	 * @return a new {@link WindowSpec}
+	 */
+	public static WindowSpec sliding(Duration size, Duration slide) {
+		WindowSpec spec = new WindowSpec(Kind.TIME, nanos(size, "size"), nanos(slide, "slide"));
+		long pane = spec.pane();
+		if (pane < MIN_PANE_NANOS) {
+			throw new IllegalArgumentException("size and slide must be multiples of a " +
+					"common duration of at least 1ms but it was " + Duration.ofNanos(pane));
+		}
+		if (spec.size / pane > MAX_WINDOW_PANES || spec.slide / pane > MAX_WINDOW_PANES) {
+			throw new IllegalArgumentException("windows can't be made of more than " +
+					MAX_WINDOW_PANES + " panes of " + Duration.ofNanos(pane) + ": " + spec);
+		}
+		return spec;
+	}
+
+	/**
+	 * Windows of consecutive values no further apart than the given gap.
+	 *
+	 * @param gap the inactivity closing a window
+	 *
+	 * @return a new {@link WindowSpec}
+	 */
+	public static WindowSpec session(Duration gap) {
+		return new WindowSpec(Kind.SESSION, nanos(gap, "gap"), 0L);
+	}
+
+	/**
+	 * The shortest pane of time windows, which is also the period of their timer.
+	 */
+	static final long MIN_PANE_NANOS = 1_000_000L;
+	/**
+	 * The maximum number of panes of a time window, kept in memory until it closes.
+	 */
+	static final long MAX_WINDOW_PANES = 1L << 20;
+
+	static long nanos(Duration d, String name) {
+		long nanos = d.toNanos();
+		if (nanos <= 0L) {
+			throw new IllegalArgumentException(name + " > 0 required but it was " + d);
+		}
+		return nanos;
+	}
+
+	final Kind kind;
+	/**
+	 * The window size or session gap, in values or nanoseconds.
+	 */
+	final long size;
+	/**
+	 * The distance between window starts, in values or nanoseconds.
+	 */
+	final long slide;
+
+	WindowSpec(Kind kind, long size, long slide) {
+		this.kind = kind;
+		this.size = size;
+		this.slide = slide;
+	}
+
+	/**
+	 * @return the length of the parts the windows are made of, the greatest common
+	 * divisor of their size and slide
+	 */
+	long pane() {
+		long a = size;
+		long b = slide;
+		while (b != 0L) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	@Override
+	public String toString() {
+		switch (kind) {
+			case COUNT:
+				return "WindowSpec{size=" + size + ", skip=" + slide + "}";
+			case TIME:
+				return "WindowSpec{size=" + Duration.ofNanos(size) + ", slide=" +
+						Duration.ofNanos(slide) + "}";
+			default:
+				return "WindowSpec{gap=" + Duration.ofNanos(size) + "}";
+		}
+	}
+}
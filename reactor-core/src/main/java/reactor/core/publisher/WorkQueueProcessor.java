@@ -16,6 +16,7 @@
 
 package reactor.core.publisher;
 
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -803,19 +804,19 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 	}
 
 	@Override
-	public void subscribe(final Subscriber<? super E> subscriber) {
+	void subscribe(final Subscriber<? super E> subscriber, boolean batched) {
 		//noinspection ConstantConditions
 		if (subscriber == null) {
 			throw Exceptions.argumentIsNullException();
 		}
 
 		if (!alive()) {
-			TopicProcessor.coldSource(ringBuffer, null, error, workSequence).subscribe(subscriber);
+			subscribeCold(coldSource(ringBuffer, null, error, workSequence), subscriber, batched, getBufferSize());
 			return;
 		}
 
 		final WorkQueueInner<E> signalProcessor =
-				new WorkQueueInner<>(subscriber, this);
+				new WorkQueueInner<>(subscriber, this, batched);
 		try {
 
 			incrementSubscribers();
@@ -837,7 +838,7 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 			decrementSubscribers();
 			ringBuffer.removeGatingSequence(signalProcessor.sequence);
 			if(RejectedExecutionException.class.isAssignableFrom(t.getClass())){
-				TopicProcessor.coldSource(ringBuffer, t, error, workSequence).subscribe(subscriber);
+				subscribeCold(coldSource(ringBuffer, t, error, workSequence), subscriber, batched, getBufferSize());
 			}
 			else {
 				Operators.error(subscriber, t);
@@ -937,6 +938,8 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 
 		final Subscriber<? super T> subscriber;
 
+		final boolean batched;
+
 		final Runnable waiter = new Runnable() {
 			@Override
 			public void run() {
@@ -952,11 +955,14 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 		 * updating its sequence
 		 * @param subscriber the output Subscriber instance
 		 * @param processor the source processor
+		 * @param batched true if the subscriber expects {@link java.util.List} batches
 		 */
 		WorkQueueInner(Subscriber<? super T> subscriber,
-				WorkQueueProcessor<T> processor) {
+				WorkQueueProcessor<T> processor,
+				boolean batched) {
 			this.processor = processor;
 			this.subscriber = subscriber;
+			this.batched = batched;
 
 			this.barrier = processor.ringBuffer.newReader();
 		}
@@ -988,6 +994,7 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 				subscriber.onSubscribe(this);
 
 				long cachedAvailableSequence = Long.MIN_VALUE;
+				long claimedSequence = Long.MIN_VALUE;
 				nextSequence = sequence.getAsLong();
 				Slot<T> event = null;
 
@@ -1041,6 +1048,14 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 						if (cachedAvailableSequence >= nextSequence) {
 							event = processor.ringBuffer.get(nextSequence);
 
+							//extend the claim to the whole available range if no other
+							//worker claimed a further sequence in the meantime
+							claimedSequence = nextSequence;
+							if (batched && cachedAvailableSequence > nextSequence &&
+									processor.workSequence.compareAndSet(nextSequence, cachedAvailableSequence)) {
+								claimedSequence = cachedAvailableSequence;
+							}
+
 							try {
 								readNextEvent(unbounded);
 							}
@@ -1052,7 +1067,15 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 							}
 
 							processedSequence = true;
-							subscriber.onNext(event.value);
+							if (batched) {
+								onNextBatch(nextSequence, claimedSequence);
+								//release the whole batch right away so that a completion
+								//doesn't wait for further demand
+								sequence.set(claimedSequence);
+							}
+							else {
+								subscriber.onNext(event.value);
+							}
 
 
 						}
@@ -1066,7 +1089,14 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 					}
 					catch (InterruptedException | RuntimeException ce) {
 						if (Exceptions.isCancel(ce)){
-							reschedule(event);
+							if (batched) {
+								for (long seq = nextSequence; seq <= claimedSequence; seq++) {
+									reschedule(processor.ringBuffer.get(seq));
+								}
+							}
+							else {
+								reschedule(event);
+							}
 							break;
 						}
 						if (!WaitStrategy.isAlert(ce)) {
@@ -1151,7 +1181,12 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 						}
 
 						readNextEvent(unbounded);
-						subscriber.onNext((T) v);
+						if (batched) {
+							((Subscriber<Object>) subscriber).onNext(Collections.singletonList(v));
+						}
+						else {
+							subscriber.onNext((T) v);
+						}
 						processor.claimedDisposed.poll();
 						if(s != null){
 							processor.ringBuffer.removeGatingSequence(s);
@@ -1190,6 +1225,11 @@ public final class WorkQueueProcessor<E> extends EventLoopProcessor<E> {
 			return false;
 		}
 
+		@SuppressWarnings("unchecked")
+		void onNextBatch(long start, long end) {
+			((Subscriber<Object>) subscriber).onNext(new SlotList<>(processor.ringBuffer, start, end));
+		}
+
 		void readNextEvent(final boolean unbounded) {
 				//pause until request
 			while ((!unbounded && getAndSub(pendingRequest, 1L) == 0L)) {
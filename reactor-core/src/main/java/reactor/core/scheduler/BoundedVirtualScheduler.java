@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.scheduler;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import reactor.core.Disposable;
+import reactor.util.concurrent.OpenHashSet;
+import javax.annotation.Nullable;
+
+/**
+ * Runs tasks on threads created on demand, at most {@code maxConcurrency} of them at
+ * a time, any extra task being queued until a thread frees up. Threads are meant to be
+ * virtual threads, which are cheap to create and release their carrier when blocking,
+ * so that a large number of concurrent blocking calls doesn't require as many OS
+ * threads. Delayed and periodic tasks are timed on a delegate timer {@link Scheduler}
+ * then run on this scheduler.
+ * <p>
+ * Workers serialize their tasks on top of this scheduler, like the trampolining
+ * {@link ExecutorScheduler}.
+ */
+final class BoundedVirtualScheduler implements Scheduler, Executor {
+
+	/**
+	 * The {@code Thread.ofVirtual()} builder factory method, available from Java 21.
+	 * Looked up reflectively as the library targets Java 8.
+	 */
+	@Nullable
+	static final Method OF_VIRTUAL;
+	@Nullable
+	static final Method BUILDER_NAME;
+	@Nullable
+	static final Method BUILDER_FACTORY;
+	@Nullable
+	static final Method IS_VIRTUAL;
+
+	static {
+		Method ofVirtual;
+		Method name;
+		Method factory;
+		Method isVirtual;
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+			isVirtual = Thread.class.getMethod("isVirtual");
+		}
+		catch (Throwable e) {
+			ofVirtual = null;
+			name = null;
+			factory = null;
+			isVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		BUILDER_NAME = name;
+		BUILDER_FACTORY = factory;
+		IS_VIRTUAL = isVirtual;
+	}
+
+	/**
+	 * Whether virtual threads can actually be created, which isn't the case on Java
+	 * 19 and 20 without {@code --enable-preview} even though the API is present.
+	 */
+	static final boolean VIRTUAL_THREADS = probeVirtualThreads();
+
+	static final AtomicLong COUNTER = new AtomicLong();
+
+	static boolean probeVirtualThreads() {
+		if (IS_VIRTUAL == null) {
+			return false;
+		}
+		try {
+			ThreadFactory factory = virtualThreadFactory("probe");
+			return Boolean.TRUE.equals(IS_VIRTUAL.invoke(factory.newThread(() -> { })));
+		}
+		catch (Throwable e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return true if the runtime creates virtual threads
+	 */
+	static boolean isVirtualThreadsSupported() {
+		return VIRTUAL_THREADS;
+	}
+
+	/**
+	 * Create a {@link ThreadFactory} of virtual threads named after the given prefix if
+	 * the runtime supports them, of daemon platform threads otherwise.
+	 *
+	 * @param name the thread name prefix
+	 *
+	 * @return a new {@link ThreadFactory}
+	 */
+	static ThreadFactory threadFactory(String name) {
+		if (VIRTUAL_THREADS) {
+			try {
+				return virtualThreadFactory(name);
+			}
+			catch (Throwable e) {
+				Schedulers.log.warn("Virtual threads could not be created, falling back to platform threads", e);
+			}
+		}
+		return new Schedulers.SchedulerThreadFactory(name, true, COUNTER);
+	}
+
+	static ThreadFactory virtualThreadFactory(String name) throws Exception {
+		Objects.requireNonNull(OF_VIRTUAL, "OF_VIRTUAL");
+		Objects.requireNonNull(BUILDER_NAME, "BUILDER_NAME");
+		Objects.requireNonNull(BUILDER_FACTORY, "BUILDER_FACTORY");
+		Object builder = OF_VIRTUAL.invoke(null);
+		builder = BUILDER_NAME.invoke(builder, name + "-", 1L);
+		return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+	}
+
+	final int           maxConcurrency;
+	final ThreadFactory threadFactory;
+	final Scheduler     timer;
+	final boolean       disposeTimer;
+
+	final Queue<Runnable>   queue;
+	final ExecutorScheduler tasks;
+
+	volatile int active;
+	static final AtomicIntegerFieldUpdater<BoundedVirtualScheduler> ACTIVE =
+			AtomicIntegerFieldUpdater.newUpdater(BoundedVirtualScheduler.class, "active");
+
+	volatile boolean terminated;
+
+	BoundedVirtualScheduler(int maxConcurrency,
+			ThreadFactory threadFactory,
+			Scheduler timer,
+			boolean disposeTimer) {
+		if (maxConcurrency <= 0) {
+			throw new IllegalArgumentException("maxConcurrency must be strictly positive, was: " + maxConcurrency);
+		}
+		this.maxConcurrency = maxConcurrency;
+		this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
+		this.timer = Objects.requireNonNull(timer, "timer");
+		this.disposeTimer = disposeTimer;
+		this.queue = new ConcurrentLinkedQueue<>();
+		this.tasks = new ExecutorScheduler(this, true);
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		if (terminated) {
+			throw new RejectedExecutionException("Scheduler has been disposed");
+		}
+		queue.offer(task);
+		tryStart();
+	}
+
+	void tryStart() {
+		for (; ; ) {
+			int a = active;
+			if (a >= maxConcurrency || queue.isEmpty()) {
+				return;
+			}
+			if (ACTIVE.compareAndSet(this, a, a + 1)) {
+				try {
+					threadFactory.newThread(this::drain)
+					             .start();
+				}
+				catch (Throwable ex) {
+					ACTIVE.decrementAndGet(this);
+					Schedulers.handleError(ex);
+				}
+				return;
+			}
+		}
+	}
+
+	void drain() {
+		for (; ; ) {
+			Runnable task;
+			while (!terminated && (task = queue.poll()) != null) {
+				try {
+					task.run();
+				}
+				catch (Throwable ex) {
+					Schedulers.handleError(ex);
+				}
+			}
+			ACTIVE.decrementAndGet(this);
+			if (terminated || queue.isEmpty()) {
+				return;
+			}
+			//a task was queued after the last poll but before the decrement
+			int a = active;
+			if (a >= maxConcurrency || !ACTIVE.compareAndSet(this, a, a + 1)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public Disposable schedule(Runnable task) {
+		return tasks.schedule(task);
+	}
+
+	@Override
+	public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+		if (delay <= 0) {
+			return schedule(task);
+		}
+		Objects.requireNonNull(task, "task");
+		if (terminated) {
+			return REJECTED;
+		}
+		DelayedTask delayed = new DelayedTask(task, this::schedule, false);
+		return delayed.timed(timer.schedule(delayed, delay, unit));
+	}
+
+	@Override
+	public Disposable schedulePeriodically(Runnable task,
+			long initialDelay,
+			long period,
+			TimeUnit unit) {
+		Objects.requireNonNull(task, "task");
+		if (terminated) {
+			return REJECTED;
+		}
+		DelayedTask periodic = new DelayedTask(task, this::schedule, true);
+		return periodic.timed(timer.schedulePeriodically(periodic, initialDelay, period, unit));
+	}
+
+	@Override
+	public Worker createWorker() {
+		return new BoundedVirtualWorker(tasks.createWorker(), timer.createWorker());
+	}
+
+	@Override
+	public void dispose() {
+		if (!terminated) {
+			terminated = true;
+			tasks.dispose();
+			queue.clear();
+			if (disposeTimer) {
+				timer.dispose();
+			}
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return terminated;
+	}
+
+	/**
+	 * A task timed on the timer then run on a target, disposing either. A periodic task
+	 * skips the ticks happening while its previous run is still queued or running.
+	 */
+	static final class DelayedTask implements Runnable, Disposable {
+
+		final Runnable                       task;
+		final Function<Runnable, Disposable> target;
+		final boolean                        periodic;
+
+		volatile Disposable timed;
+		volatile Disposable running;
+		volatile boolean    disposed;
+
+		volatile int active;
+		static final AtomicIntegerFieldUpdater<DelayedTask> ACTIVE =
+				AtomicIntegerFieldUpdater.newUpdater(DelayedTask.class, "active");
+
+		DelayedTask(Runnable task, Function<Runnable, Disposable> target, boolean periodic) {
+			this.task = task;
+			this.target = target;
+			this.periodic = periodic;
+		}
+
+		DelayedTask timed(Disposable d) {
+			timed = d;
+			if (disposed) {
+				d.dispose();
+			}
+			return this;
+		}
+
+		@Override
+		public void run() {
+			if (!disposed) {
+				Disposable d;
+				if (periodic) {
+					if (!ACTIVE.compareAndSet(this, 0, 1)) {
+						return;
+					}
+					d = target.apply(this::runPeriod);
+				}
+				else {
+					d = target.apply(task);
+				}
+				running = d;
+				if (disposed) {
+					d.dispose();
+				}
+			}
+		}
+
+		void runPeriod() {
+			try {
+				task.run();
+			}
+			finally {
+				active = 0;
+			}
+		}
+
+		@Override
+		public void dispose() {
+			disposed = true;
+			Disposable d = timed;
+			if (d != null) {
+				d.dispose();
+			}
+			d = running;
+			if (d != null) {
+				d.dispose();
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return disposed;
+		}
+	}
+
+	/**
+	 * Serializes its tasks on a trampolining worker of the scheduler, tracking them
+	 * until they complete so that disposing the worker also disposes the one currently
+	 * running.
+	 */
+	static final class BoundedVirtualWorker implements Worker {
+
+		final Worker actual;
+		final Worker timer;
+
+		volatile boolean terminated;
+
+		OpenHashSet<WorkerTask> tasks;
+
+		BoundedVirtualWorker(Worker actual, Worker timer) {
+			this.actual = actual;
+			this.timer = timer;
+			this.tasks = new OpenHashSet<>();
+		}
+
+		@Override
+		public Disposable schedule(Runnable task) {
+			Objects.requireNonNull(task, "task");
+			if (terminated) {
+				return REJECTED;
+			}
+			WorkerTask t = new WorkerTask(task, this);
+			synchronized (this) {
+				if (terminated) {
+					return REJECTED;
+				}
+				tasks.add(t);
+			}
+			Disposable d = actual.schedule(t);
+			if (d == REJECTED) {
+				delete(t);
+				return REJECTED;
+			}
+			return t.scheduled(d);
+		}
+
+		@Override
+		public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+			if (delay <= 0) {
+				return schedule(task);
+			}
+			Objects.requireNonNull(task, "task");
+			DelayedTask delayed = new DelayedTask(task, this::schedule, false);
+			return delayed.timed(timer.schedule(delayed, delay, unit));
+		}
+
+		@Override
+		public Disposable schedulePeriodically(Runnable task,
+				long initialDelay,
+				long period,
+				TimeUnit unit) {
+			Objects.requireNonNull(task, "task");
+			DelayedTask periodic = new DelayedTask(task, this::schedule, true);
+			return periodic.timed(timer.schedulePeriodically(periodic, initialDelay, period, unit));
+		}
+
+		void delete(WorkerTask t) {
+			synchronized (this) {
+				if (!terminated) {
+					tasks.remove(t);
+				}
+			}
+		}
+
+		@Override
+		public void dispose() {
+			if (terminated) {
+				return;
+			}
+			OpenHashSet<WorkerTask> list;
+			synchronized (this) {
+				if (terminated) {
+					return;
+				}
+				terminated = true;
+				list = tasks;
+				tasks = null;
+			}
+			timer.dispose();
+			actual.dispose();
+
+			if (!list.isEmpty()) {
+				Object[] a = list.keys();
+				for (Object o : a) {
+					if (o != null) {
+						((WorkerTask) o).dispose();
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return terminated;
+		}
+	}
+
+	/**
+	 * A task of a {@link BoundedVirtualWorker}, disposed once it completes.
+	 */
+	static final class WorkerTask extends AtomicBoolean implements Runnable, Disposable {
+
+		/** */
+		private static final long serialVersionUID = -5377474404470851924L;
+
+		final Runnable             task;
+		final BoundedVirtualWorker parent;
+
+		volatile Disposable scheduled;
+
+		WorkerTask(Runnable task, BoundedVirtualWorker parent) {
+			this.task = task;
+			this.parent = parent;
+		}
+
+		WorkerTask scheduled(Disposable d) {
+			scheduled = d;
+			if (get()) {
+				d.dispose();
+			}
+			return this;
+		}
+
+		@Override
+		public void run() {
+			if (!get()) {
+				try {
+					task.run();
+				}
+				finally {
+					if (compareAndSet(false, true)) {
+						parent.delete(this);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void dispose() {
+			if (compareAndSet(false, true)) {
+				Disposable d = scheduled;
+				if (d != null) {
+					d.dispose();
+				}
+				parent.delete(this);
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return get();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.scheduler;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import reactor.core.Disposable;
+
+/**
+ * A coarse-grained clock whose time is refreshed by a background daemon thread at a
+ * fixed resolution, so that reading it is a single volatile read instead of a system
+ * call. This trades accuracy (the time can lag by up to the resolution) for cost when
+ * the time is read at a very high rate, e.g. by {@link reactor.core.publisher.Flux#timestamp()}
+ * or {@link reactor.core.publisher.Flux#elapsed()} on millions of elements per second.
+ * <p>
+ * Plug it into {@link Scheduler#now(TimeUnit)} with {@link Schedulers#withClock(Scheduler, CachedClock)},
+ * or into all the shared {@link Schedulers} with {@link Schedulers#setClock(CachedClock)}.
+ * Once {@link #dispose() disposed} the clock stops refreshing and falls back to reading
+ * the system clock.
+ */
+public final class CachedClock implements Disposable {
+
+	/**
+	 * Create and start a new {@link CachedClock} refreshed every {@code resolution}.
+	 *
+	 * @param resolution the refresh period, at least 1 microsecond
+	 *
+	 * @return a new running {@link CachedClock}
+	 */
+	public static CachedClock create(Duration resolution) {
+		Objects.requireNonNull(resolution, "resolution");
+		long nanos = resolution.toNanos();
+		if (nanos < 1_000L) {
+			throw new IllegalArgumentException("resolution must be at least 1 microsecond, was: " + resolution);
+		}
+		CachedClock clock = new CachedClock(nanos);
+		clock.thread.start();
+		return clock;
+	}
+
+	static final AtomicLong COUNTER = new AtomicLong();
+
+	final long   resolutionNanos;
+	final Thread thread;
+
+	volatile long    currentTimeMillis;
+	volatile long    nanoTime;
+	volatile boolean disposed;
+
+	CachedClock(long resolutionNanos) {
+		this.resolutionNanos = resolutionNanos;
+		this.currentTimeMillis = System.currentTimeMillis();
+		this.nanoTime = System.nanoTime();
+		this.thread = new Thread(this::run, "cached-clock-" + COUNTER.incrementAndGet());
+		this.thread.setDaemon(true);
+	}
+
+	void run() {
+		long deadline = nanoTime + resolutionNanos;
+		while (!disposed) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining > 0L) {
+				//parkNanos can return early, only refresh once the period has elapsed
+				LockSupport.parkNanos(this, remaining);
+				continue;
+			}
+			currentTimeMillis = System.currentTimeMillis();
+			long now = System.nanoTime();
+			nanoTime = now;
+			deadline = now + resolutionNanos;
+		}
+	}
+
+	/**
+	 * @return the cached wall-clock time in milliseconds since the epoch, as
+	 * {@link System#currentTimeMillis()}
+	 */
+	public long currentTimeMillis() {
+		if (disposed) {
+			return System.currentTimeMillis();
+		}
+		return currentTimeMillis;
+	}
+
+	/**
+	 * @return the cached monotonic time in nanoseconds, as {@link System#nanoTime()}
+	 */
+	public long nanoTime() {
+		if (disposed) {
+			return System.nanoTime();
+		}
+		return nanoTime;
+	}
+
+	/**
+	 * Return the cached wall-clock time, as expected from {@link Scheduler#now(TimeUnit)}.
+	 *
+	 * @param unit the target unit of the current time
+	 *
+	 * @return the current time value in the target unit of measure
+	 */
+	public long now(TimeUnit unit) {
+		long millis = currentTimeMillis();
+		if (unit == TimeUnit.MILLISECONDS) {
+			return millis;
+		}
+		return unit.convert(millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return the refresh period of this clock
+	 */
+	public Duration resolution() {
+		return Duration.ofNanos(resolutionNanos);
+	}
+
+	/**
+	 * Stop refreshing this clock, which will then read the system clock.
+	 */
+	@Override
+	public void dispose() {
+		if (!disposed) {
+			disposed = true;
+			LockSupport.unpark(thread);
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+}
@@ -337,7 +337,7 @@ final class ExecutorScheduler implements Scheduler {
 
 			ExecutorTrackedRunnable r;
 
-			while ((r = q.poll()) != null && !q.isEmpty()) {
+			while ((r = q.poll()) != null) {
 				r.dispose();
 			}
 		}
@@ -61,6 +61,8 @@ public abstract class Schedulers {
 
 	static volatile BiConsumer<Thread, ? super Throwable> onHandleErrorHook;
 
+	static volatile CachedClock clock;
+
 	/**
 	 * Create a {@link Scheduler} which uses a backing {@link Executor} to schedule
 	 * Runnables for async operators.
@@ -135,6 +137,19 @@ public abstract class Schedulers {
 		return cache(CACHED_ELASTIC, ELASTIC, ELASTIC_SUPPLIER);
 	}
 
+	/**
+	 * {@link Scheduler} suited for blocking work, that runs each task on a virtual thread
+	 * when the runtime supports them (Java 21+), or on a daemon platform thread otherwise.
+	 * At most {@code 100000} tasks (or {@code 10 * DEFAULT_POOL_SIZE} with platform
+	 * threads) run concurrently, extra tasks being queued. Delayed tasks are timed on a
+	 * dedicated timer thread.
+	 *
+	 * @return a reusable {@link Scheduler} running tasks on virtual threads
+	 */
+	public static Scheduler boundedVirtual() {
+		return cache(CACHED_BOUNDED_VIRTUAL, BOUNDED_VIRTUAL, BOUNDED_VIRTUAL_SUPPLIER);
+	}
+
 	/**
 	 * Executes tasks on the caller's thread immediately.
 	 *
@@ -223,6 +238,56 @@ public abstract class Schedulers {
 		return factory.newElastic(ttlSeconds, threadFactory);
 	}
 
+	/**
+	 * {@link Scheduler} suited for blocking work, that runs each task on a virtual thread
+	 * when the runtime supports them (Java 21+), or on a daemon platform thread otherwise.
+	 * At most {@code maxConcurrency} tasks run concurrently, extra tasks being queued.
+	 * Delayed tasks are timed on a dedicated timer thread.
+	 *
+	 * @param name Thread prefix
+	 * @param maxConcurrency the maximum number of tasks running at the same time
+	 *
+	 * @return a new {@link Scheduler} running tasks on virtual threads
+	 */
+	public static Scheduler newBoundedVirtual(String name, int maxConcurrency) {
+		return newBoundedVirtual(maxConcurrency, BoundedVirtualScheduler.threadFactory(name));
+	}
+
+	/**
+	 * {@link Scheduler} suited for blocking work, that runs each task on a thread from
+	 * the given {@link ThreadFactory}, typically a factory of virtual threads. At most
+	 * {@code maxConcurrency} tasks run concurrently, extra tasks being queued. Delayed
+	 * tasks are timed on a dedicated timer thread.
+	 *
+	 * @param maxConcurrency the maximum number of tasks running at the same time
+	 * @param threadFactory a {@link ThreadFactory} creating a thread per batch of tasks
+	 *
+	 * @return a new {@link Scheduler} running tasks on threads from the factory
+	 */
+	public static Scheduler newBoundedVirtual(int maxConcurrency, ThreadFactory threadFactory) {
+		return factory.newBoundedVirtual(maxConcurrency, threadFactory);
+	}
+
+	/**
+	 * {@link Scheduler} suited for blocking work, that runs each task on a thread from
+	 * the given {@link ThreadFactory}, typically a factory of virtual threads. At most
+	 * {@code maxConcurrency} tasks run concurrently, extra tasks being queued. Delayed
+	 * tasks are timed on the given timer {@link Scheduler} then run on the returned
+	 * {@link Scheduler}. The timer is not disposed along with the returned
+	 * {@link Scheduler}.
+	 *
+	 * @param maxConcurrency the maximum number of tasks running at the same time
+	 * @param threadFactory a {@link ThreadFactory} creating a thread per batch of tasks
+	 * @param timer the time-capable {@link Scheduler} timing delayed tasks
+	 *
+	 * @return a new {@link Scheduler} running tasks on threads from the factory
+	 */
+	public static Scheduler newBoundedVirtual(int maxConcurrency,
+			ThreadFactory threadFactory,
+			Scheduler timer) {
+		return new BoundedVirtualScheduler(maxConcurrency, threadFactory, timer, false);
+	}
+
 	/**
 	 * {@link Scheduler} that hosts a fixed pool of single-threaded ExecutorService-based
 	 * workers and is suited for parallel work.
@@ -350,6 +415,15 @@ public abstract class Schedulers {
 		return cache(CACHED_PARALLEL, PARALLEL, PARALLEL_SUPPLIER);
 	}
 
+	/**
+	 * Stop using a {@link CachedClock} for the {@link Scheduler#now(TimeUnit) now} of
+	 * the shared {@link Scheduler}s, going back to the system clock.
+	 */
+	public static void resetClock() {
+		log.info("Reset to factory defaults: clock");
+		clock = null;
+	}
+
 	/**
 	 * Re-apply default factory to {@link Schedulers}
 	 */
@@ -365,6 +439,21 @@ public abstract class Schedulers {
 		onHandleErrorHook = null;
 	}
 
+	/**
+	 * Use the given {@link CachedClock} for the {@link Scheduler#now(TimeUnit) now} of the
+	 * shared {@link Scheduler}s ({@link #parallel()}, {@link #single()} and
+	 * {@link #elastic()}), and hence of the time-aware operators that use them by
+	 * default, like {@link reactor.core.publisher.Flux#timestamp() timestamp},
+	 * {@link reactor.core.publisher.Flux#elapsed() elapsed} or the time-bounded
+	 * {@link reactor.core.publisher.Flux#replay(java.time.Duration) replay}.
+	 *
+	 * @param cachedClock the clock to read the current time from
+	 */
+	public static void setClock(CachedClock cachedClock) {
+		log.info("Hooking new default: clock");
+		clock = Objects.requireNonNull(cachedClock, "cachedClock");
+	}
+
 	/**
 	 * Replace {@link Schedulers} factories ({@link #newParallel(String) newParallel},
 	 * {@link #newSingle(String) newSingle} and {@link #newElastic(String) newElastic}). Also
@@ -389,10 +478,12 @@ public abstract class Schedulers {
 		CachedScheduler oldElastic = CACHED_ELASTIC.getAndSet(null);
 		CachedScheduler oldParallel = CACHED_PARALLEL.getAndSet(null);
 		CachedScheduler oldSingle = CACHED_SINGLE.getAndSet(null);
+		CachedScheduler oldBoundedVirtual = CACHED_BOUNDED_VIRTUAL.getAndSet(null);
 
 		if (oldElastic != null) oldElastic._dispose();
 		if (oldParallel != null) oldParallel._dispose();
 		if (oldSingle != null) oldSingle._dispose();
+		if (oldBoundedVirtual != null) oldBoundedVirtual._dispose();
 	}
 
 	/**
@@ -423,6 +514,21 @@ public abstract class Schedulers {
 		return new SingleWorkerScheduler(original);
 	}
 
+	/**
+	 * Wrap a {@link Scheduler} so that its {@link Scheduler#now(TimeUnit) now} reads the
+	 * given {@link CachedClock} instead of the system clock, all other operations being
+	 * delegated to the original {@link Scheduler}.
+	 *
+	 * @param original the {@link Scheduler} to run tasks on
+	 * @param cachedClock the clock to read the current time from
+	 *
+	 * @return a {@link Scheduler} with a cached notion of the current time
+	 */
+	public static Scheduler withClock(Scheduler original, CachedClock cachedClock) {
+		return new ClockScheduler(Objects.requireNonNull(original, "original"),
+				Objects.requireNonNull(cachedClock, "cachedClock"));
+	}
+
 	/**
 	 * Attempt to dispose a {@link Scheduler}'s {@link ExecutorService}.
 	 */
@@ -502,6 +608,25 @@ public abstract class Schedulers {
 			return new ParallelScheduler(parallelism, threadFactory);
 		}
 
+		/**
+		 * {@link Scheduler} that runs at most {@code maxConcurrency} tasks at a time,
+		 * each on a thread from the given factory, and is suited for blocking work.
+		 *
+		 * @param maxConcurrency the maximum number of tasks running at the same time
+		 * @param threadFactory a {@link ThreadFactory} to use, typically creating
+		 * virtual threads
+		 *
+		 * @return a new {@link Scheduler} that runs tasks on threads from the factory
+		 */
+		default Scheduler newBoundedVirtual(int maxConcurrency, ThreadFactory threadFactory) {
+			return new BoundedVirtualScheduler(maxConcurrency,
+					threadFactory,
+					new SingleScheduler(new SchedulerThreadFactory(BOUNDED_VIRTUAL + "-timer",
+							true,
+							BoundedVirtualScheduler.COUNTER)),
+					true);
+		}
+
 		/**
 		 * {@link Scheduler} that hosts a single worker and is suited for non-blocking
 		 * work.
@@ -521,11 +646,13 @@ public abstract class Schedulers {
 	static final String PARALLEL = "parallel"; //scale up common tasks
 	static final String SINGLE   = "single"; //non blocking tasks
 	static final String TIMER    = "timer"; //timed tasks
+	static final String BOUNDED_VIRTUAL = "boundedVirtual"; //blocking tasks
 
 	// Cached schedulers in atomic references:
 	static AtomicReference<CachedScheduler> CACHED_ELASTIC  = new AtomicReference<>();
 	static AtomicReference<CachedScheduler> CACHED_PARALLEL = new AtomicReference<>();
 	static AtomicReference<CachedScheduler> CACHED_SINGLE   = new AtomicReference<>();
+	static AtomicReference<CachedScheduler> CACHED_BOUNDED_VIRTUAL = new AtomicReference<>();
 
 	static final Supplier<Scheduler> ELASTIC_SUPPLIER =
 			() -> newElastic(ELASTIC, ElasticScheduler.DEFAULT_TTL_SECONDS, true);
@@ -537,6 +664,12 @@ public abstract class Schedulers {
 
 	static final Supplier<Scheduler> SINGLE_SUPPLIER = () -> newSingle(SINGLE, true);
 
+	static final int DEFAULT_BOUNDED_VIRTUAL_CONCURRENCY =
+			BoundedVirtualScheduler.isVirtualThreadsSupported() ? 100_000 : 10 * DEFAULT_POOL_SIZE;
+
+	static final Supplier<Scheduler> BOUNDED_VIRTUAL_SUPPLIER =
+			() -> newBoundedVirtual(BOUNDED_VIRTUAL, DEFAULT_BOUNDED_VIRTUAL_CONCURRENCY);
+
 	static final Factory DEFAULT = new Factory() {
 	};
 
@@ -620,6 +753,60 @@ public abstract class Schedulers {
 		}
 	}
 
+	static final class ClockScheduler implements Scheduler {
+
+		final Scheduler   actual;
+		final CachedClock clock;
+
+		ClockScheduler(Scheduler actual, CachedClock clock) {
+			this.actual = actual;
+			this.clock = clock;
+		}
+
+		@Override
+		public Disposable schedule(Runnable task) {
+			return actual.schedule(task);
+		}
+
+		@Override
+		public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+			return actual.schedule(task, delay, unit);
+		}
+
+		@Override
+		public Disposable schedulePeriodically(Runnable task,
+				long initialDelay,
+				long period,
+				TimeUnit unit) {
+			return actual.schedulePeriodically(task, initialDelay, period, unit);
+		}
+
+		@Override
+		public Worker createWorker() {
+			return actual.createWorker();
+		}
+
+		@Override
+		public long now(TimeUnit unit) {
+			return clock.now(unit);
+		}
+
+		@Override
+		public void start() {
+			actual.start();
+		}
+
+		@Override
+		public void dispose() {
+			actual.dispose();
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return actual.isDisposed();
+		}
+	}
+
 	static class CachedScheduler implements Scheduler, Supplier<Scheduler> {
 
 		final Scheduler cached;
@@ -655,6 +842,10 @@ public abstract class Schedulers {
 
 		@Override
 		public long now(TimeUnit unit) {
+			CachedClock c = clock;
+			if (c != null) {
+				return c.now(unit);
+			}
 			return cached.now(unit);
 		}
 
@@ -17,6 +17,7 @@ package reactor.util.concurrent;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
@@ -30,6 +31,25 @@ import java.util.function.LongSupplier;
 public abstract class WaitStrategy
 {
 
+    /**
+     * Adaptive strategy that spins, then yields, then parks like {@link #phasedOff}, but
+     * tunes its spin budget and park duration from the wait durations it observes:
+     * waits that are satisfied right after spinning stopped grow the spin budget,
+     * waits that end up parking shrink it, and the park duration follows the average
+     * wait duration. Both are bounded by the target latency, which is thus the maximum
+     * delay between a sequence becoming available and a parked consumer noticing it.
+     * <p>
+     * The returned {@link Adaptive} instance exposes its current phase and statistics
+     * for monitoring.
+     *
+     * @param targetLatency the maximum wake-up delay of a parked consumer, at least 1 microsecond
+     * @param units the time unit
+     * @return the wait strategy
+     */
+    public static Adaptive adaptive(long targetLatency, TimeUnit units) {
+        return new Adaptive(units.toNanos(targetLatency));
+    }
+
     /**
      * Blocking strategy that uses a lock and condition variable for consumer waiting on a barrier.
      *
@@ -444,6 +464,222 @@ public abstract class WaitStrategy
         private static final int SPIN_TRIES = 10000;
     }
 
+    /**
+     * A {@link WaitStrategy} adjusting its spin budget and park duration to the
+     * observed wait durations, see {@link WaitStrategy#adaptive(long, TimeUnit)}.
+     * <p>
+     * Statistics are shared by all the consumers waiting with this strategy.
+     */
+    public static final class Adaptive extends WaitStrategy {
+
+        /**
+         * The ways a consumer can wait for a sequence, from the most CPU hungry and
+         * reactive to the most frugal one.
+         */
+        public enum Phase {
+            /**
+             * Busy spin on the cursor.
+             */
+            SPIN,
+            /**
+             * Spin on the cursor, yielding the thread between each check.
+             */
+            YIELD,
+            /**
+             * Park the thread between each check of the cursor.
+             */
+            PARK
+        }
+
+        static final long MIN_BUDGET_NANOS = 1_000L;
+        static final int  SPIN_TRIES       = 100;
+
+        final long targetLatencyNanos;
+
+        final LongAdder waits     = new LongAdder();
+        final LongAdder spinHits  = new LongAdder();
+        final LongAdder yieldHits = new LongAdder();
+        final LongAdder parkHits  = new LongAdder();
+
+        volatile Phase phase = Phase.SPIN;
+        volatile long  spinBudgetNanos;
+        volatile long  parkNanos;
+        volatile long  averageWaitNanos;
+
+        Adaptive(long targetLatencyNanos) {
+            if (targetLatencyNanos < MIN_BUDGET_NANOS) {
+                throw new IllegalArgumentException("targetLatency must be at least 1 microsecond, was: " + targetLatencyNanos + "ns");
+            }
+            this.targetLatencyNanos = targetLatencyNanos;
+            this.spinBudgetNanos = Math.max(MIN_BUDGET_NANOS, targetLatencyNanos / 10);
+            this.parkNanos = MIN_BUDGET_NANOS;
+        }
+
+        @Override
+        public long waitFor(long sequence, LongSupplier cursor, Runnable barrier)
+                throws InterruptedException
+        {
+            long availableSequence;
+            if ((availableSequence = cursor.getAsLong()) >= sequence)
+            {
+                return availableSequence;
+            }
+
+            long startTime = System.nanoTime();
+            long spinBudget = spinBudgetNanos;
+            long yieldBudget = spinBudget << 1;
+            Phase p = Phase.SPIN;
+            int counter = SPIN_TRIES;
+
+            while ((availableSequence = cursor.getAsLong()) < sequence)
+            {
+                barrier.run();
+                if (p == Phase.PARK)
+                {
+                    LockSupport.parkNanos(parkNanos);
+                    continue;
+                }
+                if (p == Phase.YIELD)
+                {
+                    //a yield can take much longer than a spin, check the clock each time
+                    if (System.nanoTime() - startTime > yieldBudget)
+                    {
+                        p = enter(Phase.PARK);
+                        continue;
+                    }
+                    Thread.yield();
+                    continue;
+                }
+                if (0 == --counter)
+                {
+                    counter = SPIN_TRIES;
+                    long timeDelta = System.nanoTime() - startTime;
+                    if (timeDelta > yieldBudget)
+                    {
+                        p = enter(Phase.PARK);
+                    }
+                    else if (timeDelta > spinBudget)
+                    {
+                        p = enter(Phase.YIELD);
+                    }
+                }
+            }
+
+            adapt(p, System.nanoTime() - startTime);
+            return availableSequence;
+        }
+
+        Phase enter(Phase p) {
+            if (phase != p) {
+                phase = p;
+            }
+            return p;
+        }
+
+        void adapt(Phase p, long waited) {
+            waits.increment();
+            long average = averageWaitNanos;
+            average += (waited - average) >> 3;
+            averageWaitNanos = average;
+
+            long spinBudget = spinBudgetNanos;
+            switch (p) {
+                case SPIN:
+                    spinHits.increment();
+                    //close call, keep a margin above the observed waits
+                    if (waited > spinBudget >> 1) {
+                        spinBudget += spinBudget >> 2;
+                    }
+                    break;
+                case YIELD:
+                    yieldHits.increment();
+                    //a little more spinning would have caught it
+                    spinBudget <<= 1;
+                    break;
+                default:
+                    parkHits.increment();
+                    //spinning was only burning CPU
+                    spinBudget >>= 1;
+                    break;
+            }
+            spinBudgetNanos = Math.min(targetLatencyNanos, Math.max(MIN_BUDGET_NANOS, spinBudget));
+            //the longer consumers usually wait, the longer they can park between checks
+            parkNanos = Math.min(targetLatencyNanos, Math.max(MIN_BUDGET_NANOS, average >> 3));
+            enter(p);
+        }
+
+        /**
+         * @return the phase the last waiting consumer went through
+         */
+        public Phase phase() {
+            return phase;
+        }
+
+        /**
+         * @return the maximum wake-up delay of a parked consumer, in nanoseconds
+         */
+        public long targetLatencyNanos() {
+            return targetLatencyNanos;
+        }
+
+        /**
+         * @return the current time spent spinning before yielding, in nanoseconds
+         */
+        public long spinBudgetNanos() {
+            return spinBudgetNanos;
+        }
+
+        /**
+         * @return the current park duration between two checks of the cursor, in nanoseconds
+         */
+        public long parkNanos() {
+            return parkNanos;
+        }
+
+        /**
+         * @return the exponential moving average of the wait durations, in nanoseconds
+         */
+        public long averageWaitNanos() {
+            return averageWaitNanos;
+        }
+
+        /**
+         * @return the number of waits that could not be satisfied immediately
+         */
+        public long waits() {
+            return waits.sum();
+        }
+
+        /**
+         * @return the number of waits satisfied while spinning
+         */
+        public long spinHits() {
+            return spinHits.sum();
+        }
+
+        /**
+         * @return the number of waits satisfied while yielding
+         */
+        public long yieldHits() {
+            return yieldHits.sum();
+        }
+
+        /**
+         * @return the number of waits satisfied while parking
+         */
+        public long parkHits() {
+            return parkHits.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Adaptive{phase=" + phase + ", spinBudgetNanos=" + spinBudgetNanos +
+                    ", parkNanos=" + parkNanos + ", averageWaitNanos=" + averageWaitNanos +
+                    ", waits=" + waits() + ", spinHits=" + spinHits() +
+                    ", yieldHits=" + yieldHits() + ", parkHits=" + parkHits() + "}";
+        }
+    }
+
     final static class Parking extends WaitStrategy {
 
 	    static final Parking INSTANCE = new Parking();
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import reactor.test.RaceTestUtils;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchLoaderTest {
+
+	List<List<Integer>> batches = new ArrayList<>();
+
+	VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+
+	BatchLoader<Integer, String> loader(int maxBatchSize, Duration maxDelay) {
+		return BatchLoader.create(keys -> {
+			batches.add(keys);
+			return Flux.fromIterable(keys)
+			           .filter(k -> k >= 0)
+			           .map(k -> k + ":" + keys.size());
+		}, v -> Integer.parseInt(v.substring(0, v.indexOf(':'))), maxBatchSize, maxDelay, vts);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void batchFunctionNull() {
+		BatchLoader.create(null, v -> v, 10, Duration.ofMillis(1));
+	}
+
+	@Test
+	public void dispatchesWhenSizeReached() {
+		BatchLoader<Integer, String> loader = loader(3, Duration.ofSeconds(1));
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		AssertSubscriber<String> ts3 = AssertSubscriber.create();
+		loader.load(1).subscribe(ts1);
+		loader.load(2).subscribe(ts2);
+
+		ts1.assertNoValues();
+		assertThat(batches).isEmpty();
+
+		loader.load(3).subscribe(ts3);
+
+		ts1.assertValues("1:3").assertComplete();
+		ts2.assertValues("2:3").assertComplete();
+		ts3.assertValues("3:3").assertComplete();
+		assertThat(batches).containsExactly(Arrays.asList(1, 2, 3));
+	}
+
+	@Test
+	public void dispatchesWhenDelayElapses() {
+		BatchLoader<Integer, String> loader = loader(100, Duration.ofNanos(500_000));
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		loader.load(1).subscribe(ts1);
+		loader.load(2).subscribe(ts2);
+
+		vts.advanceTimeBy(Duration.ofNanos(400_000));
+		ts1.assertNoValues();
+
+		vts.advanceTimeBy(Duration.ofNanos(100_000));
+		ts1.assertValues("1:2").assertComplete();
+		ts2.assertValues("2:2").assertComplete();
+		assertThat(batches).hasSize(1);
+	}
+
+	@Test
+	public void duplicateKeysLoadedOnce() {
+		BatchLoader<Integer, String> loader = loader(3, Duration.ofSeconds(1));
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		loader.load(1).subscribe(ts1);
+		loader.load(1).subscribe(ts2);
+		loader.load(2).subscribe();
+
+		ts1.assertValues("1:2").assertComplete();
+		ts2.assertValues("1:2").assertComplete();
+		assertThat(batches).containsExactly(Arrays.asList(1, 2));
+	}
+
+	@Test
+	public void missingKeyCompletesEmpty() {
+		BatchLoader<Integer, String> loader = loader(2, Duration.ofSeconds(1));
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		loader.load(-1).subscribe(ts1);
+		loader.load(2).subscribe(ts2);
+
+		ts1.assertNoValues().assertComplete();
+		ts2.assertValues("2:2").assertComplete();
+	}
+
+	@Test
+	public void cancelledKeyNotLoaded() {
+		BatchLoader<Integer, String> loader = loader(3, Duration.ofSeconds(1));
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		loader.load(1).subscribe(ts1);
+		ts1.cancel();
+		loader.load(2).subscribe();
+		loader.load(3).subscribe();
+
+		assertThat(batches).containsExactly(Arrays.asList(2, 3));
+	}
+
+	@Test
+	public void batchErrorPropagatesToAll() {
+		BatchLoader<Integer, String> loader = BatchLoader.create(keys -> Flux.error(new IllegalStateException("boom")),
+				v -> 0, 2, Duration.ofSeconds(1), vts);
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		loader.load(1).subscribe(ts1);
+		loader.load(2).subscribe(ts2);
+
+		ts1.assertErrorMessage("boom");
+		ts2.assertErrorMessage("boom");
+	}
+
+	@Test
+	public void disposeFlushesAndRejects() {
+		BatchLoader<Integer, String> loader = loader(10, Duration.ofSeconds(1));
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		loader.load(1).subscribe(ts1);
+
+		loader.dispose();
+
+		ts1.assertValues("1:1").assertComplete();
+		assertThat(loader.isDisposed()).isTrue();
+
+		StepVerifier.create(loader.load(2))
+		            .verifyErrorMessage("BatchLoader has been disposed");
+	}
+
+	@Test
+	public void loadRacingDisposeAlwaysTerminates() {
+		for (int i = 0; i < 1000; i++) {
+			BatchLoader<Integer, String> loader = loader(10, Duration.ofSeconds(1));
+			AssertSubscriber<String> ts = AssertSubscriber.create();
+
+			RaceTestUtils.race(() -> loader.load(1).subscribe(ts), loader::dispose);
+
+			ts.assertTerminated();
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import reactor.core.Scannable;
+import reactor.test.StepVerifier;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CoalescerTest {
+
+	@Test(expected = NullPointerException.class)
+	public void loaderNull() {
+		Coalescer.create(null);
+	}
+
+	@Test
+	public void concurrentCallsShareOneFlight() {
+		AtomicInteger calls = new AtomicInteger();
+		MonoProcessor<String> backend = MonoProcessor.create();
+		Coalescer<String, String> coalescer = Coalescer.create(k -> {
+			calls.incrementAndGet();
+			return backend.map(v -> k + v);
+		});
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		coalescer.get("a").subscribe(ts1);
+		coalescer.get("a").subscribe(ts2);
+
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(coalescer.inFlightSize()).isEqualTo(1);
+
+		backend.onNext("1");
+
+		ts1.assertValues("a1").assertComplete();
+		ts2.assertValues("a1").assertComplete();
+		assertThat(coalescer.inFlightSize()).isZero();
+	}
+
+	@Test
+	public void distinctKeysDontShare() {
+		AtomicInteger calls = new AtomicInteger();
+		Coalescer<String, String> coalescer = Coalescer.create(k -> {
+			calls.incrementAndGet();
+			return Mono.<String>never();
+		});
+
+		coalescer.get("a").subscribe();
+		coalescer.get("b").subscribe();
+		coalescer.get("a").subscribe();
+
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(coalescer.scan(Scannable.IntAttr.BUFFERED)).isEqualTo(2);
+	}
+
+	@Test
+	public void newCallAfterTermination() {
+		AtomicInteger calls = new AtomicInteger();
+		Coalescer<String, Integer> coalescer =
+				Coalescer.create(k -> Mono.fromCallable(calls::incrementAndGet));
+
+		StepVerifier.create(coalescer.get("a"))
+		            .expectNext(1)
+		            .verifyComplete();
+
+		StepVerifier.create(coalescer.get("a"))
+		            .expectNext(2)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void errorIsSharedThenForgotten() {
+		AtomicInteger calls = new AtomicInteger();
+		MonoProcessor<String> backend = MonoProcessor.create();
+		Coalescer<String, String> coalescer = Coalescer.create(k -> {
+			calls.incrementAndGet();
+			return backend;
+		});
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		coalescer.get("a").subscribe(ts1);
+		coalescer.get("a").subscribe(ts2);
+
+		backend.onError(new IllegalStateException("boom"));
+
+		ts1.assertErrorMessage("boom");
+		ts2.assertErrorMessage("boom");
+		assertThat(coalescer.inFlightSize()).isZero();
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void lazyUntilSubscribed() {
+		AtomicInteger calls = new AtomicInteger();
+		Coalescer<String, Integer> coalescer =
+				Coalescer.create(k -> Mono.fromCallable(calls::incrementAndGet));
+
+		Mono<Integer> m = coalescer.get("a");
+
+		assertThat(calls.get()).isZero();
+		assertThat(coalescer.inFlightSize()).isZero();
+
+		StepVerifier.create(m)
+		            .expectNext(1)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void loaderThrows() {
+		Coalescer<String, Integer> coalescer = Coalescer.create(k -> {
+			throw new IllegalStateException("boom");
+		});
+
+		StepVerifier.create(coalescer.get("a"))
+		            .verifyErrorMessage("boom");
+
+		assertThat(coalescer.inFlightSize()).isZero();
+	}
+
+	@Test
+	public void loaderThrowsFailsConcurrentJoiners() {
+		AssertSubscriber<Integer> joiner = AssertSubscriber.create();
+		AtomicInteger calls = new AtomicInteger();
+		AtomicReference<Coalescer<String, Integer>> coalescer = new AtomicReference<>();
+		coalescer.set(Coalescer.create(k -> {
+			calls.incrementAndGet();
+			//another caller joins while the call is being created
+			coalescer.get().get(k).subscribe(joiner);
+			throw new IllegalStateException("boom");
+		}));
+
+		StepVerifier.create(coalescer.get().get("a"))
+		            .verifyErrorMessage("boom");
+
+		joiner.assertNoValues()
+		      .assertErrorMessage("boom");
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(coalescer.get().inFlightSize()).isZero();
+	}
+}
@@ -15,11 +15,21 @@
  */
 package reactor.core.publisher;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.reactivestreams.Subscriber;
 import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 import reactor.test.subscriber.AssertSubscriber;
 
@@ -268,4 +278,118 @@ public class DirectProcessorTest {
         assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
     }
 
+
+    @Test
+    public void largeFanOutWithChurn() {
+        DirectProcessor<Integer> tp = DirectProcessor.create();
+        List<AssertSubscriber<Integer>> subscribers = new ArrayList<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            AssertSubscriber<Integer> ts = AssertSubscriber.create();
+            tp.subscribe(ts);
+            subscribers.add(ts);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            subscribers.get(i).cancel();
+        }
+
+        assertThat(tp.downstreamCount()).isEqualTo(5_000);
+        assertThat(tp.inners()).hasSize(5_000);
+
+        AssertSubscriber<Integer> late = AssertSubscriber.create();
+        tp.subscribe(late);
+        tp.onNext(1);
+        tp.onComplete();
+
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 2 == 0) {
+                subscribers.get(i).assertNoValues().assertNotComplete();
+            }
+            else {
+                subscribers.get(i).assertValues(1).assertComplete();
+            }
+        }
+        late.assertValues(1).assertComplete();
+        assertThat(tp.downstreamCount()).isZero();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fanOutThresholdInvalid() {
+        DirectProcessor.create(Schedulers.parallel(), 0);
+    }
+
+    @Test
+    public void parallelFanOutKeepsOrderPerSubscriber() throws InterruptedException {
+        Scheduler scheduler = Schedulers.newParallel("fanOut", 4);
+        try {
+            DirectProcessor<Integer> tp = DirectProcessor.create(scheduler, 10);
+            List<AssertSubscriber<Integer>> subscribers = new ArrayList<>();
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+
+            for (int i = 0; i < 35; i++) {
+                AssertSubscriber<Integer> ts = AssertSubscriber.create();
+                tp.doOnNext(v -> threads.add(Thread.currentThread().getName()))
+                  .subscribe(ts);
+                subscribers.add(ts);
+            }
+
+            for (int i = 0; i < 100; i++) {
+                tp.onNext(i);
+            }
+            tp.onComplete();
+
+            Integer[] expected = new Integer[100];
+            for (int i = 0; i < 100; i++) {
+                expected[i] = i;
+            }
+            for (AssertSubscriber<Integer> ts : subscribers) {
+                ts.await(Duration.ofSeconds(5))
+                  .assertValues(expected)
+                  .assertComplete();
+            }
+            assertThat(threads).allMatch(name -> name.startsWith("fanOut"));
+            assertThat(threads.size()).isGreaterThan(1);
+        }
+        finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    public void parallelFanOutDoesNotDeliverEarlierValuesToLaterSubscribers() {
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        DirectProcessor<Integer> tp = DirectProcessor.create(Schedulers.fromExecutor(tasks::add), 2);
+        AssertSubscriber<Integer> first = AssertSubscriber.create();
+        AssertSubscriber<Integer> leaving = AssertSubscriber.create();
+        tp.subscribe(first);
+        tp.subscribe(leaving);
+
+        tp.onNext(1);
+        leaving.cancel();
+        //takes the slot of the leaving subscriber before the delivery of 1
+        AssertSubscriber<Integer> late = AssertSubscriber.create();
+        tp.subscribe(late);
+        tp.onNext(2);
+        tp.onComplete();
+
+        for (Runnable task; (task = tasks.poll()) != null; ) {
+            task.run();
+        }
+
+        first.assertValues(1, 2).assertComplete();
+        late.assertValues(2).assertComplete();
+    }
+
+    @Test
+    public void parallelFanOutBelowThresholdIsSynchronous() {
+        DirectProcessor<Integer> tp = DirectProcessor.create(Schedulers.parallel(), 10);
+        AssertSubscriber<Integer> ts = AssertSubscriber.create();
+        tp.subscribe(ts);
+
+        tp.onNext(1);
+        tp.onComplete();
+
+        ts.assertValues(1).assertComplete();
+    }
+
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DoubleFluxTest {
+
+	@Test
+	public void fromArrayBackpressured() {
+		StepVerifier.create(DoubleFlux.fromArray(0.5, 1.5, 2.5).boxed(), 1)
+		            .expectNext(0.5)
+		            .thenRequest(2)
+		            .expectNext(1.5, 2.5)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void mapFilterSum() {
+		StepVerifier.create(Flux.range(1, 4)
+		                        .mapToDouble(i -> i)
+		                        .map(v -> v / 2)
+		                        .filter(v -> v >= 1)
+		                        .sum())
+		            .expectNext(4.5)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void consecutiveMapsAndFiltersAreFused() {
+		DoubleFlux source = DoubleFlux.fromArray(1, 2, 3);
+
+		assertThat(((DoubleFluxMap) source.map(v -> v + 1).map(v -> v * 2)).source).isSameAs(source);
+		assertThat(((DoubleFluxFilter) source.filter(v -> v > 1).filter(v -> v < 3)).source).isSameAs(source);
+	}
+
+	@Test
+	public void scan() {
+		StepVerifier.create(DoubleFlux.fromArray(1, 2, 3)
+		                              .scan(Double::sum)
+		                              .boxed())
+		            .expectNext(1d, 3d, 6d)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void reduce() {
+		StepVerifier.create(DoubleFlux.fromArray(3, 9, 1).reduce(Math::max))
+		            .expectNext(9d)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void reduceSeededEmpty() {
+		StepVerifier.create(DoubleFlux.fromArray().reduce(1, (a, b) -> a * b))
+		            .expectNext(1d)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void buffer() {
+		StepVerifier.create(DoubleFlux.fromArray(1, 2, 3).buffer(2))
+		            .assertNext(b -> assertThat(b).containsExactly(1, 2))
+		            .assertNext(b -> assertThat(b).containsExactly(3))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void mapperThrows() {
+		StepVerifier.create(DoubleFlux.fromArray(1, 2)
+		                              .filter(v -> {
+			                              throw new IllegalStateException("boom");
+		                              })
+		                              .boxed())
+		            .verifyErrorMessage("boom");
+	}
+}
@@ -765,6 +765,40 @@ public class EmitterProcessorTest {
 		assertThat(test.scan(Scannable.ThrowableAttr.ERROR)).isNull();
 	}
 
+	@Test
+	public void resubscribeDuringDrainDoesNotBypassDemand() {
+		EmitterProcessor<Integer> processor = EmitterProcessor.create();
+		AssertSubscriber<Integer> leaving = AssertSubscriber.create();
+		AssertSubscriber<Integer> joining = AssertSubscriber.create(0);
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+
+		processor.doOnNext(v -> {
+			if (v == 1) {
+				//the joining subscriber takes the slot freed by the leaving one while
+				// the first value is being emitted
+				leaving.cancel();
+				processor.subscribe(joining);
+			}
+		})
+		         .subscribe(ts);
+		processor.subscribe(leaving);
+
+		Flux.range(1, 5).subscribe(processor);
+
+		joining.assertNoValues();
+		ts.assertValues(1);
+
+		joining.request(2);
+		joining.assertValues(2, 3);
+		ts.assertValues(1, 2, 3);
+
+		joining.request(Long.MAX_VALUE);
+		joining.assertValues(2, 3, 4, 5)
+		       .assertComplete();
+		ts.assertValues(1, 2, 3, 4, 5)
+		  .assertComplete();
+	}
+
 	@Test
 	public void scanMainCancelled() {
 		EmitterProcessor test = EmitterProcessor.create();
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.junit.Assume;
+import org.junit.Test;
+import reactor.util.concurrent.WaitStrategy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventRingTest {
+
+	static final class Event {
+		long value;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void bufferSizeNotPowerOfTwo() {
+		EventRing.createSingleProducer(Event::new, 10);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void factoryNull() {
+		EventRing.createSingleProducer(null, 8);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void batchLargerThanBuffer() {
+		EventRing.createSingleProducer(Event::new, 8)
+		         .next(9);
+	}
+
+	@Test
+	public void eventsArePreallocatedAndReused() {
+		AtomicInteger created = new AtomicInteger();
+		EventRing<Event> ring = EventRing.createSingleProducer(() -> {
+			created.incrementAndGet();
+			return new Event();
+		}, 4);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		List<Event> seen = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			long seq = ring.next();
+			ring.get(seq).value = i;
+			ring.publish(seq);
+
+			long available = consumer.available();
+			assertThat(available).isEqualTo(seq);
+			Event e = consumer.get(available);
+			assertThat(e.value).isEqualTo(i);
+			seen.add(e);
+			consumer.release(available);
+		}
+
+		assertThat(created.get()).isEqualTo(4);
+		assertThat(seen.get(0)).isSameAs(seen.get(4));
+	}
+
+	@Test
+	public void batchClaimAndPublish() {
+		EventRing<Event> ring = EventRing.createSingleProducer(Event::new, 8);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		long hi = ring.next(5);
+		long lo = hi - 4;
+		assertThat(lo).isEqualTo(0L);
+		for (long seq = lo; seq <= hi; seq++) {
+			ring.get(seq).value = seq * 10;
+		}
+		assertThat(consumer.available()).isEqualTo(-1L);
+
+		ring.publish(lo, hi);
+
+		assertThat(consumer.available()).isEqualTo(4L);
+		for (long seq = 0; seq <= 4; seq++) {
+			assertThat(consumer.get(seq).value).isEqualTo(seq * 10);
+		}
+		assertThat(ring.getPending()).isEqualTo(5);
+		consumer.release(4);
+		assertThat(ring.getPending()).isZero();
+	}
+
+	static final class CountingWaitStrategy extends WaitStrategy {
+
+		final AtomicInteger signals = new AtomicInteger();
+
+		@Override
+		public void signalAllWhenBlocking() {
+			signals.incrementAndGet();
+		}
+
+		@Override
+		public long waitFor(long sequence, LongSupplier cursor, Runnable spinObserver) {
+			return cursor.getAsLong();
+		}
+	}
+
+	@Test
+	public void batchPublishSignalsOnce() {
+		CountingWaitStrategy strategy = new CountingWaitStrategy();
+		EventRing<Event> ring = EventRing.createSingleProducer(Event::new, 8, strategy);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		long hi = ring.next(5);
+		ring.publish(hi - 4, hi);
+
+		assertThat(consumer.available()).isEqualTo(hi);
+		assertThat(strategy.signals.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void multiProducerBatchPublishSignalsOnce() {
+		Assume.assumeTrue(RingBuffer.hasUnsafe());
+		CountingWaitStrategy strategy = new CountingWaitStrategy();
+		EventRing<Event> ring = EventRing.createMultiProducer(Event::new, 8, strategy);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		long first = ring.next(2);
+		long hi = ring.next(4);
+		ring.publish(hi - 3, hi);
+
+		assertThat(consumer.available()).isEqualTo(-1L);
+		assertThat(strategy.signals.get()).isEqualTo(1);
+
+		ring.publish(first - 1, first);
+
+		assertThat(consumer.available()).isEqualTo(hi);
+		assertThat(strategy.signals.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void multiProducerGapHidesLaterSlots() {
+		Assume.assumeTrue(RingBuffer.hasUnsafe());
+		EventRing<Event> ring = EventRing.createMultiProducer(Event::new, 8);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		long first = ring.next();
+		long second = ring.next();
+		ring.publish(second);
+
+		assertThat(consumer.available()).isEqualTo(-1L);
+
+		ring.publish(first);
+
+		assertThat(consumer.available()).isEqualTo(second);
+	}
+
+	@Test
+	public void producerWaitsForSlowestConsumer() throws InterruptedException {
+		EventRing<Event> ring = EventRing.createSingleProducer(Event::new, 4);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		ring.publish(0, ring.next(4));
+
+		CountDownLatch claimed = new CountDownLatch(1);
+		Thread producer = new Thread(() -> {
+			ring.publish(ring.next());
+			claimed.countDown();
+		});
+		producer.start();
+
+		assertThat(claimed.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+		consumer.release(0);
+
+		assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(consumer.available()).isEqualTo(4L);
+	}
+
+	@Test
+	public void disposedConsumerDoesNotGate() {
+		EventRing<Event> ring = EventRing.createSingleProducer(Event::new, 2);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		consumer.dispose();
+		assertThat(consumer.isDisposed()).isTrue();
+
+		for (int i = 0; i < 10; i++) {
+			ring.publish(ring.next());
+		}
+		assertThat(ring.getCursor()).isEqualTo(9L);
+	}
+
+	@Test
+	public void haltWakesUpWaitingConsumer() throws InterruptedException {
+		EventRing<Event> ring = EventRing.createSingleProducer(Event::new, 8, WaitStrategy.busySpin());
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch done = new CountDownLatch(1);
+		Thread t = new Thread(() -> {
+			try {
+				consumer.waitFor(0);
+			}
+			catch (Throwable e) {
+				error.set(e);
+			}
+			done.countDown();
+		});
+		t.start();
+
+		consumer.halt();
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(WaitStrategy.isAlert(error.get())).isTrue();
+	}
+
+	@Test
+	public void concurrentBatchProducersSingleConsumer() throws Exception {
+		Assume.assumeTrue(RingBuffer.hasUnsafe());
+		EventRing<Event> ring = EventRing.createMultiProducer(Event::new, 64);
+		EventRing.Consumer<Event> consumer = ring.newConsumer();
+
+		int producers = 4;
+		int perProducer = 10_000;
+		int batch = 5;
+
+		for (int p = 0; p < producers; p++) {
+			new Thread(() -> {
+				for (int i = 0; i < perProducer; i += batch) {
+					long hi = ring.next(batch);
+					long lo = hi - batch + 1;
+					for (long seq = lo; seq <= hi; seq++) {
+						ring.get(seq).value = 1;
+					}
+					ring.publish(lo, hi);
+				}
+			}).start();
+		}
+
+		long total = producers * perProducer;
+		long sum = 0;
+		long next = 0;
+		while (next < total) {
+			long available = consumer.waitFor(next);
+			for (long seq = next; seq <= available; seq++) {
+				sum += consumer.get(seq).value;
+			}
+			consumer.release(available);
+			next = available + 1;
+		}
+
+		assertThat(sum).isEqualTo(total);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FanOutRegistryTest {
+
+	static final class Member implements FanOutRegistry.Member {
+
+		int index = -1;
+
+		@Override
+		public int registryIndex() {
+			return index;
+		}
+
+		@Override
+		public void registryIndex(int index) {
+			this.index = index;
+		}
+	}
+
+	@Test
+	public void addGrowsAndRemoveRecyclesSlots() {
+		FanOutRegistry<Member> registry = new FanOutRegistry<>();
+		Member[] members = new Member[10];
+		for (int i = 0; i < members.length; i++) {
+			members[i] = new Member();
+			assertThat(registry.add(members[i])).isTrue();
+			assertThat(members[i].index).isEqualTo(i);
+		}
+		assertThat(registry.count()).isEqualTo(10);
+		assertThat(registry.size()).isEqualTo(10);
+		assertThat(registry.slots().length()).isEqualTo(16);
+
+		assertThat(registry.remove(members[3])).isEqualTo(9);
+		assertThat(members[3].index).isEqualTo(-1);
+		assertThat(registry.remove(members[3])).isEqualTo(-1);
+
+		Member m = new Member();
+		registry.add(m);
+		assertThat(m.index).isEqualTo(3);
+		assertThat(registry.stream()).hasSize(10)
+		                             .contains(m)
+		                             .doesNotContain(members[3]);
+	}
+
+	@Test
+	public void removingTrailingSlotsShrinksSize() {
+		FanOutRegistry<Member> registry = new FanOutRegistry<>();
+		Member a = new Member();
+		Member b = new Member();
+		Member c = new Member();
+		registry.add(a);
+		registry.add(b);
+		registry.add(c);
+
+		registry.remove(b);
+		assertThat(registry.size()).isEqualTo(3);
+		registry.remove(c);
+		assertThat(registry.size()).isEqualTo(1);
+
+		registry.add(c);
+		registry.add(b);
+		assertThat(registry.size()).isEqualTo(3);
+		assertThat(registry.count()).isEqualTo(3);
+	}
+
+	@Test
+	public void terminate() {
+		FanOutRegistry<Member> registry = new FanOutRegistry<>();
+		Member a = new Member();
+		registry.add(a);
+
+		assertThat(registry.terminate().get(0)).isSameAs(a);
+		assertThat(registry.isTerminated()).isTrue();
+		assertThat(registry.count()).isZero();
+		assertThat(registry.add(new Member())).isFalse();
+		assertThat(registry.remove(a)).isEqualTo(-1);
+		assertThat(registry.terminate().length()).isZero();
+	}
+}
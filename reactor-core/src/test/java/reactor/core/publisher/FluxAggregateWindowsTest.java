@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import reactor.core.Scannable;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FluxAggregateWindowsTest {
+
+	static final Aggregator<Integer, String, String> CONCAT =
+			Aggregator.of(() -> "", (s, i) -> s + i, String::concat);
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeInvalid() {
+		WindowSpec.tumbling(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void slideInvalid() {
+		WindowSpec.sliding(Duration.ofSeconds(1), Duration.ZERO);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void subMillisecondPaneInvalid() {
+		WindowSpec.sliding(Duration.ofSeconds(1), Duration.ofNanos(999_999_999));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void tooManyPanesInvalid() {
+		WindowSpec.sliding(Duration.ofHours(1), Duration.ofMillis(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void gapInvalid() {
+		WindowSpec.session(Duration.ofSeconds(-1));
+	}
+
+	@Test
+	public void countTumbling() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .aggregateWindows(WindowSpec.tumbling(3),
+				                        Aggregator.summingLong(i -> i)))
+		            .expectNext(6L, 15L, 24L, 10L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void countSlidingOverlapping() {
+		StepVerifier.create(Flux.range(1, 5)
+		                        .aggregateWindows(WindowSpec.sliding(3, 1), CONCAT))
+		            .expectNext("123", "234", "345", "45", "5")
+		            .verifyComplete();
+	}
+
+	@Test
+	public void countSlidingWithGaps() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .aggregateWindows(WindowSpec.sliding(2, 3), CONCAT))
+		            .expectNext("12", "45", "78", "10")
+		            .verifyComplete();
+	}
+
+	@Test
+	public void countSlidingMatchesBuffer() {
+		for (int size = 1; size <= 7; size++) {
+			for (int skip = 1; skip <= 7; skip++) {
+				for (int n = 0; n <= 20; n++) {
+					List<String> expected = Flux.range(0, n)
+					                            .buffer(size, skip)
+					                            .map(b -> {
+						                            StringBuilder sb = new StringBuilder();
+						                            b.forEach(sb::append);
+						                            return sb.toString();
+					                            })
+					                            .collectList()
+					                            .block();
+					List<String> actual = Flux.range(0, n)
+					                          .aggregateWindows(WindowSpec.sliding(size, skip), CONCAT)
+					                          .collectList()
+					                          .block();
+
+					assertThat(actual).as("size=%s, skip=%s, n=%s", size, skip, n)
+					                  .isEqualTo(expected);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void eachValueIsAccumulatedOnce() {
+		AtomicInteger accumulations = new AtomicInteger();
+		AtomicInteger combinations = new AtomicInteger();
+		Aggregator<Integer, Long, Long> sum = Aggregator.of(() -> 0L,
+				(s, i) -> {
+					accumulations.incrementAndGet();
+					return s + i;
+				},
+				(l, r) -> {
+					combinations.incrementAndGet();
+					return l + r;
+				});
+
+		StepVerifier.create(Flux.range(0, 10_000)
+		                        .aggregateWindows(WindowSpec.sliding(1000, 1), sum)
+		                        .count())
+		            .expectNext(10_000L)
+		            .verifyComplete();
+
+		assertThat(accumulations.get()).isEqualTo(10_000);
+		//amortized constant per pane, not proportional to the window size
+		assertThat(combinations.get()).isLessThan(5 * 10_000);
+	}
+
+	@Test
+	public void countBackpressure() {
+		AtomicLong upstream = new AtomicLong();
+
+		StepVerifier.create(Flux.range(1, 100)
+		                        .doOnRequest(upstream::addAndGet)
+		                        .aggregateWindows(WindowSpec.sliding(4, 2),
+				                        Aggregator.counting()), 0)
+		            .expectSubscription()
+		            .then(() -> assertThat(upstream.get()).isZero())
+		            .thenRequest(1)
+		            .expectNext(4L)
+		            .then(() -> assertThat(upstream.get()).isEqualTo(4L))
+		            .thenRequest(2)
+		            .expectNext(4L, 4L)
+		            .then(() -> assertThat(upstream.get()).isEqualTo(8L))
+		            .thenCancel()
+		            .verify();
+	}
+
+	@Test
+	public void countPartialWindowsWaitForRequests() {
+		StepVerifier.create(Flux.range(1, 5)
+		                        .aggregateWindows(WindowSpec.sliding(3, 1), CONCAT), 3)
+		            .expectNext("123", "234", "345")
+		            .expectNoEvent(Duration.ofMillis(50))
+		            .thenRequest(2)
+		            .expectNext("45", "5")
+		            .verifyComplete();
+	}
+
+	@Test
+	public void timeTumbling() {
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(50), Duration.ofMillis(100))
+		                                       .take(25)
+		                                       .aggregateWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                                       Aggregator.counting()))
+		            .thenAwait(Duration.ofSeconds(3))
+		            .expectNext(10L, 10L, 5L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void timeSliding() {
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(50), Duration.ofMillis(100))
+		                                       .take(25)
+		                                       .aggregateWindows(WindowSpec.sliding(Duration.ofSeconds(2),
+				                                       Duration.ofSeconds(1)),
+				                                       Aggregator.counting()))
+		            .thenAwait(Duration.ofSeconds(3))
+		            .expectNext(20L, 15L, 5L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void timeEmptyWindowsAreEmitted() {
+		StepVerifier.withVirtualTime(() -> Flux.never()
+		                                       .aggregateWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                                       Aggregator.counting()))
+		            .expectSubscription()
+		            .thenAwait(Duration.ofSeconds(3))
+		            .expectNext(0L, 0L, 0L)
+		            .thenCancel()
+		            .verify();
+	}
+
+	@Test
+	public void timeOverflow() {
+		StepVerifier.withVirtualTime(() -> Flux.never()
+		                                       .aggregateWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                                       Aggregator.counting()), 0)
+		            .expectSubscription()
+		            .thenAwait(Duration.ofSeconds(1))
+		            .verifyError(IllegalStateException.class);
+	}
+
+	@Test
+	public void session() {
+		StepVerifier.withVirtualTime(() -> Flux.concat(Flux.just(1, 2, 3),
+				Flux.just(4, 5)
+				    .delaySubscription(Duration.ofSeconds(2)),
+				Flux.just(6)
+				    .delaySubscription(Duration.ofMillis(500)))
+		                                       .aggregateWindows(WindowSpec.session(Duration.ofSeconds(1)),
+				                                       Aggregator.summingLong(i -> i)))
+		            .expectSubscription()
+		            .expectNoEvent(Duration.ofSeconds(1))
+		            .expectNext(6L)
+		            .thenAwait(Duration.ofSeconds(2))
+		            .expectNext(15L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void sessionExtendedByValues() {
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(500))
+		                                       .take(4)
+		                                       .concatWith(Flux.never())
+		                                       .aggregateWindows(WindowSpec.session(Duration.ofSeconds(1)),
+				                                       Aggregator.counting()))
+		            .expectSubscription()
+		            .expectNoEvent(Duration.ofMillis(2999))
+		            .thenAwait(Duration.ofMillis(1))
+		            .expectNext(4L)
+		            .thenCancel()
+		            .verify();
+	}
+
+	@Test
+	public void averaging() {
+		StepVerifier.create(Flux.range(1, 6)
+		                        .aggregateWindows(WindowSpec.sliding(4, 2),
+				                        Aggregator.averagingDouble(i -> i)))
+		            .expectNext(2.5d, 4.5d, 5.5d)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void accumulatorError() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .aggregateWindows(WindowSpec.tumbling(3),
+				                        Aggregator.<Integer>summingLong(i -> {
+					                        if (i == 5) {
+						                        throw new IllegalStateException("boom");
+					                        }
+					                        return i;
+				                        })))
+		            .expectNext(6L)
+		            .verifyErrorMessage("boom");
+	}
+
+	@Test
+	public void nullResult() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .aggregateWindows(WindowSpec.tumbling(3),
+				                        Aggregator.of(() -> 0L, (s, i) -> s + i, Long::sum,
+						                        s -> null)))
+		            .verifyError(NullPointerException.class);
+	}
+
+	@Test
+	public void sourceError() {
+		StepVerifier.create(Flux.range(1, 4)
+		                        .concatWith(Flux.error(new IllegalStateException("boom")))
+		                        .aggregateWindows(WindowSpec.tumbling(3), CONCAT))
+		            .expectNext("123")
+		            .verifyErrorMessage("boom");
+	}
+
+	@Test
+	public void panesCombineInOrder() {
+		FluxAggregateWindows.Panes<String> panes = new FluxAggregateWindows.Panes<>(CONCAT);
+		List<String> naive = new ArrayList<>();
+
+		for (int i = 0; i < 50; i++) {
+			panes.push("" + (char) ('a' + i % 26));
+			naive.add("" + (char) ('a' + i % 26));
+			if (i % 3 == 2) {
+				panes.evict(2);
+				naive.remove(0);
+				naive.remove(0);
+			}
+			assertThat(panes.aggregate()).isEqualTo(String.join("", naive));
+			assertThat(panes.size()).isEqualTo(naive.size());
+		}
+	}
+
+	@Test
+	public void scanSubscriber() {
+		LambdaSubscriber<String> ts = new LambdaSubscriber<>(null, null, null, null);
+		FluxAggregateWindows.CountWindowSubscriber<Integer, String, String> test =
+				new FluxAggregateWindows.CountWindowSubscriber<>(ts, WindowSpec.sliding(3, 1), CONCAT);
+		test.onSubscribe(Operators.emptySubscription());
+
+		assertThat(test.scan(Scannable.ScannableAttr.ACTUAL)).isSameAs(ts);
+		assertThat(test.scan(Scannable.IntAttr.CAPACITY)).isEqualTo(3);
+		assertThat(test.scan(Scannable.LongAttr.REQUESTED_FROM_DOWNSTREAM)).isEqualTo(Long.MAX_VALUE);
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+
+		test.onComplete();
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isTrue();
+
+		test.cancel();
+		assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import reactor.core.Scannable;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FluxEventTimeWindowsTest {
+
+	static final Aggregator<Long, String, String> CONCAT =
+			Aggregator.of(() -> "", (s, t) -> s.isEmpty() ? "" + t : s + "," + t, (l, r) ->
+					l.isEmpty() ? r : r.isEmpty() ? l : l + "," + r);
+
+	static <R> EventTimeWindow<R> window(long start, long end, R result) {
+		return new EventTimeWindow<>(start, end, result, false);
+	}
+
+	static <R> EventTimeWindow<R> update(long start, long end, R result) {
+		return new EventTimeWindow<>(start, end, result, true);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sessionWindowsInvalid() {
+		Flux.just(1L).aggregateEventTimeWindows(WindowSpec.session(Duration.ofSeconds(1)),
+				t -> t, Duration.ZERO, Aggregator.counting());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void countWindowsInvalid() {
+		Flux.just(1L).aggregateEventTimeWindows(WindowSpec.tumbling(10),
+				t -> t, Duration.ZERO, Aggregator.counting());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void subMillisecondWindowsInvalid() {
+		Flux.just(1L).aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofNanos(1500_000)),
+				t -> t, Duration.ZERO, Aggregator.counting());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxOutOfOrdernessInvalid() {
+		Flux.just(1L).aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				t -> t, Duration.ofSeconds(-1), Aggregator.counting());
+	}
+
+	@Test
+	public void inOrderTumbling() {
+		StepVerifier.create(Flux.range(0, 30)
+		                        .map(i -> i * 100L)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                        t -> t, Duration.ZERO, Aggregator.counting()))
+		            .expectNext(window(0, 1000, 10L),
+				            window(1000, 2000, 10L),
+				            window(2000, 3000, 10L))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void windowsFireWhenWatermarkPasses() {
+		DirectProcessor<Long> source = DirectProcessor.create();
+
+		StepVerifier.create(source.aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				t -> t, Duration.ofMillis(500), CONCAT))
+		            .then(() -> {
+			            source.onNext(100L);
+			            source.onNext(900L);
+			            source.onNext(500L);
+			            source.onNext(1100L);
+			            source.onNext(1050L);
+			            //within the bound: the watermark is 600
+			            source.onNext(800L);
+		            })
+		            .expectNoEvent(Duration.ofMillis(10))
+		            .then(() -> source.onNext(1600L))
+		            .expectNext(window(0, 1000, "100,900,500,800"))
+		            .then(() -> {
+			            source.onNext(2000L);
+			            source.onComplete();
+		            })
+		            .expectNext(window(1000, 2000, "1100,1050,1600"),
+				            window(2000, 3000, "2000"))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void outOfOrderMatchesSortedAggregation() {
+		Random random = new Random(7);
+		List<Long> timestamps = new ArrayList<>();
+		Map<Long, Long> expected = new TreeMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			//arrives up to 30s late
+			long ts = Math.max(0L, i * 100L - random.nextInt(30_000));
+			timestamps.add(ts);
+			expected.merge(ts - ts % 5_000, 1L, Long::sum);
+		}
+
+		Map<Long, Long> actual = new TreeMap<>();
+		StepVerifier.create(Flux.fromIterable(timestamps)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(5)),
+				                        t -> t, Duration.ofSeconds(30), Aggregator.counting()))
+		            .thenConsumeWhile(w -> {
+			            assertThat(w.isUpdate()).isFalse();
+			            return actual.put(w.start(), w.result()) == null;
+		            })
+		            .verifyComplete();
+
+		assertThat(actual).isEqualTo(expected);
+	}
+
+	@Test
+	public void lateValuesAreHandled() {
+		List<Long> late = new ArrayList<>();
+
+		StepVerifier.create(Flux.just(100L, 1500L, 200L, 1700L)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                        t -> t, Duration.ZERO, Duration.ZERO, CONCAT, late::add))
+		            .expectNext(window(0, 1000, "100"),
+				            window(1000, 2000, "1500,1700"))
+		            .verifyComplete();
+
+		assertThat(late).containsExactly(200L);
+	}
+
+	@Test
+	public void lateValuesWithinAllowedLatenessUpdateWindows() {
+		List<Long> late = new ArrayList<>();
+
+		StepVerifier.create(Flux.just(100L, 1500L, 200L, 2500L, 300L)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                        t -> t, Duration.ZERO, Duration.ofSeconds(1), CONCAT, late::add))
+		            .expectNext(window(0, 1000, "100"),
+				            update(0, 1000, "100,200"),
+				            window(1000, 2000, "1500"),
+				            window(2000, 3000, "2500"))
+		            .verifyComplete();
+
+		assertThat(late).containsExactly(300L);
+	}
+
+	@Test
+	public void lateValuesInSkippedWindowsFireThemFirst() {
+		StepVerifier.create(Flux.just(5L, 100L, 120L, 55L, 130L, 56L)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofMillis(10)),
+				                        t -> t, Duration.ZERO, Duration.ofSeconds(1),
+				                        Aggregator.counting(), t -> {
+				                        }))
+		            .expectNext(window(0, 10, 1L),
+				            window(100, 110, 1L),
+				            window(50, 60, 1L),
+				            window(120, 130, 1L),
+				            update(50, 60, 2L),
+				            window(130, 140, 1L))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void sliding() {
+		StepVerifier.create(Flux.just(500L, 1500L, 2500L)
+		                        .aggregateEventTimeWindows(WindowSpec.sliding(Duration.ofSeconds(2),
+				                        Duration.ofSeconds(1)), t -> t, Duration.ZERO, CONCAT))
+		            .expectNext(window(-1000, 1000, "500"),
+				            window(0, 2000, "500,1500"),
+				            window(1000, 3000, "1500,2500"),
+				            window(2000, 4000, "2500"))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void slidingLateUpdatesAllWindowsWithinLateness() {
+		StepVerifier.create(Flux.just(500L, 2600L, 1500L)
+		                        .aggregateEventTimeWindows(WindowSpec.sliding(Duration.ofSeconds(2),
+				                        Duration.ofSeconds(1)), t -> t, Duration.ZERO,
+				                        Duration.ofSeconds(1), CONCAT, t -> {
+				                        }))
+		            .expectNext(window(-1000, 1000, "500"),
+				            window(0, 2000, "500"),
+				            update(0, 2000, "500,1500"),
+				            window(1000, 3000, "1500,2600"),
+				            window(2000, 4000, "2600"))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void slidingWithGaps() {
+		List<Long> late = new ArrayList<>();
+
+		StepVerifier.create(Flux.just(500L, 1500L, 2500L)
+		                        .aggregateEventTimeWindows(WindowSpec.sliding(Duration.ofSeconds(1),
+				                        Duration.ofSeconds(2)), t -> t, Duration.ZERO,
+				                        Duration.ZERO, Aggregator.counting(), late::add))
+		            .expectNext(window(0, 1000, 1L),
+				            window(2000, 3000, 1L))
+		            .verifyComplete();
+
+		assertThat(late).isEmpty();
+	}
+
+	@Test
+	public void emptyWindowsAreSkipped() {
+		StepVerifier.create(Flux.just(100L, 1_000_000_000L)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                        t -> t, Duration.ZERO, Aggregator.counting()))
+		            .expectNext(window(0, 1000, 1L),
+				            window(1_000_000_000L, 1_000_001_000L, 1L))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void backpressure() {
+		AtomicLong upstream = new AtomicLong();
+
+		StepVerifier.create(Flux.range(0, 100_000)
+		                        .doOnRequest(upstream::addAndGet)
+		                        .map(i -> i * 100L)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                        t -> t, Duration.ZERO, Aggregator.counting()), 1)
+		            .expectNext(window(0, 1000, 10L))
+		            .then(() -> assertThat(upstream.get()).isLessThan(1000L))
+		            .thenRequest(2)
+		            .expectNext(window(1000, 2000, 10L), window(2000, 3000, 10L))
+		            .then(() -> assertThat(upstream.get()).isLessThan(1000L))
+		            .thenCancel()
+		            .verify();
+	}
+
+	@Test
+	public void extractorError() {
+		StepVerifier.create(Flux.just(100L, 1500L, 2500L)
+		                        .aggregateEventTimeWindows(WindowSpec.tumbling(Duration.ofSeconds(1)),
+				                        t -> {
+					                        if (t > 2000L) {
+						                        throw new IllegalStateException("boom");
+					                        }
+					                        return t;
+				                        }, Duration.ZERO, Aggregator.counting()))
+		            .expectNext(window(0, 1000, 1L))
+		            .verifyErrorMessage("boom");
+	}
+
+	@Test
+	public void scanSubscriber() {
+		LambdaSubscriber<EventTimeWindow<Long>> actual =
+				new LambdaSubscriber<>(null, e -> {
+				}, null, null);
+		FluxEventTimeWindows<Long, Long, Long> parent = new FluxEventTimeWindows<>(Flux.never(),
+				WindowSpec.tumbling(Duration.ofSeconds(1)), t -> t, 0L, 0L,
+				Aggregator.counting(), t -> {
+		}, 32);
+		FluxEventTimeWindows.EventTimeWindowsSubscriber<Long, Long, Long> test =
+				new FluxEventTimeWindows.EventTimeWindowsSubscriber<>(actual, parent);
+		test.onSubscribe(Operators.emptySubscription());
+
+		assertThat(test.scan(Scannable.ScannableAttr.ACTUAL)).isSameAs(actual);
+		assertThat(test.scan(Scannable.IntAttr.PREFETCH)).isEqualTo(32);
+		assertThat(test.scan(Scannable.IntAttr.BUFFERED)).isZero();
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+
+		test.onError(new IllegalStateException("boom"));
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isTrue();
+		assertThat(test.scan(Scannable.ThrowableAttr.ERROR)).hasMessage("boom");
+
+		test.cancel();
+		assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+}
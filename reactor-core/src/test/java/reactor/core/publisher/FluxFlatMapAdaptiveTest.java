@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FluxFlatMapAdaptiveTest {
+
+	final AtomicLong clock = new AtomicLong();
+
+	final AtomicLong upstreamRequested = new AtomicLong();
+
+	final List<MonoProcessor<Integer>> inners = new ArrayList<>();
+
+	Subscription flatMap;
+
+	Flux<Integer> adaptive(int min, int max) {
+		return adaptive(min, max, false);
+	}
+
+	Flux<Integer> adaptive(int min, int max, boolean delayError) {
+		return new FluxFlatMapAdaptive<>(Flux.range(0, 10_000)
+		                                     .doOnRequest(upstreamRequested::addAndGet),
+				i -> {
+					MonoProcessor<Integer> p = MonoProcessor.create();
+					inners.add(p);
+					return p;
+				}, delayError, min, max, 32, clock::get)
+				.doOnSubscribe(s -> flatMap = s);
+	}
+
+	Scannable limiter() {
+		return Scannable.from(flatMap)
+		                .scan(Scannable.ScannableAttr.PARENT);
+	}
+
+	int limit() {
+		return limiter().scan(Scannable.IntAttr.CAPACITY);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void minConcurrencyInvalid() {
+		Flux.never().flatMapAdaptive(Flux::just, 0, 10);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxConcurrencyLowerThanMin() {
+		Flux.never().flatMapAdaptive(Flux::just, 10, 5);
+	}
+
+	@Test
+	public void normal() {
+		StepVerifier.create(Flux.range(0, 1000)
+		                        .flatMapAdaptive(i -> Mono.just(i).hide(), 1, 64)
+		                        .reduce(0L, (a, b) -> a + b))
+		            .expectNext(999L * 1000L / 2)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void normalScalarInners() {
+		StepVerifier.create(Flux.range(0, 1000)
+		                        .flatMapAdaptive(i -> i % 2 == 0 ? Mono.just(i) : Mono.empty(), 1, 4)
+		                        .count())
+		            .expectNext(500L)
+		            .verifyComplete();
+	}
+
+	@Test(timeout = 10000)
+	public void normalAsync() {
+		StepVerifier.create(Flux.range(0, 10_000)
+		                        .flatMapAdaptive(i -> Mono.just(i)
+		                                                  .publishOn(Schedulers.parallel()), 4, 256)
+		                        .count())
+		            .expectNext(10_000L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void startsAtMinAndGrowsOnFastInners() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		adaptive(2, 8).subscribe(ts);
+
+		assertThat(upstreamRequested.get()).isEqualTo(2);
+		assertThat(inners).hasSize(2);
+		assertThat(limit()).isEqualTo(2);
+
+		clock.addAndGet(10);
+		inners.get(0).onNext(0);
+
+		assertThat(limit()).isEqualTo(3);
+		assertThat(upstreamRequested.get()).isEqualTo(4);
+		assertThat(inners).hasSize(4);
+
+		for (int i = 1; i < 20; i++) {
+			inners.get(i).onNext(i);
+		}
+
+		assertThat(limit()).isEqualTo(8);
+		ts.assertValueCount(20);
+		assertThat(inners).hasSize(28);
+	}
+
+	@Test
+	public void shrinksOnSlowInnersDownToMin() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		adaptive(2, 100).subscribe(ts);
+
+		for (int i = 0; i < 50; i++) {
+			clock.addAndGet(1_000);
+			inners.get(i).onNext(i);
+		}
+		int grown = limit();
+		assertThat(grown).isGreaterThan(20);
+
+		//every in-flight inner now completes 1s later
+		int start = inners.size() - grown;
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		inners.get(start).onNext(start);
+
+		assertThat(limit()).isEqualTo((int) (grown * AimdLimit.BACKOFF));
+
+		int end = inners.size();
+		for (int i = start + 1; i < end; i++) {
+			inners.get(i).onNext(i);
+		}
+		assertThat(limit()).isEqualTo(2);
+	}
+
+	@Test
+	public void shrinksOnError() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		adaptive(2, 100, true).subscribe(ts);
+
+		for (int i = 0; i < 50; i++) {
+			clock.addAndGet(1_000);
+			inners.get(i).onNext(i);
+		}
+		int grown = limit();
+		assertThat(grown).isGreaterThan(20);
+
+		//fast failures still back off, without terminating the other inners
+		int end = inners.size();
+		inners.get(end - 1).onError(new IllegalStateException("boom"));
+		int shrunk = limit();
+		assertThat(shrunk).isEqualTo((int) (grown * AimdLimit.BACKOFF));
+
+		inners.get(end - 2).onError(new IllegalStateException("boom"));
+		assertThat(limit()).isLessThan(shrunk);
+
+		inners.get(end - 3).onNext(end - 3);
+		ts.assertValueCount(51)
+		  .assertNotTerminated();
+	}
+
+	@Test
+	public void errorTerminates() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		adaptive(2, 8).subscribe(ts);
+
+		inners.get(0).onNext(0);
+		inners.get(1).onError(new IllegalStateException("boom"));
+
+		ts.assertValues(0)
+		  .assertErrorMessage("boom");
+		assertThat(limiter().scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+
+	@Test
+	public void normalDelayError() {
+		StepVerifier.create(Flux.range(0, 100)
+		                        .flatMapAdaptiveDelayError(i -> i % 10 == 0 ?
+		                                Mono.<Integer>error(new IllegalStateException("boom")) :
+		                                Mono.just(i).hide(), 1, 16, 32))
+		            .expectNextCount(90)
+		            .verifyErrorMessage("Multiple exceptions");
+	}
+
+	@Test
+	public void scanLimitSubscriber() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		adaptive(3, 8).subscribe(ts);
+
+		Scannable limiter = limiter();
+
+		assertThat(limiter.scan(Scannable.IntAttr.CAPACITY)).isEqualTo(3);
+		assertThat(limiter.scan(Scannable.IntAttr.BUFFERED)).isEqualTo(3);
+		assertThat(limiter.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+		assertThat(limiter.scan(Scannable.BooleanAttr.CANCELLED)).isFalse();
+
+		ts.cancel();
+		assertThat(limiter.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+
+	@Test
+	public void aimdLimitBounds() {
+		AimdLimit limit = new AimdLimit(2, 4);
+
+		assertThat(limit.onSample(10, 2, false)).isEqualTo(3);
+		assertThat(limit.onSample(10, 2, false)).isEqualTo(4);
+		assertThat(limit.onSample(10, 4, false)).isEqualTo(4);
+
+		//not enough in-flight tasks to grow
+		limit = new AimdLimit(2, 4);
+		assertThat(limit.onSample(10, 0, false)).isEqualTo(2);
+
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(10, 2, true);
+		}
+		assertThat(limit.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	public void aimdLimitBaselineFollowsLatencyFloor() {
+		AimdLimit limit = new AimdLimit(1, 1000);
+		long fast = Duration.ofMillis(1).toNanos();
+		long slow = Duration.ofMillis(10).toNanos();
+
+		limit.onSample(fast, 1, false);
+		assertThat(limit.baseline).isEqualTo(fast);
+
+		int l = limit.onSample(slow, 1, false);
+		assertThat(l).isEqualTo(1);
+
+		//the fast sample leaves the baseline once two windows have passed
+		for (int i = 0; i < AimdLimit.WINDOW * 2; i++) {
+			limit.onSample(slow, 1000, false);
+		}
+		assertThat(limit.baseline).isEqualTo(slow);
+
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(slow, 1000, false);
+		}
+		assertThat(limit.getLimit()).isGreaterThan(100);
+	}
+}
@@ -1281,4 +1281,88 @@ public class FluxFlatMapTest {
         inner.cancel();
         assertThat(inner.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
     }
+
+	@Test
+	public void readySetModeAboveThreshold() {
+		Subscriber<Integer> actual = new LambdaSubscriber<>(null, e -> {}, null, null);
+
+		FluxFlatMap.FlatMapMain<Integer, Integer> below = new FluxFlatMap.FlatMapMain<>(actual,
+				i -> Mono.just(i), false, FluxFlatMap.READY_SET_THRESHOLD - 1,
+				QueueSupplier.<Integer>unbounded(), 32, QueueSupplier.<Integer>get(32));
+		FluxFlatMap.FlatMapMain<Integer, Integer> above = new FluxFlatMap.FlatMapMain<>(actual,
+				i -> Mono.just(i), false, FluxFlatMap.READY_SET_THRESHOLD,
+				QueueSupplier.<Integer>unbounded(), 32, QueueSupplier.<Integer>get(32));
+
+		assertThat(below.readySet).isFalse();
+		assertThat(above.readySet).isTrue();
+	}
+
+	@Test
+	public void readySetBackpressuredSyncInners() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create(0);
+
+		Flux.range(0, 2000)
+		    .flatMap(i -> Flux.just(i, i), 2000)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.request(3001);
+		ts.assertValueCount(3001)
+		  .assertNotComplete();
+
+		ts.request(999);
+		ts.assertValueCount(4000)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void readySetKeepsInnerOrder() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create(0);
+		List<DirectProcessor<Integer>> inners = new ArrayList<>();
+
+		Flux.range(0, 1500)
+		    .flatMap(i -> {
+			    DirectProcessor<Integer> p = DirectProcessor.create();
+			    inners.add(p);
+			    return p;
+		    }, 1500)
+		    .subscribe(ts);
+
+		inners.get(700).onNext(1);
+		inners.get(3).onNext(2);
+		inners.get(700).onNext(3);
+		inners.get(3).onComplete();
+
+		ts.request(2);
+		ts.assertValues(1, 3);
+
+		ts.request(10);
+		ts.assertValues(1, 3, 2);
+
+		inners.forEach(DirectProcessor::onComplete);
+		ts.assertComplete();
+	}
+
+	@Test
+	public void readySetReplenishesCompletedInners() {
+		StepVerifier.create(Flux.range(0, 10_000)
+		                        .hide()
+		                        .flatMap(i -> i % 2 == 0 ? Mono.<Integer>empty().hide() : Mono.just(i).hide(),
+				                        1024)
+		                        .count())
+		            .expectNext(5000L)
+		            .verifyComplete();
+	}
+
+	@Test(timeout = 10000)
+	public void readySetAsyncInners() {
+		StepVerifier.create(Flux.range(0, 20_000)
+		                        .flatMap(i -> Mono.just(i)
+		                                          .publishOn(Schedulers.parallel()), 5000)
+		                        .reduce(0L, (a, b) -> a + b))
+		            .expectNext(19_999L * 20_000L / 2)
+		            .verifyComplete();
+	}
 }
@@ -274,6 +274,62 @@ public class FluxGroupJoinTest {
 		  .assertNoValues();
 	}
 
+	@Test
+	public void keyedGroupsMatchingKeys() {
+		AssertSubscriber<Object> ts = AssertSubscriber.create();
+
+		Flux<Person> source1 = Flux.just(new Person(1, "Joe"),
+				new Person(2, "Mike"),
+				new Person(3, "Charlie"));
+
+		Flux<PersonFruit> source2 = Flux.just(new PersonFruit(1, "Strawberry"),
+				new PersonFruit(1, "Apple"),
+				new PersonFruit(3, "Peach"));
+
+		source1.groupJoin(source2,
+				p -> p.id,
+				pf -> pf.personId,
+				just2(Flux.never()),
+				just2(Flux.never()),
+				(p, fruits) -> fruits.map(pf -> p.name + "=" + pf.fruit))
+		       .flatMap(t -> t)
+		       .subscribe(ts);
+
+		ts.assertValues("Joe=Strawberry", "Joe=Apple", "Charlie=Peach")
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void keyedRightsBeforeLefts() {
+		AssertSubscriber<Object> ts = AssertSubscriber.create();
+		DirectProcessor<Integer> source1 = DirectProcessor.create();
+		DirectProcessor<Integer> source2 = DirectProcessor.create();
+
+		Flux<Integer> m =
+				source1.groupJoin(source2, t -> t % 2, t -> t % 2,
+						just(Flux.never()), just(Flux.never()), add2)
+				       .flatMap(t -> t);
+
+		m.subscribe(ts);
+
+		source2.onNext(10);
+		source2.onNext(11);
+		source2.onNext(12);
+
+		source1.onNext(1);
+		source1.onNext(2);
+
+		source2.onNext(13);
+
+		source1.onComplete();
+		source2.onComplete();
+
+		ts.assertValues(12, 12, 14, 14)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
 	@Test
 	public void scanGroupJoinSubscription() {
 		Subscriber<String> actual = new LambdaSubscriber<>(null, e -> {}, null, sub -> sub.request(100));
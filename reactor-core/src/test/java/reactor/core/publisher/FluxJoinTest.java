@@ -255,6 +255,114 @@ public class FluxJoinTest {
 		  .assertNoValues();
 	}
 
+	@Test
+	public void keyedOnlyCombinesMatchingKeys() {
+		AssertSubscriber<Object> ts = AssertSubscriber.create();
+
+		DirectProcessor<Integer> source1 = DirectProcessor.create();
+		DirectProcessor<Integer> source2 = DirectProcessor.create();
+
+		Flux<Integer> m = source1.join(source2,
+				t -> t % 2, t -> t % 2,
+				just(Flux.never()), just(Flux.never()), add);
+
+		m.subscribe(ts);
+
+		source1.onNext(1);
+		source1.onNext(2);
+		source1.onNext(3);
+
+		source2.onNext(10);
+		source2.onNext(11);
+
+		source1.onNext(4);
+
+		source1.onComplete();
+		source2.onComplete();
+
+		ts.assertValues(12, 12, 14, 14)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void keyedWindowExpiry() {
+		AssertSubscriber<Object> ts = AssertSubscriber.create();
+		DirectProcessor<Integer> source1 = DirectProcessor.create();
+		DirectProcessor<Integer> source2 = DirectProcessor.create();
+
+		DirectProcessor<Integer> duration1 = DirectProcessor.create();
+		DirectProcessor<Integer> duration2 = DirectProcessor.create();
+
+		Flux<Integer> m = source1.join(source2,
+				t -> t % 10, t -> t % 10,
+				t -> t < 10 ? duration1 : Flux.never(),
+				t -> t < 100 ? duration2 : Flux.never(), add);
+		m.subscribe(ts);
+
+		source1.onNext(1);
+		source1.onNext(11);
+		source1.onNext(21);
+		source2.onNext(31);
+
+		duration1.onNext(1);
+
+		source2.onNext(41);
+		source2.onNext(142);
+
+		duration2.onNext(1);
+
+		source2.onNext(151);
+		source1.onNext(51);
+
+		source1.onComplete();
+		source2.onComplete();
+
+		ts.assertValues(32, 42, 52, 52, 62, 162, 172, 202)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void keyedNullKeyFails() {
+		AssertSubscriber<Object> ts = AssertSubscriber.create();
+
+		Flux.just(1)
+		    .join(Flux.just(2), t -> null, t -> t,
+				    just(Flux.never()), just(Flux.never()), add)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(NullPointerException.class)
+		  .assertErrorMessage("The key selector returned a null value");
+	}
+
+	@Test
+	public void joinWindowBucketsUnlinkNodes() {
+		JoinWindow<String> w = new JoinWindow<>(true);
+		JoinWindow.Node<String> a = w.add(1, "a");
+		JoinWindow.Node<String> b = w.add(1, "b");
+		JoinWindow.Node<String> c = w.add(1, "c");
+		w.add(2, "d");
+
+		assertThat(w.remove(c)).isEqualTo("c");
+		assertThat(w.remove(c)).isNull();
+		JoinWindow.Node<String> e = w.add(1, "e");
+		assertThat(w.remove(a)).isEqualTo("a");
+
+		assertThat(w.first(1)).isSameAs(b);
+		assertThat(b.next).isSameAs(e);
+		assertThat(e.next).isNull();
+		assertThat(w.first(3)).isNull();
+		assertThat(w.size()).isEqualTo(3);
+		assertThat(w.values()).containsExactlyInAnyOrder("b", "e", "d");
+
+		w.remove(b);
+		w.remove(e);
+		assertThat(w.first(1)).isNull();
+		assertThat(w.buckets).containsOnlyKeys(2);
+	}
+
 	@Test
 	public void scanSubscription() {
 		Subscriber<String> actual = new LambdaSubscriber<>(null, e -> {}, null, sub -> sub.request(100));
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import reactor.core.Scannable;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FluxOnBackpressureLatestByKeyTest {
+
+	@Test(expected = NullPointerException.class)
+	public void sourceNull() {
+		new FluxOnBackpressureLatestByKey<>(null, v -> v);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void keySelectorNull() {
+		Flux.never().onBackpressureLatest(null);
+	}
+
+	@Test
+	public void normal() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+
+		Flux.range(1, 10).onBackpressureLatest(v -> v % 3).subscribe(ts);
+
+		ts.assertValues(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void backpressuredKeepsLatestPerKeyInPlace() {
+		DirectProcessor<String> tp = DirectProcessor.create();
+
+		AssertSubscriber<String> ts = AssertSubscriber.create(0);
+
+		tp.onBackpressureLatest(v -> v.charAt(0)).subscribe(ts);
+
+		tp.onNext("a1");
+		tp.onNext("b1");
+		tp.onNext("a2");
+		tp.onNext("c1");
+		tp.onNext("b2");
+
+		ts.assertNoValues()
+		  .assertNoError()
+		  .assertNotComplete();
+
+		ts.request(2);
+
+		ts.assertValues("a2", "b2")
+		  .assertNoError()
+		  .assertNotComplete();
+
+		tp.onNext("a3");
+		tp.onNext("c2");
+
+		ts.request(2);
+
+		ts.assertValues("a2", "b2", "c2", "a3")
+		  .assertNoError()
+		  .assertNotComplete();
+
+		tp.onNext("b3");
+		tp.onComplete();
+
+		ts.assertValues("a2", "b2", "c2", "a3")
+		  .assertNotComplete();
+
+		ts.request(1);
+
+		ts.assertValues("a2", "b2", "c2", "a3", "b3")
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void error() {
+		DirectProcessor<Integer> tp = DirectProcessor.create();
+
+		AssertSubscriber<Integer> ts = AssertSubscriber.create(0);
+
+		tp.onBackpressureLatest(v -> v).subscribe(ts);
+
+		tp.onNext(1);
+		tp.onError(new RuntimeException("forced failure"));
+
+		ts.assertNoValues()
+		  .assertNotComplete()
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void keySelectorThrows() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+
+		Flux.range(1, 10)
+		    .onBackpressureLatest(v -> {
+			    if (v == 3) {
+				    throw new IllegalStateException("boom");
+			    }
+			    return v;
+		    })
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2)
+		  .assertError(IllegalStateException.class)
+		  .assertErrorMessage("boom");
+	}
+
+	@Test
+	public void keySelectorReturnsNull() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+
+		Flux.range(1, 10)
+		    .onBackpressureLatest(v -> null)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(NullPointerException.class);
+	}
+
+	@Test
+	public void cancelClearsPending() {
+		DirectProcessor<Integer> tp = DirectProcessor.create();
+
+		AssertSubscriber<Integer> ts = AssertSubscriber.create(0);
+
+		tp.onBackpressureLatest(v -> v).subscribe(ts);
+
+		tp.onNext(1);
+		tp.onNext(2);
+
+		ts.cancel();
+
+		assertThat(tp.hasDownstreams()).isFalse();
+		ts.assertNoValues();
+	}
+
+	@Test
+	public void scanSubscriber() {
+		Subscriber<Integer> actual = new LambdaSubscriber<>(null, e -> {}, null, null);
+		FluxOnBackpressureLatestByKey.LatestByKeySubscriber<Integer, Integer> test =
+				new FluxOnBackpressureLatestByKey.LatestByKeySubscriber<>(actual, v -> v % 2);
+		Subscription parent = Operators.emptySubscription();
+		test.onSubscribe(parent);
+
+		assertThat(test.scan(Scannable.ScannableAttr.ACTUAL)).isSameAs(actual);
+		assertThat(test.scan(Scannable.ScannableAttr.PARENT)).isSameAs(parent);
+		test.requested = 35;
+		assertThat(test.scan(Scannable.LongAttr.REQUESTED_FROM_DOWNSTREAM)).isEqualTo(35);
+		assertThat(test.scan(Scannable.IntAttr.PREFETCH)).isEqualTo(Integer.MAX_VALUE);
+		test.pending.put(0, 2);
+		test.pending.put(1, 3);
+		test.pending.put(0, 4);
+		assertThat(test.scan(Scannable.IntAttr.BUFFERED)).isEqualTo(2);
+
+		assertThat(test.scan(Scannable.ThrowableAttr.ERROR)).isNull();
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+		test.onError(new IllegalStateException("boom"));
+		assertThat(test.scan(Scannable.ThrowableAttr.ERROR)).isSameAs(test.error);
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isTrue();
+
+		assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isFalse();
+		test.cancel();
+		assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FluxPublishLaggingTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lagWindowInvalid() {
+		Flux.never()
+		    .publish(0, LagOverflowStrategy.ERROR);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void strategyNull() {
+		Flux.never()
+		    .publish(8, null);
+	}
+
+	@Test
+	public void slowSubscriberDoesntThrottleFastOne() {
+		ConnectableFlux<Integer> p = Flux.range(1, 100)
+		                                 .publish(8, LagOverflowStrategy.DROP_OLDEST);
+
+		AssertSubscriber<Integer> fast = AssertSubscriber.create();
+		AssertSubscriber<Integer> slow = AssertSubscriber.create(0);
+		p.subscribe(fast);
+		p.subscribe(slow);
+		p.connect();
+
+		fast.assertValueCount(100)
+		    .assertComplete();
+		slow.assertNoValues()
+		    .assertNotComplete();
+
+		slow.request(100);
+		slow.assertValues(93, 94, 95, 96, 97, 98, 99, 100)
+		    .assertComplete();
+	}
+
+	@Test
+	public void withinLagWindowNothingIsLost() {
+		ConnectableFlux<Integer> p = Flux.range(1, 5)
+		                                 .publish(8, LagOverflowStrategy.ERROR);
+
+		AssertSubscriber<Integer> fast = AssertSubscriber.create();
+		AssertSubscriber<Integer> slow = AssertSubscriber.create(0);
+		p.subscribe(fast);
+		p.subscribe(slow);
+		p.connect();
+
+		fast.assertValues(1, 2, 3, 4, 5)
+		    .assertComplete();
+
+		slow.request(2);
+		slow.assertValues(1, 2)
+		    .assertNotComplete();
+		slow.request(3);
+		slow.assertValues(1, 2, 3, 4, 5)
+		    .assertComplete();
+	}
+
+	@Test
+	public void errorStrategyDisconnectsLaggingSubscriber() {
+		ConnectableFlux<Integer> p = Flux.range(1, 100)
+		                                 .publish(8, LagOverflowStrategy.ERROR);
+
+		AssertSubscriber<Integer> fast = AssertSubscriber.create();
+		AssertSubscriber<Integer> slow = AssertSubscriber.create(2);
+		p.subscribe(fast);
+		p.subscribe(slow);
+		p.connect();
+
+		fast.assertValueCount(100)
+		    .assertComplete();
+		slow.assertValues(1, 2)
+		    .assertErrorMessage("The subscriber lagged more than 8 elements behind");
+	}
+
+	@Test
+	public void conflateStrategyKeepsLatest() {
+		ConnectableFlux<Integer> p = Flux.range(1, 10)
+		                                 .publish(8, LagOverflowStrategy.CONFLATE);
+
+		AssertSubscriber<Integer> fast = AssertSubscriber.create();
+		AssertSubscriber<Integer> slow = AssertSubscriber.create(0);
+		p.subscribe(fast);
+		p.subscribe(slow);
+		p.connect();
+
+		fast.assertValueCount(10)
+		    .assertComplete();
+
+		//lagging 9 elements behind when 9 was emitted, only 9 was kept, then 10 came in
+		slow.request(Long.MAX_VALUE);
+		slow.assertValues(9, 10)
+		    .assertComplete();
+	}
+
+	@Test
+	public void sourceRequestedAtThePaceOfTheFastestSubscriber() {
+		AtomicLong requested = new AtomicLong();
+		ConnectableFlux<Integer> p = Flux.range(1, 100)
+		                                 .doOnRequest(requested::addAndGet)
+		                                 .publish(8, LagOverflowStrategy.DROP_OLDEST);
+
+		AssertSubscriber<Integer> fast = AssertSubscriber.create(3);
+		AssertSubscriber<Integer> slow = AssertSubscriber.create(0);
+		p.subscribe(fast);
+		p.subscribe(slow);
+		p.connect();
+
+		fast.assertValues(1, 2, 3);
+		assertThat(requested.get()).isEqualTo(11L);
+
+		fast.request(2);
+		fast.assertValues(1, 2, 3, 4, 5);
+		assertThat(requested.get()).isEqualTo(13L);
+	}
+
+	@Test
+	public void errorDeliveredAfterPendingValues() {
+		ConnectableFlux<Integer> p = Flux.range(1, 3)
+		                                 .concatWith(Flux.error(new IllegalStateException("boom")))
+		                                 .publish(8, LagOverflowStrategy.DROP_OLDEST);
+
+		AssertSubscriber<Integer> ts = AssertSubscriber.create(0);
+		p.subscribe(ts);
+		p.connect();
+
+		ts.assertNoValues()
+		  .assertNoError();
+		ts.request(3);
+		ts.assertValues(1, 2, 3)
+		  .assertErrorMessage("boom");
+	}
+
+	@Test
+	public void shareCancelsSourceWhenAllSubscribersLeave() {
+		AtomicBoolean cancelled = new AtomicBoolean();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+		Flux<Integer> shared = source.doOnCancel(() -> cancelled.set(true))
+		                             .share(4, LagOverflowStrategy.DROP_OLDEST);
+
+		AssertSubscriber<Integer> ts1 = AssertSubscriber.create();
+		AssertSubscriber<Integer> ts2 = AssertSubscriber.create(0);
+		shared.subscribe(ts1);
+		shared.subscribe(ts2);
+
+		source.onNext(1);
+		source.onNext(2);
+		ts1.assertValues(1, 2);
+
+		ts1.cancel();
+		assertThat(cancelled.get()).isFalse();
+		ts2.cancel();
+		assertThat(cancelled.get()).isTrue();
+	}
+
+	@Test
+	public void disposeDisconnects() {
+		DirectProcessor<Integer> source = DirectProcessor.create();
+		ConnectableFlux<Integer> p = source.publish(4, LagOverflowStrategy.DROP_OLDEST);
+
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		p.subscribe(ts);
+		reactor.core.Disposable d = p.connect();
+
+		source.onNext(1);
+		d.dispose();
+
+		ts.assertValues(1)
+		  .assertErrorMessage("Disconnected");
+		assertThat(source.hasDownstreams()).isFalse();
+	}
+
+	@Test
+	public void concurrentSlowSubscriberSeesIncreasingValues() {
+		ConnectableFlux<Integer> p = Flux.range(1, 100_000)
+		                                 .subscribeOn(Schedulers.parallel())
+		                                 .publish(32, LagOverflowStrategy.DROP_OLDEST);
+
+		AssertSubscriber<Integer> fast = AssertSubscriber.create();
+		AssertSubscriber<Integer> slow = AssertSubscriber.create(0);
+		p.subscribe(fast);
+		p.subscribe(slow);
+		p.connect();
+
+		while (!slow.isTerminated()) {
+			slow.request(1);
+		}
+
+		fast.await(Duration.ofSeconds(5))
+		    .assertValueCount(100_000)
+		    .assertComplete();
+		slow.assertComplete();
+		int previous = 0;
+		for (Integer v : slow.values()) {
+			assertThat(v).isGreaterThan(previous);
+			previous = v;
+		}
+		assertThat(previous).isEqualTo(100_000);
+	}
+
+	@Test
+	public void scanInner() {
+		ConnectableFlux<Integer> p = Flux.range(1, 5)
+		                                 .publish(8, LagOverflowStrategy.DROP_OLDEST);
+		AssertSubscriber<Integer> ts = AssertSubscriber.create(0);
+		p.subscribe(ts);
+		p.connect();
+
+		FluxPublishLagging.LaggingMain<?> main = ((FluxPublishLagging<Integer>) p).connection;
+		assertThat(main.scan(Scannable.IntAttr.CAPACITY)).isEqualTo(16);
+		assertThat(main.scan(Scannable.BooleanAttr.TERMINATED)).isTrue();
+
+		FluxPublishLagging.LaggingInner<?> inner =
+				(FluxPublishLagging.LaggingInner<?>) ts.upstream();
+		assertThat(inner.scan(Scannable.IntAttr.BUFFERED)).isEqualTo(5);
+		assertThat(inner.scan(Scannable.ScannableAttr.PARENT)).isSameAs(main);
+	}
+}
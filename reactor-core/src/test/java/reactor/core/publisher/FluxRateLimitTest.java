@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FluxRateLimitTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void permitsInvalid() {
+		Flux.never().rateLimit(0, Duration.ofSeconds(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void burstInvalid() {
+		Flux.never().rateLimit(1, Duration.ofSeconds(1), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void burstRefillOverflowInvalid() {
+		RateLimiter.create(1, Duration.ofDays(365), 1_000_000_000L);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void periodInvalid() {
+		Flux.never().rateLimit(1, Duration.ZERO);
+	}
+
+	@Test
+	public void burstThenPaced() {
+		StepVerifier.withVirtualTime(() -> Flux.range(1, 10)
+		                                       .rateLimit(2, Duration.ofSeconds(1)))
+		            .expectSubscription()
+		            .expectNext(1, 2)
+		            .expectNoEvent(Duration.ofMillis(500))
+		            .expectNext(3)
+		            .expectNoEvent(Duration.ofMillis(500))
+		            .expectNext(4)
+		            .thenAwait(Duration.ofSeconds(3))
+		            .expectNext(5, 6, 7, 8, 9, 10)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void burstRefillsWhileIdle() {
+		StepVerifier.withVirtualTime(() -> Flux.range(1, 10)
+		                                       .rateLimit(1, Duration.ofSeconds(1), 5), 2)
+		            .expectSubscription()
+		            .expectNext(1, 2)
+		            .thenAwait(Duration.ofSeconds(10))
+		            .thenRequest(6)
+		            .expectNext(3, 4, 5, 6, 7)
+		            .expectNoEvent(Duration.ofMillis(999))
+		            .thenAwait(Duration.ofMillis(1))
+		            .expectNext(8)
+		            .thenRequest(10)
+		            .thenAwait(Duration.ofSeconds(2))
+		            .expectNext(9, 10)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void onlyRequestsAvailableTokensUpstream() {
+		List<Long> requests = new ArrayList<>();
+		StepVerifier.withVirtualTime(() -> Flux.range(1, 5)
+		                                       .doOnRequest(requests::add)
+		                                       .rateLimit(2, Duration.ofSeconds(2)))
+		            .expectSubscription()
+		            .thenAwait(Duration.ofSeconds(4))
+		            .expectNextCount(5)
+		            .verifyComplete();
+
+		assertThat(requests).containsExactly(2L, 1L, 1L, 1L);
+	}
+
+	@Test
+	public void sharedLimiter() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		RateLimiter limiter = RateLimiter.create(2, Duration.ofSeconds(1), 2, vts);
+		AssertSubscriber<Integer> ts1 = AssertSubscriber.create();
+		AssertSubscriber<Integer> ts2 = AssertSubscriber.create();
+
+		Flux.range(1, 10).rateLimit(limiter).subscribe(ts1);
+		Flux.range(1, 10).rateLimit(limiter).subscribe(ts2);
+
+		ts1.assertValueCount(2);
+		ts2.assertValueCount(0);
+
+		vts.advanceTimeBy(Duration.ofSeconds(5));
+		assertThat(ts1.values().size() + ts2.values().size()).isEqualTo(12);
+		assertThat(ts2.values()).hasSize(5);
+	}
+
+	@Test
+	public void perSubscriberBucket() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.getOrSet();
+		try {
+			Flux<Integer> flux = Flux.range(1, 10)
+			                         .rateLimit(2, Duration.ofSeconds(1));
+			AssertSubscriber<Integer> ts1 = AssertSubscriber.create();
+			AssertSubscriber<Integer> ts2 = AssertSubscriber.create();
+
+			flux.subscribe(ts1);
+			flux.subscribe(ts2);
+
+			ts1.assertValues(1, 2);
+			ts2.assertValues(1, 2);
+		}
+		finally {
+			VirtualTimeScheduler.reset();
+		}
+	}
+
+	@Test
+	public void cancelWhileWaiting() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		RateLimiter limiter = RateLimiter.create(1, Duration.ofSeconds(1), 1, vts);
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+
+		Flux.range(1, 10).rateLimit(limiter).subscribe(ts);
+		ts.assertValues(1);
+
+		ts.cancel();
+		vts.advanceTimeBy(Duration.ofSeconds(5));
+
+		ts.assertValues(1);
+		assertThat(limiter.available()).isEqualTo(1);
+	}
+
+	@Test
+	public void rejectedTimer() {
+		Scheduler timer = Schedulers.newSingle("rateLimitRejected");
+		RateLimiter limiter = RateLimiter.create(1, Duration.ofDays(1), 1, timer);
+		timer.dispose();
+
+		StepVerifier.create(Flux.range(1, 10).rateLimit(limiter))
+		            .expectNext(1)
+		            .verifyError(RejectedExecutionException.class);
+	}
+
+	@Test
+	public void monoRateLimited() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		RateLimiter limiter = RateLimiter.create(1, Duration.ofSeconds(1), 1, vts);
+		List<AssertSubscriber<Integer>> calls = new ArrayList<>();
+
+		for (int i = 0; i < 3; i++) {
+			AssertSubscriber<Integer> ts = AssertSubscriber.create();
+			Mono.fromCallable(() -> 1).rateLimited(limiter).subscribe(ts);
+			calls.add(ts);
+		}
+
+		calls.get(0).assertValues(1).assertComplete();
+		calls.get(1).assertNoValues();
+		calls.get(2).assertNoValues();
+
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		calls.get(1).assertValues(1).assertComplete();
+		calls.get(2).assertNoValues();
+
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		calls.get(2).assertValues(1).assertComplete();
+	}
+
+	@Test
+	public void limiterAvailable() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		RateLimiter limiter = RateLimiter.create(10, Duration.ofSeconds(1), 5, vts);
+
+		assertThat(limiter.available()).isEqualTo(5);
+		assertThat(limiter.tryAcquire(3)).isEqualTo(3);
+		assertThat(limiter.tryAcquire(3)).isEqualTo(2);
+		assertThat(limiter.tryAcquire(1)).isEqualTo(0);
+
+		vts.advanceTimeBy(Duration.ofMillis(250));
+		assertThat(limiter.available()).isEqualTo(2);
+
+		vts.advanceTimeBy(Duration.ofSeconds(10));
+		assertThat(limiter.available()).isEqualTo(5);
+	}
+
+	@Test
+	public void scanSubscriber() {
+		Subscriber<Integer> actual = new LambdaSubscriber<>(null, e -> {}, null, s -> {});
+		FluxRateLimit.RateLimitSubscriber<Integer> test = new FluxRateLimit.RateLimitSubscriber<>(actual,
+				RateLimiter.create(1, Duration.ofSeconds(1), 1, VirtualTimeScheduler.create()));
+		Subscription parent = Operators.emptySubscription();
+		test.onSubscribe(parent);
+
+		assertThat(test.scan(Scannable.ScannableAttr.PARENT)).isSameAs(parent);
+		assertThat(test.scan(Scannable.ScannableAttr.ACTUAL)).isSameAs(actual);
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+
+		test.request(5);
+		assertThat(test.scan(Scannable.LongAttr.REQUESTED_FROM_DOWNSTREAM)).isEqualTo(4L);
+
+		test.onComplete();
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isTrue();
+		assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isFalse();
+
+		test.cancel();
+		assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+}
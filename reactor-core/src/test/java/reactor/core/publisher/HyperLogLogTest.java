@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class HyperLogLogTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void precisionTooLow() {
+		new HyperLogLog(HyperLogLog.MIN_PRECISION - 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void precisionTooHigh() {
+		Flux.range(1, 10).countDistinctApprox(i -> i, HyperLogLog.MAX_PRECISION + 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mergeDifferentPrecision() {
+		new HyperLogLog(10).merge(new HyperLogLog(12));
+	}
+
+	@Test
+	public void empty() {
+		assertThat(new HyperLogLog(12).estimate()).isZero();
+	}
+
+	@Test
+	public void smallCardinalitiesAreNearlyExact() {
+		HyperLogLog hll = new HyperLogLog(12);
+		for (int i = 0; i < 100; i++) {
+			hll.add("user" + i);
+			hll.add("user" + i);
+		}
+		assertThat(hll.estimate()).isCloseTo(100L, within(2L));
+	}
+
+	@Test
+	public void largeCardinalityWithinErrorBound() {
+		for (int precision : new int[]{10, 12, 14}) {
+			HyperLogLog hll = new HyperLogLog(precision);
+			int n = 1_000_000;
+			for (long i = 0; i < n; i++) {
+				hll.add(i);
+			}
+			double error = Math.abs(hll.estimate() - n) / (double) n;
+			//3 standard errors
+			assertThat(error).as("precision %d", precision)
+			                 .isLessThan(3 * hll.relativeError());
+		}
+	}
+
+	@Test
+	public void boxedAndPrimitiveValuesAreCountedOnce() {
+		HyperLogLog boxed = new HyperLogLog(12);
+		HyperLogLog primitive = new HyperLogLog(12);
+		HyperLogLog both = new HyperLogLog(12);
+		for (long i = 0; i < 1000; i++) {
+			long v = i << 32;
+			boxed.add((Object) v);
+			primitive.add(v);
+			both.add((Object) v);
+			both.add(v);
+		}
+
+		assertThat(boxed).isEqualTo(primitive);
+		assertThat(both).isEqualTo(primitive);
+		assertThat(both.estimate()).isCloseTo(1000L, within(50L));
+	}
+
+	@Test
+	public void memoryIsConstant() {
+		assertThat(new HyperLogLog(12).registers).hasSize(4096);
+		assertThat(new HyperLogLog(12).relativeError()).isCloseTo(0.01625, within(0.0001));
+	}
+
+	@Test
+	public void mergeIsUnion() {
+		HyperLogLog a = new HyperLogLog(12);
+		HyperLogLog b = new HyperLogLog(12);
+		HyperLogLog all = new HyperLogLog(12);
+		for (long i = 0; i < 20_000; i++) {
+			a.add(i);
+			all.add(i);
+		}
+		for (long i = 10_000; i < 30_000; i++) {
+			b.add(i);
+			all.add(i);
+		}
+
+		assertThat(a.merge(b)).isEqualTo(all);
+		assertThat(all.estimate()).isCloseTo(30_000L, within(1_500L));
+	}
+
+	@Test
+	public void countDistinctApprox() {
+		StepVerifier.create(Flux.range(0, 50_000)
+		                        .countDistinctApprox(i -> i % 5_000, 12))
+		            .assertNext(c -> assertThat(c).isCloseTo(5_000L, within(250L)))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void countDistinctApproxEmpty() {
+		StepVerifier.create(Flux.empty().countDistinctApprox(i -> i, 12))
+		            .expectNext(0L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void nullKeyFails() {
+		StepVerifier.create(Flux.range(0, 10)
+		                        .countDistinctApprox(i -> null, 12))
+		            .verifyErrorMessage("The keySelector returned a null value");
+	}
+
+	@Test
+	public void perWindow() {
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(1))
+		                                       .window(Duration.ofSeconds(1))
+		                                       .concatMap(w -> w.countDistinctApprox(i -> i % 100, 12)))
+		            .thenAwait(Duration.ofSeconds(3))
+		            .assertNext(c -> assertThat(c).isCloseTo(100L, within(5L)))
+		            .assertNext(c -> assertThat(c).isCloseTo(100L, within(5L)))
+		            .assertNext(c -> assertThat(c).isCloseTo(100L, within(5L)))
+		            .thenCancel()
+		            .verify();
+	}
+
+	@Test
+	public void parallelRailsAreMerged() {
+		StepVerifier.create(Flux.range(0, 100_000)
+		                        .parallel(4)
+		                        .runOn(Schedulers.parallel())
+		                        .countDistinctApprox(i -> i % 20_000, 12))
+		            .assertNext(c -> assertThat(c).isCloseTo(20_000L, within(1_000L)))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void parallelSketchEqualsSequentialSketch() {
+		HyperLogLog sequential = Flux.range(0, 10_000)
+		                             .collectHyperLogLog(i -> i, 10)
+		                             .block();
+		HyperLogLog parallel = Flux.range(0, 10_000)
+		                           .parallel(3)
+		                           .collectHyperLogLog(i -> i, 10)
+		                           .block();
+
+		assertThat(parallel).isEqualTo(sequential);
+	}
+}
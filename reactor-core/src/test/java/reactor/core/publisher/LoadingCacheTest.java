@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import reactor.core.Scannable;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoadingCacheTest {
+
+	AtomicInteger loads = new AtomicInteger();
+
+	VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+
+	LoadingCache.Builder<String, String> builder() {
+		return LoadingCache.<String, String>builder(k -> Mono.fromCallable(() -> k + loads.incrementAndGet()))
+				.scheduler(vts);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void loaderNull() {
+		LoadingCache.builder(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeTtl() {
+		builder().expireAfterWrite(Duration.ofSeconds(-1));
+	}
+
+	@Test
+	public void loadsOnceThenHits() {
+		LoadingCache<String, String> cache = builder().build();
+
+		StepVerifier.create(cache.get("a"))
+		            .expectNext("a1")
+		            .verifyComplete();
+		StepVerifier.create(cache.get("a"))
+		            .expectNext("a1")
+		            .verifyComplete();
+		StepVerifier.create(cache.get("b"))
+		            .expectNext("b2")
+		            .verifyComplete();
+
+		assertThat(cache.scan(LoadingCache.StatAttr.HITS)).isEqualTo(1L);
+		assertThat(cache.scan(LoadingCache.StatAttr.MISSES)).isEqualTo(2L);
+		assertThat(cache.scan(Scannable.IntAttr.BUFFERED)).isEqualTo(2);
+	}
+
+	@Test
+	public void concurrentSubscribersShareLoad() {
+		MonoProcessor<String> backend = MonoProcessor.create();
+		LoadingCache<String, String> cache = LoadingCache.<String, String>builder(k -> {
+			loads.incrementAndGet();
+			return backend;
+		}).scheduler(vts)
+		  .build();
+
+		AssertSubscriber<String> ts1 = AssertSubscriber.create();
+		AssertSubscriber<String> ts2 = AssertSubscriber.create();
+		cache.get("a").subscribe(ts1);
+		cache.get("a").subscribe(ts2);
+
+		backend.onNext("foo");
+
+		ts1.assertValues("foo").assertComplete();
+		ts2.assertValues("foo").assertComplete();
+		assertThat(loads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void errorsAreNotCached() {
+		LoadingCache<String, String> cache = LoadingCache.<String, String>builder(k -> {
+			if (loads.incrementAndGet() == 1) {
+				return Mono.error(new IllegalStateException("boom"));
+			}
+			return Mono.just("ok");
+		}).scheduler(vts)
+		  .build();
+
+		StepVerifier.create(cache.get("a"))
+		            .verifyErrorMessage("boom");
+		assertThat(cache.size()).isZero();
+
+		StepVerifier.create(cache.get("a"))
+		            .expectNext("ok")
+		            .verifyComplete();
+	}
+
+	@Test
+	public void expireAfterWrite() {
+		LoadingCache<String, String> cache = builder().expireAfterWrite(Duration.ofSeconds(10))
+		                                              .build();
+
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		vts.advanceTimeBy(Duration.ofSeconds(9));
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		assertThat(cache.get("a").block()).isEqualTo("a2");
+
+		assertThat(cache.scan(LoadingCache.StatAttr.EVICTIONS)).isEqualTo(1L);
+	}
+
+	@Test
+	public void expireAfterAccess() {
+		LoadingCache<String, String> cache = builder().expireAfterAccess(Duration.ofSeconds(10))
+		                                              .build();
+
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		vts.advanceTimeBy(Duration.ofSeconds(9));
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		vts.advanceTimeBy(Duration.ofSeconds(9));
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		vts.advanceTimeBy(Duration.ofSeconds(10));
+		assertThat(cache.get("a").block()).isEqualTo("a2");
+	}
+
+	@Test
+	public void maximumSizeEvictsLeastRecentlyAccessed() {
+		LoadingCache<String, String> cache = builder().maximumSize(2)
+		                                              .build();
+
+		cache.get("a").block();
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		cache.get("b").block();
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		cache.get("a").block();
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		cache.get("c").block();
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.entries).containsOnlyKeys("a", "c");
+		assertThat(cache.scan(LoadingCache.StatAttr.EVICTIONS)).isEqualTo(1L);
+		assertThat(cache.scan(Scannable.IntAttr.CAPACITY)).isEqualTo(2);
+	}
+
+	@Test
+	public void maximumSizeEventuallyEvictsEntriesIteratedLast() {
+		LoadingCache<Integer, Integer> cache =
+				LoadingCache.<Integer, Integer>builder(Mono::just).scheduler(vts)
+				                                                  .maximumSize(16)
+				                                                  .build();
+
+		//small integers are iterated in hash order, 31 is the last bucket of the table
+		int cold = 31;
+		cache.get(cold).block();
+		for (int i = 0; i < 200; i++) {
+			if ((i & 31) == 31) {
+				continue;
+			}
+			vts.advanceTimeBy(Duration.ofSeconds(1));
+			cache.get(i).block();
+		}
+
+		assertThat(cache.size()).isEqualTo(16);
+		assertThat(cache.entries).doesNotContainKey(cold);
+	}
+
+	@Test
+	public void refreshAheadServesStaleValue() {
+		LoadingCache<String, String> cache = builder().refreshAfterWrite(Duration.ofSeconds(10))
+		                                              .build();
+
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		vts.advanceTimeBy(Duration.ofSeconds(10));
+
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		vts.advanceTime();
+
+		assertThat(cache.get("a").block()).isEqualTo("a2");
+		assertThat(loads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void failedRefreshKeepsStaleValue() {
+		LoadingCache<String, String> cache = LoadingCache.<String, String>builder(k -> {
+			if (loads.incrementAndGet() == 1) {
+				return Mono.just("ok");
+			}
+			return Mono.error(new IllegalStateException("boom"));
+		}).scheduler(vts)
+		  .refreshAfterWrite(Duration.ofSeconds(10))
+		  .build();
+
+		assertThat(cache.get("a").block()).isEqualTo("ok");
+		vts.advanceTimeBy(Duration.ofSeconds(10));
+		assertThat(cache.get("a").block()).isEqualTo("ok");
+		vts.advanceTime();
+
+		//the stale entry is still eligible for refresh, which is attempted again
+		assertThat(cache.get("a").block()).isEqualTo("ok");
+		vts.advanceTime();
+
+		assertThat(loads.get()).isEqualTo(3);
+		assertThat(cache.entries.get("a").refreshing).isZero();
+	}
+
+	@Test
+	public void invalidate() {
+		LoadingCache<String, String> cache = builder().build();
+
+		assertThat(cache.get("a").block()).isEqualTo("a1");
+		cache.invalidate("a");
+		assertThat(cache.get("a").block()).isEqualTo("a2");
+		cache.invalidateAll();
+		assertThat(cache.size()).isZero();
+	}
+}
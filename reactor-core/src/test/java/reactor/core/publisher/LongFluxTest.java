@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongFluxTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rangeNegativeCount() {
+		LongFlux.range(0, -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rangeOverflow() {
+		LongFlux.range(Long.MAX_VALUE, 2);
+	}
+
+	@Test
+	public void range() {
+		StepVerifier.create(LongFlux.range(Integer.MAX_VALUE, 3).boxed())
+		            .expectNext(2147483647L, 2147483648L, 2147483649L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void rangeBackpressured() {
+		StepVerifier.create(LongFlux.range(1, 5).boxed(), 0)
+		            .thenRequest(2)
+		            .expectNext(1L, 2L)
+		            .thenRequest(3)
+		            .expectNext(3L, 4L, 5L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void emptyRange() {
+		StepVerifier.create(LongFlux.range(1, 0).boxed())
+		            .verifyComplete();
+	}
+
+	@Test
+	public void fromArrayBackpressured() {
+		StepVerifier.create(LongFlux.fromArray(3, 2, 1).boxed(), 1)
+		            .expectNext(3L)
+		            .thenRequest(1)
+		            .expectNext(2L)
+		            .thenRequest(1)
+		            .expectNext(1L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void mapFilter() {
+		StepVerifier.create(LongFlux.range(1, 10)
+		                            .map(v -> v * 10)
+		                            .filter(v -> v % 20 == 0)
+		                            .boxed())
+		            .expectNext(20L, 40L, 60L, 80L, 100L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void filterReplenishes() {
+		StepVerifier.create(LongFlux.range(1, 10)
+		                            .filter(v -> v > 8)
+		                            .boxed(), 1)
+		            .expectNext(9L)
+		            .thenRequest(1)
+		            .expectNext(10L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void consecutiveMapsAndFiltersAreFused() {
+		LongFlux source = LongFlux.range(1, 10);
+		LongFlux mapped = source.map(v -> v + 1).map(v -> v * 2);
+		LongFlux filtered = source.filter(v -> v > 2).filter(v -> v < 5);
+
+		assertThat(((LongFluxMap) mapped).source).isSameAs(source);
+		assertThat(((LongFluxFilter) filtered).source).isSameAs(source);
+
+		StepVerifier.create(mapped.boxed())
+		            .expectNext(4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L, 20L, 22L)
+		            .verifyComplete();
+		StepVerifier.create(filtered.boxed())
+		            .expectNext(3L, 4L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void mapperThrows() {
+		StepVerifier.create(LongFlux.range(1, 10)
+		                            .map(v -> {
+			                            if (v == 3) {
+				                            throw new IllegalStateException("boom");
+			                            }
+			                            return v;
+		                            })
+		                            .boxed())
+		            .expectNext(1L, 2L)
+		            .verifyErrorMessage("boom");
+	}
+
+	@Test
+	public void scan() {
+		StepVerifier.create(LongFlux.fromArray(1, 5, 3, 8, 2)
+		                            .scan(Math::max)
+		                            .boxed())
+		            .expectNext(1L, 5L, 5L, 8L, 8L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void reduce() {
+		StepVerifier.create(LongFlux.range(1, 5).reduce((a, b) -> a * b))
+		            .expectNext(120L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void reduceEmpty() {
+		StepVerifier.create(LongFlux.range(1, 0).reduce((a, b) -> a * b))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void reduceSeeded() {
+		StepVerifier.create(LongFlux.range(1, 3).reduce(10, (a, b) -> a - b))
+		            .expectNext(4L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void sum() {
+		StepVerifier.create(LongFlux.range(0, 1_000_000).sum())
+		            .expectNext(999_999L * 1_000_000L / 2)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void sumEmpty() {
+		StepVerifier.create(LongFlux.range(0, 0).sum())
+		            .expectNext(0L)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void buffer() {
+		StepVerifier.create(LongFlux.range(1, 7).buffer(3))
+		            .assertNext(b -> assertThat(b).containsExactly(1, 2, 3))
+		            .assertNext(b -> assertThat(b).containsExactly(4, 5, 6))
+		            .assertNext(b -> assertThat(b).containsExactly(7))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void bufferBackpressured() {
+		List<Long> requests = new ArrayList<>();
+		StepVerifier.create(Flux.range(1, 10)
+		                        .doOnRequest(requests::add)
+		                        .mapToLong(i -> i)
+		                        .buffer(4), 1)
+		            .expectNextCount(1)
+		            .thenRequest(2)
+		            .expectNextCount(2)
+		            .verifyComplete();
+
+		assertThat(requests).containsExactly(4L, 8L);
+	}
+
+	@Test
+	public void bridgeFromFlux() {
+		StepVerifier.create(Flux.just("a", "bb", "ccc")
+		                        .mapToLong(String::length)
+		                        .mapToObj(Long::toString))
+		            .expectNext("1", "2", "3")
+		            .verifyComplete();
+	}
+
+	@Test
+	public void bridgeFromFluxError() {
+		StepVerifier.create(Flux.<String>error(new IllegalStateException("boom"))
+				.mapToLong(String::length)
+				.boxed())
+		            .verifyErrorMessage("boom");
+	}
+
+	@Test
+	public void mapToObjNullFails() {
+		StepVerifier.create(LongFlux.range(1, 3).mapToObj(v -> null))
+		            .verifyError(NullPointerException.class);
+	}
+
+	@Test
+	public void cancelStopsRange() {
+		List<Long> values = new ArrayList<>();
+		LongFlux.range(1, 1000).subscribe(new LongSubscriber() {
+			Subscription s;
+
+			@Override
+			public void onSubscribe(Subscription s) {
+				this.s = s;
+				s.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(long t) {
+				values.add(t);
+				if (t == 3) {
+					s.cancel();
+				}
+			}
+
+			@Override
+			public void onError(Throwable t) {
+			}
+
+			@Override
+			public void onComplete() {
+				values.add(-1L);
+			}
+		});
+
+		assertThat(values).containsExactly(1L, 2L, 3L);
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MonoHedgeTest {
+
+	final AtomicInteger subscriptions = new AtomicInteger();
+
+	final AtomicInteger cancellations = new AtomicInteger();
+
+	/**
+	 * @param latencies the latency in seconds of each successive attempt, the last one
+	 * being reused
+	 */
+	Mono<Integer> replicas(long... latencies) {
+		return Mono.defer(() -> {
+			int attempt = subscriptions.getAndIncrement();
+			long latency = latencies[Math.min(attempt, latencies.length - 1)];
+			return Mono.delay(Duration.ofSeconds(latency))
+			           .map(t -> attempt)
+			           .doOnCancel(cancellations::incrementAndGet);
+		});
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxAttemptsInvalid() {
+		Mono.never().hedge(Duration.ofSeconds(1), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void delayInvalid() {
+		Mono.never().hedge(Duration.ofSeconds(-1), 2);
+	}
+
+	@Test
+	public void fastSourceIsNotHedged() {
+		StepVerifier.withVirtualTime(() -> replicas(1).hedge(Duration.ofSeconds(2), 3))
+		            .expectSubscription()
+		            .thenAwait(Duration.ofSeconds(1))
+		            .expectNext(0)
+		            .verifyComplete();
+
+		assertThat(subscriptions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void slowSourceIsHedged() {
+		StepVerifier.withVirtualTime(() -> replicas(10, 1).hedge(Duration.ofSeconds(2), 3))
+		            .expectSubscription()
+		            .expectNoEvent(Duration.ofSeconds(3))
+		            .expectNext(1)
+		            .verifyComplete();
+
+		assertThat(subscriptions.get()).isEqualTo(2);
+		assertThat(cancellations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void attemptsAreCapped() {
+		StepVerifier.withVirtualTime(() -> replicas(100).hedge(Duration.ofSeconds(1), 3))
+		            .expectSubscription()
+		            .expectNoEvent(Duration.ofSeconds(99))
+		            .thenAwait(Duration.ofSeconds(1))
+		            .expectNext(0)
+		            .verifyComplete();
+
+		assertThat(subscriptions.get()).isEqualTo(3);
+		assertThat(cancellations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void failedAttemptIsReplacedImmediately() {
+		AtomicInteger count = new AtomicInteger();
+		Mono<Integer> source = Mono.defer(() -> count.getAndIncrement() == 0 ?
+				Mono.error(new IllegalStateException("boom")) : Mono.just(1));
+
+		StepVerifier.withVirtualTime(() -> source.hedge(Duration.ofSeconds(10), 2))
+		            .expectSubscription()
+		            .expectNext(1)
+		            .verifyComplete();
+
+		assertThat(count.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void errorOnceAllAttemptsFailed() {
+		Mono<Integer> source = Mono.defer(() -> {
+			subscriptions.incrementAndGet();
+			return Mono.error(new IllegalStateException("boom"));
+		});
+
+		StepVerifier.create(source.hedge(Duration.ofSeconds(10), 3))
+		            .verifyErrorMessage("boom");
+
+		assertThat(subscriptions.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void emptyWins() {
+		StepVerifier.withVirtualTime(() -> replicas(10).then(Mono.<Integer>empty())
+		                                               .hedge(Duration.ofSeconds(1), 3))
+		            .expectSubscription()
+		            .thenAwait(Duration.ofSeconds(10))
+		            .verifyComplete();
+
+		assertThat(subscriptions.get()).isEqualTo(3);
+		assertThat(cancellations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void cancelStopsHedging() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+
+		new MonoHedge<>(Mono.<Integer>never().doOnSubscribe(s -> subscriptions.incrementAndGet())
+		                                     .doOnCancel(cancellations::incrementAndGet),
+				1, TimeUnit.SECONDS, 5, vts)
+				.subscribe(ts);
+
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		ts.cancel();
+		vts.advanceTimeBy(Duration.ofSeconds(10));
+
+		assertThat(subscriptions.get()).isEqualTo(2);
+		assertThat(cancellations.get()).isEqualTo(2);
+		ts.assertNoValues()
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void timerFiringBeforeRegistrationKeepsHedging() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		AtomicInteger timers = new AtomicInteger();
+		Scheduler timer = new Scheduler() {
+			@Override
+			public Disposable schedule(Runnable task) {
+				return vts.schedule(task);
+			}
+
+			@Override
+			public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+				//the first timer fires before schedule even returns
+				if (timers.getAndIncrement() == 0) {
+					task.run();
+					return () -> { };
+				}
+				return vts.schedule(task, delay, unit);
+			}
+
+			@Override
+			public Worker createWorker() {
+				return vts.createWorker();
+			}
+		};
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+
+		new MonoHedge<>(Mono.<Integer>never().doOnSubscribe(s -> subscriptions.incrementAndGet()),
+				1, TimeUnit.SECONDS, 3, timer)
+				.subscribe(ts);
+		assertThat(subscriptions.get()).isEqualTo(2);
+
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+		assertThat(subscriptions.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void scanMain() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		MonoHedge.HedgeMain<Integer> main = new MonoHedge.HedgeMain<>(ts,
+				new MonoHedge<>(Mono.never(), 1, TimeUnit.SECONDS, 3, vts));
+		ts.onSubscribe(main);
+		main.launchNext();
+		vts.advanceTimeBy(Duration.ofSeconds(1));
+
+		assertThat(main.inners()).hasSize(2);
+		assertThat(main.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+		assertThat(main.scan(Scannable.BooleanAttr.CANCELLED)).isFalse();
+
+		main.cancel();
+		assertThat(main.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+		assertThat(main.inners()
+		               .allMatch(i -> i.scan(Scannable.BooleanAttr.CANCELLED))).isTrue();
+	}
+
+	@Test
+	public void scanInner() {
+		AssertSubscriber<Integer> ts = AssertSubscriber.create();
+		MonoHedge.HedgeMain<Integer> main = new MonoHedge.HedgeMain<>(ts,
+				new MonoHedge<>(Mono.never(), 1, TimeUnit.SECONDS, 3, VirtualTimeScheduler.create()));
+		MonoHedge.HedgeInner<Integer> inner = new MonoHedge.HedgeInner<>(main);
+		Subscription parent = Operators.emptySubscription();
+		inner.onSubscribe(parent);
+
+		assertThat(inner.scan(Scannable.ScannableAttr.PARENT)).isSameAs(parent);
+		assertThat(inner.scan(Scannable.ScannableAttr.ACTUAL)).isSameAs(main);
+		assertThat(inner.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+
+		inner.onComplete();
+		assertThat(inner.scan(Scannable.BooleanAttr.TERMINATED)).isTrue();
+		assertThat(inner.scan(Scannable.BooleanAttr.CANCELLED)).isFalse();
+
+		inner.cancel();
+		assertThat(inner.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+}
@@ -21,8 +21,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -863,6 +865,223 @@ public class ParallelFluxTest {
 		Assert.assertEquals("Multithreaded threads", 3, threadNames.size());
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void roundRobinDispatch() {
+		AssertSubscriber<Integer> ts1 = AssertSubscriber.create(1);
+		AssertSubscriber<Integer> ts2 = AssertSubscriber.create(5);
+
+		Flux.range(1, 6)
+		    .parallel(2, 4, ParallelDispatchStrategy.ROUND_ROBIN)
+		    .subscribe(new Subscriber[]{ts1, ts2});
+
+		ts1.assertValues(1);
+		ts2.assertValues(2, 3, 4, 5, 6);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void mostDemandDispatch() {
+		AssertSubscriber<Integer> ts1 = AssertSubscriber.create(1);
+		AssertSubscriber<Integer> ts2 = AssertSubscriber.create(5);
+
+		Flux.range(1, 6)
+		    .parallel(2, 4, ParallelDispatchStrategy.MOST_DEMAND)
+		    .subscribe(new Subscriber[]{ts1, ts2});
+
+		ts1.assertValues(5);
+		ts2.assertValues(1, 2, 3, 4, 6);
+
+		ts1.request(1);
+		ts2.request(1);
+		ts1.assertComplete();
+		ts2.assertComplete();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void mostDemandDispatchFused() {
+		AssertSubscriber<Integer> ts1 = AssertSubscriber.create(0);
+		AssertSubscriber<Integer> ts2 = AssertSubscriber.create(3);
+
+		Flux.range(1, 3)
+		    .parallel(2, 4, ParallelDispatchStrategy.MOST_DEMAND)
+		    .subscribe(new Subscriber[]{ts1, ts2});
+
+		ts1.assertNoValues()
+		   .assertComplete();
+		ts2.assertValues(1, 2, 3)
+		   .assertComplete();
+	}
+
+	@Test
+	public void mostDemandDispatchSkewedCost() {
+		Scheduler scheduler = Schedulers.newParallel("mostDemand", 4);
+		try {
+			StepVerifier.create(Flux.range(1, 1000)
+			                        .parallel(4, 16, ParallelDispatchStrategy.MOST_DEMAND)
+			                        .runOn(scheduler, 4)
+			                        .doOnNext(v -> {
+				                        if (v % 100 == 0) {
+					                        tryToSleep(10);
+				                        }
+			                        })
+			                        .sequential()
+			                        .reduce(0L, (a, b) -> a + b))
+			            .expectNext(500500L)
+			            .verifyComplete();
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void dispatchStrategyNull() {
+		Flux.never()
+		    .parallel(2, 4, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void partitionBySameKeySameRail() {
+		AssertSubscriber<Integer> ts1 = AssertSubscriber.create();
+		AssertSubscriber<Integer> ts2 = AssertSubscriber.create();
+		AssertSubscriber<Integer> ts3 = AssertSubscriber.create();
+
+		Flux.range(0, 30)
+		    .hide()
+		    .parallel(3)
+		    .partitionBy(v -> v % 5)
+		    .subscribe(new Subscriber[]{ts1, ts2, ts3});
+
+		for (AssertSubscriber<Integer> ts : Arrays.asList(ts1, ts2, ts3)) {
+			ts.assertComplete();
+			Set<Integer> keys = new HashSet<>();
+			int previous = -1;
+			for (Integer v : ts.values()) {
+				keys.add(v % 5);
+				assertThat(v).isGreaterThan(previous);
+				previous = v;
+			}
+			for (AssertSubscriber<Integer> other : Arrays.asList(ts1, ts2, ts3)) {
+				if (other != ts) {
+					for (Integer v : other.values()) {
+						assertThat(keys).doesNotContain(v % 5);
+					}
+				}
+			}
+		}
+		assertThat(ts1.values().size() + ts2.values().size() + ts3.values().size()).isEqualTo(30);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void partitionByWaitsForItsRail() {
+		AssertSubscriber<Integer> ts1 = AssertSubscriber.create(0);
+		AssertSubscriber<Integer> ts2 = AssertSubscriber.create();
+
+		Flux.just(2, 4, 1, 3)
+		    .parallel(2)
+		    .partitionBy(v -> v % 2)
+		    .subscribe(new Subscriber[]{ts1, ts2});
+
+		ts1.assertNoValues();
+		ts2.assertNoValues();
+
+		ts1.request(1);
+		ts1.assertValues(2);
+		ts2.assertNoValues();
+
+		ts1.request(1);
+		ts1.assertValues(2, 4);
+		ts2.assertValues(1, 3)
+		   .assertComplete();
+		ts1.assertComplete();
+	}
+
+	@Test
+	public void partitionByLockFreePerKeyState() {
+		Scheduler scheduler = Schedulers.newParallel("partition", 4);
+		try {
+			StepVerifier.create(Flux.range(0, 10_000)
+			                        .parallel(4)
+			                        .partitionBy(v -> v % 100)
+			                        .runOn(scheduler)
+			                        .collect(HashMap<Integer, Integer>::new,
+					                        (m, v) -> m.merge(v % 100, 1, Integer::sum))
+			                        .sequential()
+			                        .reduce(new HashMap<Integer, Integer>(), (a, b) -> {
+				                        for (Map.Entry<Integer, Integer> entry : b.entrySet()) {
+					                        assertThat(a).doesNotContainKey(entry.getKey());
+					                        a.put(entry.getKey(), entry.getValue());
+				                        }
+				                        return a;
+			                        }))
+			            .assertNext(m -> {
+				            assertThat(m).hasSize(100);
+				            assertThat(m.values()).allMatch(c -> c == 100);
+			            })
+			            .verifyComplete();
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void partitionByFused() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .parallel(2)
+		                        .partitionBy(v -> v % 2)
+		                        .sequential()
+		                        .collectSortedList())
+		            .expectNext(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void partitionByNullKey() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .parallel(2)
+		                        .partitionBy(v -> v == 3 ? null : v)
+		                        .sequential())
+		            .expectNext(1, 2)
+		            .verifyErrorMessage("The partitioner returned a null key");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void partitionByNotDirectlyAfterParallel() {
+		Flux.range(1, 10)
+		    .parallel(2)
+		    .map(v -> v)
+		    .partitionBy(v -> v);
+	}
+
+	@Test
+	public void partitionByThenOrdered() {
+		Scheduler scheduler = Schedulers.newParallel("partition", 2);
+		try {
+			StepVerifier.create(Flux.range(1, 1000)
+			                        .parallel(2)
+			                        .partitionBy(v -> v % 7)
+			                        .runOn(scheduler)
+			                        .ordered(v -> v)
+			                        .sequential()
+			                        .buffer())
+			            .assertNext(l -> {
+				            assertThat(l).hasSize(1000);
+				            for (int i = 0; i < l.size(); i++) {
+					            assertThat(l.get(i)).isEqualTo(i + 1);
+				            }
+			            })
+			            .verifyComplete();
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
 	private void tryToSleep(long value)
 	{
 		try
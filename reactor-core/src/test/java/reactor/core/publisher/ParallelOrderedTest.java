@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.subscriber.AssertSubscriber;
+import reactor.util.concurrent.QueueSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelOrderedTest {
+
+	@Test(expected = NullPointerException.class)
+	public void mapperNull() {
+		Flux.never()
+		    .parallel()
+		    .ordered(null);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void notDirectlyAfterParallel() {
+		Flux.range(1, 10)
+		    .parallel(2)
+		    .filter(v -> v > 1)
+		    .ordered(v -> v);
+	}
+
+	@Test
+	public void restoresOrderAfterRunOn() {
+		Scheduler scheduler = Schedulers.newParallel("ordered", 4);
+		try {
+			List<Integer> list = Flux.range(1, 10_000)
+			                         .parallel(4)
+			                         .runOn(scheduler)
+			                         .ordered(v -> {
+				                         if (ThreadLocalRandom.current().nextInt(100) == 0) {
+					                         LockSupport.parkNanos(100_000);
+				                         }
+				                         return v * 2;
+			                         })
+			                         .sequential()
+			                         .collectList()
+			                         .block();
+
+			assertThat(list).hasSize(10_000);
+			for (int i = 0; i < list.size(); i++) {
+				assertThat(list.get(i)).isEqualTo((i + 1) * 2);
+			}
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void restoresOrderWithoutRunOn() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .hide()
+		                        .parallel(3)
+		                        .ordered(v -> "" + v)
+		                        .sequential())
+		            .expectNext("1", "2", "3", "4", "5", "6", "7", "8", "9", "10")
+		            .verifyComplete();
+	}
+
+	@Test
+	public void restoresOrderMostDemand() {
+		Scheduler scheduler = Schedulers.newParallel("ordered", 3);
+		try {
+			StepVerifier.create(Flux.range(1, 1000)
+			                        .parallel(3, 32, ParallelDispatchStrategy.MOST_DEMAND)
+			                        .runOn(scheduler, 8)
+			                        .ordered(v -> v)
+			                        .sequential(4)
+			                        .buffer(1000))
+			            .assertNext(l -> {
+				            for (int i = 0; i < l.size(); i++) {
+					            assertThat(l.get(i)).isEqualTo(i + 1);
+				            }
+			            })
+			            .verifyComplete();
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void honorsDownstreamBackpressure() {
+		DirectProcessor<Integer> source = DirectProcessor.create();
+		AssertSubscriber<Integer> ts = AssertSubscriber.create(0);
+
+		source.parallel(2, 16)
+		      .ordered(v -> v)
+		      .sequential(4)
+		      .subscribe(ts);
+
+		for (int i = 1; i <= 8; i++) {
+			source.onNext(i);
+		}
+
+		ts.assertNoValues();
+
+		ts.request(3);
+		ts.assertValues(1, 2, 3);
+
+		source.onComplete();
+		ts.request(Long.MAX_VALUE);
+		ts.assertValues(1, 2, 3, 4, 5, 6, 7, 8)
+		  .assertComplete();
+	}
+
+	@Test
+	public void mapperError() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .parallel(2)
+		                        .ordered(v -> {
+			                        if (v == 5) {
+				                        throw new IllegalStateException("boom");
+			                        }
+			                        return v;
+		                        })
+		                        .sequential())
+		            .expectNext(1, 2, 3, 4)
+		            .verifyErrorMessage("boom");
+	}
+
+	@Test
+	public void mapperNullValue() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .parallel(2)
+		                        .ordered(v -> v == 3 ? null : v)
+		                        .sequential())
+		            .expectNext(1, 2)
+		            .verifyError(NullPointerException.class);
+	}
+
+	@Test
+	public void railsStillUsableUnordered() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .parallel(2)
+		                        .ordered(v -> v * 10)
+		                        .reduce(Integer::sum))
+		            .expectNext(550)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void scanMain() {
+		ParallelMergeOrdered.MergeOrderedMain<Integer> test =
+				new ParallelMergeOrdered.MergeOrderedMain<>(AssertSubscriber.create(), 2, 4,
+						QueueSupplier.get(4));
+
+		assertThat(test.scan(Scannable.IntAttr.BUFFERED)).isZero();
+		assertThat(test.inners()).hasSize(2);
+		assertThat(test.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+		test.cancel();
+		assertThat(test.scan(Scannable.BooleanAttr.CANCELLED)).isTrue();
+	}
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import reactor.core.Scannable;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.test.subscriber.AssertSubscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PoolTest {
+
+	AtomicInteger allocated = new AtomicInteger();
+	AtomicInteger destroyed = new AtomicInteger();
+
+	Mono<Integer> allocator = Mono.fromCallable(allocated::incrementAndGet);
+
+	Pool.Builder<Integer> builder() {
+		return Pool.builder(allocator)
+		           .destroyHandler(v -> Mono.fromRunnable(destroyed::incrementAndGet));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void allocatorNull() {
+		Pool.builder(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMaxZero() {
+		Pool.builder(allocator).sizeMax(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMinGreaterThanSizeMax() {
+		Pool.builder(allocator).sizeMin(3).sizeMax(2).build();
+	}
+
+	@Test
+	public void allocatesLazilyAndReuses() {
+		Pool<Integer> pool = builder().sizeMax(2).build();
+
+		assertThat(pool.allocatedSize()).isZero();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+		assertThat(ref.poolable()).isEqualTo(1);
+		assertThat(ref.acquireCount()).isEqualTo(1);
+		assertThat(pool.acquiredSize()).isEqualTo(1);
+
+		ref.release().block();
+		assertThat(pool.acquiredSize()).isZero();
+		assertThat(pool.idleSize()).isEqualTo(1);
+
+		PooledRef<Integer> ref2 = pool.acquire().block();
+		assertThat(ref2.poolable()).isEqualTo(1);
+		assertThat(ref2.acquireCount()).isEqualTo(2);
+		assertThat(allocated.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void releaseTwiceIsNoOp() {
+		Pool<Integer> pool = builder().sizeMax(2).build();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+		ref.release().block();
+		ref.release().block();
+
+		assertThat(pool.idleSize()).isEqualTo(1);
+		assertThat(pool.acquiredSize()).isZero();
+	}
+
+	@Test
+	public void pendingAcquireServedOnRelease() {
+		Pool<Integer> pool = builder().sizeMax(1).build();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+
+		AssertSubscriber<PooledRef<Integer>> ts = AssertSubscriber.create();
+		pool.acquire().subscribe(ts);
+
+		ts.assertNoValues();
+		assertThat(pool.pendingAcquireSize()).isEqualTo(1);
+
+		ref.release().block();
+
+		ts.assertValueCount(1)
+		  .assertComplete();
+		assertThat(ts.values().get(0).poolable()).isEqualTo(1);
+		assertThat(pool.pendingAcquireSize()).isZero();
+		assertThat(allocated.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void pendingAcquireFifo() {
+		Pool<Integer> pool = builder().sizeMax(1).build();
+		List<Integer> order = new ArrayList<>();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+
+		pool.acquire().subscribe(r -> { order.add(1); r.release().subscribe(); });
+		pool.acquire().subscribe(r -> { order.add(2); r.release().subscribe(); });
+		pool.acquire().subscribe(r -> { order.add(3); r.release().subscribe(); });
+
+		ref.release().block();
+
+		assertThat(order).containsExactly(1, 2, 3);
+	}
+
+	@Test
+	public void pendingAcquireLifo() {
+		Pool<Integer> pool = builder().sizeMax(1).lifo(true).build();
+		List<Integer> order = new ArrayList<>();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+
+		pool.acquire().subscribe(r -> { order.add(1); r.release().subscribe(); });
+		pool.acquire().subscribe(r -> { order.add(2); r.release().subscribe(); });
+		pool.acquire().subscribe(r -> { order.add(3); r.release().subscribe(); });
+
+		ref.release().block();
+
+		assertThat(order).containsExactly(3, 2, 1);
+	}
+
+	@Test
+	public void maxPendingAcquireOverflows() {
+		Pool<Integer> pool = builder().sizeMax(1).maxPendingAcquire(1).build();
+
+		pool.acquire().block();
+		pool.acquire().subscribe();
+
+		StepVerifier.create(pool.acquire())
+		            .verifyErrorMatches(e -> e instanceof IllegalStateException
+				            && e.getMessage().startsWith("Too many pending acquisitions"));
+	}
+
+	@Test
+	public void cancelledPendingAcquireIsRemoved() {
+		Pool<Integer> pool = builder().sizeMax(1).build();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+
+		AssertSubscriber<PooledRef<Integer>> ts = AssertSubscriber.create();
+		pool.acquire().subscribe(ts);
+		assertThat(pool.pendingAcquireSize()).isEqualTo(1);
+
+		ts.cancel();
+		assertThat(pool.pendingAcquireSize()).isZero();
+
+		ref.release().block();
+		ts.assertNoValues();
+		assertThat(pool.idleSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void invalidateDestroysAndFreesSlot() {
+		Pool<Integer> pool = builder().sizeMax(1).build();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+		ref.invalidate().block();
+
+		assertThat(destroyed.get()).isEqualTo(1);
+		assertThat(pool.allocatedSize()).isZero();
+
+		assertThat(pool.acquire().block().poolable()).isEqualTo(2);
+	}
+
+	@Test
+	public void releaseHandlerErrorInvalidates() {
+		Pool<Integer> pool = builder().sizeMax(1)
+		                              .releaseHandler(v -> Mono.error(new IllegalStateException("boom")))
+		                              .build();
+
+		PooledRef<Integer> ref = pool.acquire().block();
+
+		StepVerifier.create(ref.release())
+		            .verifyErrorMessage("boom");
+
+		assertThat(destroyed.get()).isEqualTo(1);
+		assertThat(pool.allocatedSize()).isZero();
+	}
+
+	@Test
+	public void allocatorErrorFreesSlot() {
+		AtomicInteger attempts = new AtomicInteger();
+		Pool<Integer> pool = Pool.builder(Mono.fromCallable(() -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("boom");
+			}
+			return 10;
+		}))
+		                         .sizeMax(1)
+		                         .build();
+
+		StepVerifier.create(pool.acquire())
+		            .verifyErrorMessage("boom");
+		assertThat(pool.allocatedSize()).isZero();
+		assertThat(pool.acquiredSize()).isZero();
+
+		assertThat(pool.acquire().block().poolable()).isEqualTo(10);
+	}
+
+	@Test
+	public void withPoolableReleasesInsteadOfDestroying() {
+		Pool<Integer> pool = builder().sizeMax(1).build();
+
+		StepVerifier.create(pool.withPoolable(v -> Flux.just(v, v * 10)))
+		            .expectNext(1, 10)
+		            .verifyComplete();
+
+		StepVerifier.create(pool.withPoolable(v -> Flux.just(v, v * 10)))
+		            .expectNext(1, 10)
+		            .verifyComplete();
+
+		assertThat(allocated.get()).isEqualTo(1);
+		assertThat(destroyed.get()).isZero();
+		assertThat(pool.idleSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void warmup() {
+		Pool<Integer> pool = builder().sizeMin(3).sizeMax(5).build();
+
+		StepVerifier.create(pool.warmup())
+		            .expectNext(3)
+		            .verifyComplete();
+
+		assertThat(pool.idleSize()).isEqualTo(3);
+
+		StepVerifier.create(pool.warmup())
+		            .expectNext(0)
+		            .verifyComplete();
+	}
+
+	@Test
+	public void idleEviction() {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		Pool<Integer> pool = builder().sizeMin(1)
+		                              .sizeMax(3)
+		                              .evictionIdle(Duration.ofSeconds(10), vts)
+		                              .build();
+
+		PooledRef<Integer> ref1 = pool.acquire().block();
+		PooledRef<Integer> ref2 = pool.acquire().block();
+		PooledRef<Integer> ref3 = pool.acquire().block();
+
+		ref1.release().block();
+		vts.advanceTimeBy(Duration.ofSeconds(5));
+		ref2.release().block();
+		ref3.release().block();
+
+		vts.advanceTimeBy(Duration.ofSeconds(5));
+		assertThat(destroyed.get()).isEqualTo(1);
+		assertThat(pool.idleSize()).isEqualTo(2);
+
+		vts.advanceTimeBy(Duration.ofSeconds(10));
+		assertThat(destroyed.get()).isEqualTo(2);
+		assertThat(pool.allocatedSize()).isEqualTo(1);
+
+		pool.dispose();
+	}
+
+	@Test
+	public void disposeFailsPendingAndDestroysIdle() {
+		Pool<Integer> pool = builder().sizeMax(2).build();
+
+		PooledRef<Integer> ref1 = pool.acquire().block();
+		PooledRef<Integer> ref2 = pool.acquire().block();
+		ref1.release().block();
+		pool.acquire().block();
+
+		AssertSubscriber<PooledRef<Integer>> ts = AssertSubscriber.create();
+		pool.acquire().subscribe(ts);
+
+		pool.dispose();
+
+		ts.assertError(IllegalStateException.class)
+		  .assertErrorMessage("Pool has been disposed");
+
+		ref2.release().block();
+		assertThat(destroyed.get()).isEqualTo(1);
+		assertThat(pool.isDisposed()).isTrue();
+
+		StepVerifier.create(pool.acquire())
+		            .verifyErrorMessage("Pool has been disposed");
+	}
+
+	@Test
+	public void scanPool() {
+		Pool<Integer> pool = builder().sizeMax(4).build();
+		pool.acquire().block().release().block();
+
+		assertThat(pool.scan(Scannable.IntAttr.CAPACITY)).isEqualTo(4);
+		assertThat(pool.scan(Scannable.IntAttr.BUFFERED)).isEqualTo(1);
+		assertThat(pool.scan(Scannable.BooleanAttr.TERMINATED)).isFalse();
+		pool.dispose();
+		assertThat(pool.scan(Scannable.BooleanAttr.TERMINATED)).isTrue();
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+public class QuantileSketchTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void relativeAccuracyInvalid() {
+		new QuantileSketch(1d);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void quantileInvalid() {
+		Flux.range(1, 10).quantiles(i -> i, 0.5d, 1.5d);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void noQuantiles() {
+		Flux.range(1, 10).quantiles(i -> i);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nanRejected() {
+		new QuantileSketch().add(Double.NaN);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mergeDifferentAccuracy() {
+		new QuantileSketch(0.01d).merge(new QuantileSketch(0.02d));
+	}
+
+	@Test
+	public void empty() {
+		QuantileSketch sketch = new QuantileSketch();
+
+		assertThat(sketch.count()).isZero();
+		assertThat(sketch.quantile(0.5d)).isNaN();
+		assertThat(sketch.min()).isNaN();
+		assertThat(sketch.max()).isNaN();
+	}
+
+	@Test
+	public void extremesAreExact() {
+		QuantileSketch sketch = new QuantileSketch();
+		for (int i = 1; i <= 1000; i++) {
+			sketch.add(i * 1.5d);
+		}
+
+		assertThat(sketch.count()).isEqualTo(1000L);
+		assertThat(sketch.quantile(0d)).isEqualTo(1.5d);
+		assertThat(sketch.quantile(1d)).isEqualTo(1500d);
+	}
+
+	@Test
+	public void quantilesWithinRelativeAccuracy() {
+		Random random = new Random(42);
+		double[] values = new double[100_000];
+		QuantileSketch sketch = new QuantileSketch(0.01d);
+		for (int i = 0; i < values.length; i++) {
+			//log-normal, like latencies
+			values[i] = Math.exp(random.nextGaussian() * 2d + 5d);
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+
+		for (double q : new double[]{0.01d, 0.25d, 0.5d, 0.9d, 0.99d, 0.999d}) {
+			double expected = values[(int) (q * (values.length - 1))];
+			assertThat(sketch.quantile(q)).as("q=%s", q)
+			                              .isCloseTo(expected, withinPercentage(1));
+		}
+	}
+
+	@Test
+	public void positiveInfinityIsCountedAtTheTop() {
+		QuantileSketch sketch = new QuantileSketch();
+		sketch.add(Double.POSITIVE_INFINITY);
+		for (int i = 1; i <= 100; i++) {
+			sketch.add(i);
+		}
+		sketch.add(Double.POSITIVE_INFINITY);
+
+		assertThat(sketch.count()).isEqualTo(102L);
+		assertThat(sketch.max()).isEqualTo(Double.POSITIVE_INFINITY);
+		assertThat(sketch.quantile(0d)).isEqualTo(1d);
+		assertThat(sketch.quantile(0.5d)).isCloseTo(51d, withinPercentage(1));
+		assertThat(sketch.quantile(0.995d)).isEqualTo(Double.POSITIVE_INFINITY);
+		assertThat(sketch.quantile(1d)).isEqualTo(Double.POSITIVE_INFINITY);
+	}
+
+	@Test
+	public void negativeInfinityIsCountedAtTheBottom() {
+		QuantileSketch sketch = new QuantileSketch();
+		sketch.add(Double.NEGATIVE_INFINITY);
+		for (int i = 1; i <= 100; i++) {
+			sketch.add(-i);
+		}
+		sketch.add(Double.NEGATIVE_INFINITY);
+
+		assertThat(sketch.min()).isEqualTo(Double.NEGATIVE_INFINITY);
+		assertThat(sketch.quantile(0.005d)).isEqualTo(Double.NEGATIVE_INFINITY);
+		assertThat(sketch.quantile(0.5d)).isCloseTo(-52d, withinPercentage(1));
+		assertThat(sketch.quantile(1d)).isEqualTo(-1d);
+
+		QuantileSketch other = new QuantileSketch().add(Double.POSITIVE_INFINITY);
+		sketch.merge(other);
+		assertThat(sketch.count()).isEqualTo(103L);
+		assertThat(sketch.quantile(1d)).isEqualTo(Double.POSITIVE_INFINITY);
+		assertThat(sketch.quantile(0.99d)).isCloseTo(-2d, withinPercentage(1));
+	}
+
+	@Test
+	public void negativesAndZeros() {
+		QuantileSketch sketch = new QuantileSketch();
+		for (int i = -100; i <= 100; i++) {
+			sketch.add(i);
+		}
+
+		assertThat(sketch.quantile(0d)).isEqualTo(-100d);
+		assertThat(sketch.quantile(0.25d)).isCloseTo(-50d, withinPercentage(1));
+		assertThat(sketch.quantile(0.5d)).isZero();
+		assertThat(sketch.quantile(0.75d)).isCloseTo(50d, withinPercentage(1));
+		assertThat(sketch.quantile(1d)).isEqualTo(100d);
+	}
+
+	@Test
+	public void mergeMatchesSingleSketch() {
+		QuantileSketch all = new QuantileSketch();
+		QuantileSketch low = new QuantileSketch();
+		QuantileSketch high = new QuantileSketch();
+		for (int i = 1; i <= 10_000; i++) {
+			all.add(i);
+			(i % 3 == 0 ? low : high).add(i);
+		}
+		low.merge(high);
+
+		assertThat(low.count()).isEqualTo(all.count());
+		assertThat(low.min()).isEqualTo(all.min());
+		assertThat(low.max()).isEqualTo(all.max());
+		for (double q = 0d; q <= 1d; q += 0.05d) {
+			assertThat(low.quantile(q)).isEqualTo(all.quantile(q));
+		}
+	}
+
+	@Test
+	public void bucketsGrowOverWideRanges() {
+		QuantileSketch sketch = new QuantileSketch();
+		sketch.add(1_000d);
+		sketch.add(1e-6d);
+		sketch.add(1e9d);
+
+		assertThat(sketch.quantile(0d)).isEqualTo(1e-6d);
+		assertThat(sketch.quantile(0.5d)).isCloseTo(1_000d, withinPercentage(1));
+		assertThat(sketch.quantile(1d)).isEqualTo(1e9d);
+		//from 1e-6 to 1e9 at 1% accuracy
+		assertThat(sketch.positives.counts.length).isLessThan(4 * 1024);
+	}
+
+	@Test
+	public void fluxQuantiles() {
+		StepVerifier.create(Flux.range(1, 1000)
+		                        .quantiles(i -> i, 0.5d, 0.99d))
+		            .assertNext(q -> {
+			            assertThat(q[0]).isCloseTo(500d, withinPercentage(1));
+			            assertThat(q[1]).isCloseTo(990d, withinPercentage(1));
+		            })
+		            .verifyComplete();
+	}
+
+	@Test
+	public void fluxQuantilesEmpty() {
+		StepVerifier.create(Flux.<Integer>empty().quantiles(i -> i, 0.5d))
+		            .verifyComplete();
+	}
+
+	@Test
+	public void fluxQuantilesExtractorError() {
+		StepVerifier.create(Flux.range(1, 10)
+		                        .quantiles(i -> {
+			                        throw new IllegalStateException("boom");
+		                        }, 0.5d))
+		            .verifyErrorMessage("boom");
+	}
+
+	@Test
+	public void fluxQuantilesWindowed() {
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(10))
+		                                       .quantiles(Duration.ofSeconds(1), t -> t % 100, 0.5d))
+		            .thenAwait(Duration.ofSeconds(3))
+		            .assertNext(q -> assertThat(q[0]).isCloseTo(49d, offset(1d)))
+		            .assertNext(q -> assertThat(q[0]).isCloseTo(49d, offset(1d)))
+		            .assertNext(q -> assertThat(q[0]).isCloseTo(49d, offset(1d)))
+		            .thenCancel()
+		            .verify();
+	}
+
+	@Test
+	public void parallelQuantilesMergeRails() {
+		StepVerifier.create(Flux.range(1, 10_000)
+		                        .parallel(4)
+		                        .runOn(Schedulers.parallel())
+		                        .collectQuantileSketch(i -> i, 0.01d))
+		            .assertNext(sketch -> {
+			            assertThat(sketch.count()).isEqualTo(10_000L);
+			            assertThat(sketch.min()).isEqualTo(1d);
+			            assertThat(sketch.max()).isEqualTo(10_000d);
+			            assertThat(sketch.quantile(0.5d)).isCloseTo(5_000d, withinPercentage(1));
+		            })
+		            .verifyComplete();
+
+		StepVerifier.create(Flux.range(1, 1000)
+		                        .parallel(3)
+		                        .quantiles(i -> i, 0.9d))
+		            .assertNext(q -> assertThat(q[0]).isCloseTo(900d, offset(9d)))
+		            .verifyComplete();
+	}
+}
@@ -15,6 +15,10 @@
  */
 package reactor.core.publisher;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -694,7 +698,7 @@ public class TopicProcessorTest {
 		Subscriber<String> activated = new LambdaSubscriber<>(null, e -> {}, null, null);
 
 		TopicProcessor.TopicInner<String> test = new TopicProcessor.TopicInner<>(
-				main, sequence, activated);
+				main, sequence, activated, false);
 
 		assertThat(test.scan(Scannable.ScannableAttr.PARENT)).isSameAs(main);
 		assertThat(test.scan(Scannable.ScannableAttr.ACTUAL)).isSameAs(activated);
@@ -718,7 +722,7 @@ public class TopicProcessorTest {
 		TopicProcessor<String> main = TopicProcessor.create("name", 16);
 		RingBuffer.Sequence sequence = RingBuffer.newSequence(123);
 		Subscriber<String> sub = new LambdaSubscriber<>(null, e -> {}, null, null);
-		TopicProcessor.TopicInner<String> test = new TopicProcessor.TopicInner<>(main, sequence, sub);
+		TopicProcessor.TopicInner<String> test = new TopicProcessor.TopicInner<>(main, sequence, sub, false);
 
 		main.ringBuffer.getSequencer().cursor.set(Integer.MAX_VALUE + 5L);
 		test.sequence.set(6L);
@@ -732,7 +736,7 @@ public class TopicProcessorTest {
 		TopicProcessor<String> main = TopicProcessor.create("name", 16);
 		RingBuffer.Sequence sequence = RingBuffer.newSequence(123);
 		Subscriber<String> sub = new LambdaSubscriber<>(null, e -> {}, null, null);
-		TopicProcessor.TopicInner<String> test = new TopicProcessor.TopicInner<>(main, sequence, sub);
+		TopicProcessor.TopicInner<String> test = new TopicProcessor.TopicInner<>(main, sequence, sub, false);
 
 		main.ringBuffer.getSequencer().cursor.set(Integer.MAX_VALUE + 5L);
 		test.sequence.set(2L);
@@ -766,4 +770,45 @@ public class TopicProcessorTest {
 		if (requestTaskExecutor != null)
 			assertEquals(requestTaskExecutor, processor.requestTaskExecutor);
 	}
+
+	@Test
+	public void batchesHandOverAvailableRange() throws InterruptedException {
+		TopicProcessor<Integer> processor = TopicProcessor.<Integer>builder().name("batches").bufferSize(16).build();
+		AssertSubscriber<List<Integer>> ts = AssertSubscriber.create(0);
+		processor.batches()
+		         .<List<Integer>>map(ArrayList::new)
+		         .subscribe(ts);
+
+		for (int i = 1; i <= 8; i++) {
+			processor.onNext(i);
+		}
+		ts.request(1);
+		processor.onComplete();
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValues(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8))
+		  .assertComplete();
+	}
+
+	@Test
+	public void batchesDeliverAllValuesInOrder() throws InterruptedException {
+		TopicProcessor<Integer> processor = TopicProcessor.<Integer>builder().name("batches").bufferSize(16).build();
+		AssertSubscriber<List<Integer>> ts = AssertSubscriber.create();
+		processor.batches()
+		         .<List<Integer>>map(ArrayList::new)
+		         .subscribe(ts);
+
+		Flux.range(1, 1000).subscribe(processor);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertComplete();
+
+		List<Integer> all = new ArrayList<>();
+		for (List<Integer> batch : ts.values()) {
+			assertThat(batch.size()).isBetween(1, 16);
+			all.addAll(batch);
+		}
+		assertThat(all).containsExactlyElementsOf(Flux.range(1, 1000).toIterable());
+	}
+
 }
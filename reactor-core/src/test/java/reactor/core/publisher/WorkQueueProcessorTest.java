@@ -17,6 +17,8 @@
 package reactor.core.publisher;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
@@ -49,6 +51,7 @@ import reactor.test.StepVerifier;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 import reactor.util.concurrent.QueueSupplier;
+import reactor.test.subscriber.AssertSubscriber;
 import reactor.util.concurrent.WaitStrategy;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -1314,7 +1317,7 @@ public class WorkQueueProcessorTest {
 		Subscriber<String> subscriber = new LambdaSubscriber<>(null, e -> {}, null, null);
 
 		WorkQueueProcessor.WorkQueueInner<String> test = new WorkQueueProcessor.WorkQueueInner<>(
-				subscriber, main);
+				subscriber, main, false);
 
 		Assertions.assertThat(test.scan(Scannable.ScannableAttr.PARENT)).isSameAs(main);
 		Assertions.assertThat(test.scan(Scannable.ScannableAttr.ACTUAL)).isSameAs(subscriber);
@@ -1360,4 +1363,55 @@ public class WorkQueueProcessorTest {
 		if (requestTaskExecutor != null)
 			assertEquals(requestTaskExecutor, processor.requestTaskExecutor);
 	}
+
+	@Test
+	public void batchesHandOverAvailableRange() throws InterruptedException {
+		WorkQueueProcessor<Integer> processor = WorkQueueProcessor.<Integer>builder().name("batches").bufferSize(16).build();
+		AssertSubscriber<List<Integer>> ts = AssertSubscriber.create(0);
+		processor.batches()
+		         .<List<Integer>>map(ArrayList::new)
+		         .subscribe(ts);
+
+		for (int i = 1; i <= 8; i++) {
+			processor.onNext(i);
+		}
+		ts.request(1);
+		processor.onComplete();
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValues(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8))
+		  .assertComplete();
+	}
+
+	@Test
+	public void batchesShareWorkBetweenSubscribers() throws InterruptedException {
+		WorkQueueProcessor<Integer> processor = WorkQueueProcessor.<Integer>builder().name("batches").bufferSize(16).build();
+		AssertSubscriber<List<Integer>> ts1 = AssertSubscriber.create();
+		AssertSubscriber<List<Integer>> ts2 = AssertSubscriber.create();
+		processor.batches()
+		         .<List<Integer>>map(ArrayList::new)
+		         .subscribe(ts1);
+		processor.batches()
+		         .<List<Integer>>map(ArrayList::new)
+		         .subscribe(ts2);
+
+		Flux.range(1, 1000).subscribe(processor);
+
+		ts1.await(Duration.ofSeconds(5))
+		   .assertComplete();
+		ts2.await(Duration.ofSeconds(5))
+		   .assertComplete();
+
+		List<Integer> all = new ArrayList<>();
+		for (List<Integer> batch : ts1.values()) {
+			all.addAll(batch);
+		}
+		for (List<Integer> batch : ts2.values()) {
+			all.addAll(batch);
+		}
+		Assertions.assertThat(all).containsOnlyElementsOf(Flux.range(1, 1000).toIterable())
+		          .doesNotHaveDuplicates()
+		          .hasSize(1000);
+	}
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedVirtualSchedulerTest extends AbstractSchedulerTest {
+
+	@Override
+	protected boolean shouldCheckDisposeTask() {
+		return false;
+	}
+
+	@Override
+	protected Scheduler scheduler() {
+		return Schedulers.newBoundedVirtual("test", 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxConcurrencyInvalid() {
+		Schedulers.newBoundedVirtual("test", 0);
+	}
+
+	@Test(timeout = 10000)
+	public void concurrencyIsCapped() throws InterruptedException {
+		Scheduler s = Schedulers.newBoundedVirtual("test-cap", 3);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(50);
+		try {
+			for (int i = 0; i < 50; i++) {
+				s.schedule(() -> {
+					int r = running.incrementAndGet();
+					maxRunning.accumulateAndGet(r, Math::max);
+					try {
+						Thread.sleep(2);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					done.countDown();
+				});
+			}
+			assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(maxRunning.get()).isBetween(1, 3);
+			assertThat(((BoundedVirtualScheduler) s).active).isLessThanOrEqualTo(3);
+		}
+		finally {
+			s.dispose();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void blockingCallsOffloaded() {
+		Scheduler s = Schedulers.newBoundedVirtual("test-blocking", 100);
+		try {
+			StepVerifier.create(Flux.range(1, 100)
+			                        .flatMap(i -> Mono.fromCallable(() -> {
+				                        Thread.sleep(50);
+				                        return i;
+			                        })
+			                                          .subscribeOn(s), 100)
+			                        .count())
+			            .expectNext(100L)
+			            .verifyComplete();
+		}
+		finally {
+			s.dispose();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void delayedTaskCancelledBeforeTimer() throws InterruptedException {
+		Scheduler s = Schedulers.newBoundedVirtual("test-delay", 2);
+		AtomicInteger runs = new AtomicInteger();
+		try {
+			Disposable d = s.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+			d.dispose();
+			Thread.sleep(100);
+
+			assertThat(d.isDisposed()).isTrue();
+			assertThat(runs.get()).isZero();
+		}
+		finally {
+			s.dispose();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void customTimerIsNotDisposed() {
+		Scheduler timer = Schedulers.newSingle("test-timer");
+		Scheduler s = Schedulers.newBoundedVirtual(2,
+				BoundedVirtualScheduler.threadFactory("test-custom"),
+				timer);
+		try {
+			StepVerifier.create(Mono.delay(Duration.ofMillis(10), s))
+			            .expectNext(0L)
+			            .verifyComplete();
+		}
+		finally {
+			s.dispose();
+		}
+		assertThat(s.isDisposed()).isTrue();
+		assertThat(timer.isDisposed()).isFalse();
+		timer.dispose();
+	}
+
+	@Test(timeout = 10000)
+	public void workerDisposeDisposesRunningTask() throws InterruptedException {
+		Scheduler s = Schedulers.newBoundedVirtual("test-worker", 2);
+		Scheduler.Worker w = s.createWorker();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			Disposable running = w.schedule(() -> {
+				started.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			Disposable queued = w.schedule(() -> { });
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+			w.dispose();
+
+			assertThat(running.isDisposed()).isTrue();
+			assertThat(queued.isDisposed()).isTrue();
+		}
+		finally {
+			release.countDown();
+			s.dispose();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void slowPeriodicTaskDoesNotOverlap() throws InterruptedException {
+		Scheduler s = Schedulers.newBoundedVirtual("test-periodic", 4);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch runs = new CountDownLatch(3);
+		try {
+			Disposable d = s.schedulePeriodically(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(20);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				runs.countDown();
+			}, 0, 1, TimeUnit.MILLISECONDS);
+
+			assertThat(runs.await(5, TimeUnit.SECONDS)).isTrue();
+			d.dispose();
+
+			assertThat(maxRunning.get()).isEqualTo(1);
+		}
+		finally {
+			s.dispose();
+		}
+	}
+
+	@Test
+	public void defaultConcurrencyFollowsThreadKind() {
+		if (BoundedVirtualScheduler.isVirtualThreadsSupported()) {
+			assertThat(Schedulers.DEFAULT_BOUNDED_VIRTUAL_CONCURRENCY).isEqualTo(100_000);
+		}
+		else {
+			assertThat(Schedulers.DEFAULT_BOUNDED_VIRTUAL_CONCURRENCY)
+					.isEqualTo(10 * Schedulers.DEFAULT_POOL_SIZE);
+			assertThat(BoundedVirtualScheduler.threadFactory("test-kind"))
+					.isInstanceOf(Schedulers.SchedulerThreadFactory.class);
+		}
+	}
+
+	@Test
+	public void sharedInstanceIsCached() {
+		assertThat(Schedulers.boundedVirtual()).isSameAs(Schedulers.boundedVirtual());
+	}
+
+	@Test
+	public void pluggedIntoFactory() {
+		AtomicInteger calls = new AtomicInteger();
+		Schedulers.setFactory(new Schedulers.Factory() {
+			@Override
+			public Scheduler newBoundedVirtual(int maxConcurrency,
+					java.util.concurrent.ThreadFactory threadFactory) {
+				calls.incrementAndGet();
+				return Schedulers.Factory.super.newBoundedVirtual(maxConcurrency, threadFactory);
+			}
+		});
+		try {
+			Scheduler s = Schedulers.newBoundedVirtual("test-factory", 2);
+			s.dispose();
+			assertThat(calls.get()).isEqualTo(1);
+		}
+		finally {
+			Schedulers.resetFactory();
+		}
+	}
+}
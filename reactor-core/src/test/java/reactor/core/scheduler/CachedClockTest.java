@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachedClockTest {
+
+	CachedClock clock;
+
+	@After
+	public void tearDown() {
+		Schedulers.resetClock();
+		if (clock != null) {
+			clock.dispose();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void resolutionTooSmall() {
+		CachedClock.create(Duration.ofNanos(10));
+	}
+
+	@Test
+	public void timeIsCachedUntilNextRefresh() throws InterruptedException {
+		clock = CachedClock.create(Duration.ofHours(1));
+		long millis = clock.currentTimeMillis();
+		long nanos = clock.nanoTime();
+
+		Thread.sleep(20);
+
+		assertThat(clock.currentTimeMillis()).isEqualTo(millis);
+		assertThat(clock.nanoTime()).isEqualTo(nanos);
+		assertThat(clock.now(TimeUnit.SECONDS)).isEqualTo(millis / 1000);
+		assertThat(clock.resolution()).isEqualTo(Duration.ofHours(1));
+	}
+
+	@Test
+	public void earlyWakeupDoesNotRefresh() throws InterruptedException {
+		clock = CachedClock.create(Duration.ofHours(1));
+		long millis = clock.currentTimeMillis();
+		long nanos = clock.nanoTime();
+
+		for (int i = 0; i < 10; i++) {
+			Thread.sleep(2);
+			LockSupport.unpark(clock.thread);
+		}
+		Thread.sleep(20);
+
+		assertThat(clock.currentTimeMillis()).isEqualTo(millis);
+		assertThat(clock.nanoTime()).isEqualTo(nanos);
+		assertThat(clock.thread.isAlive()).isTrue();
+	}
+
+	@Test
+	public void timeIsRefreshed() throws InterruptedException {
+		clock = CachedClock.create(Duration.ofMillis(1));
+		long millis = clock.currentTimeMillis();
+
+		Thread.sleep(50);
+
+		assertThat(clock.currentTimeMillis()).isGreaterThan(millis);
+	}
+
+	@Test
+	public void disposedClockReadsSystemClock() throws InterruptedException {
+		clock = CachedClock.create(Duration.ofHours(1));
+		long millis = clock.currentTimeMillis();
+		clock.dispose();
+
+		Thread.sleep(20);
+
+		assertThat(clock.isDisposed()).isTrue();
+		assertThat(clock.currentTimeMillis()).isGreaterThan(millis);
+		assertThat(clock.thread.isAlive()).isFalse();
+	}
+
+	@Test
+	public void withClock() throws InterruptedException {
+		clock = CachedClock.create(Duration.ofHours(1));
+		Scheduler scheduler = Schedulers.withClock(Schedulers.immediate(), clock);
+		Thread.sleep(20);
+
+		assertThat(scheduler.now(TimeUnit.MILLISECONDS)).isEqualTo(clock.currentTimeMillis());
+
+		StepVerifier.create(Flux.just("a", "b")
+		                        .timestamp(scheduler)
+		                        .map(t -> t.getT1()))
+		            .expectNext(clock.currentTimeMillis(), clock.currentTimeMillis())
+		            .verifyComplete();
+	}
+
+	@Test
+	public void setClockAppliesToSharedSchedulers() throws InterruptedException {
+		clock = CachedClock.create(Duration.ofHours(1));
+		Schedulers.setClock(clock);
+		Thread.sleep(20);
+
+		assertThat(Schedulers.parallel().now(TimeUnit.MILLISECONDS)).isEqualTo(clock.currentTimeMillis());
+		StepVerifier.create(Flux.just("a")
+		                        .timestamp()
+		                        .map(t -> t.getT1()))
+		            .expectNext(clock.currentTimeMillis())
+		            .verifyComplete();
+
+		Schedulers.resetClock();
+
+		assertThat(Schedulers.parallel().now(TimeUnit.MILLISECONDS)).isGreaterThan(clock.currentTimeMillis());
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2011-2017 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class WaitStrategyTest {
+
+	static final Runnable NOOP = () -> { };
+
+	@Test(expected = IllegalArgumentException.class)
+	public void adaptiveTargetLatencyTooSmall() {
+		WaitStrategy.adaptive(10, TimeUnit.NANOSECONDS);
+	}
+
+	@Test
+	public void adaptiveAvailableSequenceIsNotAWait() throws InterruptedException {
+		WaitStrategy.Adaptive strategy = WaitStrategy.adaptive(1, TimeUnit.MILLISECONDS);
+
+		assertThat(strategy.waitFor(3, () -> 5L, NOOP)).isEqualTo(5L);
+		assertThat(strategy.waits()).isZero();
+	}
+
+	@Test
+	public void adaptiveSpinHit() throws InterruptedException {
+		WaitStrategy.Adaptive strategy = WaitStrategy.adaptive(1, TimeUnit.SECONDS);
+		AtomicInteger reads = new AtomicInteger();
+
+		assertThat(strategy.waitFor(1, () -> reads.incrementAndGet() > 3 ? 1L : 0L, NOOP)).isEqualTo(1L);
+
+		assertThat(strategy.waits()).isEqualTo(1L);
+		assertThat(strategy.spinHits()).isEqualTo(1L);
+		assertThat(strategy.phase()).isEqualTo(WaitStrategy.Adaptive.Phase.SPIN);
+	}
+
+	@Test
+	public void adaptiveLongWaitParksAndShrinksSpin() throws InterruptedException {
+		WaitStrategy.Adaptive strategy = WaitStrategy.adaptive(200, TimeUnit.MICROSECONDS);
+		long initialSpin = strategy.spinBudgetNanos();
+		List<WaitStrategy.Adaptive.Phase> phases = new ArrayList<>();
+
+		//the sequence only becomes available once the consumer decided to park
+		LongSupplier cursor = () -> {
+			WaitStrategy.Adaptive.Phase p = strategy.phase();
+			if (phases.isEmpty() || phases.get(phases.size() - 1) != p) {
+				phases.add(p);
+			}
+			return p == WaitStrategy.Adaptive.Phase.PARK ? 1L : 0L;
+		};
+
+		assertThat(strategy.waitFor(1, cursor, NOOP)).isEqualTo(1L);
+
+		assertThat(phases).startsWith(WaitStrategy.Adaptive.Phase.SPIN)
+		                  .endsWith(WaitStrategy.Adaptive.Phase.PARK)
+		                  .isSorted();
+		assertThat(strategy.waits()).isEqualTo(1L);
+		assertThat(strategy.parkHits()).isEqualTo(1L);
+		assertThat(strategy.phase()).isEqualTo(WaitStrategy.Adaptive.Phase.PARK);
+		assertThat(strategy.spinBudgetNanos()).isLessThan(initialSpin);
+		assertThat(strategy.averageWaitNanos()).isGreaterThan(0L);
+		assertThat(strategy.parkNanos()).isBetween(1_000L, strategy.targetLatencyNanos());
+	}
+
+	@Test
+	public void adaptiveParkBoundedByTargetLatency() throws InterruptedException {
+		WaitStrategy.Adaptive strategy = WaitStrategy.adaptive(10, TimeUnit.MICROSECONDS);
+		AtomicLong cursor = new AtomicLong();
+
+		for (int i = 1; i <= 3; i++) {
+			long target = i;
+			new Thread(() -> {
+				try {
+					Thread.sleep(20);
+				}
+				catch (InterruptedException e) {
+					//ignore
+				}
+				cursor.set(target);
+			}).start();
+			strategy.waitFor(i, cursor::get, NOOP);
+		}
+
+		assertThat(strategy.waits()).isEqualTo(3L);
+		assertThat(strategy.parkNanos()).isEqualTo(strategy.targetLatencyNanos());
+		assertThat(strategy.spinBudgetNanos()).isEqualTo(1_000L);
+	}
+
+	@Test
+	public void adaptiveAlertWhileWaiting() throws InterruptedException {
+		WaitStrategy.Adaptive strategy = WaitStrategy.adaptive(1, TimeUnit.MILLISECONDS);
+		AtomicInteger checks = new AtomicInteger();
+
+		try {
+			strategy.waitFor(1, () -> 0L, () -> {
+				if (checks.incrementAndGet() == 10_000) {
+					WaitStrategy.alert();
+				}
+			});
+			fail("expected an alert");
+		}
+		catch (Throwable e) {
+			assertThat(WaitStrategy.isAlert(e)).isTrue();
+		}
+	}
+}